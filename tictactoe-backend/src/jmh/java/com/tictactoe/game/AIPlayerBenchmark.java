@@ -0,0 +1,67 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AIPlayer move selection for every difficulty on empty, mid-game and
+ * near-terminal 3x3 boards (AI to move as 'O', as in single-player games).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AIPlayerBenchmark {
+
+    public enum Position {
+        // X has played the center, O to move
+        EMPTY(new String[] {null, null, null, null, "X", null, null, null, null}),
+        MID_GAME(new String[] {"X", null, null, null, "O", null, null, "X", null}),
+        NEAR_TERMINAL(new String[] {"X", "O", "X", "X", "O", null, "O", "X", null});
+
+        final String[] board;
+
+        Position(String[] board) {
+            this.board = board;
+        }
+    }
+
+    @Param({"EASY", "MEDIUM", "HARD", "MCTS"})
+    public Game.AIDifficulty difficulty;
+
+    @Param({"EMPTY", "MID_GAME", "NEAR_TERMINAL"})
+    public Position position;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = new Game();
+        game.setBoard(position.board);
+        game.setCurrentPlayer("O");
+        PerfectPlayTable.get(); // solve the table outside the measurement
+    }
+
+    @Benchmark
+    public int nextMove() {
+        return AIPlayer.getNextMove(game.oBits(), game.xBits(), difficulty);
+    }
+
+    @Benchmark
+    public AIDecision decide() {
+        return AIPlayer.decide(game, difficulty, 500, null);
+    }
+}
@@ -0,0 +1,50 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Arena throughput in games per second, single-threaded so engine changes
+ * compare without core-count noise. One invocation plays one block of games.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArenaBenchmark {
+
+    @Param({"EASY:MEDIUM", "MEDIUM:HARD", "HARD:HARD"})
+    public String match;
+
+    private Arena.Contestant a;
+    private Arena.Contestant b;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        String[] sides = match.split(":");
+        a = Arena.Contestant.parse(sides[0]);
+        b = Arena.Contestant.parse(sides[1]);
+        PerfectPlayTable.get(); // solve the table outside the measurement
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Arena.BLOCK_SIZE)
+    public Arena.Result games() {
+        return Arena.run(a, b, Arena.BLOCK_SIZE, seed++, 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Game.makeMove, including the win/draw check it runs after every move.
+ * Each invocation plays one whole game and restarts it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    // 9 moves ending in a draw: every move runs the full win check
+    private static final int[] DRAW_GAME = {4, 0, 8, 2, 1, 7, 6, 3, 5};
+
+    // X wins on the 5th move (top row)
+    private static final int[] WIN_GAME = {0, 4, 1, 5, 2};
+
+    // 15x15 gomoku, X wins with five on the diagonal
+    private static final int[] GOMOKU_WIN_GAME = {112, 113, 96, 97, 80, 81, 128, 129, 144};
+
+    private Game classic;
+    private Game gomoku;
+
+    @Setup
+    public void setUp() {
+        classic = new Game();
+        gomoku = new Game();
+        gomoku.resize(15, 5);
+    }
+
+    @Benchmark
+    public String drawGame() {
+        return play(classic, DRAW_GAME);
+    }
+
+    @Benchmark
+    public String winningGame() {
+        return play(classic, WIN_GAME);
+    }
+
+    @Benchmark
+    public String gomokuWinningGame() {
+        return play(gomoku, GOMOKU_WIN_GAME);
+    }
+
+    private static String play(Game game, int[] moves) {
+        game.restart();
+        for (int move : moves) {
+            game.makeMove(move);
+        }
+        return game.getWinner();
+    }
+}
@@ -0,0 +1,81 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import com.tictactoe.Backend.TictactoeBackendApplication;
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * A full single-player GameController.makeMove round trip (player move, AI
+ * turn, stats) on the real Spring beans, without HTTP. The AI delay is 0 so
+ * only the server-side work is measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameControllerBenchmark {
+
+    @Param({"EASY", "HARD"})
+    public AIDifficulty difficulty;
+
+    private ConfigurableApplicationContext context;
+    private GameController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(TictactoeBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--tictactoe.ai.delay-ms=0", "--tictactoe.store.enabled=false"); // command line beats application.properties
+        controller = context.getBean(GameController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** One player per benchmark thread, so threads don't share a game. */
+    @State(Scope.Thread)
+    public static class Player {
+        Long userId;
+
+        @Setup(Level.Trial)
+        public void login(GameControllerBenchmark benchmark) {
+            userId = benchmark.controller.login("bench-" + Thread.currentThread().getId()).getBody().getId();
+        }
+    }
+
+    @Benchmark
+    public Game makeMove(Player player) {
+        Game game = controller.getGameStatus(player.userId, GameMode.SINGLE_PLAYER, null, null, null).getBody();
+        if (game.getWinner() != null) {
+            game = controller.restartGame(player.userId, GameMode.SINGLE_PLAYER, null, null, null);
+        }
+        // First empty cell: always a legal move for X
+        int index = Integer.numberOfTrailingZeros(BitBoard.empty(game.xBits(), game.oBits()));
+        ResponseEntity<Game> response = controller.makeMove(index, player.userId, GameMode.SINGLE_PLAYER, difficulty, null, null, null).join();
+        return response.getBody();
+    }
+}
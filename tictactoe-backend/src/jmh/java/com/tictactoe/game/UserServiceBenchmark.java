@@ -0,0 +1,68 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UserService login and stats updates with several threads hitting one
+ * shared service: a small hot set of users (contended) and new registrations.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private static final int HOT_USERS = 64;
+
+    private UserService userService;
+    private String[] hotNames;
+    private Long[] hotIds;
+
+    @Setup
+    public void setUp() {
+        userService = new UserService();
+        hotNames = new String[HOT_USERS];
+        hotIds = new Long[HOT_USERS];
+        for (int i = 0; i < HOT_USERS; i++) {
+            hotNames[i] = "player" + i;
+            hotIds[i] = userService.loginOrRegister(hotNames[i]).getId();
+        }
+    }
+
+    @Benchmark
+    public User loginExisting() {
+        return userService.loginOrRegister(hotNames[ThreadLocalRandom.current().nextInt(HOT_USERS)]);
+    }
+
+    @Benchmark
+    public User registerNew() {
+        return userService.loginOrRegister("bench-" + ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    public void updateStats() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String outcome = switch (random.nextInt(3)) {
+            case 0 -> "X";
+            case 1 -> "O";
+            default -> "Draw";
+        };
+        userService.updateStats(hotIds[random.nextInt(HOT_USERS)], outcome);
+    }
+}
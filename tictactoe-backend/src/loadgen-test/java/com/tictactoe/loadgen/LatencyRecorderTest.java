@@ -0,0 +1,81 @@
+package com.tictactoe.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyRecorderTest {
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int micros = 1; micros <= 100; micros++) {
+            recorder.record(micros);
+        }
+        assertEquals(100, recorder.count());
+        assertEquals(50, recorder.percentileMicros(0.5));
+        assertEquals(99, recorder.percentileMicros(0.99));
+        assertEquals(100, recorder.percentileMicros(1));
+        assertEquals(1, recorder.percentileMicros(0));
+        assertEquals(50.5, recorder.meanMicros());
+        assertEquals(100, recorder.maxMicros());
+    }
+
+    @Test
+    void percentilesAreWithinTheBucketWidth() {
+        SplittableRandom random = new SplittableRandom(11);
+        LatencyRecorder recorder = new LatencyRecorder();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(60_000_000)); // 1 us to a minute
+            recorder.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long reported = recorder.percentileMicros(quantile);
+            // The bucket's upper bound: never below, at most 1/64 above
+            assertTrue(reported >= exact && reported <= exact + exact / 64 + 1,
+                    quantile + ": " + reported + " for " + exact);
+        }
+        assertEquals(values[values.length - 1], recorder.percentileMicros(1));
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.percentileMicros(0.5)); // nothing recorded
+        assertEquals(0, recorder.meanMicros());
+        recorder.record(-5);
+        recorder.record(Long.MAX_VALUE);
+        assertEquals(2, recorder.count());
+        assertEquals(0, recorder.percentileMicros(0.5));
+        assertEquals((1L << 38) - 1, recorder.maxMicros());
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 50_000; i++) {
+                    recorder.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, recorder.count());
+        assertEquals(50_000, recorder.maxMicros());
+    }
+}
@@ -0,0 +1,406 @@
+package com.tictactoe.loadgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Simulated players against a running backend, for capacity planning:
+ * throughput and p50/p99/p999 latency of /api/users/login, /api/game,
+ * /api/move and /api/restart under a mix of single-player games (at the
+ * chosen difficulties) and two-player games (both sides from one client,
+ * like the frontend's shared-screen mode).
+ *
+ * Each player logs in, then plays games back to back: it sets the mode,
+ * restarts, and moves on random empty cells until the game ends, polling
+ * /api/game after each move like the frontend does. Players are a chain of
+ * async HttpClient calls rather than threads, so thousands of them need only
+ * a few threads. Every player has one request in flight at a time (a closed
+ * loop): when the server slows down, so does the offered load.
+ *
+ * Run with a backend already started, e.g.
+ * <pre>
+ * java -jar target/tictactoe-backend-0.0.1-SNAPSHOT.jar --tictactoe.ai.delay-ms=0 --tictactoe.ratelimit.enabled=false
+ * mvn -Ploadgen compile exec:exec -Dloadgen.args="--players=2000 --duration=60"
+ * </pre>
+ * Leave out --tictactoe.ai.delay-ms=0 to measure moves including the UX delay.
+ * All players come from one address, so the rate limits would turn most of
+ * them away; keep them on to measure how cheaply that happens (429s count as errors).
+ * Options (--name=value):
+ * <ul>
+ * <li>url: the backend, default http://localhost:8080</li>
+ * <li>players: concurrent players, default 1000</li>
+ * <li>warmup: seconds before measuring; players start spread over it, default 10</li>
+ * <li>duration: seconds measured, default 30</li>
+ * <li>two-player: share of games that are two-player, default 0.25</li>
+ * <li>difficulties: comma-separated, picked at random per single-player game, default EASY,MEDIUM,HARD</li>
+ * <li>size: board size, default 3 (winLength is the server's default for it)</li>
+ * <li>think-ms: pause before each move, default 0</li>
+ * <li>polls: GET /api/game calls after each move, default 1</li>
+ * <li>seed: for the players' choices, default random</li>
+ * <li>out: the JSON report, default target/loadgen-result.json</li>
+ * </ul>
+ * The report is also printed. Users are named after the run, so runs don't
+ * share state; they stay in the backend's user store.
+ */
+public final class LoadGenerator {
+
+    enum Endpoint {
+        LOGIN("login"), GAME("game"), MOVE("move"), RESTART("restart");
+
+        final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    /** Run settings, from --name=value arguments. */
+    static final class Options {
+        String url = "http://localhost:8080";
+        int players = 1000;
+        int warmupSeconds = 10;
+        int durationSeconds = 30;
+        double twoPlayerShare = 0.25;
+        List<String> difficulties = List.of("EASY", "MEDIUM", "HARD");
+        int size = 3;
+        long thinkMillis = 0;
+        int polls = 1;
+        long seed = System.nanoTime();
+        String out = "target/loadgen-result.json";
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "url" -> options.url = value.replaceAll("/+$", "");
+                    case "players" -> options.players = Integer.parseInt(value);
+                    case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                    case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "two-player" -> options.twoPlayerShare = Double.parseDouble(value);
+                    case "difficulties" -> options.difficulties = Arrays.asList(value.toUpperCase().split(","));
+                    case "size" -> options.size = Integer.parseInt(value);
+                    case "think-ms" -> options.thinkMillis = Long.parseLong(value);
+                    case "polls" -> options.polls = Integer.parseInt(value);
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    case "out" -> options.out = value;
+                    default -> throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            if (options.players < 1 || options.durationSeconds < 1 || options.warmupSeconds < 0) {
+                throw new IllegalArgumentException("players and duration must be at least 1, warmup at least 0");
+            }
+            if (options.twoPlayerShare < 0 || options.twoPlayerShare > 1) {
+                throw new IllegalArgumentException("two-player must be between 0 and 1");
+            }
+            return options;
+        }
+    }
+
+    /** The JSON report; the same settings give the same fields, so reports diff cleanly across builds. */
+    public static class Report {
+        public String url;
+        public int players;
+        public int warmupSeconds;
+        public int durationSeconds;
+        public double twoPlayerShare;
+        public List<String> difficulties;
+        public int boardSize;
+        public long thinkMillis;
+        public int pollsPerMove;
+        public long seed;
+        public long startedAt;        // epoch millis
+        public double measuredSeconds;
+        public long gamesFinished;    // in the measured window
+        public double requestsPerSecond;
+        public Map<String, EndpointReport> endpoints = new LinkedHashMap<>();
+    }
+
+    public static class EndpointReport {
+        public long requests;
+        public long errors;           // non-2xx answers and failed connections
+        public double requestsPerSecond;
+        public double meanMillis;
+        public double p50Millis;
+        public double p90Millis;
+        public double p99Millis;
+        public double p999Millis;
+        public double maxMillis;
+    }
+
+    private final Options options;
+    private final HttpClient client;
+    private final Executor callbacks;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LatencyRecorder[] latencies = new LatencyRecorder[Endpoint.values().length];
+    private final LongAdder[] errors = new LongAdder[Endpoint.values().length];
+    private final LongAdder gamesFinished = new LongAdder();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    // System.nanoTime bounds of the measured window; requests started outside it aren't recorded
+    private volatile long measureFrom;
+    private volatile long measureUntil;
+
+    LoadGenerator(Options options, Executor callbacks) {
+        this.options = options;
+        this.callbacks = callbacks;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // what browsers use against the backend
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(callbacks)
+                .build();
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyRecorder();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService callbacks = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "loadgen-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Report report = new LoadGenerator(options, callbacks).run();
+        callbacks.shutdownNow();
+
+        ObjectMapper out = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File file = new File(options.out);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        out.writeValue(file, report);
+        System.out.println(out.writeValueAsString(report));
+        System.err.println("Report written to " + file.getPath());
+    }
+
+    Report run() throws InterruptedException {
+        long now = System.nanoTime();
+        measureFrom = now + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        long startedAt = System.currentTimeMillis();
+        System.err.printf("%d players against %s: %d s warmup, %d s measured%n",
+                options.players, options.url, options.warmupSeconds, options.durationSeconds);
+
+        // Spread the logins over the warmup so they don't all land at once
+        CountDownLatch done = new CountDownLatch(options.players);
+        long stagger = options.warmupSeconds == 0 ? 0 : TimeUnit.SECONDS.toNanos(options.warmupSeconds) / options.players;
+        SplittableRandom seeds = new SplittableRandom(options.seed);
+        for (int i = 0; i < options.players; i++) {
+            Player player = new Player(i, seeds.split(), done);
+            CompletableFuture.delayedExecutor(i * stagger, TimeUnit.NANOSECONDS, callbacks).execute(player::play);
+        }
+
+        // Players stop at the end of the window; give the last requests a moment to finish
+        long remaining = measureUntil - System.nanoTime();
+        done.await(remaining + TimeUnit.SECONDS.toNanos(30), TimeUnit.NANOSECONDS);
+        return report(startedAt);
+    }
+
+    private Report report(long startedAt) {
+        Report report = new Report();
+        report.url = options.url;
+        report.players = options.players;
+        report.warmupSeconds = options.warmupSeconds;
+        report.durationSeconds = options.durationSeconds;
+        report.twoPlayerShare = options.twoPlayerShare;
+        report.difficulties = options.difficulties;
+        report.boardSize = options.size;
+        report.thinkMillis = options.thinkMillis;
+        report.pollsPerMove = options.polls;
+        report.seed = options.seed;
+        report.startedAt = startedAt;
+        double seconds = (measureUntil - measureFrom) / 1e9;
+        report.measuredSeconds = seconds;
+        report.gamesFinished = gamesFinished.sum();
+        long total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            LatencyRecorder latency = latencies[endpoint.ordinal()];
+            EndpointReport e = new EndpointReport();
+            e.requests = latency.count();
+            e.errors = errors[endpoint.ordinal()].sum();
+            e.requestsPerSecond = round(e.requests / seconds);
+            e.meanMillis = round(latency.meanMicros() / 1000);
+            e.p50Millis = millis(latency.percentileMicros(0.50));
+            e.p90Millis = millis(latency.percentileMicros(0.90));
+            e.p99Millis = millis(latency.percentileMicros(0.99));
+            e.p999Millis = millis(latency.percentileMicros(0.999));
+            e.maxMillis = millis(latency.maxMicros());
+            report.endpoints.put(endpoint.label, e);
+            total += e.requests;
+        }
+        report.requestsPerSecond = round(total / seconds);
+        return report;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /** One simulated player: one user, one request in flight at a time. */
+    private final class Player {
+        private final int index;
+        private final SplittableRandom random;
+        private final CountDownLatch done;
+        private long userId = -1;
+        private String mode;
+        private String difficulty;
+        private JsonNode game; // the last state the server sent
+
+        Player(int index, SplittableRandom random, CountDownLatch done) {
+            this.index = index;
+            this.random = random;
+            this.done = done;
+        }
+
+        /** Plays a game, then the next, until the measured window ends. */
+        void play() {
+            if (System.nanoTime() >= measureUntil) {
+                done.countDown();
+                return;
+            }
+            CompletableFuture<Void> step = userId < 0 ? login() : startGame().thenCompose(v -> nextMove());
+            // Each game starts from the last one's callback instead of chaining
+            // futures, which would keep every game of the run reachable
+            step.whenComplete((v, e) -> {
+                if (e == null) {
+                    play();
+                } else {
+                    // After an error, pause and start over with a new game
+                    CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS, callbacks).execute(this::play);
+                }
+            });
+        }
+
+        private CompletableFuture<Void> login() {
+            String username = "load-" + runId + "-" + index;
+            return send(Endpoint.LOGIN, post("/api/users/login?username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)))
+                    .thenAccept(user -> userId = user.get("id").asLong());
+        }
+
+        private CompletableFuture<Void> startGame() {
+            boolean twoPlayer = random.nextDouble() < options.twoPlayerShare;
+            mode = twoPlayer ? "TWO_PLAYER" : "SINGLE_PLAYER";
+            difficulty = options.difficulties.get(random.nextInt(options.difficulties.size()));
+            String settings = "?userId=" + userId + "&mode=" + mode + "&size=" + options.size;
+            return send(Endpoint.GAME, get("/api/game" + settings))
+                    .thenCompose(v -> send(Endpoint.RESTART, post("/api/restart" + settings)))
+                    .thenAccept(state -> game = state);
+        }
+
+        // Moves (and polls) until the game ends or the window closes
+        private CompletableFuture<Void> nextMove() {
+            if (!game.path("winner").isNull() || System.nanoTime() >= measureUntil) {
+                return CompletableFuture.completedFuture(null);
+            }
+            int cell = randomEmptyCell();
+            String move = "/api/move?index=" + cell + "&userId=" + userId
+                    + (mode.equals("SINGLE_PLAYER") ? "&difficulty=" + difficulty : "");
+            CompletableFuture<Void> think = options.thinkMillis == 0 ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(
+                            options.thinkMillis, TimeUnit.MILLISECONDS, callbacks));
+            return think.thenCompose(v -> send(Endpoint.MOVE, post(move)))
+                    .thenCompose(state -> {
+                        game = state;
+                        if (!state.path("winner").isNull() && System.nanoTime() < measureUntil
+                                && System.nanoTime() >= measureFrom) {
+                            gamesFinished.increment();
+                        }
+                        return poll(options.polls);
+                    })
+                    .thenCompose(v -> nextMove());
+        }
+
+        private CompletableFuture<Void> poll(int remaining) {
+            if (remaining == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return send(Endpoint.GAME, get("/api/game?userId=" + userId))
+                    .thenCompose(state -> poll(remaining - 1));
+        }
+
+        private int randomEmptyCell() {
+            JsonNode board = game.get("board");
+            List<Integer> empty = new ArrayList<>();
+            for (int i = 0; i < board.size(); i++) {
+                if (board.get(i).isNull()) {
+                    empty.add(i);
+                }
+            }
+            return empty.get(random.nextInt(empty.size()));
+        }
+    }
+
+    private HttpRequest get(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(options.url + pathAndQuery)).GET().build();
+    }
+
+    private HttpRequest post(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(options.url + pathAndQuery))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    /**
+     * Sends a request and parses the JSON answer. Latency is recorded for
+     * requests started in the measured window, errors included.
+     * @return Completes exceptionally on a non-2xx answer or a failed connection.
+     */
+    private CompletableFuture<JsonNode> send(Endpoint endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    boolean measured = start >= measureFrom && start < measureUntil;
+                    if (measured) {
+                        latencies[endpoint.ordinal()].record((System.nanoTime() - start) / 1000);
+                    }
+                    if (failure != null || response.statusCode() / 100 != 2) {
+                        if (measured) {
+                            errors[endpoint.ordinal()].increment();
+                        }
+                        throw new IllegalStateException(endpoint.label + " failed: "
+                                + (failure != null ? failure : "HTTP " + response.statusCode()));
+                    }
+                    try {
+                        return mapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(endpoint.label + " answered something other than JSON", e);
+                    }
+                });
+    }
+}
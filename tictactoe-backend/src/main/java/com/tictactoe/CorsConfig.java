@@ -21,7 +21,8 @@ public class CorsConfig {
                         )
                         .allowedOriginPatterns("*github.io*")
                         .allowedMethods("*")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        .exposedHeaders("ETag"); // so the frontend can send If-None-Match
             }
         };
     }
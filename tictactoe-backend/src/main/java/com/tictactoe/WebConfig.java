@@ -0,0 +1,33 @@
+package com.tictactoe;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.tictactoe.cluster.NodeOnlyInterceptor;
+import com.tictactoe.game.CompactGameConverter;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final NodeOnlyInterceptor nodeOnlyInterceptor;
+
+    public WebConfig(NodeOnlyInterceptor nodeOnlyInterceptor) {
+        this.nodeOnlyInterceptor = nodeOnlyInterceptor;
+    }
+
+    // On every path: it goes by the handler's controller, not by how the path is spelled
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(nodeOnlyInterceptor);
+    }
+
+    // Added last, so JSON stays the default and the compact form is opt-in via Accept
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new CompactGameConverter());
+    }
+}
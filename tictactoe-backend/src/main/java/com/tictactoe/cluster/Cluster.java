@@ -0,0 +1,320 @@
+package com.tictactoe.cluster;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Membership and ownership for running several backend nodes.
+ *
+ * Every node is configured with the same list of node URLs. Nodes ping each
+ * other; the ones answering make up a consistent-hash ring, and each user ID
+ * belongs to the node the ring maps it to. A node that misses a few pings
+ * leaves the ring and one that answers again rejoins; listeners hear about
+ * every change so they can hand users over to their new owners.
+ *
+ * Registry games don't move: their ID carries the node that created them.
+ * When disabled (the default), everything is local and nothing here runs.
+ */
+@Component
+public class Cluster {
+
+    private static final Logger log = LoggerFactory.getLogger(Cluster.class);
+
+    /** Sent on node-to-node requests: the sender's index, so receivers know it's alive. */
+    public static final String NODE_HEADER = "X-Tictactoe-Node";
+    /** Sent on forwarded requests, to stop forwarding loops while ring views disagree. */
+    public static final String HOPS_HEADER = "X-Tictactoe-Hops";
+    public static final int MAX_HOPS = 2;
+    /** Sent on node-to-node requests: the shared secret. The headers above are only believed with it. */
+    public static final String SECRET_HEADER = "X-Tictactoe-Secret";
+
+    public enum Routing {
+        FORWARD, // proxy the request to its owner
+        REDIRECT // answer 307 with the owner's URL
+    }
+
+    private static final int GAME_ID_SHIFT = 40;
+    private static final long USER_ID_MASK = (1L << 53) - 1; // IDs stay exact as JavaScript numbers
+
+    private final boolean enabled;
+    private final List<String> nodes;
+    private final int self;
+    private final Routing routing;
+    private final int virtualNodes;
+    private final int failureThreshold;
+    private final long handoffWindowMillis;
+    private final Duration requestTimeout;
+    private final byte[] secret;
+    private final HttpClient http;
+    private final ScheduledExecutorService heartbeat;
+
+    private final boolean[] live;  // guarded by this
+    private final int[] missed;    // guarded by this
+    private volatile HashRing ring;
+    private volatile HashRing previousRing;
+    private volatile long lastChangeMillis;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public Cluster(
+        @Value("${tictactoe.cluster.enabled:false}") boolean enabled,
+        @Value("${tictactoe.cluster.nodes:}") String nodes,
+        @Value("${tictactoe.cluster.self:}") String self,
+        @Value("${tictactoe.cluster.routing:FORWARD}") Routing routing,
+        @Value("${tictactoe.cluster.virtual-nodes:128}") int virtualNodes,
+        @Value("${tictactoe.cluster.heartbeat-ms:1000}") long heartbeatMillis,
+        @Value("${tictactoe.cluster.failure-threshold:3}") int failureThreshold,
+        @Value("${tictactoe.cluster.handoff-window-seconds:60}") long handoffWindowSeconds,
+        @Value("${tictactoe.cluster.request-timeout-ms:5000}") long requestTimeoutMillis,
+        @Value("${tictactoe.cluster.secret:}") String secret
+    ) {
+        this.enabled = enabled;
+        this.nodes = enabled ? parseNodes(nodes) : List.of(self);
+        this.self = this.nodes.indexOf(normalize(self));
+        if (enabled && this.self < 0) {
+            throw new IllegalStateException("tictactoe.cluster.self (" + self + ") must be one of tictactoe.cluster.nodes");
+        }
+        if (enabled && secret.length() < 16) {
+            throw new IllegalStateException("tictactoe.cluster.secret must be set, at least 16 characters, the same on every node");
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.routing = routing;
+        this.virtualNodes = virtualNodes;
+        this.failureThreshold = failureThreshold;
+        this.handoffWindowMillis = handoffWindowSeconds * 1000;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.live = new boolean[this.nodes.size()];
+        this.missed = new int[this.nodes.size()];
+        live[Math.max(0, this.self)] = true;
+        this.ring = new HashRing(this.nodes, live, virtualNodes, 0);
+
+        if (!enabled) {
+            http = null;
+            heartbeat = null;
+            return;
+        }
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(requestTimeout).build();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        // One round before serving, so a node joining a running cluster starts with its view of it
+        beat().join();
+        log.info("Cluster node {} of {}: {} live", this.self, this.nodes.size(), liveNodes());
+        heartbeat.scheduleWithFixedDelay(() -> beat().join(), heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** A single-node setup, for tools and tests. */
+    public static Cluster disabled() {
+        return new Cluster(false, "", "local", Routing.FORWARD, 1, 1000, 3, 0, 1000, "");
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public Routing getRouting() { return routing; }
+    public int selfIndex() { return self; }
+    public String nodeUrl(int node) { return nodes.get(node); }
+    public long ringVersion() { return ring.version(); }
+
+    /** @return The index of the node owning {@code key} (a user ID, or any other routing key). */
+    public int ownerOf(long key) {
+        return enabled ? ring.owner(key) : self;
+    }
+
+    public boolean isLocal(long key) {
+        return ownerOf(key) == self;
+    }
+
+    /** @return The owner before the last membership change, or -1 if there was none. */
+    public int previousOwnerOf(long key) {
+        HashRing previous = previousRing;
+        return enabled && previous != null ? previous.owner(key) : -1;
+    }
+
+    /** Whether users may still be on their way from their previous owner. */
+    public boolean inHandoffWindow() {
+        return enabled && System.currentTimeMillis() - lastChangeMillis < handoffWindowMillis;
+    }
+
+    /** The user ID for a username: the same on every node, so any node can route it. */
+    public static long userIdFor(String username) {
+        long id = HashRing.mix(HashRing.hash(username.getBytes(StandardCharsets.UTF_8))) & USER_ID_MASK;
+        return id == 0 ? 1 : id; // 0 is the guest
+    }
+
+    /** First ID for games created here. Game IDs carry their node in the top bits. */
+    public long gameIdBase() {
+        return enabled ? (long) (self + 1) << GAME_ID_SHIFT : 0;
+    }
+
+    /** @return The node that created (and keeps) the game. */
+    public int gameNode(long gameId) {
+        int node = (int) (gameId >>> GAME_ID_SHIFT) - 1;
+        return enabled && node >= 0 && node < nodes.size() ? node : self;
+    }
+
+    public synchronized List<Integer> liveNodes() {
+        List<Integer> result = new ArrayList<>();
+        for (int node = 0; node < live.length; node++) {
+            if (live[node]) result.add(node);
+        }
+        return result;
+    }
+
+    /** Called with the new ring in place, on whichever thread saw the change: hand real work off. */
+    public void onMembershipChange(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Whether a request comes from another node: it carries the cluster
+     * secret. Never true with clustering off.
+     */
+    public boolean isPeerRequest(HttpServletRequest request) {
+        String presented = request.getHeader(SECRET_HEADER);
+        return enabled && presented != null
+                && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8)); // constant time
+    }
+
+    /** A request from another node is as good as a ping from it. */
+    public void markAlive(int node) {
+        if (enabled && node >= 0 && node < live.length && node != self) {
+            alive(node);
+        }
+    }
+
+    /**
+     * Takes this node out of its own ring ahead of a clean shutdown, so
+     * ownerOf names the nodes that will own our users once the others notice
+     * we're gone. Listeners aren't called.
+     * @return False if no other node is live to take over.
+     */
+    public synchronized boolean leave() {
+        if (!enabled || liveNodes().size() < 2) {
+            return false;
+        }
+        live[self] = false;
+        rebuild();
+        return true;
+    }
+
+    // --- Node-to-node requests ---
+
+    /** A request to another node, with the cluster headers set. */
+    public HttpRequest.Builder request(int node, String pathAndQuery, int hops) {
+        return HttpRequest.newBuilder(URI.create(nodes.get(node) + pathAndQuery))
+                .timeout(requestTimeout)
+                .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+                .header(NODE_HEADER, Integer.toString(self))
+                .header(HOPS_HEADER, Integer.toString(hops));
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    // --- Membership ---
+
+    private CompletableFuture<Void> beat() {
+        List<CompletableFuture<?>> pings = new ArrayList<>();
+        for (int node = 0; node < nodes.size(); node++) {
+            if (node == self) continue;
+            int target = node;
+            pings.add(send(request(target, "/api/cluster/ping", 0).GET().build()).handle((response, e) -> {
+                if (e == null && response.statusCode() == 200) {
+                    alive(target);
+                } else {
+                    failed(target);
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(pings.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void alive(int node) {
+        synchronized (this) {
+            missed[node] = 0;
+            if (live[node]) {
+                return;
+            }
+            live[node] = true;
+            rebuild();
+        }
+        changed();
+    }
+
+    private void failed(int node) {
+        synchronized (this) {
+            if (++missed[node] < failureThreshold || !live[node]) {
+                return;
+            }
+            live[node] = false;
+            rebuild();
+        }
+        changed();
+    }
+
+    private void rebuild() {
+        previousRing = ring;
+        ring = new HashRing(nodes, live, virtualNodes, ring.version() + 1);
+        lastChangeMillis = System.currentTimeMillis();
+    }
+
+    private void changed() {
+        log.info("Cluster membership changed (ring {}): live nodes {}", ring.version(), liveNodes());
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Membership listener failed", e);
+            }
+        }
+    }
+
+    private static List<String> parseNodes(String nodes) {
+        List<String> result = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            if (!node.isBlank()) {
+                result.add(normalize(node));
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalStateException("tictactoe.cluster.nodes is empty");
+        }
+        return List.copyOf(result);
+    }
+
+    private static String normalize(String url) {
+        url = url.trim();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.tictactoe.cluster;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sends each API request to the node that owns what it's about: the game for
+ * requests with a gameId (or a finished game's historyId), the user otherwise,
+ * and for /api/match the node owning that kind of match, so the players asking
+ * for it meet. Requests
+ * about neither (leaderboard, admin) are handled wherever they land.
+ *
+ * Requests are proxied (FORWARD) or answered with a 307 to the owner
+ * (REDIRECT); event streams are always redirected. /api/cluster/** is
+ * refused (403) to anything but another node, which proves it with the
+ * cluster secret; NodeOnlyInterceptor checks again at the controller.
+ * Paths are matched decoded and without ;params, as Spring MVC routes them.
+ * Does nothing unless tictactoe.cluster.enabled is set.
+ */
+@Component
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRoutingFilter.class);
+
+    private static final String CLUSTER_PREFIX = "/api/cluster/";
+    private static final List<String> FORWARDED_REQUEST_HEADERS =
+            List.of("Accept", "Content-Type", "If-None-Match", "Origin");
+    // Hop-by-hop, or set again by our own container
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS =
+            Set.of("connection", "content-length", "transfer-encoding", "keep-alive", "date", ":status");
+
+    private final Cluster cluster;
+    private final Duration forwardTimeout;
+
+    public ClusterRoutingFilter(
+        Cluster cluster,
+        @Value("${tictactoe.cluster.forward-timeout-ms:35000}") long forwardTimeoutMillis // Longer than a match wait
+    ) {
+        this.cluster = cluster;
+        this.forwardTimeout = Duration.ofMillis(forwardTimeoutMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !cluster.isEnabled()
+                || !path(request).startsWith("/api/") && !request.getServletPath().startsWith("/api/")
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    // What the controllers are matched against: decoded, without ;params or doubled slashes
+    private static String path(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // The cluster headers are only believed from other nodes: anyone else
+        // could otherwise skip routing with a high hop count, or keep a dead node in the ring
+        boolean peer = cluster.isPeerRequest(request);
+        int hops = peer ? peerHeaders(request) : 0;
+        String path = path(request);
+        if (path.startsWith(CLUSTER_PREFIX) || request.getServletPath().startsWith(CLUSTER_PREFIX)) {
+            // Node-to-node only: these hand users over and change their stats
+            if (!peer) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        int owner = owner(path, query(request.getQueryString()));
+        if (owner < 0 || owner == cluster.selfIndex() || hops >= Cluster.MAX_HOPS) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String pathAndQuery = request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        if (cluster.getRouting() == Cluster.Routing.REDIRECT || path.equals("/api/game/stream")) {
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader("Location", cluster.nodeUrl(owner) + pathAndQuery);
+            return;
+        }
+        forward(request, response, owner, pathAndQuery, hops + 1);
+    }
+
+    // Marks the sending node alive. @return The request's hop count.
+    private int peerHeaders(HttpServletRequest request) {
+        try {
+            String from = request.getHeader(Cluster.NODE_HEADER);
+            if (from != null) {
+                cluster.markAlive(Integer.parseInt(from));
+            }
+            String hops = request.getHeader(Cluster.HOPS_HEADER);
+            return hops != null ? Integer.parseInt(hops) : 0;
+        } catch (NumberFormatException e) {
+            return 0; // a node wouldn't send that; treat it as a first hop
+        }
+    }
+
+    /** @return The node that should handle the request, or -1 for any node. */
+    private int owner(String path, Map<String, String> params) {
+        try {
+            String gameId = params.get("gameId");
+            if (gameId != null) {
+                return cluster.gameNode(Long.parseLong(gameId));
+            }
+            String historyId = params.get("historyId"); // finished games stay where they were played
+            if (historyId != null) {
+                return cluster.gameNode(Long.parseLong(historyId));
+            }
+            if (path.equals("/api/match")) {
+                int size = Integer.parseInt(params.getOrDefault("size", "3"));
+                int winLength = params.containsKey("winLength")
+                        ? Integer.parseInt(params.get("winLength")) : Math.min(size, 5);
+                return cluster.ownerOf(Objects.hash("match", size, winLength, params.get("difficulty")));
+            }
+            String userId = params.getOrDefault("userId", params.get("userIdX"));
+            if (userId != null) {
+                return cluster.ownerOf(Long.parseLong(userId));
+            }
+            if (path.equals("/api/users/login") && params.containsKey("username")) {
+                return cluster.ownerOf(Cluster.userIdFor(params.get("username")));
+            }
+        } catch (NumberFormatException e) {
+            // Let the controller reject it
+        }
+        return -1;
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, int owner,
+                         String pathAndQuery, int hops) throws IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpRequest.Builder proxied = cluster.request(owner, pathAndQuery, hops)
+                .timeout(forwardTimeout)
+                .method(request.getMethod(), body.length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                proxied.header(name, value);
+            }
+        }
+
+        // Don't hold a request thread while the owner works (a match can wait for a while)
+        AsyncContext async = request.startAsync();
+        async.setTimeout(forwardTimeout.toMillis() + 1000);
+        cluster.send(proxied.build()).whenComplete((answer, e) -> {
+            try {
+                if (e != null) {
+                    log.debug("Forwarding {} to node {} failed: {}", pathAndQuery, owner, e.toString());
+                    response.sendError(HttpServletResponse.SC_BAD_GATEWAY, "Node " + owner + " is unavailable");
+                } else {
+                    copy(answer, response);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Couldn't answer forwarded {}: {}", pathAndQuery, ex.toString());
+            } finally {
+                async.complete();
+            }
+        });
+    }
+
+    private static void copy(HttpResponse<byte[]> answer, HttpServletResponse response) throws IOException {
+        response.setStatus(answer.statusCode());
+        answer.headers().map().forEach((name, values) -> {
+            if (!SKIPPED_RESPONSE_HEADERS.contains(name.toLowerCase())) {
+                for (String value : values) {
+                    response.addHeader(name, value);
+                }
+            }
+        });
+        byte[] body = answer.body();
+        if (body.length > 0) {
+            response.setContentLength(body.length);
+            try (OutputStream out = response.getOutputStream()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static Map<String, String> query(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.putIfAbsent(name, value);
+        }
+        return params;
+    }
+}
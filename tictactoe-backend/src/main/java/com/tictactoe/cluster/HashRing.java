@@ -0,0 +1,77 @@
+package com.tictactoe.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent-hash ring over the live nodes. Each node is placed at
+ * {@code virtualNodes} points; a key belongs to the first point at or after
+ * its hash. When a node joins or leaves, only the keys next to its points
+ * change owner (about 1/n of them).
+ *
+ * Immutable: Cluster swaps in a new ring when membership changes.
+ */
+final class HashRing {
+
+    private final long[] points; // sorted hashes
+    private final int[] owners;  // node index at each point
+    private final long version;
+
+    HashRing(List<String> nodes, boolean[] live, int virtualNodes, long version) {
+        int count = 0;
+        for (boolean up : live) {
+            if (up) count++;
+        }
+        long[][] entries = new long[count * virtualNodes][];
+        int n = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            if (!live[node]) continue;
+            long base = hash(nodes.get(node).getBytes(StandardCharsets.UTF_8));
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[n++] = new long[] {mix(base + v * 0x9E3779B97F4A7C15L), node};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[entries.length];
+        owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+        this.version = version;
+    }
+
+    /** @return The owning node's index, or -1 if no node is live. */
+    int owner(long key) {
+        if (points.length == 0) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(points, mix(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    long version() {
+        return version;
+    }
+
+    // FNV-1a
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer: spreads sequential keys over the whole ring
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
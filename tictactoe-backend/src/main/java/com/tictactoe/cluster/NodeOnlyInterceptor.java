@@ -0,0 +1,35 @@
+package com.tictactoe.cluster;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Refuses (403) node-to-node handlers to requests without the cluster
+ * secret. ClusterRoutingFilter already does by path; this goes by the
+ * handler Spring MVC picked, so however the path is spelled, a handler on
+ * a {@link NodeOnly} controller never runs for anyone but another node.
+ */
+@Component
+public class NodeOnlyInterceptor implements HandlerInterceptor {
+
+    private final Cluster cluster;
+
+    public NodeOnlyInterceptor(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (handler instanceof HandlerMethod method && method.getBeanType().isAnnotationPresent(NodeOnly.class)
+                && !cluster.isPeerRequest(request)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+        return true;
+    }
+}
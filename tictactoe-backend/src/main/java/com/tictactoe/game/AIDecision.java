@@ -0,0 +1,83 @@
+package com.tictactoe.game;
+
+/**
+ * The AI's chosen move plus how it was chosen. Returned with the game state
+ * so the client can see where a move came from.
+ */
+public class AIDecision {
+
+    public enum Source {
+        RANDOM,     // uniform random empty cell
+        HEURISTIC,  // win/block/center/corner rules
+        TABLE,      // precomputed perfect-play table lookup
+        SEARCH,     // fresh game-tree search
+        MONTE_CARLO // tree search over random playouts (MCTS)
+    }
+
+    private final int move;
+    private final Source source;
+    private final PerfectPlayTable.Value value; // null when unknown
+    private final int distance; // plies until the game ends, -1 when unknown
+    private long nodes; // positions searched (SEARCH), playouts run (MONTE_CARLO)
+    private long elapsedMicros; // time taken to decide
+
+    public AIDecision(int move, Source source) {
+        this(move, source, null, -1);
+    }
+
+    public AIDecision(int move, Source source, PerfectPlayTable.Value value, int distance) {
+        this.move = move;
+        this.source = source;
+        this.value = value;
+        this.distance = distance;
+    }
+
+    public int getMove() { return move; }
+    public Source getSource() { return source; }
+    public PerfectPlayTable.Value getValue() { return value; }
+    public int getDistance() { return distance; }
+    public long getNodes() { return nodes; }
+    public long getElapsedMicros() { return elapsedMicros; }
+
+    void setNodes(long nodes) { this.nodes = nodes; }
+    void setElapsedMicros(long elapsedMicros) { this.elapsedMicros = elapsedMicros; }
+
+    // --- Packed form: a decision in one long, for loops that mustn't allocate per move ---
+    // Bits 0-7 move, 8-11 source, 12-13 value (0 = unknown, else ordinal + 1),
+    // 14-21 distance + 1 (0 = unknown), 32-63 nodes (capped)
+
+    /** No decision: the board is full. */
+    public static final long NONE = -1L;
+
+    private static final Source[] SOURCES = Source.values();
+    private static final PerfectPlayTable.Value[] VALUES = PerfectPlayTable.Value.values();
+
+    static long pack(int move, Source source) {
+        return pack(move, source, null, -1, 0);
+    }
+
+    static long pack(int move, Source source, PerfectPlayTable.Value value, int distance, long nodes) {
+        return move & 0xFF
+                | (long) source.ordinal() << 8
+                | (long) (value == null ? 0 : value.ordinal() + 1) << 12
+                | (long) ((distance + 1) & 0xFF) << 14
+                | Math.min(nodes, 0xFFFF_FFFFL) << 32;
+    }
+
+    /** @return The move of a packed decision, or -1 for {@link #NONE}. */
+    public static int move(long packed) {
+        return packed == NONE ? -1 : (int) (packed & 0xFF);
+    }
+
+    /** @return The packed decision as an object, or null for {@link #NONE}. */
+    public static AIDecision unpack(long packed) {
+        if (packed == NONE) {
+            return null;
+        }
+        int value = (int) (packed >>> 12) & 3;
+        AIDecision decision = new AIDecision(move(packed), SOURCES[(int) (packed >>> 8) & 0xF],
+                value == 0 ? null : VALUES[value - 1], ((int) (packed >>> 14) & 0xFF) - 1);
+        decision.setNodes(packed >>> 32);
+        return decision;
+    }
+}
@@ -1,20 +1,14 @@
 package com.tictactoe.game;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class AIPlayer {
-    
-    private static final Random RANDOM = new Random();
-    private static final int[][] WINNING_LINES = Game.WINNING_LINES; // Assuming WINNING_LINES is made public static in Game.java
-                                                                    // *Note: I made it private in Game.java, so let's redeclare it here for this example*
-    
-    private static final int[][] AI_WINNING_LINES = {
-        {0, 1, 2}, {3, 4, 5}, {6, 7, 8}, 
-        {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, 
-        {0, 4, 8}, {2, 4, 6}             
-    };
+
+    // Chance of a smart move instead of a random one
+    public static final double EASY_SMART_ODDS = 0.2;
+    public static final double MEDIUM_SMART_ODDS = 0.7;
 
     /**
      * Determines the AI's next move based on difficulty.
@@ -23,163 +17,356 @@ public class AIPlayer {
      * @return The index of the move (0-8).
      */
     public static int getNextMove(String[] board, Game.AIDifficulty difficulty) {
-        List<Integer> availableMoves = getAvailableMoves(board);
-        
-        if (availableMoves.isEmpty()) {
-            return -1; // Should not happen in a valid game state
+        // AI is 'O'
+        return getNextMove(BitBoard.maskOf(board, "O"), BitBoard.maskOf(board, "X"), difficulty);
+    }
+
+    /**
+     * Same as above, on the primitive board. The AI plays {@code aiBits}.
+     * @return The index of the move (0-8), or -1 if the board is full.
+     */
+    public static int getNextMove(int aiBits, int humanBits, Game.AIDifficulty difficulty) {
+        return getNextMove(aiBits, humanBits, difficulty, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as above, drawing random choices from {@code rng}.
+     */
+    public static int getNextMove(int aiBits, int humanBits, Game.AIDifficulty difficulty, RandomGenerator rng) {
+        return AIDecision.move(choose(aiBits, humanBits, difficulty, rng, MonteCarloSearch.Budget.DEFAULT));
+    }
+
+    /**
+     * Chooses the move for the player whose turn it is in {@code game}, on any board size.
+     * @param timeBudgetMillis Time the HARD search may spend on boards other than 3x3.
+     * @param pool Pool for a parallel root search, or null to search on the calling thread.
+     * @return The decision, or null if the board is full.
+     */
+    public static AIDecision decide(Game game, Game.AIDifficulty difficulty, long timeBudgetMillis, ForkJoinPool pool) {
+        return decide(game, difficulty, timeBudgetMillis, pool, MonteCarloSearch.Budget.DEFAULT);
+    }
+
+    /**
+     * Same as above, with the MCTS difficulty's budget. MCTS picks up the tree
+     * its last search of {@code game} kept and leaves the new one on
+     * {@code game}; when thinking on a snapshot, copy it over to the live game
+     * with the move (see Game.keepSearchTree).
+     */
+    public static AIDecision decide(Game game, Game.AIDifficulty difficulty, long timeBudgetMillis, ForkJoinPool pool,
+                                    MonteCarloSearch.Budget mctsBudget) {
+        long start = System.nanoTime();
+        boolean xToMove = game.getCurrentPlayer().equals("X");
+        GridBoard grid = game.grid();
+        AIDecision decision;
+        if (difficulty == Game.AIDifficulty.MCTS) {
+            GridBoard board = grid != null ? grid.copy() : gridOf(game.xBits(), game.oBits());
+            decision = decideByPlayouts(board, xToMove ? GridBoard.X : GridBoard.O, mctsBudget, game,
+                    ThreadLocalRandom.current());
+        } else if (grid == null) {
+            decision = xToMove ? decide(game.xBits(), game.oBits(), difficulty) : decide(game.oBits(), game.xBits(), difficulty);
+        } else {
+            decision = decideOnGrid(grid, xToMove ? GridBoard.X : GridBoard.O, difficulty, timeBudgetMillis, pool,
+                    ThreadLocalRandom.current());
         }
-        
+        if (decision != null) {
+            decision.setElapsedMicros((System.nanoTime() - start) / 1000);
+        }
+        return decision;
+    }
+
+    /**
+     * Chooses the AI's move and records how it was chosen. Random choices come
+     * from ThreadLocalRandom, so request threads never contend on one generator.
+     * @return The decision, or null if the board is full.
+     */
+    public static AIDecision decide(int aiBits, int humanBits, Game.AIDifficulty difficulty) {
+        return decide(aiBits, humanBits, difficulty, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as above, drawing random choices from {@code rng} (e.g. a seeded
+     * per-worker generator in the arena, for reproducible runs). MCTS gets
+     * the default budget.
+     */
+    public static AIDecision decide(int aiBits, int humanBits, Game.AIDifficulty difficulty, RandomGenerator rng) {
+        return decide(aiBits, humanBits, difficulty, rng, MonteCarloSearch.Budget.DEFAULT);
+    }
+
+    /**
+     * Same as above, with the MCTS difficulty's budget (the server's comes
+     * from tictactoe.ai.mcts.*, see AISearchConfig).
+     */
+    public static AIDecision decide(int aiBits, int humanBits, Game.AIDifficulty difficulty, RandomGenerator rng,
+                                    MonteCarloSearch.Budget mctsBudget) {
+        return AIDecision.unpack(choose(aiBits, humanBits, difficulty, rng, mctsBudget));
+    }
+
+    /**
+     * Same as decide, without allocating (MCTS aside, whose search does
+     * anyway): the move, how it was chosen and the table's value and
+     * distance, packed into a long. For loops that play many moves, like the arena.
+     * @return The packed decision (see AIDecision.move and unpack), or AIDecision.NONE if the board is full.
+     */
+    public static long choose(int aiBits, int humanBits, Game.AIDifficulty difficulty, RandomGenerator rng,
+                              MonteCarloSearch.Budget mctsBudget) {
+        int availableMoves = BitBoard.empty(aiBits, humanBits);
+
+        if (availableMoves == 0) {
+            return AIDecision.NONE; // Should not happen in a valid game state
+        }
+
         switch (difficulty) {
+            case MCTS:
+                return chooseWithBudget(aiBits, humanBits, mctsBudget, rng);
             case HARD:
-                return getMinimaxMove(board, availableMoves);
+                // Perfect play comes from the precomputed table; positions that
+                // can't occur in a real game (e.g. set via setBoard) fall back to search
+                long best = PerfectPlayTable.get().bestMoveDecision(aiBits, humanBits);
+                if (best != AIDecision.NONE) {
+                    return best;
+                }
+                return AIDecision.pack(getMinimaxMove(aiBits, humanBits, availableMoves, rng), AIDecision.Source.SEARCH);
             case MEDIUM:
                 // 70% chance of a smart move, 30% random
-                if (RANDOM.nextDouble() < 0.7) {
-                    return getSmartMove(board, availableMoves);
-                }
-                return getRandomMove(availableMoves);
+                return chooseWithOdds(aiBits, humanBits, MEDIUM_SMART_ODDS, rng);
             case EASY:
             default:
                 // 20% chance of a smart move, 80% random
-                if (RANDOM.nextDouble() < 0.2) {
-                    return getSmartMove(board, availableMoves);
+                return chooseWithOdds(aiBits, humanBits, EASY_SMART_ODDS, rng);
+        }
+    }
+
+    /**
+     * The EASY/MEDIUM policy with any odds: a smart move with probability
+     * {@code smartOdds}, otherwise a random one. Lets the arena try new odds.
+     * @return The decision, or null if the board is full.
+     */
+    public static AIDecision decideWithOdds(int aiBits, int humanBits, double smartOdds, RandomGenerator rng) {
+        return AIDecision.unpack(chooseWithOdds(aiBits, humanBits, smartOdds, rng));
+    }
+
+    /** Same as decideWithOdds, packed (see choose). */
+    public static long chooseWithOdds(int aiBits, int humanBits, double smartOdds, RandomGenerator rng) {
+        int availableMoves = BitBoard.empty(aiBits, humanBits);
+        if (availableMoves == 0) {
+            return AIDecision.NONE;
+        }
+        if (rng.nextDouble() < smartOdds) {
+            return AIDecision.pack(getSmartMove(aiBits, humanBits, availableMoves, rng), AIDecision.Source.HEURISTIC);
+        }
+        return AIDecision.pack(getRandomMove(availableMoves, rng), AIDecision.Source.RANDOM);
+    }
+
+    /**
+     * The MCTS policy with any budget, on a fresh tree. Lets the arena
+     * measure strength against playouts.
+     * @return The decision, or null if the board is full.
+     */
+    public static AIDecision decideWithBudget(int aiBits, int humanBits, MonteCarloSearch.Budget budget,
+                                              RandomGenerator rng) {
+        return AIDecision.unpack(chooseWithBudget(aiBits, humanBits, budget, rng));
+    }
+
+    /** Same as decideWithBudget, packed (see choose). */
+    public static long chooseWithBudget(int aiBits, int humanBits, MonteCarloSearch.Budget budget,
+                                        RandomGenerator rng) {
+        if (BitBoard.empty(aiBits, humanBits) == 0) {
+            return AIDecision.NONE;
+        }
+        MonteCarloSearch.Result result = new MonteCarloSearch(gridOf(aiBits, humanBits), budget)
+                .search(GridBoard.X, null, rng);
+        return AIDecision.pack(result.move, AIDecision.Source.MONTE_CARLO, null, -1, result.playouts);
+    }
+
+    // @param game Where the search tree is kept between moves, or null to start afresh every time
+    private static AIDecision decideByPlayouts(GridBoard board, byte player, MonteCarloSearch.Budget budget,
+                                               Game game, RandomGenerator rng) {
+        if (board.isFull()) {
+            return null;
+        }
+        MonteCarloSearch.Result result = new MonteCarloSearch(board, budget)
+                .search(player, game != null ? game.searchTree() : null, rng);
+        if (game != null) {
+            game.keepSearchTree(result.kept);
+        }
+        AIDecision decision = new AIDecision(result.move, AIDecision.Source.MONTE_CARLO);
+        decision.setNodes(result.playouts);
+        return decision;
+    }
+
+    // The 3x3 board as a GridBoard, 'first' playing X
+    private static GridBoard gridOf(int first, int second) {
+        GridBoard board = new GridBoard(3, 3);
+        for (int cell = 0; cell < 9; cell++) {
+            if ((first & (1 << cell)) != 0) board.play(cell, GridBoard.X);
+            else if ((second & (1 << cell)) != 0) board.play(cell, GridBoard.O);
+        }
+        return board;
+    }
+
+    // --- N x N boards ---
+
+    private static AIDecision decideOnGrid(GridBoard grid, byte player, Game.AIDifficulty difficulty,
+                                           long timeBudgetMillis, ForkJoinPool pool, RandomGenerator rng) {
+        if (grid.isFull()) {
+            return null;
+        }
+        // Work on a copy so readers of the live game never see trial moves
+        GridBoard board = grid.copy();
+
+        switch (difficulty) {
+            case HARD:
+                Tablebase tablebase = Tablebase.forBoard(board.size(), board.winLength());
+                PerfectPlayTable.Entry entry = tablebase != null
+                        ? tablebase.bestMove(board, player, getSmartGridMove(board, player)) : null;
+                if (entry != null) {
+                    // Solved offline; the heuristic move breaks ties (win now, block, ...)
+                    return new AIDecision(entry.move, AIDecision.Source.TABLE, entry.value, entry.distance);
                 }
-                return getRandomMove(availableMoves);
+                GridSearch.Result result = new GridSearch(board, timeBudgetMillis).search(player, pool);
+                AIDecision searched = new AIDecision(result.move, AIDecision.Source.SEARCH);
+                searched.setNodes(result.nodes);
+                return searched;
+            case MEDIUM:
+                if (rng.nextDouble() < MEDIUM_SMART_ODDS) {
+                    return new AIDecision(getSmartGridMove(board, player), AIDecision.Source.HEURISTIC);
+                }
+                return new AIDecision(getRandomGridMove(board, rng), AIDecision.Source.RANDOM);
+            case EASY:
+            default:
+                if (rng.nextDouble() < EASY_SMART_ODDS) {
+                    return new AIDecision(getSmartGridMove(board, player), AIDecision.Source.HEURISTIC);
+                }
+                return new AIDecision(getRandomGridMove(board, rng), AIDecision.Source.RANDOM);
         }
     }
 
-    private static List<Integer> getAvailableMoves(String[] board) {
-        List<Integer> moves = new ArrayList<>();
-        for (int i = 0; i < 9; i++) {
-            if (board[i] == null) {
-                moves.add(i);
+    private static int getRandomGridMove(GridBoard board, RandomGenerator rng) {
+        int n = rng.nextInt(board.cellCount() - board.moveCount());
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.isEmpty(cell) && n-- == 0) {
+                return cell;
             }
         }
-        return moves;
+        return -1;
     }
 
-    private static int getRandomMove(List<Integer> availableMoves) {
-        return availableMoves.get(RANDOM.nextInt(availableMoves.size()));
+    /**
+     * Same rules as getSmartMove: win, block, otherwise the most promising cell.
+     */
+    static int getSmartGridMove(GridBoard board, byte player) {
+        int winningMove = findWinningOrBlockingGridMove(board, player);
+        if (winningMove != -1) {
+            return winningMove;
+        }
+        int blockingMove = findWinningOrBlockingGridMove(board, GridBoard.other(player));
+        if (blockingMove != -1) {
+            return blockingMove;
+        }
+        return new GridSearch(board, 0).heuristicMove(player);
+    }
+
+    private static int findWinningOrBlockingGridMove(GridBoard board, byte player) {
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.isEmpty(cell)) {
+                board.play(cell, player);
+                boolean wins = board.isWinAt(cell);
+                board.undo(cell);
+                if (wins) {
+                    return cell;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // --- Classic 3x3 board ---
+
+    private static int getRandomMove(int availableMoves, RandomGenerator rng) {
+        return BitBoard.nthSetBit(availableMoves, rng.nextInt(Integer.bitCount(availableMoves)));
     }
 
     /**
      * Attempts to win, then attempts to block. Otherwise, returns a random move.
      */
-    private static int getSmartMove(String[] board, List<Integer> availableMoves) {
+    private static int getSmartMove(int aiBits, int humanBits, int availableMoves, RandomGenerator rng) {
         // 1. Try to win (for 'O')
-        int winningMove = findWinningOrBlockingMove(board, "O", availableMoves);
+        int winningMove = findWinningOrBlockingMove(aiBits, availableMoves);
         if (winningMove != -1) {
             return winningMove;
         }
 
         // 2. Try to block 'X'
-        int blockingMove = findWinningOrBlockingMove(board, "X", availableMoves);
+        int blockingMove = findWinningOrBlockingMove(humanBits, availableMoves);
         if (blockingMove != -1) {
             return blockingMove;
         }
 
         // 3. Take the center (4) if available
-        if (availableMoves.contains(4)) {
+        if ((availableMoves & BitBoard.CENTER) != 0) {
             return 4;
         }
 
         // 4. Take a corner (0, 2, 6, 8) if available
-        List<Integer> corners = new ArrayList<>();
-        if (availableMoves.contains(0)) corners.add(0);
-        if (availableMoves.contains(2)) corners.add(2);
-        if (availableMoves.contains(6)) corners.add(6);
-        if (availableMoves.contains(8)) corners.add(8);
-        if (!corners.isEmpty()) {
-            return getRandomMove(corners);
+        int corners = availableMoves & BitBoard.CORNERS;
+        if (corners != 0) {
+            return getRandomMove(corners, rng);
         }
 
         // 5. Random move
-        return getRandomMove(availableMoves);
-    }
-    
-    private static int findWinningOrBlockingMove(String[] board, String player, List<Integer> availableMoves) {
-        for (int move : availableMoves) {
-            String[] tempBoard = board.clone();
-            tempBoard[move] = player;
-            if (checkIfWinner(tempBoard, player)) {
-                return move;
-            }
-        }
-        return -1;
+        return getRandomMove(availableMoves, rng);
     }
 
-    private static boolean checkIfWinner(String[] board, String player) {
-        for (int[] line : AI_WINNING_LINES) {
-            if (player.equals(board[line[0]]) && player.equals(board[line[1]]) && player.equals(board[line[2]])) {
-                return true;
+    private static int findWinningOrBlockingMove(int playerBits, int availableMoves) {
+        for (int m = availableMoves; m != 0; m &= m - 1) {
+            int move = Integer.numberOfTrailingZeros(m);
+            if (BitBoard.hasWin(playerBits | (1 << move))) {
+                return move;
             }
         }
-        return false;
+        return -1;
     }
 
     // Minimax implementation for HARD difficulty (simple version)
-    private static int getMinimaxMove(String[] board, List<Integer> availableMoves) {
+    private static int getMinimaxMove(int aiBits, int humanBits, int availableMoves, RandomGenerator rng) {
         int bestScore = Integer.MIN_VALUE;
         int bestMove = -1;
 
-        for (int move : availableMoves) {
-            String[] newBoard = board.clone();
-            newBoard[move] = "O"; // AI is 'O'
-            
-            int score = minimax(newBoard, 0, false);
-            
+        for (int m = availableMoves; m != 0; m &= m - 1) {
+            int move = Integer.numberOfTrailingZeros(m);
+
+            int score = minimax(aiBits | (1 << move), humanBits, false);
+
             if (score > bestScore) {
                 bestScore = score;
                 bestMove = move;
             }
         }
-        return bestMove == -1 ? getRandomMove(availableMoves) : bestMove;
+        return bestMove == -1 ? getRandomMove(availableMoves, rng) : bestMove;
     }
 
     // Minimax recursive function (scores: 10=Win, -10=Loss, 0=Draw)
-    private static int minimax(String[] board, int depth, boolean isMaximizingPlayer) {
-        String winner = getBoardWinner(board);
-        
-        if (winner != null) {
-            if (winner.equals("O")) return 10; // AI Win
-            if (winner.equals("X")) return -10; // Player Win
-            if (winner.equals("Draw")) return 0; // Draw
-        }
+    private static int minimax(int aiBits, int humanBits, boolean isMaximizingPlayer) {
+        if (BitBoard.hasWin(aiBits)) return 10; // AI Win
+        if (BitBoard.hasWin(humanBits)) return -10; // Player Win
 
-        List<Integer> moves = getAvailableMoves(board);
-        if (moves.isEmpty()) return 0; // Should be caught by the check above
+        int moves = BitBoard.empty(aiBits, humanBits);
+        if (moves == 0) return 0; // Draw
 
         if (isMaximizingPlayer) {
             int maxEval = Integer.MIN_VALUE;
-            for (int move : moves) {
-                String[] newBoard = board.clone();
-                newBoard[move] = "O";
-                int eval = minimax(newBoard, depth + 1, false);
+            for (int m = moves; m != 0; m &= m - 1) {
+                int eval = minimax(aiBits | (m & -m), humanBits, false);
                 maxEval = Math.max(maxEval, eval);
             }
             return maxEval;
         } else {
             int minEval = Integer.MAX_VALUE;
-            for (int move : moves) {
-                String[] newBoard = board.clone();
-                newBoard[move] = "X";
-                int eval = minimax(newBoard, depth + 1, true);
+            for (int m = moves; m != 0; m &= m - 1) {
+                int eval = minimax(aiBits, humanBits | (m & -m), true);
                 minEval = Math.min(minEval, eval);
             }
             return minEval;
         }
     }
-    
-    private static String getBoardWinner(String[] board) {
-        for (int[] line : AI_WINNING_LINES) {
-            String a = board[line[0]];
-            if (a != null && a.equals(board[line[1]]) && a.equals(board[line[2]])) {
-                return a;
-            }
-        }
-        if (getAvailableMoves(board).isEmpty()) {
-            return "Draw";
-        }
-        return null;
-    }
-}
\ No newline at end of file
+}
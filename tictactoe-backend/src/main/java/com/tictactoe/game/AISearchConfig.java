@@ -0,0 +1,84 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tictactoe.game.Game.AIDifficulty;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Search settings for the AI: the per-move time budget, which difficulties
+ * search in parallel on the shared fork/join pool, the MCTS budget, and the
+ * tablebases HARD looks small boards up in.
+ */
+@Component
+public class AISearchConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(AISearchConfig.class);
+
+    private final long timeBudgetMillis;
+    private final Set<AIDifficulty> parallelDifficulties = EnumSet.noneOf(AIDifficulty.class);
+    private final ForkJoinPool pool;
+    private final MonteCarloSearch.Budget mctsBudget;
+
+    public AISearchConfig(
+        @Value("${tictactoe.ai.time-budget-ms:500}") long timeBudgetMillis,
+        @Value("${tictactoe.ai.parallelism:0}") int parallelism,
+        @Value("${tictactoe.ai.parallel-difficulties:HARD}") List<AIDifficulty> parallelDifficulties,
+        @Value("${tictactoe.ai.mcts.playouts:10000}") int mctsPlayouts,
+        @Value("${tictactoe.ai.mcts.time-budget-ms:500}") long mctsTimeBudgetMillis,
+        @Value("${tictactoe.ai.tablebases:}") List<String> tablebaseFiles
+    ) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.mctsBudget = new MonteCarloSearch.Budget(mctsPlayouts, mctsTimeBudgetMillis);
+        this.parallelDifficulties.addAll(parallelDifficulties);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null; // one thread: just search sequentially
+        for (String file : tablebaseFiles) {
+            if (file.isBlank()) {
+                continue;
+            }
+            // Mapped, not read: this costs no heap and no startup time
+            try {
+                Tablebase tablebase = Tablebase.open(Path.of(file.trim()));
+                Tablebase.install(tablebase);
+                log.info("Tablebase {} loaded for {}x{} boards, {} in a row",
+                        file, tablebase.size(), tablebase.size(), tablebase.winLength());
+            } catch (IOException e) {
+                log.warn("Tablebase {} not loaded, HARD will search instead: {}", file, e.toString());
+            }
+        }
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public MonteCarloSearch.Budget getMctsBudget() {
+        return mctsBudget;
+    }
+
+    /**
+     * @return The pool to search on for this difficulty, or null for a sequential search.
+     */
+    public ForkJoinPool poolFor(AIDifficulty difficulty) {
+        return parallelDifficulties.contains(difficulty) ? pool : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the AI's turn off the request thread. The "AI is thinking" delay is a
+ * timer on a small scheduler instead of a sleeping Tomcat thread, so pending
+ * AI turns cost a queued task each rather than a whole request thread.
+ */
+@Component
+public class AITurnScheduler {
+
+    private final long delayMillis;
+    private final ScheduledExecutorService scheduler;
+    private final GameMetrics metrics;
+
+    public AITurnScheduler(
+        @Value("${tictactoe.ai.delay-ms:1000}") long delayMillis,
+        @Value("${tictactoe.ai.threads:0}") int threads,
+        GameMetrics metrics
+    ) {
+        this.delayMillis = Math.max(0, delayMillis);
+        this.metrics = metrics;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "ai-turn-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * Runs {@code turn} after the configured delay (immediately when it is 0).
+     */
+    public <T> CompletableFuture<T> schedule(Supplier<T> turn) {
+        return schedule(turn, delayMillis);
+    }
+
+    /**
+     * Runs {@code turn} after {@code delayMillis}, e.g. 0 for clients that
+     * don't watch the AI "think" (batched moves).
+     */
+    public <T> CompletableFuture<T> schedule(Supplier<T> turn, long delayMillis) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long scheduledAt = System.nanoTime();
+        Runnable task = () -> {
+            metrics.aiDelay((System.nanoTime() - scheduledAt) / 1000); // timer plus queueing
+            try {
+                result.complete(turn.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        if (delayMillis == 0) {
+            scheduler.execute(task);
+        } else {
+            scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
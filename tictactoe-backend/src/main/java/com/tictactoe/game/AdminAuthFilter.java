@@ -0,0 +1,72 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps /api/admin/** (bulk user import and export, the finished-game
+ * export, AI arena runs) to operators: requests need "Authorization: Bearer" with the admin token.
+ * Without a token configured the admin endpoints are off (403).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // before rate limits and cluster routing
+public class AdminAuthFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/api/admin/";
+    private static final String BEARER = "Bearer ";
+
+    private final byte[] token; // empty = admin endpoints off
+
+    public AdminAuthFilter(@Value("${tictactoe.admin.token:}") String token) {
+        if (!token.isEmpty() && token.length() < 16) {
+            throw new IllegalStateException("tictactoe.admin.token must be at least 16 characters");
+        }
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Decoded, without ;params or doubled slashes, as controllers are matched; the
+        // container's servlet path too, in case a servlet mapping makes them differ
+        return !UrlPathHelper.defaultInstance.getPathWithinApplication(request).startsWith(PREFIX)
+                && !request.getServletPath().startsWith(PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (token.length == 0) {
+            deny(response, HttpStatus.FORBIDDEN, "Admin endpoints are off: no tictactoe.admin.token set");
+            return;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER) || !MessageDigest.isEqual(token,
+                authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8))) { // constant time
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            deny(response, HttpStatus.UNAUTHORIZED, "Admin token required");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static void deny(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("text/plain");
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,320 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Plays two AI configurations against each other on the 3x3 board, on all
+ * cores, to check how the difficulties really compare and to tune their odds.
+ *
+ * Games are split into fixed blocks and every block gets its own generator
+ * derived from the run's seed, so the same seed gives the same result no
+ * matter how many threads run it. The two sides swap X and O every game.
+ *
+ * From the command line (the jar's main class is the web app):
+ * <pre>
+ * java -cp tictactoe-backend.jar -Dloader.main=com.tictactoe.game.Arena \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher EASY MEDIUM 1000000 42
+ * </pre>
+ * Arguments: sideA sideB [games] [seed] [threads]. A side is EASY, MEDIUM,
+ * HARD, MCTS, SMART:&lt;odds&gt; (the EASY/MEDIUM policy with any smart-move
+ * odds) or MCTS:&lt;playouts&gt; (MCTS with any playout budget).
+ */
+public final class Arena {
+
+    // Games per block; one generator per block
+    static final int BLOCK_SIZE = 4096;
+
+    // Outcome counters, from A's point of view, split by the colour A played
+    private static final int A_AS_X = 0;
+    private static final int A_AS_O = 3;
+    private static final int WIN = 0, LOSS = 1, DRAW = 2;
+    private static final int PLIES = 6;
+    private static final int COUNTERS = 7;
+
+    private Arena() {}
+
+    /**
+     * One side of a match: a difficulty as the server plays it, the
+     * EASY/MEDIUM policy with custom smart-move odds, or MCTS with a custom
+     * playout budget.
+     */
+    public static final class Contestant {
+        private final String name;
+        private final Game.AIDifficulty difficulty; // null for custom odds or MCTS
+        private final double smartOdds;
+        private final MonteCarloSearch.Budget budget; // null unless MCTS
+
+        private Contestant(String name, Game.AIDifficulty difficulty, double smartOdds) {
+            this(name, difficulty, smartOdds, null);
+        }
+
+        private Contestant(String name, Game.AIDifficulty difficulty, double smartOdds, MonteCarloSearch.Budget budget) {
+            this.name = name;
+            this.difficulty = difficulty;
+            this.smartOdds = smartOdds;
+            this.budget = budget;
+        }
+
+        /**
+         * @param spec EASY, MEDIUM, HARD, MCTS, SMART:&lt;odds&gt; with odds in [0, 1]
+         *             or MCTS:&lt;playouts&gt; with at least one playout.
+         */
+        public static Contestant parse(String spec) {
+            return parse(spec, MonteCarloSearch.Budget.DEFAULT);
+        }
+
+        /**
+         * Same as above, with plain MCTS playing {@code mctsBudget}'s playouts,
+         * as the server is configured to.
+         */
+        public static Contestant parse(String spec, MonteCarloSearch.Budget mctsBudget) {
+            String s = spec.trim().toUpperCase();
+            if (s.equals("MCTS")) {
+                // The playouts without the time limit, so a seed still gives the same result
+                return new Contestant(s, null, 0, new MonteCarloSearch.Budget(mctsBudget.playouts, 0));
+            }
+            if (s.startsWith("MCTS:")) {
+                int playouts;
+                try {
+                    playouts = Integer.parseInt(s.substring(5));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad playout budget in " + spec);
+                }
+                if (playouts < 1) {
+                    throw new IllegalArgumentException("MCTS needs at least one playout: " + spec);
+                }
+                // No time limit, so a seed still gives the same result
+                return new Contestant(s, null, 0, new MonteCarloSearch.Budget(playouts, 0));
+            }
+            if (s.startsWith("SMART:")) {
+                double odds;
+                try {
+                    odds = Double.parseDouble(s.substring(6));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad smart-move odds in " + spec);
+                }
+                if (!(odds >= 0 && odds <= 1)) {
+                    throw new IllegalArgumentException("Smart-move odds must be between 0 and 1: " + spec);
+                }
+                return new Contestant(s, null, odds);
+            }
+            try {
+                return new Contestant(s, Game.AIDifficulty.valueOf(s), 0);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        "Unknown AI: " + spec + " (use EASY, MEDIUM, HARD, MCTS, SMART:<odds> or MCTS:<playouts>)");
+            }
+        }
+
+        public String getName() { return name; }
+
+        int move(int own, int opp, RandomGenerator rng) {
+            // Packed decisions: nothing allocated per move (but MCTS's search)
+            long decision = difficulty != null
+                    ? AIPlayer.choose(own, opp, difficulty, rng, MonteCarloSearch.Budget.DEFAULT)
+                    : budget != null ? AIPlayer.chooseWithBudget(own, opp, budget, rng)
+                    : AIPlayer.chooseWithOdds(own, opp, smartOdds, rng);
+            return AIDecision.move(decision);
+        }
+    }
+
+    /** Wins, losses and draws of side A when it played one colour. */
+    public static class Outcomes {
+        public long winsA;
+        public long winsB;
+        public long draws;
+
+        Outcomes(long[] counters, int offset) {
+            winsA = counters[offset + WIN];
+            winsB = counters[offset + LOSS];
+            draws = counters[offset + DRAW];
+        }
+    }
+
+    public static class Result {
+        public String a;
+        public String b;
+        public long seed;
+        public int threads;
+        public long games;
+        public long winsA;
+        public long winsB;
+        public long draws;
+        public Outcomes aAsX;
+        public Outcomes aAsO;
+        public double averageLength; // plies per game
+        public double scoreA;        // (wins + draws / 2) / games
+        public Double eloDiff;       // A's rating minus B's; null when one side scored 100%
+        public Double eloLow;        // 95% confidence interval
+        public Double eloHigh;
+        public long elapsedMillis;
+        public double gamesPerSecond;
+    }
+
+    /**
+     * Plays {@code games} games between A and B.
+     * @param threads Worker threads, or 0 for one per CPU.
+     */
+    public static Result run(Contestant a, Contestant b, long games, long seed, int threads) {
+        if (games <= 0) {
+            throw new IllegalArgumentException("games must be positive");
+        }
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        long blocks = (games + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        workers = (int) Math.min(workers, blocks);
+        AtomicLong nextBlock = new AtomicLong();
+
+        long start = System.nanoTime();
+        long[] totals = new long[COUNTERS];
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "arena");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Callable<long[]>> tasks = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                tasks.add(() -> {
+                    // Plain local counters; merged once at the end
+                    long[] counters = new long[COUNTERS];
+                    long block;
+                    while ((block = nextBlock.getAndIncrement()) < blocks) {
+                        playBlock(a, b, block, Math.min(BLOCK_SIZE, games - block * BLOCK_SIZE), seed, counters);
+                    }
+                    return counters;
+                });
+            }
+            for (Future<long[]> future : executor.invokeAll(tasks)) {
+                long[] counters = future.get();
+                for (int i = 0; i < COUNTERS; i++) {
+                    totals[i] += counters[i];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Arena run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Arena worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Result result = new Result();
+        result.a = a.getName();
+        result.b = b.getName();
+        result.seed = seed;
+        result.threads = workers;
+        result.games = games;
+        result.aAsX = new Outcomes(totals, A_AS_X);
+        result.aAsO = new Outcomes(totals, A_AS_O);
+        result.winsA = result.aAsX.winsA + result.aAsO.winsA;
+        result.winsB = result.aAsX.winsB + result.aAsO.winsB;
+        result.draws = result.aAsX.draws + result.aAsO.draws;
+        result.averageLength = (double) totals[PLIES] / games;
+        result.scoreA = (result.winsA + result.draws / 2.0) / games;
+        fillElo(result);
+        result.elapsedMillis = elapsedNanos / 1_000_000;
+        result.gamesPerSecond = games * 1e9 / Math.max(1, elapsedNanos);
+        return result;
+    }
+
+    private static void playBlock(Contestant a, Contestant b, long block, long count, long seed, long[] counters) {
+        RandomGenerator rng = new SplittableRandom(mix(seed + block * 0x9E3779B97F4A7C15L));
+        for (long i = 0; i < count; i++) {
+            boolean aIsX = ((block * BLOCK_SIZE + i) & 1) == 0;
+            int outcome = aIsX ? playGame(a, b, rng, counters) : playGame(b, a, rng, counters);
+            int offset = aIsX ? A_AS_X : A_AS_O;
+            if (outcome == DRAW) {
+                counters[offset + DRAW]++;
+            } else {
+                // playGame reports WIN for X; flip it when A played O
+                boolean aWon = (outcome == WIN) == aIsX;
+                counters[offset + (aWon ? WIN : LOSS)]++;
+            }
+        }
+    }
+
+    /**
+     * Plays one game from the empty board and adds its length to the plies counter.
+     * @return WIN if X won, LOSS if O won, DRAW otherwise.
+     */
+    private static int playGame(Contestant x, Contestant o, RandomGenerator rng, long[] counters) {
+        int xBits = 0;
+        int oBits = 0;
+        for (int ply = 0; ply < BitBoard.CELLS; ply++) {
+            boolean xToMove = (ply & 1) == 0;
+            if (xToMove) {
+                xBits |= 1 << x.move(xBits, oBits, rng);
+                if (BitBoard.hasWin(xBits)) {
+                    counters[PLIES] += ply + 1;
+                    return WIN;
+                }
+            } else {
+                oBits |= 1 << o.move(oBits, xBits, rng);
+                if (BitBoard.hasWin(oBits)) {
+                    counters[PLIES] += ply + 1;
+                    return LOSS;
+                }
+            }
+        }
+        counters[PLIES] += BitBoard.CELLS;
+        return DRAW;
+    }
+
+    /**
+     * Elo difference from A's score, with a 95% interval from the per-game
+     * score variance. Undefined (null) when one side won or lost everything.
+     */
+    private static void fillElo(Result r) {
+        double s = r.scoreA;
+        if (s <= 0 || s >= 1) {
+            return;
+        }
+        double n = r.games;
+        double variance = (r.winsA * (1 - s) * (1 - s) + r.winsB * s * s + r.draws * (0.5 - s) * (0.5 - s)) / n;
+        double margin = 1.96 * Math.sqrt(variance / n);
+        r.eloDiff = elo(s);
+        r.eloLow = elo(Math.max(s - margin, 1e-9));
+        r.eloHigh = elo(Math.min(s + margin, 1 - 1e-9));
+    }
+
+    private static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    // SplitMix64 finaliser, so neighbouring blocks get unrelated streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: Arena <sideA> <sideB> [games] [seed] [threads]");
+            System.err.println("  side: EASY | MEDIUM | HARD | SMART:<odds>");
+            System.exit(2);
+        }
+        Contestant a = Contestant.parse(args[0]);
+        Contestant b = Contestant.parse(args[1]);
+        long games = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        Result result = run(a, b, games, seed, threads);
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(result));
+    }
+}
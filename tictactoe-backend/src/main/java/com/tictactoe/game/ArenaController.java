@@ -0,0 +1,53 @@
+package com.tictactoe.game;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin access to the AI arena, for tuning difficulties against data.
+ * Not used by the frontend, so no CORS origins here; AdminAuthFilter
+ * requires the admin token.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class ArenaController {
+
+    @Value("${tictactoe.arena.max-games:10000000}")
+    private long maxGames;
+
+    @Autowired
+    private AISearchConfig aiSearchConfig;
+
+    // e.g. POST /api/admin/arena?a=EASY&b=SMART:0.45&games=1000000&seed=42
+    //      POST /api/admin/arena?a=HARD&b=MCTS:2000&games=10000 (how many playouts MCTS needs)
+    @PostMapping("/arena")
+    public Arena.Result run(
+        @RequestParam String a,
+        @RequestParam String b,
+        @RequestParam(defaultValue = "100000") long games,
+        @RequestParam(required = false) Long seed,        // default: a fresh seed (reported in the result)
+        @RequestParam(required = false) Integer threads   // default: one per CPU, also the most allowed
+    ) {
+        if (games > maxGames) {
+            throw new IllegalArgumentException("At most " + maxGames + " games per run");
+        }
+        if (threads != null && threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        int cpus = Runtime.getRuntime().availableProcessors();
+        MonteCarloSearch.Budget mcts = aiSearchConfig.getMctsBudget();
+        return Arena.run(Arena.Contestant.parse(a, mcts), Arena.Contestant.parse(b, mcts), games,
+                seed != null ? seed : System.nanoTime(), threads != null ? Math.min(threads, cpus) : cpus);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,92 @@
+package com.tictactoe.game;
+
+/**
+ * Primitive 3x3 board helpers. A position is two 9-bit masks, one per player,
+ * where bit i is set when that player owns cell i (0-8, row-major).
+ * Everything here works on plain ints so the game and AI paths never allocate.
+ */
+public final class BitBoard {
+
+    public static final int CELLS = 9;
+    public static final int FULL = 0x1FF;
+    public static final int CENTER = 1 << 4;
+    public static final int CORNERS = (1 << 0) | (1 << 2) | (1 << 6) | (1 << 8);
+
+    // One mask per entry of Game.WINNING_LINES, same order
+    public static final int[] LINE_MASKS = new int[Game.WINNING_LINES.length];
+
+    static {
+        for (int i = 0; i < Game.WINNING_LINES.length; i++) {
+            for (int cell : Game.WINNING_LINES[i]) {
+                LINE_MASKS[i] |= 1 << cell;
+            }
+        }
+    }
+
+    private BitBoard() {
+    }
+
+    public static int empty(int xBits, int oBits) {
+        return ~(xBits | oBits) & FULL;
+    }
+
+    public static boolean isFull(int xBits, int oBits) {
+        return (xBits | oBits) == FULL;
+    }
+
+    public static boolean hasWin(int bits) {
+        for (int line : LINE_MASKS) {
+            if ((bits & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The index into Game.WINNING_LINES of the first completed line, or -1.
+     */
+    public static int winningLineIndex(int bits) {
+        for (int i = 0; i < LINE_MASKS.length; i++) {
+            if ((bits & LINE_MASKS[i]) == LINE_MASKS[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The index of the n-th (0-based) set bit of {@code mask}.
+     */
+    public static int nthSetBit(int mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1; // clear lowest set bit
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    public static boolean isSet(int bits, int index) {
+        return (bits & (1 << index)) != 0;
+    }
+
+    // --- Conversions to/from the JSON board ("X"/"O"/null per cell) ---
+
+    public static String[] toArray(int xBits, int oBits) {
+        String[] board = new String[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            if (isSet(xBits, i)) board[i] = "X";
+            else if (isSet(oBits, i)) board[i] = "O";
+        }
+        return board;
+    }
+
+    public static int maskOf(String[] board, String player) {
+        int bits = 0;
+        for (int i = 0; i < CELLS && i < board.length; i++) {
+            if (player.equals(board[i])) {
+                bits |= 1 << i;
+            }
+        }
+        return bits;
+    }
+}
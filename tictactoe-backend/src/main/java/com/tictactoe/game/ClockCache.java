@@ -0,0 +1,77 @@
+package com.tictactoe.game;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded concurrent cache with CLOCK (second chance) eviction: close to
+ * LRU, but a hit only sets a flag instead of reordering a list, so readers
+ * never contend. When full, the oldest entry goes unless it was read since
+ * the hand last passed it, in which case it is spared once and the next is
+ * tried.
+ */
+final class ClockCache<K, V> {
+
+    private static final class Slot<V> {
+        final V value;
+        volatile boolean referenced;
+
+        Slot(V value) {
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Slot<V>> map = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<K> clock = new ConcurrentLinkedQueue<>(); // insertion order; the head is the hand
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ClockCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** @return The cached value, or null (counted as a miss). */
+    V get(K key) {
+        Slot<V> slot = map.get(key);
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+        slot.referenced = true;
+        hits.increment();
+        return slot.value;
+    }
+
+    void put(K key, V value) {
+        if (capacity <= 0 || map.put(key, new Slot<>(value)) != null) {
+            return; // replaced: already on the clock
+        }
+        clock.offer(key);
+        if (size.incrementAndGet() > capacity) {
+            evictOne();
+        }
+    }
+
+    private void evictOne() {
+        K key;
+        while ((key = clock.poll()) != null) {
+            Slot<V> slot = map.get(key);
+            if (slot != null && slot.referenced) {
+                slot.referenced = false; // second chance
+                clock.offer(key);
+            } else {
+                map.remove(key);
+                size.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    int size() { return size.get(); }
+    long hits() { return hits.sum(); }
+    long misses() { return misses.sum(); }
+}
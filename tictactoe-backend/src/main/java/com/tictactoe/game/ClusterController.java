@@ -0,0 +1,82 @@
+package com.tictactoe.game;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tictactoe.cluster.NodeOnly;
+
+/**
+ * Node-to-node endpoints for cluster mode (see Cluster and RemoteUsers).
+ * Never routed: they always act on the node they reach. Only there in
+ * cluster mode, and only for requests with the cluster secret (checked by
+ * ClusterRoutingFilter, and again by NodeOnlyInterceptor); still, keep
+ * /api/cluster off the public network.
+ */
+@NodeOnly
+@RestController
+@ConditionalOnProperty(name = "tictactoe.cluster.enabled", havingValue = "true")
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping("/ping")
+    public String ping() {
+        return "ok"; // the pinging node may not be serving yet, so this says nothing about it
+    }
+
+    // A user's new owner taking it over
+    @PostMapping(value = "/users/release", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> release(@RequestParam long userId) {
+        UserRecord record = userService.release(userId);
+        return record == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(RemoteUsers.toBytes(record));
+    }
+
+    // Users handed over after a membership change; only acknowledged once they're in our log
+    @PostMapping(value = "/users/adopt", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> adopt(@RequestBody byte[] body) throws IOException {
+        List<UserRecord> records = RemoteUsers.readAll(new DataInputStream(new ByteArrayInputStream(body)));
+        List<CompletableFuture<Void>> written = new ArrayList<>(records.size());
+        for (UserRecord record : records) {
+            written.add(userService.adopt(record));
+        }
+        UserService.awaitWritten(written);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping(value = "/users/login", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> login(@RequestParam String username) {
+        User user = userService.loginLocally(username);
+        return user.getId() == 0L ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok(RemoteUsers.toBytes(UserRecord.of(user)));
+    }
+
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> user(@RequestParam long userId) {
+        User user = userService.getUserById(userId);
+        return user.getId() == 0L ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok(RemoteUsers.toBytes(UserRecord.of(user)));
+    }
+
+    // A game result for one of our users, from the node that hosted the game
+    @PostMapping("/users/stats")
+    public ResponseEntity<Void> stats(@RequestParam long userId, @RequestParam String outcome) {
+        return userService.applyStats(userId, outcome) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+}
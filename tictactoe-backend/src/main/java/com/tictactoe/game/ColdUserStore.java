@@ -0,0 +1,299 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Idle users, packed into fixed-layout records outside the Java heap.
+ *
+ * A record holds the stats and the game in a single long (see Game.pack),
+ * plus the username: 64 bytes and the name, rounded up to 16. Records live in
+ * 4 MiB direct-buffer chunks with a free list per record size. Off-heap hash
+ * tables index them by user ID and by username hash. All of it is direct
+ * memory, limited by -XX:MaxDirectMemorySize (by default the -Xmx value).
+ *
+ * Every method locks the store. Users only come here after being idle, and
+ * they leave on their first access, so this lock is off the hot path.
+ */
+final class ColdUserStore {
+
+    /** Largest record; users with longer names just stay on the heap. */
+    static final int MAX_RECORD_BYTES = 4096;
+
+    private static final int CHUNK_BYTES = 4 << 20;
+    private static final int ALIGN = 16;
+
+    // Record layout
+    private static final int SLOT_SIZE = 0;   // int, size of the whole slot
+    private static final int LIVE = 4;        // byte, 0 once freed
+    private static final int NAME_LENGTH = 6; // short, UTF-8 bytes
+    private static final int ID = 8;          // long (next free slot once freed)
+    private static final int WINS = 16;
+    private static final int LOSSES = 20;
+    private static final int DRAWS = 24;
+    private static final int CURRENT_STREAK = 28;
+    private static final int BEST_STREAK = 32;
+    private static final int GAME = 40;       // long, Game.pack()
+    private static final int GAME_VERSION = 48;
+    private static final int PLAYER_O = 56;   // long, -1 for none
+    private static final int NAME = 64;
+
+    /** A record copied out of the store. */
+    static final class Record {
+        final long id;
+        final String username;
+        final int wins, losses, draws, currentStreak, bestStreak;
+        final long game;
+        final long gameVersion;
+        final Long playerOId;
+
+        private Record(ByteBuffer chunk, int offset) {
+            id = chunk.getLong(offset + ID);
+            byte[] name = new byte[chunk.getShort(offset + NAME_LENGTH)];
+            chunk.get(offset + NAME, name);
+            username = new String(name, StandardCharsets.UTF_8);
+            wins = chunk.getInt(offset + WINS);
+            losses = chunk.getInt(offset + LOSSES);
+            draws = chunk.getInt(offset + DRAWS);
+            currentStreak = chunk.getInt(offset + CURRENT_STREAK);
+            bestStreak = chunk.getInt(offset + BEST_STREAK);
+            game = chunk.getLong(offset + GAME);
+            gameVersion = chunk.getLong(offset + GAME_VERSION);
+            long o = chunk.getLong(offset + PLAYER_O);
+            playerOId = o == -1 ? null : o;
+        }
+    }
+
+    interface RecordVisitor {
+        void visit(Record record) throws IOException;
+    }
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int[] chunkUsed = new int[16];
+    private int bump = CHUNK_BYTES; // next free byte in the last chunk
+    private final long[] freeHeads = new long[MAX_RECORD_BYTES / ALIGN + 1];
+
+    private final OffHeapLongTable byId = new OffHeapLongTable(1024);   // id -> address
+    private final OffHeapLongTable byName = new OffHeapLongTable(1024); // name hash -> address
+
+    ColdUserStore() {
+        Arrays.fill(freeHeads, -1);
+    }
+
+    static boolean fits(String username) {
+        return NAME + utf8Length(username) <= MAX_RECORD_BYTES;
+    }
+
+    synchronized int size() {
+        return byId.size();
+    }
+
+    synchronized long offHeapBytes() {
+        return (long) chunks.size() * CHUNK_BYTES;
+    }
+
+    synchronized boolean contains(long id) {
+        return byId.get(id) != -1;
+    }
+
+    /** Stores a user, replacing any record with the same ID. */
+    synchronized void put(long id, String username, int wins, int losses, int draws, int currentStreak,
+                          int bestStreak, long game, long gameVersion, Long playerOId) {
+        remove(id);
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        long address = allocate(NAME + name.length);
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        chunk.put(offset + LIVE, (byte) 1);
+        chunk.putShort(offset + NAME_LENGTH, (short) name.length);
+        chunk.putLong(offset + ID, id);
+        chunk.putInt(offset + WINS, wins);
+        chunk.putInt(offset + LOSSES, losses);
+        chunk.putInt(offset + DRAWS, draws);
+        chunk.putInt(offset + CURRENT_STREAK, currentStreak);
+        chunk.putInt(offset + BEST_STREAK, bestStreak);
+        chunk.putLong(offset + GAME, game);
+        chunk.putLong(offset + GAME_VERSION, gameVersion);
+        chunk.putLong(offset + PLAYER_O, playerOId == null ? -1 : playerOId);
+        chunk.put(offset + NAME, name);
+        byId.add(id, address);
+        byName.add(nameHash(name), address);
+    }
+
+    /** Overwrites a stored user's stats (used while replaying the log). */
+    synchronized boolean updateStats(long id, int wins, int losses, int draws, int currentStreak, int bestStreak) {
+        long address = byId.get(id);
+        if (address == -1) {
+            return false;
+        }
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        chunk.putInt(offset + WINS, wins);
+        chunk.putInt(offset + LOSSES, losses);
+        chunk.putInt(offset + DRAWS, draws);
+        chunk.putInt(offset + CURRENT_STREAK, currentStreak);
+        chunk.putInt(offset + BEST_STREAK, bestStreak);
+        return true;
+    }
+
+    /** @return A copy of the user's record, or null. */
+    synchronized Record get(long id) {
+        long address = byId.get(id);
+        return address == -1 ? null : new Record(chunk(address), offset(address));
+    }
+
+    synchronized boolean remove(long id) {
+        long address = byId.get(id);
+        if (address == -1) {
+            return false;
+        }
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        byte[] name = new byte[chunk.getShort(offset + NAME_LENGTH)];
+        chunk.get(offset + NAME, name);
+        byId.remove(id, address);
+        byName.remove(nameHash(name), address);
+        free(address);
+        return true;
+    }
+
+    /** @return The ID of the user with this name, or -1. */
+    synchronized long idOf(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        long address = byName.find(nameHash(name), a -> nameEquals(a, name)); // hashes can collide
+        return address == -1 ? -1 : chunk(address).getLong(offset(address) + ID);
+    }
+
+    /** @return The user's name without loading the user, or null. */
+    synchronized String usernameOf(long id) {
+        long address = byId.get(id);
+        if (address == -1) {
+            return null;
+        }
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        byte[] name = new byte[chunk.getShort(offset + NAME_LENGTH)];
+        chunk.get(offset + NAME, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Visits every record, copying a batch at a time under the lock so others
+     * aren't blocked for the whole walk. Records removed meanwhile may or may
+     * not be visited; records added meanwhile may be missed, so callers stop
+     * new records from coming in while they walk.
+     */
+    void forEach(RecordVisitor visitor) throws IOException {
+        int chunkIndex = 0;
+        int offset = 0;
+        List<Record> batch = new ArrayList<>(1024);
+        while (true) {
+            synchronized (this) {
+                while (batch.size() < 1024 && chunkIndex < chunks.size()) {
+                    if (offset >= used(chunkIndex)) {
+                        chunkIndex++;
+                        offset = 0;
+                        continue;
+                    }
+                    ByteBuffer chunk = chunks.get(chunkIndex);
+                    if (chunk.get(offset + LIVE) != 0) {
+                        batch.add(new Record(chunk, offset));
+                    }
+                    offset += chunk.getInt(offset + SLOT_SIZE);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (Record record : batch) {
+                visitor.visit(record);
+            }
+            batch.clear();
+        }
+    }
+
+    // --- Slots ---
+
+    private long allocate(int bytes) {
+        int size = (bytes + ALIGN - 1) / ALIGN * ALIGN;
+        int sizeClass = size / ALIGN;
+        long address = freeHeads[sizeClass];
+        if (address != -1) {
+            ByteBuffer chunk = chunk(address);
+            freeHeads[sizeClass] = chunk.getLong(offset(address) + ID);
+            return address;
+        }
+        if (bump + size > CHUNK_BYTES) {
+            if (!chunks.isEmpty()) {
+                chunkUsed[chunks.size() - 1] = bump;
+            }
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_BYTES));
+            if (chunks.size() > chunkUsed.length) {
+                chunkUsed = Arrays.copyOf(chunkUsed, chunkUsed.length * 2);
+            }
+            bump = 0;
+        }
+        address = (long) (chunks.size() - 1) << 32 | bump;
+        chunks.get(chunks.size() - 1).putInt(bump + SLOT_SIZE, size);
+        bump += size;
+        return address;
+    }
+
+    private void free(long address) {
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        int sizeClass = chunk.getInt(offset + SLOT_SIZE) / ALIGN;
+        chunk.put(offset + LIVE, (byte) 0);
+        chunk.putLong(offset + ID, freeHeads[sizeClass]);
+        freeHeads[sizeClass] = address;
+    }
+
+    private int used(int chunkIndex) {
+        return chunkIndex == chunks.size() - 1 ? bump : chunkUsed[chunkIndex];
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private boolean nameEquals(long address, byte[] name) {
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        if (chunk.getShort(offset + NAME_LENGTH) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (chunk.get(offset + NAME + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a; never 0, which the index reserves for empty slots
+    private static long nameHash(byte[] name) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * Opt-in binary form of a game, for clients that send
+ * {@code Accept: application/vnd.tictactoe.game}. About 20 bytes for a 3x3
+ * game instead of ~300 bytes of JSON, with no reflection to write it.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * byte    format (1)
+ * long    state version (same as "version" in the JSON)
+ * byte    board size, byte win length
+ * byte    flags: bit 0 O to move, bits 1-2 winner (0 none, 1 X, 2 O, 3 draw),
+ *                bit 3 single player, bits 4-5 difficulty, bit 6 player O joined,
+ *                bit 7 registry game
+ * bytes   board, base 3, five cells per byte (cell i is digit i % 5 of byte i / 5;
+ *         0 empty, 1 X, 2 O)
+ * byte    winning line length n, then n cell indexes as unsigned shorts
+ * long    player O's user ID (only if flag bit 6 is set)
+ * long    game ID, long player X's user ID (only if flag bit 7 is set)
+ * </pre>
+ * lastAiMove is left out; clients that want it use the JSON.
+ */
+public class CompactGameConverter extends AbstractHttpMessageConverter<Game> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/vnd.tictactoe.game");
+
+    static final int FORMAT = 1;
+    private static final int CELLS_PER_BYTE = 5;
+
+    public CompactGameConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Game.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false; // games are never sent to the server
+    }
+
+    @Override
+    protected Game readInternal(Class<? extends Game> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Games can't be uploaded", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(Game game, MediaType contentType) {
+        return (long) encodedLength(game);
+    }
+
+    @Override
+    protected void writeInternal(Game game, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(encode(game));
+    }
+
+    /** Encodes a snapshot (not a live game: the fields are read without its lock). */
+    public static byte[] encode(Game game) {
+        byte[] out = new byte[encodedLength(game)];
+        int pos = 0;
+        out[pos++] = FORMAT;
+        long version = game.getVersion();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[pos++] = (byte) (version >>> shift);
+        }
+        out[pos++] = (byte) game.getBoardSize();
+        out[pos++] = (byte) game.getWinLength();
+        out[pos++] = (byte) flags(game);
+
+        int cells = game.getBoardSize() * game.getBoardSize();
+        GridBoard grid = game.grid();
+        int digit = 0;
+        int packed = 0;
+        int place = 1;
+        for (int cell = 0; cell < cells; cell++) {
+            int value = grid != null ? grid.get(cell)
+                    : BitBoard.isSet(game.xBits(), cell) ? 1 : BitBoard.isSet(game.oBits(), cell) ? 2 : 0;
+            packed += value * place;
+            place *= 3;
+            if (++digit == CELLS_PER_BYTE || cell == cells - 1) {
+                out[pos++] = (byte) packed;
+                digit = 0;
+                packed = 0;
+                place = 1;
+            }
+        }
+
+        List<Integer> line = game.getWinningLine();
+        out[pos++] = (byte) line.size();
+        for (int cell : line) {
+            out[pos++] = (byte) (cell >>> 8);
+            out[pos++] = (byte) cell;
+        }
+
+        Long playerOId = game.getPlayerOId();
+        if (playerOId != null) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out[pos++] = (byte) (playerOId >>> shift);
+            }
+        }
+
+        if (game.getGameId() != null) {
+            long[] ids = {game.getGameId(), game.getPlayerXId()};
+            for (long id : ids) {
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out[pos++] = (byte) (id >>> shift);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static int flags(Game game) {
+        String winner = game.getWinner();
+        int winnerCode = winner == null ? 0 : winner.equals("X") ? 1 : winner.equals("O") ? 2 : 3;
+        int flags = game.getCurrentPlayer().equals("O") ? 1 : 0;
+        flags |= winnerCode << 1;
+        flags |= (game.getMode() == Game.GameMode.SINGLE_PLAYER ? 1 : 0) << 3;
+        flags |= game.getDifficulty().ordinal() << 4;
+        flags |= (game.getPlayerOId() != null ? 1 : 0) << 6;
+        flags |= (game.getGameId() != null ? 1 : 0) << 7;
+        return flags;
+    }
+
+    private static int encodedLength(Game game) {
+        int cells = game.getBoardSize() * game.getBoardSize();
+        return 1 + 8 + 2 + 1
+                + (cells + CELLS_PER_BYTE - 1) / CELLS_PER_BYTE
+                + 1 + 2 * game.getWinningLine().size()
+                + (game.getPlayerOId() != null ? 8 : 0)
+                + (game.getGameId() != null ? 16 : 0);
+    }
+}
@@ -2,11 +2,25 @@ package com.tictactoe.game;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * Game state. Each Game is its own lock: every state transition is a
+ * synchronized method (or a block synchronized on the game, for compound
+ * check-then-act steps), so moves on different games never contend.
+ * Code outside that lock should read a {@link #snapshot()}, never the live game.
+ */
 public class Game {
     
-    // Game state fields
-    private String[] board = new String[9];
+    // Game state fields: one 9-bit mask per player (see BitBoard)
+    private int xBits = 0;
+    private int oBits = 0;
+
+    // Board size and win length. The classic 3x3 game uses the bitboard above;
+    // every other size keeps its cells in 'grid' (null for 3x3).
+    private int boardSize = 3;
+    private int winLength = 3;
+    private GridBoard grid;
     private String currentPlayer = "X";
     private String winner = null;
     private List<Integer> winningLine = List.of();
@@ -18,6 +32,22 @@ public class Game {
     // NEW FIELD: ID for Player O (will be set when O joins a two-player game)
     private Long playerOId; 
 
+    // Set for games in the GameRegistry; null for a user's own game, where X is its owner
+    private Long gameId;
+    private Long playerXId;
+
+    // How the AI picked its last move (single player only, null otherwise)
+    private AIDecision lastAiMove;
+
+    // Every move played, so moves can be undone and finished games replayed
+    private MoveLog moves = new MoveLog();
+
+    // What the MCTS AI learned while picking its last move, for its next one (not part of the state)
+    private volatile MonteCarloSearch.Tree searchTree;
+
+    // Bumped on every state change; lets callers detect that the game moved on
+    private long version = 0;
+
     // FIX: Changed from 'private' to 'public' to allow AIPlayer access
     public static final int[][] WINNING_LINES = { 
         {0, 1, 2}, {3, 4, 5}, {6, 7, 8}, 
@@ -26,7 +56,13 @@ public class Game {
     };
 
     public Game() {
-        Arrays.fill(board, null);
+    }
+
+    // A registry game (see GameRegistry)
+    Game(long gameId, long playerXId, Long playerOId) {
+        this.gameId = gameId;
+        this.playerXId = playerXId;
+        this.playerOId = playerOId;
     }
     
     // New Enums for Game Mode and Difficulty
@@ -34,16 +70,34 @@ public class Game {
         TWO_PLAYER, SINGLE_PLAYER
     }
     public enum AIDifficulty {
-        EASY, MEDIUM, HARD
+        EASY, MEDIUM, HARD,
+        MCTS // Monte-Carlo tree search; strength set by its playout budget (tictactoe.ai.mcts.*)
     }
     
-    public boolean makeMove(int index) {
+    public synchronized boolean makeMove(int index) {
+        if (!place(index)) {
+            return false;
+        }
+        moves.add(index);
+        version++;
+        return true;
+    }
+
+    // Puts the current player's stone on 'index' and updates winner and turn
+    private boolean place(int index) {
+        if (grid != null) {
+            return placeOnGrid(index);
+        }
         
-        if (winner != null || index < 0 || index >= 9 || board[index] != null) {
+        if (winner != null || index < 0 || index >= BitBoard.CELLS || BitBoard.isSet(xBits | oBits, index)) {
             return false; 
         }
 
-        board[index] = currentPlayer;
+        if (currentPlayer.equals("X")) {
+            xBits |= 1 << index;
+        } else {
+            oBits |= 1 << index;
+        }
         
         checkWin();
 
@@ -52,26 +106,120 @@ public class Game {
             // Only switch player if no winner/draw
             currentPlayer = currentPlayer.equals("X") ? "O" : "X";
         }
-        
         return true;
     }
 
+    private boolean placeOnGrid(int index) {
+        if (winner != null || index < 0 || index >= grid.cellCount() || !grid.isEmpty(index)) {
+            return false;
+        }
+
+        grid.play(index, currentPlayer.equals("X") ? GridBoard.X : GridBoard.O);
+
+        // Only lines through the new stone can have been completed
+        int[] line = grid.winningLineAt(index);
+        if (line != null) {
+            winner = currentPlayer;
+            winningLine = Arrays.stream(line).boxed().toList();
+        } else if (grid.isFull()) {
+            winner = "Draw";
+        } else {
+            currentPlayer = currentPlayer.equals("X") ? "O" : "X";
+        }
+        return true;
+    }
+
+    /**
+     * Takes back the last move; a finished game is open again.
+     * @return False if no move is left to take back.
+     */
+    public synchronized boolean undo() {
+        int cell = moves.undo();
+        if (cell < 0) {
+            return false;
+        }
+        if (grid != null) {
+            currentPlayer = grid.get(cell) == GridBoard.X ? "X" : "O";
+            grid.undo(cell);
+        } else {
+            currentPlayer = BitBoard.isSet(xBits, cell) ? "X" : "O";
+            xBits &= ~(1 << cell);
+            oBits &= ~(1 << cell);
+        }
+        winner = null;
+        winningLine = List.of();
+        lastAiMove = null;
+        searchTree = null;
+        version++;
+        return true;
+    }
+
+    /**
+     * Plays the last undone move again.
+     * @return False if there is none (undone moves are forgotten once a new move is made).
+     */
+    public synchronized boolean redo() {
+        int cell = moves.redo();
+        if (cell < 0) {
+            return false;
+        }
+        place(cell);
+        lastAiMove = null;
+        searchTree = null;
+        version++;
+        return true;
+    }
+
+    public int getMoveCount() { return moves.moves(); }
+    public int getRedoCount() { return moves.undone(); } // moves /api/redo can play again
+
+    MoveLog moveLog() { return moves; }
+
+    /**
+     * Rebuilds a game from its encoded moves (see MoveLog), replaying the
+     * first {@code plies} of them on an empty board.
+     */
+    static Game replay(int boardSize, int winLength, byte[] encodedMoves, int plies) {
+        Game game = new Game();
+        game.resize(boardSize, winLength);
+        int[] played = {0};
+        MoveLog.forEach(encodedMoves, encodedMoves.length, (cell, millis) -> {
+            if (played[0]++ < plies) {
+                game.makeMove(cell);
+            }
+        });
+        return game;
+    }
+
     // New method to check if the board is full (Draw condition)
     public boolean isBoardFull() {
-        return Arrays.stream(board).allMatch(s -> s != null);
+        return grid != null ? grid.isFull() : BitBoard.isFull(xBits, oBits);
+    }
+
+    /**
+     * Switches to a size x size board with winLength in a row, starting a new game.
+     * 3x3 with 3 in a row is the classic game.
+     */
+    public synchronized void resize(int boardSize, int winLength) {
+        if (boardSize == this.boardSize && winLength == this.winLength) {
+            return;
+        }
+        GridBoard newGrid = boardSize == 3 && winLength == 3 ? null : new GridBoard(boardSize, winLength); // validates
+        this.boardSize = boardSize;
+        this.winLength = winLength;
+        this.grid = newGrid;
+        restart();
     }
 
     private void checkWin() {
-        for (int[] line : WINNING_LINES) {
-            String a = board[line[0]];
-            String b = board[line[1]];
-            String c = board[line[2]];
-            
-            if (a != null && a.equals(b) && a.equals(c)) {
-                winner = a; // Found a winner
-                winningLine = List.of(line[0], line[1], line[2]);
-                return;
-            }
+        // Only the player who just moved can have completed a line
+        int bits = currentPlayer.equals("X") ? xBits : oBits;
+        int lineIndex = BitBoard.winningLineIndex(bits);
+        if (lineIndex != -1) {
+            int[] line = WINNING_LINES[lineIndex];
+            winner = currentPlayer; // Found a winner
+            winningLine = List.of(line[0], line[1], line[2]);
+            return;
         }
         
         if (isBoardFull() && winner == null) {
@@ -79,30 +227,175 @@ public class Game {
         }
     }
     
+    // Primitive board access for the AI (not part of the JSON)
+    public int xBits() { return xBits; }
+    public int oBits() { return oBits; }
+    public GridBoard grid() { return grid; } // null for the classic 3x3 game
+
+    MonteCarloSearch.Tree searchTree() { return searchTree; }
+    void keepSearchTree(MonteCarloSearch.Tree searchTree) { this.searchTree = searchTree; }
+
+    // Started and not finished. Read without the lock for metrics, so only approximate.
+    public boolean inProgress() {
+        return winner == null && (grid != null ? grid.moveCount() > 0 : (xBits | oBits) != 0);
+    }
+
     // --- Getters and Setters (updated) ---
-    public String[] getBoard() { return board; }
+    public String[] getBoard() { return grid != null ? grid.toArray() : BitBoard.toArray(xBits, oBits); }
+    public int getBoardSize() { return boardSize; }
+    public int getWinLength() { return winLength; }
+    public long getVersion() { return version; }
     public String getCurrentPlayer() { return currentPlayer; }
     public String getWinner() { return winner; }
     public List<Integer> getWinningLine() { return winningLine; }
     public GameMode getMode() { return mode; }
     public AIDifficulty getDifficulty() { return difficulty; }
     
+    public Long getGameId() { return gameId; }
+    public Long getPlayerXId() { return playerXId; }
+
     // NEW GETTER/SETTER for Player O ID
     public Long getPlayerOId() { return playerOId; }
-    public void setPlayerOId(Long playerOId) { this.playerOId = playerOId; }
-
-    public void setBoard(String[] board) { this.board = board; }
-    public void setCurrentPlayer(String currentPlayer) { this.currentPlayer = currentPlayer; }
-    public void setWinner(String winner) { this.winner = winner; }
-    public void setWinningLine(List<Integer> winningLine) { this.winningLine = winningLine; }
-    public void setMode(GameMode mode) { this.mode = mode; }
-    public void setDifficulty(AIDifficulty difficulty) { this.difficulty = difficulty; }
+    public synchronized void setPlayerOId(Long playerOId) {
+        if (!Objects.equals(this.playerOId, playerOId)) {
+            this.playerOId = playerOId;
+            version++;
+        }
+    }
+
+    public AIDecision getLastAiMove() { return lastAiMove; }
+    public synchronized void setLastAiMove(AIDecision lastAiMove) { this.lastAiMove = lastAiMove; version++; }
+
+    public synchronized void setBoard(String[] board) {
+        if (grid != null) {
+            grid.load(board);
+        } else {
+            this.xBits = BitBoard.maskOf(board, "X");
+            this.oBits = BitBoard.maskOf(board, "O");
+        }
+        moves.clearFromPosition();
+        version++;
+    }
+    public synchronized void setCurrentPlayer(String currentPlayer) { this.currentPlayer = currentPlayer; version++; }
+    public synchronized void setWinner(String winner) { this.winner = winner; version++; }
+    public synchronized void setWinningLine(List<Integer> winningLine) { this.winningLine = winningLine; version++; }
+    public synchronized void setMode(GameMode mode) {
+        if (this.mode != mode) {
+            this.mode = mode;
+            version++;
+        }
+    }
+    public synchronized void setDifficulty(AIDifficulty difficulty) {
+        if (this.difficulty != difficulty) {
+            this.difficulty = difficulty;
+            version++;
+        }
+    }
+
+    /**
+     * A consistent copy of the whole game, taken under its lock. This is what
+     * endpoints return, so serialization never sees a half-applied move.
+     */
+    public synchronized Game snapshot() {
+        Game copy = new Game();
+        copy.xBits = xBits;
+        copy.oBits = oBits;
+        copy.boardSize = boardSize;
+        copy.winLength = winLength;
+        copy.grid = grid != null ? grid.copy() : null;
+        copy.currentPlayer = currentPlayer;
+        copy.winner = winner;
+        copy.winningLine = winningLine;
+        copy.mode = mode;
+        copy.difficulty = difficulty;
+        copy.playerOId = playerOId;
+        copy.gameId = gameId;
+        copy.playerXId = playerXId;
+        copy.lastAiMove = lastAiMove;
+        copy.moves = moves.copy();
+        copy.searchTree = searchTree; // never modified, so shared
+        copy.version = version;
+        return copy;
+    }
     
-    public void restart() {
-        Arrays.fill(board, null);
+    // --- Packed form, for users moved to cold storage (see ColdUserStore) ---
+    // bits 0-8 X, 9-17 O, 18 O to move, 19-20 winner (0 none, 1 X, 2 O, 3 Draw),
+    // 21-22 mode, 23-24 difficulty, 25-29 board size, 30-34 win length.
+    // Only the classic 3x3 board fits; bigger boards keep their size and restart.
+
+    synchronized long pack() {
+        long packed = 0;
+        if (grid == null) {
+            packed = xBits | (long) oBits << 9;
+            packed |= (currentPlayer.equals("O") ? 1L : 0L) << 18;
+            int winnerCode = winner == null ? 0 : winner.equals("X") ? 1 : winner.equals("O") ? 2 : 3;
+            packed |= (long) winnerCode << 19;
+        }
+        packed |= (long) mode.ordinal() << 21;
+        packed |= (long) difficulty.ordinal() << 23;
+        packed |= (long) boardSize << 25;
+        packed |= (long) winLength << 30;
+        return packed;
+    }
+
+    // Whether pack() could have made it; unpack trusts its input
+    static boolean canUnpack(long packed) {
+        int boardSize = (int) (packed >>> 25) & 0x1F;
+        int winLength = (int) (packed >>> 30) & 0x1F;
+        if (packed >>> 35 != 0 || ((packed >>> 21) & 3) >= GameMode.values().length
+                || ((packed >>> 23) & 3) >= AIDifficulty.values().length) {
+            return false;
+        }
+        if (boardSize != 3 || winLength != 3) {
+            return (packed & 0x1FFFFF) == 0 && boardSize >= GridBoard.MIN_SIZE && boardSize <= GridBoard.MAX_SIZE
+                    && winLength >= 3 && winLength <= boardSize;
+        }
+        return ((int) packed & (int) (packed >>> 9) & BitBoard.FULL) == 0; // no cell both X and O
+    }
+
+    static Game unpack(long packed, long version, Long playerOId) {
+        Game game = new Game();
+        game.boardSize = (int) (packed >>> 25) & 0x1F;
+        game.winLength = (int) (packed >>> 30) & 0x1F;
+        if (game.boardSize != 3 || game.winLength != 3) {
+            game.grid = new GridBoard(game.boardSize, game.winLength);
+        } else {
+            game.xBits = (int) packed & BitBoard.FULL;
+            game.oBits = (int) (packed >>> 9) & BitBoard.FULL;
+            game.currentPlayer = ((packed >>> 18) & 1) != 0 ? "O" : "X";
+            int winnerCode = (int) (packed >>> 19) & 3;
+            game.winner = winnerCode == 0 ? null : winnerCode == 1 ? "X" : winnerCode == 2 ? "O" : "Draw";
+            if (winnerCode == 1 || winnerCode == 2) {
+                int lineIndex = BitBoard.winningLineIndex(winnerCode == 1 ? game.xBits : game.oBits);
+                if (lineIndex != -1) {
+                    int[] line = WINNING_LINES[lineIndex];
+                    game.winningLine = List.of(line[0], line[1], line[2]);
+                }
+            }
+        }
+        game.mode = GameMode.values()[(int) (packed >>> 21) & 3];
+        game.difficulty = AIDifficulty.values()[(int) (packed >>> 23) & 3];
+        game.playerOId = playerOId;
+        if ((game.xBits | game.oBits) != 0) {
+            game.moves.clearFromPosition(); // moves aren't packed, only the position
+        }
+        game.version = game.grid != null ? version + 1 : version; // a big board comes back restarted
+        return game;
+    }
+
+    public synchronized void restart() {
+        xBits = 0;
+        oBits = 0;
+        if (grid != null) {
+            grid.clear();
+        }
         currentPlayer = "X";
         winner = null;
         winningLine = List.of();
+        lastAiMove = null;
+        searchTree = null;
+        moves.clear();
+        version++;
         // Reset player O ID on restart (so a new player O can join)
         // playerOId = null; 
     }
@@ -0,0 +1,125 @@
+package com.tictactoe.game;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * Finished games, kept as their move logs for replay and export (see
+ * HistoryController). A game costs its settings plus a byte or two per move,
+ * so many can be kept; past the configured number the oldest are dropped.
+ */
+@Component
+public class GameArchive {
+
+    private final ConcurrentSkipListMap<Long, Entry> games = new ConcurrentSkipListMap<>(); // by history ID, oldest first
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong nextId;
+    private final int maxGames;
+
+    /** A finished game. */
+    public static final class Entry {
+        public final long historyId;
+        public final Long gameId;   // registry games only
+        public final long playerXId;
+        public final Long playerOId; // null against the AI
+        public final GameMode mode;
+        public final AIDifficulty difficulty;
+        public final int boardSize;
+        public final int winLength;
+        public final String winner; // "X", "O" or "Draw"
+        public final long startedAt;
+        public final long finishedAt;
+        public final int moveCount;
+        final byte[] moves; // MoveLog encoding
+
+        Entry(long historyId, Game game, long playerXId, byte[] moves) {
+            this.historyId = historyId;
+            this.gameId = game.getGameId();
+            this.playerXId = playerXId;
+            this.playerOId = game.getMode() == GameMode.TWO_PLAYER ? game.getPlayerOId() : null;
+            this.mode = game.getMode();
+            this.difficulty = game.getDifficulty();
+            this.boardSize = game.getBoardSize();
+            this.winLength = game.getWinLength();
+            this.winner = game.getWinner();
+            this.startedAt = game.moveLog().startedAt();
+            this.finishedAt = System.currentTimeMillis();
+            this.moveCount = game.getMoveCount();
+            this.moves = moves;
+        }
+
+        boolean involves(long userId) {
+            return playerXId == userId || playerOId != null && playerOId == userId;
+        }
+
+        /** Calls {@code visitor} with every move: its cell and the milliseconds it took. */
+        public void forEachMove(MoveLog.Visitor visitor) {
+            MoveLog.forEach(moves, moves.length, visitor);
+        }
+
+        /** The position after the first {@code plies} moves, rebuilt by replaying them. */
+        public Game replay(int plies) {
+            Game game = Game.replay(boardSize, winLength, moves, plies);
+            game.setMode(mode);
+            game.setDifficulty(difficulty);
+            return game;
+        }
+    }
+
+    public GameArchive(@Value("${tictactoe.history.max-games:100000}") int maxGames, GameMetrics metrics, Cluster cluster) {
+        this.maxGames = maxGames;
+        this.nextId = new AtomicLong(cluster.gameIdBase() + 1); // routed like registry games in a cluster
+        metrics.registerGauge("tictactoe_archived_games", "Finished games kept for replay", size::get);
+    }
+
+    /**
+     * Keeps a game that just finished. Call with the game's lock held.
+     * Games whose log doesn't go back to an empty board can't be replayed and are skipped.
+     */
+    void add(Game game, long playerXId) {
+        if (maxGames <= 0 || !game.moveLog().fromStart()) {
+            return;
+        }
+        long id = nextId.getAndIncrement();
+        games.put(id, new Entry(id, game, playerXId, game.moveLog().encoded()));
+        if (size.incrementAndGet() > maxGames && games.pollFirstEntry() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /** @return The game, or null if there is none (or it was dropped). */
+    public Entry get(long historyId) {
+        return games.get(historyId);
+    }
+
+    /**
+     * Visits finished games oldest first, starting after {@code afterId}.
+     * @param userId Only games this user played, or null for all.
+     */
+    public void forEach(Long userId, long afterId, int limit, Consumer<Entry> visitor) {
+        int count = 0;
+        for (Map.Entry<Long, Entry> e : games.tailMap(afterId, false).entrySet()) {
+            if (count >= limit) {
+                return;
+            }
+            if (userId == null || e.getValue().involves(userId)) {
+                visitor.accept(e.getValue());
+                count++;
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
@@ -2,16 +2,31 @@ package com.tictactoe.game;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 import com.tictactoe.game.Game.AIDifficulty;
 import com.tictactoe.game.Game.GameMode;
 import com.tictactoe.game.User.UserStats;
+import com.tictactoe.ratelimit.RateLimitFilter;
+import com.tictactoe.ratelimit.RateLimiter;
 
 
 @CrossOrigin(origins = {
@@ -25,33 +40,82 @@ public class GameController {
     @Autowired
     private UserService userService; 
 
+    @Autowired
+    private AITurnScheduler aiTurnScheduler;
+
+    @Autowired
+    private AISearchConfig aiSearchConfig;
+
+    @Autowired
+    private GameEventHub gameEventHub;
+
+    @Autowired
+    private GameMetrics metrics;
+
+    @Autowired
+    private GameRegistry gameRegistry;
+
+    @Autowired
+    private GameArchive archive;
+
+    @Autowired
+    private PositionAnalyzer analyzer;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private OpeningStats openingStats;
+
     // --- User/Authentication Endpoints ---
 
     @PostMapping("/users/login")
     public ResponseEntity<User> login(@RequestParam String username) {
+        long start = System.nanoTime();
         User user = userService.loginOrRegister(username);
+        metrics.endpoint(GameMetrics.Endpoint.LOGIN, start);
         return ResponseEntity.ok(user);
     }
     
     @GetMapping("/users/stats")
     public ResponseEntity<UserStats> getUserStats(@RequestParam Long userId) {
+        long start = System.nanoTime();
         UserStats stats = userService.getUserStats(userId);
+        metrics.endpoint(GameMetrics.Endpoint.USER_STATS, start);
         return ResponseEntity.ok(stats);
     }
     
     // NEW ENDPOINT: Player O logs in and joins the game
     @PostMapping("/game/join")
     public ResponseEntity<User> joinGame(
-        @RequestParam Long userIdX,     // The ID of Player X (the existing user)
-        @RequestParam String usernameO   // The username of Player O
+        @RequestParam(required = false) Long userIdX, // The ID of Player X (the existing user)
+        @RequestParam String usernameO,               // The username of Player O
+        @RequestParam(required = false) Long gameId   // Or: a registry game waiting for its player O
     ) {
-        User userX = userService.getUserById(userIdX);
-        
+        long start = System.nanoTime();
+        if (userIdX == null && gameId == null) {
+            throw new IllegalArgumentException("userIdX or gameId is required");
+        }
+
         // Login/Register Player O
         User userO = userService.loginOrRegister(usernameO);
         
-        // Link Player O's ID to Player X's game object
-        userX.getGame().setPlayerOId(userO.getId());
+        // Link Player O's ID to Player X's game object (or to the registry game)
+        Game game = gameId != null ? registryGame(gameId) : userService.getUserById(userIdX).getGame();
+        synchronized (game) {
+            if (gameId != null) {
+                if (game.getMode() != GameMode.TWO_PLAYER) {
+                    throw new IllegalArgumentException("Game " + gameId + " is against the AI");
+                }
+                if (game.getPlayerOId() != null && !game.getPlayerOId().equals(userO.getId())) {
+                    throw new IllegalArgumentException("Game " + gameId + " already has two players");
+                }
+                gameRegistry.addPlayer(gameId, userO.getId());
+            }
+            game.setPlayerOId(userO.getId());
+            publish(userIdX, game);
+        }
+        metrics.endpoint(GameMetrics.Endpoint.JOIN, start);
 
         // Return Player O's details to the frontend for display/confirmation
         return ResponseEntity.ok(userO);
@@ -59,114 +123,576 @@ public class GameController {
 
     // --- Game Endpoints ---
 
+    // With a gameId this reads a registry game (anyone may watch one); its
+    // settings were fixed when it was created, so mode/size/winLength are ignored
     @GetMapping("/game")
-    public Game getGameStatus(
+    public ResponseEntity<Game> getGameStatus(
+        @RequestParam Long userId,
+        @RequestParam(required = false) GameMode mode,    // Default: keep current
+        @RequestParam(required = false) Integer size,     // Board size, e.g. 4 for 4x4 (default: keep current)
+        @RequestParam(required = false) Integer winLength, // Stones in a row needed to win
+        @RequestParam(required = false) Long gameId
+    ) {
+        long start = System.nanoTime();
+        Game game = gameId != null ? registryGame(gameId) : userService.getUserById(userId).getGame();
+        try {
+            Game snapshot;
+            synchronized (game) {
+                if (gameId == null) {
+                    applySettings(game, mode, null, size, winLength); // Set the mode on the current game
+                }
+                snapshot = publish(userId, game);
+            }
+            // Polling clients send the ETag back in If-None-Match and get an empty 304
+            // until the version moves (Spring does the comparison)
+            return ResponseEntity.ok()
+                    .eTag(gameETag(snapshot))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .body(snapshot);
+        } finally {
+            metrics.endpoint(GameMetrics.Endpoint.GAME, start);
+        }
+    }
+
+    /**
+     * Server-Sent Events stream of a game: a full "state" event first, then a
+     * "delta" after every change. Replaces polling /api/game; any number of
+     * players and spectators can follow the same game.
+     */
+    @GetMapping("/game/stream")
+    public SseEmitter streamGame(
+        @RequestParam Long userId,
+        @RequestParam(required = false) Long gameId
+    ) {
+        Game game = gameId != null ? registryGame(gameId) : userService.getUserById(userId).getGame();
+        synchronized (game) {
+            return gameEventHub.subscribe(streamKey(userId, game), game.snapshot());
+        }
+    }
+
+    /**
+     * Analysis view: every empty cell valued for one side (default: the side
+     * to move) - win, draw or loss and in how many plies - plus the best cell.
+     * Anyone may analyse a registry game, like watching it.
+     */
+    @GetMapping("/analysis")
+    public ResponseEntity<PositionAnalyzer.Analysis> analyzeGame(
         @RequestParam Long userId,
-        @RequestParam GameMode mode
+        @RequestParam(required = false) Long gameId,
+        @RequestParam(required = false) String player // X or O
     ) {
-        User user = userService.getUserById(userId);
-        user.getGame().setMode(mode); // Set the mode on the current game
-        return user.getGame();
+        long start = System.nanoTime();
+        Game game = gameId != null ? registryGame(gameId) : userService.getUserById(userId).getGame();
+        try {
+            Game position = game.snapshot(); // searched without holding the game's lock
+            return ResponseEntity.ok(analyzer.analyze(position, player != null ? player : position.getCurrentPlayer()));
+        } finally {
+            metrics.endpoint(GameMetrics.Endpoint.ANALYSIS, start);
+        }
+    }
+
+    // Hint button: the best cell for the side to move
+    @GetMapping("/hint")
+    public ResponseEntity<PositionAnalyzer.Cell> hint(
+        @RequestParam Long userId,
+        @RequestParam(required = false) Long gameId
+    ) {
+        PositionAnalyzer.Analysis analysis = analyzeGame(userId, gameId, null).getBody();
+        for (PositionAnalyzer.Cell cell : analysis.cells) {
+            if (cell.cell == analysis.bestMove) {
+                return ResponseEntity.ok(cell);
+            }
+        }
+        throw new IllegalArgumentException("No empty cell"); // not reached: analyze rejects finished games
     }
 
     @PostMapping("/move")
-    public ResponseEntity<Game> makeMove(
+    public CompletableFuture<ResponseEntity<Game>> makeMove(
         @RequestParam int index,
         @RequestParam Long userId,
-        @RequestParam GameMode mode,
-        @RequestParam AIDifficulty difficulty // Only relevant for single player
+        @RequestParam(required = false) GameMode mode,
+        @RequestParam(required = false) AIDifficulty difficulty, // Only relevant for single player
+        @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) Integer winLength,
+        @RequestParam(required = false) Long gameId // A registry game; its settings are fixed, so the above are ignored
     ) {
-        User user = userService.getUserById(userId);
-        Game game = user.getGame();
-        game.setMode(mode);
-        game.setDifficulty(difficulty); // Set difficulty in case it changed
-
-        // 1. Process Player Move
-        if (game.getWinner() != null) {
-            return ResponseEntity.badRequest().body(game); 
+        // Timed until the response is ready, AI turn included
+        long start = System.nanoTime();
+        CompletableFuture<ResponseEntity<Game>> response = playMove(index, userId, mode, difficulty, size, winLength, gameId);
+        if (response.isDone()) {
+            recordMove(response.getNow(null), start);
+        } else {
+            response.whenComplete((r, e) -> recordMove(r, start));
         }
+        return response;
+    }
+
+    private static final int MAX_BATCH_MOVES = 1000;
 
-        // Only enforce 'X' turn if in SINGLE_PLAYER mode (because 'O' is the AI)
-        if (mode == GameMode.SINGLE_PLAYER && !game.getCurrentPlayer().equals("X")) {
-            return ResponseEntity.badRequest().body(game); // It's AI's turn
+    /**
+     * Several moves in one request, for bots and test clients: applied in
+     * order, each exactly like /api/move (same checks, AI reply, stats) but
+     * without the AI's "thinking" delay. The settings apply to the user's own
+     * game, once, before its first move. Answers a result per move and the
+     * final state of every game played. In a cluster, the games must be on
+     * the user's node (registry games are wherever they were created).
+     */
+    @PostMapping("/moves")
+    public CompletableFuture<ResponseEntity<MoveBatchResult>> makeMoves(
+        @RequestParam Long userId,
+        @RequestParam(required = false) GameMode mode,
+        @RequestParam(required = false) AIDifficulty difficulty,
+        @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) Integer winLength,
+        @RequestBody List<BatchMove> moves,
+        HttpServletRequest request
+    ) {
+        if (moves.isEmpty() || moves.size() > MAX_BATCH_MOVES) {
+            throw new IllegalArgumentException("A batch has 1 to " + MAX_BATCH_MOVES + " moves");
         }
+        // A batch costs all its moves (the filter took one); a big one puts the buckets in debt
+        if (request.getAttribute(RateLimitFilter.COUNTED_ATTRIBUTE) != null && moves.size() > 1) {
+            long waitMillis = rateLimiter.tryAcquire(RateLimiter.Limit.MOVE, userId, request.getRemoteAddr(),
+                    moves.size() - 1);
+            if (waitMillis > 0) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, RateLimitFilter.retryAfterSeconds(waitMillis))
+                        .build());
+            }
+        }
+        MoveBatchRun run = new MoveBatchRun(userId, mode, difficulty, size, winLength, moves);
+        run.runFrom(0);
+        return run.done.thenApply(ResponseEntity::ok);
+    }
 
-        boolean success = game.makeMove(index);
-        if (!success) { 
-             return ResponseEntity.badRequest().body(game);
+    /**
+     * One batch in progress. Moves run one after another; a move waiting for
+     * the AI continues the batch from the AI's thread when it's done, so no
+     * thread waits for it.
+     */
+    private final class MoveBatchRun {
+        final Long userId;
+        final GameMode mode;
+        final AIDifficulty difficulty;
+        final Integer size;
+        final Integer winLength;
+        final List<BatchMove> moves;
+        final List<MoveResult> results = new ArrayList<>();
+        final Map<Long, Game> games = new LinkedHashMap<>(); // by game ID; null for the user's own game
+        final CompletableFuture<MoveBatchResult> done = new CompletableFuture<>();
+
+        MoveBatchRun(Long userId, GameMode mode, AIDifficulty difficulty, Integer size, Integer winLength,
+                     List<BatchMove> moves) {
+            this.userId = userId;
+            this.mode = mode;
+            this.difficulty = difficulty;
+            this.size = size;
+            this.winLength = winLength;
+            this.moves = moves;
         }
-        
-        // 2. Check for Win/Draw after player move (X or O)
-        if (game.getWinner() != null) {
-            
-            String winnerSymbol = game.getWinner();
-            Long playerXId = userId;
-            Long playerOId = game.getPlayerOId();
-            
-            if (winnerSymbol.equals("Draw")) {
-                // Draw: Update stats for X, and for O if they are logged in (two-player mode)
-                userService.updateStats(playerXId, "Draw");
-                if (game.getMode() == GameMode.TWO_PLAYER && playerOId != null) {
-                    userService.updateStats(playerOId, "Draw");
+
+        void runFrom(int first) {
+            try {
+                for (int i = first; i < moves.size(); i++) {
+                    int item = i;
+                    long start = System.nanoTime();
+                    CompletableFuture<Void> recorded = play(moves.get(item)).handle((response, e) -> {
+                        record(moves.get(item), response, e);
+                        if (response != null) {
+                            recordMove(response, start);
+                        }
+                        return null;
+                    });
+                    if (!recorded.isDone()) {
+                        recorded.whenComplete((v, e) -> {
+                            if (e != null) {
+                                done.completeExceptionally(e);
+                            } else {
+                                runFrom(item + 1);
+                            }
+                        });
+                        return;
+                    }
+                    recorded.join(); // throws if recording it failed
+                }
+                MoveBatchResult result = new MoveBatchResult();
+                result.results = results;
+                result.games = new ArrayList<>();
+                for (Game game : games.values()) {
+                    result.games.add(game.snapshot());
                 }
-            } else if (winnerSymbol.equals("X")) {
-                // X Wins: Update X's stats for Win, and O's stats for Loss
-                userService.updateStats(playerXId, "X");
-                if (game.getMode() == GameMode.TWO_PLAYER && playerOId != null) {
-                    userService.updateStats(playerOId, "O"); // 'O' is the loser
+                done.complete(result);
+            } catch (RuntimeException e) {
+                // On an AI thread nobody else would see it, and the request would never be answered
+                done.completeExceptionally(e);
+            }
+        }
+
+        private CompletableFuture<ResponseEntity<Game>> play(BatchMove move) {
+            try {
+                // Each game is looked up and set up once per batch
+                boolean firstMove = !games.containsKey(move.gameId);
+                Game game = games.get(move.gameId);
+                if (game == null) {
+                    game = move.gameId != null ? playerGame(move.gameId, userId) : userService.getUserById(userId).getGame();
+                    games.put(move.gameId, game);
                 }
-            } else if (winnerSymbol.equals("O")) {
-                // O Wins: Update X's stats for Loss, and O's stats for Win
-                userService.updateStats(playerXId, "O"); // 'X' is the loser
-                if (game.getMode() == GameMode.TWO_PLAYER && playerOId != null) {
-                    userService.updateStats(playerOId, "X"); // 'X' is the winning outcome for player O
+                return firstMove
+                        ? playMove(game, move.index, userId, mode, difficulty, size, winLength, move.gameId, 0)
+                        : playMove(game, move.index, userId, null, null, null, null, move.gameId, 0);
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        private void record(BatchMove move, ResponseEntity<Game> response, Throwable error) {
+            MoveResult result = new MoveResult();
+            result.index = move.index;
+            result.gameId = move.gameId;
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                result.error = cause.getMessage();
+            } else if (!response.getStatusCode().is2xxSuccessful()) {
+                result.error = response.getHeaders().getFirst(MOVE_REJECTED_HEADER);
+            } else {
+                Game game = response.getBody();
+                result.ok = true;
+                result.winner = game.getWinner();
+                // In single player the AI replied if it's X's turn again
+                if (game.getMode() == GameMode.SINGLE_PLAYER && game.getMoveCount() % 2 == 0
+                        && game.getLastAiMove() != null) {
+                    result.aiMove = game.getLastAiMove().getMove();
                 }
             }
-            return ResponseEntity.ok(game);
+            results.add(result);
         }
+    }
 
+    // Batch DTOs
+    public static class BatchMove {
+        public int index;
+        public Long gameId; // a registry game; default the user's own game
+    }
 
-        // 3. Process AI Move if in Single Player mode
-        if (mode == GameMode.SINGLE_PLAYER && game.getCurrentPlayer().equals("O")) {
-            
-            // UX FIX: Add 1-second delay for a better user experience
-            try {
-                Thread.sleep(1000); // Pause for 1 second
-            } catch (InterruptedException e) {
-                // If the thread is interrupted, restore the interrupt status
-                Thread.currentThread().interrupt();
+    public static class MoveResult {
+        public int index;
+        public Long gameId;
+        public boolean ok;
+        public String error;   // why the move was rejected
+        public Integer aiMove; // the AI's reply, if it made one
+        public String winner;  // once the game is over
+    }
+
+    public static class MoveBatchResult {
+        public List<MoveResult> results; // one per move, in order
+        public List<Game> games;         // the final state of every game played
+    }
+
+    // Labelled with the game's own settings, which registry games don't take from the request
+    private void recordMove(ResponseEntity<Game> response, long start) {
+        Game played = response != null ? response.getBody() : null;
+        if (played != null) {
+            metrics.move(played.getMode(), played.getDifficulty(), start);
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<Game>> playMove(int index, Long userId, GameMode mode,
+                                                             AIDifficulty difficulty, Integer size, Integer winLength,
+                                                             Long gameId) {
+        Game game = gameId != null ? playerGame(gameId, userId) : userService.getUserById(userId).getGame();
+        return playMove(game, index, userId, mode, difficulty, size, winLength, gameId, aiTurnScheduler.getDelayMillis());
+    }
+
+    /**
+     * A move on a game already looked up. Rejected moves answer 400 with the
+     * game and the reason in the X-Move-Rejected header.
+     * @param aiDelayMillis The "AI is thinking" delay before its reply.
+     */
+    private CompletableFuture<ResponseEntity<Game>> playMove(Game game, int index, Long userId, GameMode mode,
+                                                             AIDifficulty difficulty, Integer size, Integer winLength,
+                                                             Long gameId, long aiDelayMillis) {
+        // The whole check-move-score step runs under the game's lock, so two
+        // players clicking at once can't both move or both score the result
+        synchronized (game) {
+            if (gameId == null) {
+                applySettings(game, mode, difficulty, size, winLength); // Set difficulty in case it changed
+            }
+            mode = game.getMode();
+            difficulty = game.getDifficulty();
+
+            // 1. Process Player Move
+            if (game.getWinner() != null) {
+                return rejected(userId, game, "Game is over");
+            }
+
+            // Only enforce 'X' turn if in SINGLE_PLAYER mode (because 'O' is the AI)
+            if (mode == GameMode.SINGLE_PLAYER && !game.getCurrentPlayer().equals("X")) {
+                return rejected(userId, game, "It's the AI's turn");
+            }
+
+            // Two players on different devices (registry games) each play their own symbol
+            if (mode == GameMode.TWO_PLAYER && gameId != null && !userId.equals(
+                    game.getCurrentPlayer().equals("X") ? game.getPlayerXId() : game.getPlayerOId())) {
+                return rejected(userId, game, "It's the other player's turn");
+            }
+
+            boolean success = game.makeMove(index);
+            if (!success) { 
+                 return rejected(userId, game, "Cell " + index + " is taken or off the board");
             }
             
-            int aiMoveIndex = AIPlayer.getNextMove(game.getBoard(), difficulty);
-            
-            if (aiMoveIndex != -1) {
-                game.makeMove(aiMoveIndex); // AI always makes a valid move
+            // 2. Check for Win/Draw after player move (X or O)
+            if (game.getWinner() != null) {
+                finishGame(userId, game);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(publish(userId, game)));
+            }
+
+            Game afterPlayer = publish(userId, game);
+            if (mode != GameMode.SINGLE_PLAYER || !game.getCurrentPlayer().equals("O")) {
+                return CompletableFuture.completedFuture(ResponseEntity.ok(afterPlayer));
+            }
+        }
+
+        // 3. Process AI Move in Single Player mode.
+        // The UX delay is a timer on the AI scheduler (tictactoe.ai.delay-ms), so no
+        // request thread is held while the AI "thinks"; the response completes afterwards.
+        // Return the final game state (after human and AI move)
+        AIDifficulty aiDifficulty = difficulty;
+        return aiTurnScheduler.schedule(() -> ResponseEntity.ok(playAITurn(game, userId, aiDifficulty)), aiDelayMillis);
+    }
+
+    private CompletableFuture<ResponseEntity<Game>> rejected(Long userId, Game game, String reason) {
+        return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().header(MOVE_REJECTED_HEADER, reason).body(publish(userId, game)));
+    }
+
+    /**
+     * Thinks on a snapshot without holding the game's lock, then applies the
+     * move only if the game hasn't changed meanwhile (restart, mode switch...).
+     * @return The game state to send back.
+     */
+    private Game playAITurn(Game game, Long userId, AIDifficulty difficulty) {
+        Game position = game.snapshot();
+        if (position.getMode() != GameMode.SINGLE_PLAYER || position.getWinner() != null
+                || !position.getCurrentPlayer().equals("O")) {
+            return position;
+        }
+
+        AIDecision aiMove = AIPlayer.decide(position, difficulty,
+                aiSearchConfig.getTimeBudgetMillis(), aiSearchConfig.poolFor(difficulty), aiSearchConfig.getMctsBudget());
+        if (aiMove != null) {
+            metrics.aiDecision(difficulty, aiMove);
+        }
+
+        synchronized (game) {
+            if (aiMove == null || game.getVersion() != position.getVersion()) {
+                return game.snapshot(); // the game moved on while we were thinking
             }
+
+            game.makeMove(aiMove.getMove()); // AI always makes a valid move
+            game.setLastAiMove(aiMove);
+            game.keepSearchTree(position.searchTree()); // MCTS: what it learned, for its next move
             
-            // 4. Check for Win/Draw after AI move (Stats update is handled by the unified block above if game ends)
+            // 4. Check for Win/Draw after AI move
             if (game.getWinner() != null) {
-                // AI/O Wins: Update X's stats for Loss, 'O' (AI) does not have stats to update
-                if (game.getWinner().equals("O")) {
-                    userService.updateStats(userId, "O"); 
-                } else if (game.getWinner().equals("Draw")) {
-                    userService.updateStats(userId, "Draw");
-                }
+                finishGame(userId, game);
             }
+            return publish(userId, game);
         }
-        
-        // Return the final game state (after human and potentially AI move)
-        return ResponseEntity.ok(game);
+    }
+
+    /**
+     * Scores a game that just finished and archives it for replay.
+     * Called with the game's lock held, once per game.
+     */
+    private void finishGame(Long userId, Game game) {
+        String winnerSymbol = game.getWinner();
+        metrics.gameFinished(game.getMode(), winnerSymbol);
+        Long playerXId = game.getPlayerXId() != null ? game.getPlayerXId() : userId;
+        // Player O only has stats in two-player mode ('O' is the AI otherwise)
+        Long playerOId = game.getMode() == GameMode.TWO_PLAYER ? game.getPlayerOId() : null;
+
+        if (winnerSymbol.equals("Draw")) {
+            // Draw: Update stats for X, and for O if they are logged in
+            userService.updateStats(playerXId, "Draw");
+            if (playerOId != null) {
+                userService.updateStats(playerOId, "Draw");
+            }
+        } else if (winnerSymbol.equals("X")) {
+            // X Wins: Update X's stats for Win, and O's stats for Loss
+            userService.updateStats(playerXId, "X");
+            if (playerOId != null) {
+                userService.updateStats(playerOId, "O"); // 'O' is the loser
+            }
+        } else if (winnerSymbol.equals("O")) {
+            // O Wins: Update X's stats for Loss, and O's stats for Win
+            userService.updateStats(playerXId, "O"); // 'X' is the loser
+            if (playerOId != null) {
+                userService.updateStats(playerOId, "X"); // 'X' is the winning outcome for player O
+            }
+        }
+        archive.add(game, playerXId);
+        openingStats.record(game);
+    }
+
+    /**
+     * Takes back the last move. Against the AI this takes back the AI's reply
+     * too, so it's X's turn again; in a registry game only the player who made
+     * the move may take it back. Finished games can't be undone, their result
+     * has been counted.
+     */
+    @PostMapping("/undo")
+    public ResponseEntity<Game> undoMove(
+        @RequestParam Long userId,
+        @RequestParam(required = false) Long gameId
+    ) {
+        Game game = gameId != null ? playerGame(gameId, userId) : userService.getUserById(userId).getGame();
+        synchronized (game) {
+            if (game.getWinner() != null) {
+                throw new IllegalArgumentException("Game is over (its result counted)");
+            }
+            if (game.getMoveCount() == 0) {
+                throw new IllegalArgumentException("No move to undo");
+            }
+            // The player who moved last is the one not to move now
+            if (game.getMode() == GameMode.TWO_PLAYER && gameId != null && !userId.equals(
+                    game.getCurrentPlayer().equals("X") ? game.getPlayerOId() : game.getPlayerXId())) {
+                throw new IllegalArgumentException("Only the player who made the last move can undo it");
+            }
+            game.undo();
+            while (game.getMode() == GameMode.SINGLE_PLAYER && !game.getCurrentPlayer().equals("X") && game.undo()) {
+                // the AI's move goes too
+            }
+            return ResponseEntity.ok(publish(userId, game));
+        }
+    }
+
+    /**
+     * Plays undone moves again, the counterpart of /api/undo. Against the AI,
+     * if only the human's move was left to redo the AI replies afresh.
+     */
+    @PostMapping("/redo")
+    public CompletableFuture<ResponseEntity<Game>> redoMove(
+        @RequestParam Long userId,
+        @RequestParam(required = false) Long gameId
+    ) {
+        Game game = gameId != null ? playerGame(gameId, userId) : userService.getUserById(userId).getGame();
+        AIDifficulty difficulty;
+        synchronized (game) {
+            if (game.getRedoCount() == 0) {
+                throw new IllegalArgumentException("No move to redo");
+            }
+            // Two players on different devices each redo their own moves
+            if (game.getMode() == GameMode.TWO_PLAYER && gameId != null && !userId.equals(
+                    game.getCurrentPlayer().equals("X") ? game.getPlayerXId() : game.getPlayerOId())) {
+                throw new IllegalArgumentException("The next move to redo is the other player's");
+            }
+            // Undo never starts from a finished game, so a redo can't finish one
+            game.redo();
+            while (game.getMode() == GameMode.SINGLE_PLAYER && !game.getCurrentPlayer().equals("X") && game.redo()) {
+                // the AI's reply comes back too
+            }
+            Game afterRedo = publish(userId, game);
+            if (game.getMode() != GameMode.SINGLE_PLAYER || !game.getCurrentPlayer().equals("O")) {
+                return CompletableFuture.completedFuture(ResponseEntity.ok(afterRedo));
+            }
+            difficulty = game.getDifficulty();
+        }
+        return aiTurnScheduler.schedule(() -> ResponseEntity.ok(playAITurn(game, userId, difficulty)));
     }
 
     @PostMapping("/restart")
     public Game restartGame(
         @RequestParam Long userId,
-        @RequestParam GameMode mode
+        @RequestParam(required = false) GameMode mode,
+        @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) Integer winLength,
+        @RequestParam(required = false) Long gameId // Restarts a registry game with its own settings
     ) {
-        User user = userService.getUserById(userId);
-        Game game = user.getGame();
-        game.setMode(mode);
-        game.restart();
+        long start = System.nanoTime();
+        Game game = gameId != null ? playerGame(gameId, userId) : userService.getUserById(userId).getGame();
+        try {
+            synchronized (game) {
+                game.restart();
+                if (gameId == null) {
+                    applySettings(game, mode, null, size, winLength);
+                }
+                return publish(userId, game);
+            }
+        } finally {
+            metrics.endpoint(GameMetrics.Endpoint.RESTART, start);
+        }
+    }
+
+    /**
+     * Snapshots the game and pushes the change to its stream subscribers.
+     * Called with the game's lock held so events go out in version order.
+     * @return The snapshot, to send back to the caller.
+     */
+    private Game publish(Long userId, Game game) {
+        Game snapshot = game.snapshot();
+        gameEventHub.publish(streamKey(userId, game), snapshot);
+        return snapshot;
+    }
+
+    // Stream keys: a user's own game is keyed by the user ID, a registry game by minus its game ID
+    private static long streamKey(Long userId, Game game) {
+        return game.getGameId() != null ? -game.getGameId() : userId;
+    }
+
+    private Game registryGame(long gameId) {
+        Game game = gameRegistry.get(gameId);
+        if (game == null) {
+            throw new IllegalArgumentException("No game " + gameId);
+        }
+        return game;
+    }
+
+    // A registry game the user plays in
+    private Game playerGame(long gameId, Long userId) {
+        Game game = registryGame(gameId);
+        if (!userId.equals(game.getPlayerXId()) && !userId.equals(game.getPlayerOId())) {
+            throw new IllegalArgumentException("User " + userId + " doesn't play in game " + gameId);
+        }
         return game;
     }
+
+    // Why a move was rejected (the body is the unchanged game)
+    private static final String MOVE_REJECTED_HEADER = "X-Move-Rejected";
+
+    // Versions start over when the server restarts, so the tag also carries the boot time
+    private static final String ETAG_PREFIX = "W/\"" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    private static String gameETag(Game snapshot) {
+        return ETAG_PREFIX + snapshot.getVersion() + "\"";
+    }
+
+    // Applies the settings a request asked for (null = keep); for a user's own game
+    private void applySettings(Game game, GameMode mode, AIDifficulty difficulty, Integer size, Integer winLength) {
+        if (mode != null) {
+            game.setMode(mode);
+        }
+        if (difficulty != null) {
+            game.setDifficulty(difficulty);
+        }
+        applyBoardSize(game, size, winLength);
+    }
+
+    /**
+     * Switches the game to a size x size board if asked to (this starts a new game).
+     * winLength defaults to the board size, capped at 5 (gomoku).
+     */
+    private void applyBoardSize(Game game, Integer size, Integer winLength) {
+        if (size == null && winLength == null) {
+            return;
+        }
+        int newSize = size != null ? size : game.getBoardSize();
+        int newWinLength = winLength != null ? winLength : Math.min(newSize, 5);
+        game.resize(newSize, newWinLength);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,353 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes game changes to subscribers (players and spectators) over
+ * Server-Sent Events, so clients don't have to poll /api/game.
+ *
+ * After each change the controller publishes the new snapshot; the hub sends
+ * a "delta" event with only the changed cells, or a full "state" event after
+ * a restart or resize. Every subscriber has a small bounded buffer drained by
+ * a shared sender pool. A subscriber that falls a whole buffer behind has its
+ * backlog dropped and gets one full "state" event instead, so a slow client
+ * costs bounded memory and always catches up to a correct board.
+ *
+ * A send blocks while the client's socket buffer is full, so a client that
+ * stops reading would hold a sender thread. A watchdog drops subscribers
+ * whose send has taken longer than the send timeout, and the pool gets a
+ * thread in place of each one still stuck (until the container's own write
+ * timeout frees it), so other subscribers keep getting their events.
+ */
+@Component
+public class GameEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(GameEventHub.class);
+
+    // Extra sender threads at most, standing in for ones stuck on dropped subscribers
+    private static final int MAX_STUCK_SENDERS = 64;
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int threads;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService watchdog;
+    private int stuckSenders; // guarded by senders
+
+    // Key: the game's key (its owner's user ID)
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public GameEventHub(
+        @Value("${tictactoe.push.buffer-size:32}") int bufferSize,
+        @Value("${tictactoe.push.timeout-ms:1800000}") long timeoutMillis,
+        @Value("${tictactoe.push.threads:4}") int threads,
+        @Value("${tictactoe.push.send-timeout-ms:5000}") long sendTimeoutMillis
+    ) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, sendTimeoutMillis));
+        this.threads = threads;
+        AtomicInteger counter = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "game-push-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-push-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, sendTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::dropStuck, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream for a game. The first event is always the full state.
+     * Call with the game's lock held, like {@link #publish}.
+     */
+    public SseEmitter subscribe(long gameKey, Game current) {
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        // Added in the same compute that removes an empty channel, so it can't
+        // join a channel that the last subscriber leaving just took out of the map
+        Channel channel = channels.compute(gameKey, (key, existing) -> {
+            Channel c = existing != null ? existing : new Channel();
+            c.subscribers.add(subscriber);
+            return c;
+        });
+        synchronized (channel) {
+            if (channel.lastPublished == null) {
+                channel.lastPublished = current;
+            }
+        }
+
+        subscriber.remove = () -> channels.computeIfPresent(gameKey, (key, c) -> {
+            c.subscribers.remove(subscriber);
+            return c.subscribers.isEmpty() ? null : c;
+        });
+        emitter.onCompletion(subscriber.remove);
+        emitter.onTimeout(subscriber.remove);
+        emitter.onError(e -> subscriber.remove.run());
+
+        subscriber.offer(GameEvent.state(current));
+        return emitter;
+    }
+
+    /**
+     * Sends the change from the last published state to {@code snapshot}.
+     * Call with the game's lock held, so events go out in version order.
+     * Costs one map lookup when nobody is watching the game.
+     */
+    public void publish(long gameKey, Game snapshot) {
+        Channel channel = channels.get(gameKey);
+        if (channel == null) {
+            return;
+        }
+        GameEvent event;
+        synchronized (channel) {
+            Game previous = channel.lastPublished;
+            event = GameEvent.between(previous, snapshot);
+            channel.lastPublished = snapshot;
+        }
+        if (event == null) {
+            return; // nothing visible changed
+        }
+        for (Subscriber subscriber : channel.subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    // Tests stand in an emitter that blocks like a client that stopped reading
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    public int subscriberCount(long gameKey) {
+        Channel channel = channels.get(gameKey);
+        return channel == null ? 0 : channel.subscribers.size();
+    }
+
+    // Drops subscribers whose send has been blocked past the send timeout
+    private void dropStuck() {
+        try {
+            long now = System.nanoTime();
+            for (Channel channel : channels.values()) {
+                for (Subscriber subscriber : channel.subscribers) {
+                    long since = subscriber.sendingSince;
+                    if (since != 0 && now - since > sendTimeoutNanos) {
+                        subscriber.drop();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep the scheduled check alive; the next run tries again
+            log.warn("Push watchdog failed", e);
+        }
+    }
+
+    /**
+     * A sender blocked on a dropped subscriber is replaced until it returns.
+     * @return Whether the pool grew (or, when one returns, shrank).
+     */
+    private boolean senderStuck(boolean stuck) {
+        synchronized (senders) {
+            if (stuck && stuckSenders == MAX_STUCK_SENDERS) {
+                return false;
+            }
+            stuckSenders += stuck ? 1 : -1;
+            int size = threads + stuckSenders;
+            if (stuck) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+            return true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private static final class Channel {
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        Game lastPublished; // guarded by this
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<GameEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean dropped = new AtomicBoolean();
+        volatile long sendingSince; // System.nanoTime() when the send under way began; 0 if none
+        boolean replaced;           // its sender got a stand-in (see senderStuck); guarded by this
+        Runnable remove;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Runs under the game's lock: nothing here may wait on the container. A dropped
+        // subscriber's emitter is completed by drop() or its sender, neither holding it.
+        void offer(GameEvent event) {
+            if (dropped.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // Slow consumer: drop the backlog, send the whole board once instead
+                buffer.clear();
+                buffer.offer(GameEvent.state(event.snapshot));
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // Too slow to keep: no more events, and its sender is replaced while the send stays blocked
+        void drop() {
+            if (!dropped.compareAndSet(false, true)) {
+                return;
+            }
+            log.debug("Dropping a push subscriber whose send took over {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            remove.run();
+            buffer.clear();
+            synchronized (this) {
+                if (sendingSince != 0) {
+                    // Completing now would wait on the emitter until the send gives
+                    // up; the sender completes it when it gets back
+                    replaced = senderStuck(true);
+                    return;
+                }
+            }
+            emitter.completeWithError(new IOException("Push subscriber too slow"));
+        }
+
+        private void drain() {
+            try {
+                GameEvent event;
+                while (!dropped.get() && (event = buffer.poll()) != null) {
+                    sendingSince = System.nanoTime() | 1; // never 0
+                    try {
+                        emitter.send(SseEmitter.event().name(event.type).id(Long.toString(event.version)).data(event));
+                    } finally {
+                        synchronized (this) {
+                            sendingSince = 0;
+                            if (replaced) {
+                                replaced = false;
+                                senderStuck(false);
+                            }
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e); // client went away; onError removes us
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (dropped.get()) {
+                emitter.completeWithError(new IOException("Push subscriber too slow"));
+                return;
+            }
+            // An event may have arrived after the last poll but before the flag was cleared
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * One pushed message: "state" carries the full game, "delta" only what changed.
+     */
+    public static class GameEvent {
+        public final String type;
+        public final long version;
+        public final List<Object[]> cells; // [index, "X" | "O" | null] (delta only)
+        public final String currentPlayer;
+        public final String winner;
+        public final List<Integer> winningLine;
+        public final Game game; // state only
+
+        // The state this event leads to, kept to rebuild a full state for slow consumers
+        private final Game snapshot;
+
+        private GameEvent(String type, Game snapshot, List<Object[]> cells, Game game) {
+            this.type = type;
+            this.version = snapshot.getVersion();
+            this.cells = cells;
+            this.currentPlayer = snapshot.getCurrentPlayer();
+            this.winner = snapshot.getWinner();
+            this.winningLine = snapshot.getWinningLine();
+            this.game = game;
+            this.snapshot = snapshot;
+        }
+
+        static GameEvent state(Game snapshot) {
+            return new GameEvent("state", snapshot, null, snapshot);
+        }
+
+        /**
+         * @return A delta from {@code previous}, a full state if the board shape
+         * changed or there is no previous state, or null if nothing changed.
+         */
+        static GameEvent between(Game previous, Game current) {
+            if (previous == null || previous.getBoardSize() != current.getBoardSize()
+                    || previous.getWinLength() != current.getWinLength()) {
+                return state(current);
+            }
+            String[] before = previous.getBoard();
+            String[] after = current.getBoard();
+            List<Object[]> cells = new ArrayList<>();
+            boolean cleared = false;
+            for (int i = 0; i < after.length; i++) {
+                if (!Objects.equals(before[i], after[i])) {
+                    cells.add(new Object[] {i, after[i]});
+                    cleared |= after[i] == null;
+                }
+            }
+            if (cleared || previous.getMode() != current.getMode()
+                    || !Objects.equals(previous.getPlayerOId(), current.getPlayerOId())) {
+                return state(current); // restart or setup change: resend everything
+            }
+            if (cells.isEmpty() && Objects.equals(previous.getWinner(), current.getWinner())
+                    && previous.getCurrentPlayer().equals(current.getCurrentPlayer())) {
+                return null;
+            }
+            return new GameEvent("delta", current, cells, null);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.tictactoe.game;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.stereotype.Component;
+
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+import com.tictactoe.metrics.Histogram;
+
+/**
+ * Counters and latency histograms for the game server, scraped in the
+ * Prometheus text format from /api/metrics.
+ *
+ * Every labelled series is created up front in arrays indexed by enum
+ * ordinal, so recording a sample is an array lookup plus striped adds.
+ * Gauges (registered users, active games) and counters kept by other
+ * components are computed at scrape time.
+ */
+@Component
+public class GameMetrics {
+
+    public enum Endpoint {
+        LOGIN, USER_STATS, JOIN, GAME, MOVE, RESTART, ANALYSIS
+    }
+
+    public enum UserOperation {
+        LOGIN_OR_REGISTER, UPDATE_STATS
+    }
+
+    // Outcomes of finished games, as Game.getWinner() reports them
+    private static final String[] OUTCOMES = {"X", "O", "Draw"};
+
+    private static final AIDifficulty[] DIFFICULTIES = AIDifficulty.values();
+    private static final GameMode[] MODES = GameMode.values();
+
+    private final Histogram[] endpointLatency = histograms(Endpoint.values().length);
+    private final Histogram[] moveLatencyByDifficulty = histograms(DIFFICULTIES.length); // single player only
+    private final Histogram[] aiDecisionTime = histograms(DIFFICULTIES.length);
+    private final Histogram[] aiNodes = new Histogram[DIFFICULTIES.length];
+    private final LongAdder[] aiNodesTotal = adders(DIFFICULTIES.length);
+    private final Histogram aiDelay = Histogram.latency();
+    private final Histogram[] userOperationLatency = histograms(UserOperation.values().length);
+    private final LongAdder[] gamesFinished = adders(MODES.length * OUTCOMES.length);
+
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+    public GameMetrics() {
+        for (int i = 0; i < aiNodes.length; i++) {
+            aiNodes[i] = new Histogram(Histogram.DECADES, 1);
+        }
+    }
+
+    // --- Recording (hot path) ---
+
+    /** Request time for an endpoint, from a System.nanoTime() taken on entry. */
+    public void endpoint(Endpoint endpoint, long startNanos) {
+        endpointLatency[endpoint.ordinal()].recordSince(startNanos);
+    }
+
+    /** Full move request time, including the AI's turn in single player. */
+    public void move(GameMode mode, AIDifficulty difficulty, long startNanos) {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        endpointLatency[Endpoint.MOVE.ordinal()].record(micros);
+        if (mode == GameMode.SINGLE_PLAYER) {
+            moveLatencyByDifficulty[difficulty.ordinal()].record(micros);
+        }
+    }
+
+    public void aiDecision(AIDifficulty difficulty, AIDecision decision) {
+        aiDecisionTime[difficulty.ordinal()].record(decision.getElapsedMicros());
+        aiNodes[difficulty.ordinal()].record(decision.getNodes());
+        aiNodesTotal[difficulty.ordinal()].add(decision.getNodes());
+    }
+
+    /** Time an AI turn waited between being scheduled and starting to run. */
+    public void aiDelay(long micros) {
+        aiDelay.record(micros);
+    }
+
+    public void userOperation(UserOperation operation, long startNanos) {
+        userOperationLatency[operation.ordinal()].recordSince(startNanos);
+    }
+
+    /** @param outcome "X", "O" or "Draw". */
+    public void gameFinished(GameMode mode, String outcome) {
+        for (int i = 0; i < OUTCOMES.length; i++) {
+            if (OUTCOMES[i].equals(outcome)) {
+                gamesFinished[mode.ordinal() * OUTCOMES.length + i].increment();
+                return;
+            }
+        }
+    }
+
+    public void registerGauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, "gauge", help, value));
+    }
+
+    /** A counter kept elsewhere (e.g. cache hits), read at scrape time; name it *_total. */
+    public void registerCounter(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, "counter", help, value));
+    }
+
+    // --- Scrape ---
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16_384);
+
+        header(out, "tictactoe_request_duration_seconds", "histogram", "Request latency by endpoint");
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpointLatency[endpoint.ordinal()].writeTo(out, "tictactoe_request_duration_seconds",
+                    label("endpoint", endpoint.name().toLowerCase()));
+        }
+
+        header(out, "tictactoe_move_duration_seconds", "histogram",
+                "Single-player move latency (player move, AI delay and AI move) by difficulty");
+        for (AIDifficulty difficulty : DIFFICULTIES) {
+            moveLatencyByDifficulty[difficulty.ordinal()].writeTo(out, "tictactoe_move_duration_seconds",
+                    label("difficulty", difficulty.name()));
+        }
+
+        header(out, "tictactoe_ai_decision_seconds", "histogram", "Time the AI spent choosing a move");
+        for (AIDifficulty difficulty : DIFFICULTIES) {
+            aiDecisionTime[difficulty.ordinal()].writeTo(out, "tictactoe_ai_decision_seconds",
+                    label("difficulty", difficulty.name()));
+        }
+
+        header(out, "tictactoe_ai_nodes", "histogram", "Search nodes per AI decision (0 for table and heuristic moves)");
+        for (AIDifficulty difficulty : DIFFICULTIES) {
+            aiNodes[difficulty.ordinal()].writeTo(out, "tictactoe_ai_nodes", label("difficulty", difficulty.name()));
+        }
+
+        header(out, "tictactoe_ai_nodes_total", "counter", "Search nodes visited by the AI");
+        for (AIDifficulty difficulty : DIFFICULTIES) {
+            out.append("tictactoe_ai_nodes_total{").append(label("difficulty", difficulty.name())).append("} ")
+               .append(aiNodesTotal[difficulty.ordinal()].sum()).append('\n');
+        }
+
+        header(out, "tictactoe_ai_delay_seconds", "histogram",
+                "Time AI turns waited before running (configured delay plus queueing)");
+        aiDelay.writeTo(out, "tictactoe_ai_delay_seconds", "");
+
+        header(out, "tictactoe_user_operation_duration_seconds", "histogram", "UserService operation latency");
+        for (UserOperation operation : UserOperation.values()) {
+            userOperationLatency[operation.ordinal()].writeTo(out, "tictactoe_user_operation_duration_seconds",
+                    label("operation", operation.name().toLowerCase()));
+        }
+
+        header(out, "tictactoe_games_finished_total", "counter", "Finished games by mode and outcome");
+        for (GameMode mode : MODES) {
+            for (int i = 0; i < OUTCOMES.length; i++) {
+                out.append("tictactoe_games_finished_total{").append(label("mode", mode.name())).append(',')
+                   .append(label("outcome", OUTCOMES[i])).append("} ")
+                   .append(gamesFinished[mode.ordinal() * OUTCOMES.length + i].sum()).append('\n');
+            }
+        }
+
+        for (Gauge gauge : gauges) {
+            header(out, gauge.name, gauge.type, gauge.help);
+            out.append(gauge.name).append(' ').append(gauge.value.getAsLong()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value + "\"";
+    }
+
+    private static Histogram[] histograms(int n) {
+        Histogram[] histograms = new Histogram[n];
+        for (int i = 0; i < n; i++) {
+            histograms[i] = Histogram.latency();
+        }
+        return histograms;
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    // A gauge or counter computed at scrape time
+    private static final class Gauge {
+        final String name;
+        final String type;
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String name, String type, String help, LongSupplier value) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * Games addressed by their own ID, so a user can play any number at once
+ * (tournaments, matchmaking). Separate from each user's own game, which
+ * still lives on the User and is used when a request has no gameId.
+ *
+ * Games only refer to their players by ID, so they don't keep users on the
+ * heap or get in the way of UserService's eviction. Games nobody has touched
+ * for the idle TTL are dropped.
+ */
+@Component
+public class GameRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(GameRegistry.class);
+
+    private final AtomicLong nextId;
+    private final Map<Long, Entry> games = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> gamesByUser = new ConcurrentHashMap<>(); // user ID -> game IDs
+
+    private final int maxGamesPerUser;
+    private final long idleTtlMillis;
+    private final ScheduledExecutorService sweeper;
+
+    private static final class Entry {
+        final Game game;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Entry(Game game) {
+            this.game = game;
+        }
+    }
+
+    public GameRegistry(
+        @Value("${tictactoe.games.max-per-user:100}") int maxGamesPerUser,
+        @Value("${tictactoe.games.idle-ttl-seconds:3600}") long idleTtlSeconds,
+        GameMetrics metrics,
+        Cluster cluster
+    ) {
+        this.nextId = new AtomicLong(cluster.gameIdBase() + 1); // in a cluster, IDs say which node has the game
+        this.maxGamesPerUser = maxGamesPerUser;
+        this.idleTtlMillis = idleTtlSeconds * 1000;
+        metrics.registerGauge("tictactoe_registry_games", "Games in the game registry", games::size);
+        if (idleTtlMillis > 0) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "game-registry-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = Math.max(1000, Math.min(idleTtlMillis / 4, 60_000));
+            sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Starts a new game. Two-player games may be created without player O,
+     * who then joins with /api/game/join.
+     */
+    public Game create(long playerXId, Long playerOId, GameMode mode, AIDifficulty difficulty,
+                       int boardSize, int winLength) {
+        Game game = new Game(nextId.getAndIncrement(), playerXId, playerOId);
+        game.setMode(mode);
+        game.setDifficulty(difficulty);
+        game.resize(boardSize, winLength); // validates
+        games.put(game.getGameId(), new Entry(game));
+        index(playerXId, game.getGameId());
+        if (playerOId != null) {
+            index(playerOId, game.getGameId());
+        }
+        return game;
+    }
+
+    /** @return The game, or null if there is no such game (or it was dropped as idle). */
+    public Game get(long gameId) {
+        Entry entry = games.get(gameId);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.game;
+    }
+
+    /** Records that a player joined a game after it was created. */
+    public void addPlayer(long gameId, long userId) {
+        if (games.containsKey(gameId)) {
+            index(userId, gameId);
+        }
+    }
+
+    /** Whether the user may start (or queue for) another game. Approximate under concurrent creates. */
+    public boolean hasRoomFor(long userId) {
+        Set<Long> ids = gamesByUser.get(userId);
+        return ids == null || ids.size() < maxGamesPerUser;
+    }
+
+    /** Snapshots of the user's games, newest first. */
+    public List<Game> gamesOf(long userId) {
+        Set<Long> ids = gamesByUser.getOrDefault(userId, Collections.emptySet());
+        List<Game> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Entry entry = games.get(id);
+            if (entry != null) {
+                result.add(entry.game.snapshot());
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.getGameId(), a.getGameId()));
+        return result;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    public void remove(long gameId) {
+        Entry entry = games.remove(gameId);
+        if (entry != null) {
+            unindex(entry.game.getPlayerXId(), gameId);
+            if (entry.game.getPlayerOId() != null) {
+                unindex(entry.game.getPlayerOId(), gameId);
+            }
+        }
+    }
+
+    private void index(long userId, long gameId) {
+        gamesByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(gameId);
+    }
+
+    private void unindex(long userId, long gameId) {
+        gamesByUser.computeIfPresent(userId, (id, ids) -> {
+            ids.remove(gameId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    void sweep() {
+        try {
+            long cutoff = System.currentTimeMillis() - idleTtlMillis;
+            int removed = 0;
+            for (Map.Entry<Long, Entry> e : games.entrySet()) {
+                if (e.getValue().lastAccess < cutoff) {
+                    remove(e.getKey());
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                log.debug("Dropped {} idle games", removed);
+            }
+        } catch (RuntimeException e) {
+            // Keep the scheduled sweep alive; the next run tries again
+            log.warn("Game registry sweep failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
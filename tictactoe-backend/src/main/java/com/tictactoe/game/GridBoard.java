@@ -0,0 +1,203 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Board for the generalized N x N, k-in-a-row game. Cells are bytes
+ * (EMPTY, X, O) in row-major order. Used for every size except the classic
+ * 3x3 game, which stays on BitBoard.
+ */
+public final class GridBoard {
+
+    public static final byte EMPTY = 0;
+    public static final byte X = 1;
+    public static final byte O = 2;
+
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 19;
+
+    // Row/column steps for the four line directions: horizontal, vertical, two diagonals
+    private static final int[] DR = {0, 1, 1, 1};
+    private static final int[] DC = {1, 0, 1, -1};
+
+    private static final Map<Long, Geometry> GEOMETRY_CACHE = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int winLength;
+    private final byte[] cells;
+    private int moveCount;
+
+    public GridBoard(int size, int winLength) {
+        if (size < MIN_SIZE || size > MAX_SIZE || winLength < 3 || winLength > size) {
+            throw new IllegalArgumentException("Unsupported board " + size + "x" + size + " with " + winLength + " in a row");
+        }
+        this.size = size;
+        this.winLength = winLength;
+        this.cells = new byte[size * size];
+    }
+
+    public GridBoard copy() {
+        GridBoard copy = new GridBoard(size, winLength);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        copy.moveCount = moveCount;
+        return copy;
+    }
+
+    public int size() { return size; }
+    public int winLength() { return winLength; }
+    public int cellCount() { return cells.length; }
+    public int moveCount() { return moveCount; }
+    public byte get(int index) { return cells[index]; }
+    public boolean isEmpty(int index) { return cells[index] == EMPTY; }
+    public boolean isFull() { return moveCount == cells.length; }
+
+    public static byte other(byte player) {
+        return player == X ? O : X;
+    }
+
+    public void play(int index, byte player) {
+        cells[index] = player;
+        moveCount++;
+    }
+
+    public void undo(int index) {
+        cells[index] = EMPTY;
+        moveCount--;
+    }
+
+    public void clear() {
+        Arrays.fill(cells, EMPTY);
+        moveCount = 0;
+    }
+
+    /**
+     * Checks only the four lines through {@code index}: did the stone there complete k in a row?
+     */
+    public boolean isWinAt(int index) {
+        return winDirectionAt(index) != -1;
+    }
+
+    /**
+     * @return The k cells of a completed line through {@code index}, or null.
+     */
+    public int[] winningLineAt(int index) {
+        int d = winDirectionAt(index);
+        if (d == -1) {
+            return null;
+        }
+        int row = index / size;
+        int col = index % size;
+        int back = countRun(row, col, -DR[d], -DC[d], cells[index]);
+        int[] line = new int[winLength];
+        int r = row - back * DR[d];
+        int c = col - back * DC[d];
+        for (int i = 0; i < winLength; i++) {
+            line[i] = (r + i * DR[d]) * size + (c + i * DC[d]);
+        }
+        return line;
+    }
+
+    private int winDirectionAt(int index) {
+        byte player = cells[index];
+        if (player == EMPTY) {
+            return -1;
+        }
+        int row = index / size;
+        int col = index % size;
+        for (int d = 0; d < 4; d++) {
+            int run = 1 + countRun(row, col, -DR[d], -DC[d], player) + countRun(row, col, DR[d], DC[d], player);
+            if (run >= winLength) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    private int countRun(int row, int col, int dr, int dc, byte player) {
+        int count = 0;
+        int r = row + dr;
+        int c = col + dc;
+        while (r >= 0 && r < size && c >= 0 && c < size && cells[r * size + c] == player) {
+            count++;
+            r += dr;
+            c += dc;
+        }
+        return count;
+    }
+
+    public Geometry geometry() {
+        return geometry(size, winLength);
+    }
+
+    public static Geometry geometry(int size, int winLength) {
+        return GEOMETRY_CACHE.computeIfAbsent(((long) size << 32) | winLength, key -> new Geometry(size, winLength));
+    }
+
+    /**
+     * Every window of k consecutive cells on a size x size board, and the
+     * windows through each cell. Shared between games; never modified.
+     */
+    public static final class Geometry {
+        public final int[][] windows;
+        public final int[][] windowsByCell; // cell -> indexes into windows
+
+        private Geometry(int size, int winLength) {
+            List<int[]> all = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    for (int d = 0; d < 4; d++) {
+                        int endRow = row + (winLength - 1) * DR[d];
+                        int endCol = col + (winLength - 1) * DC[d];
+                        if (endRow < 0 || endRow >= size || endCol < 0 || endCol >= size) {
+                            continue;
+                        }
+                        int[] window = new int[winLength];
+                        for (int i = 0; i < winLength; i++) {
+                            window[i] = (row + i * DR[d]) * size + (col + i * DC[d]);
+                        }
+                        all.add(window);
+                    }
+                }
+            }
+            windows = all.toArray(new int[0][]);
+
+            int[] counts = new int[size * size];
+            for (int[] window : windows) {
+                for (int cell : window) counts[cell]++;
+            }
+            windowsByCell = new int[size * size][];
+            for (int cell = 0; cell < counts.length; cell++) {
+                windowsByCell[cell] = new int[counts[cell]];
+                counts[cell] = 0;
+            }
+            for (int w = 0; w < windows.length; w++) {
+                for (int cell : windows[w]) {
+                    windowsByCell[cell][counts[cell]++] = w;
+                }
+            }
+        }
+    }
+
+    // --- Conversions to/from the JSON board ---
+
+    public String[] toArray() {
+        String[] board = new String[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == X) board[i] = "X";
+            else if (cells[i] == O) board[i] = "O";
+        }
+        return board;
+    }
+
+    public void load(String[] board) {
+        clear();
+        for (int i = 0; i < cells.length && i < board.length; i++) {
+            if ("X".equals(board[i])) play(i, X);
+            else if ("O".equals(board[i])) play(i, O);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Alpha-beta (negamax) search for GridBoard games with iterative deepening,
+ * move ordering and a per-move time budget. The deepest fully searched
+ * iteration wins; an iteration cut off by the clock is discarded.
+ *
+ * One instance searches one position and is not thread-safe; the parallel
+ * mode gives every pool thread its own instance.
+ */
+public final class GridSearch {
+
+    public static final int WIN_SCORE = 1_000_000;
+
+    // Scores this close to WIN_SCORE are forced wins/losses
+    private static final int MATE_THRESHOLD = WIN_SCORE - 10_000;
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final int MAX_WEIGHT = 100_000;
+
+    // Boards up to this many cells consider every empty cell, bigger ones only cells next to a stone
+    private static final int FULL_WIDTH_CELLS = 25;
+
+    private final GridBoard board;
+    private final GridBoard.Geometry geometry;
+    private final int[] weights; // weights[c] = value of an open window holding c stones of one player
+    private long deadline;
+
+    // Per-ply move and score buffers, so the search itself does not allocate
+    private int[][] moveBuffers;
+    private int[][] scoreBuffers;
+
+    private long nodes;
+    private boolean aborted;
+    private int completedDepth;
+
+    public GridSearch(GridBoard board, long timeBudgetMillis) {
+        this.board = board;
+        this.geometry = board.geometry();
+        this.weights = new int[board.winLength() + 1];
+        for (int c = 1; c <= board.winLength(); c++) {
+            weights[c] = c == 1 ? 1 : Math.min(weights[c - 1] * 10, MAX_WEIGHT);
+        }
+        this.deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+    }
+
+    /** Result of a search: best move, its score for the mover and the work done. */
+    public static class Result {
+        public final int move;
+        public final int score;
+        public final int depth;
+        public final long nodes;
+
+        Result(int move, int score, int depth, long nodes) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+
+        public boolean isForcedWin() { return score >= MATE_THRESHOLD; }
+        public boolean isForcedLoss() { return score <= -MATE_THRESHOLD; }
+    }
+
+    /**
+     * Searches for the best move of {@code player}. Depth 1 is always completed,
+     * whatever the budget, so a legal move is always returned.
+     */
+    public Result search(byte player) {
+        return search(player, null);
+    }
+
+    /**
+     * Same as above; with a pool the root is searched in parallel. In every
+     * iteration the first (principal variation) move is searched alone to set
+     * a bound, then the remaining root moves are handed out to one worker per
+     * pool thread, each on its own copy of the board. Workers share the root
+     * alpha, so a good score found by one narrows the window of the others.
+     */
+    public Result search(byte player, ForkJoinPool pool) {
+        allocateBuffers();
+        int[] moves = moveBuffers[0];
+        int count = generateMoves(player, moves, scoreBuffers[0]);
+        int maxDepth = Math.min(MAX_DEPTH, board.cellCount() - board.moveCount());
+        GridSearch[] workers = pool != null && count > 1 ? createWorkers(pool.getParallelism()) : null;
+
+        int bestMove = moves[0];
+        int bestScore = -WIN_SCORE;
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            RootIteration iteration = new RootIteration();
+            if (workers == null) {
+                searchRootMoves(moves, count, depth, player, iteration);
+            } else {
+                searchRootMove(moves, 0, depth, player, iteration); // eldest brother first
+                if (!aborted) {
+                    iteration.next.set(1);
+                    searchInParallel(pool, workers, moves, count, depth, player, iteration);
+                }
+            }
+            if (aborted || iteration.aborted) {
+                break; // keep the previous, fully searched iteration
+            }
+            bestMove = moves[iteration.bestIndex];
+            bestScore = iteration.alpha;
+            completedDepth = depth;
+
+            // Principal variation first on the next iteration
+            moveToFront(moves, iteration.bestIndex);
+
+            if (bestScore >= MATE_THRESHOLD || bestScore <= -MATE_THRESHOLD || timeUp()) {
+                break;
+            }
+        }
+
+        long totalNodes = nodes;
+        if (workers != null) {
+            for (GridSearch worker : workers) {
+                totalNodes += worker.nodes;
+            }
+        }
+        return new Result(bestMove, bestScore, completedDepth, totalNodes);
+    }
+
+    /** Root state of one iteration, shared by every thread searching it. */
+    private static final class RootIteration {
+        final AtomicInteger next = new AtomicInteger();
+        volatile int alpha = -WIN_SCORE - 1;
+        volatile boolean aborted;
+        int bestIndex = -1;
+
+        synchronized void offer(int score, int index) {
+            if (score > alpha) {
+                alpha = score;
+                bestIndex = index;
+            }
+        }
+    }
+
+    private GridSearch[] createWorkers(int parallelism) {
+        GridSearch[] workers = new GridSearch[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new GridSearch(board.copy(), 0);
+            workers[i].deadline = deadline; // same clock as this search
+            workers[i].allocateBuffers();
+        }
+        return workers;
+    }
+
+    private void searchInParallel(ForkJoinPool pool, GridSearch[] workers, int[] moves, int count,
+                                  int depth, byte player, RootIteration iteration) {
+        List<Callable<Void>> tasks = new ArrayList<>(workers.length);
+        for (GridSearch worker : workers) {
+            worker.completedDepth = completedDepth;
+            worker.aborted = false;
+            tasks.add(() -> {
+                worker.searchRootMoves(moves, count, depth, player, iteration);
+                return null;
+            });
+        }
+        pool.invokeAll(tasks);
+    }
+
+    // Claims root moves from the shared counter until none are left
+    private void searchRootMoves(int[] moves, int count, int depth, byte player, RootIteration iteration) {
+        int i;
+        while (!aborted && !iteration.aborted && (i = iteration.next.getAndIncrement()) < count) {
+            searchRootMove(moves, i, depth, player, iteration);
+        }
+    }
+
+    private void searchRootMove(int[] moves, int i, int depth, byte player, RootIteration iteration) {
+        int alpha = iteration.alpha;
+        int move = moves[i];
+        board.play(move, player);
+        int score = -negamax(depth - 1, 1, -WIN_SCORE - 1, -alpha, GridBoard.other(player), move);
+        board.undo(move);
+        if (aborted) {
+            iteration.aborted = true;
+        } else if (score > alpha) {
+            iteration.offer(score, i);
+        }
+    }
+
+    private void allocateBuffers() {
+        int plies = Math.min(MAX_DEPTH, board.cellCount() - board.moveCount()) + 1;
+        moveBuffers = new int[plies][board.cellCount()];
+        scoreBuffers = new int[plies][board.cellCount()];
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, byte player, int lastMove) {
+        nodes++;
+        // Depth 1 always runs to completion
+        if ((nodes & 1023) == 0 && completedDepth > 0 && timeUp()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        if (board.isWinAt(lastMove)) {
+            return -(WIN_SCORE - ply); // the previous player just won; prefer slower losses
+        }
+        if (board.isFull()) {
+            return 0;
+        }
+        if (depth == 0 || ply >= moveBuffers.length) {
+            return evaluate(player);
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = generateMoves(player, moves, scoreBuffers[ply]);
+        byte opponent = GridBoard.other(player);
+        int best = -WIN_SCORE - 1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            board.play(move, player);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent, move);
+            board.undo(move);
+            if (score > best) {
+                best = score;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The best-looking empty cell by the move-ordering heuristic alone, no search.
+     */
+    public int heuristicMove(byte player) {
+        if (board.moveCount() == 0) {
+            int size = board.size();
+            return (size / 2) * size + size / 2;
+        }
+        int bestMove = -1;
+        int bestScore = -1;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.isEmpty(cell)) {
+                int score = orderingScore(cell, player);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = cell;
+                }
+            }
+        }
+        return bestMove;
+    }
+
+    private boolean timeUp() {
+        return System.nanoTime() > deadline;
+    }
+
+    /**
+     * Static evaluation from {@code player}'s point of view: every window still
+     * open for only one side counts for that side, weighted by how full it is.
+     */
+    private int evaluate(byte player) {
+        int score = 0;
+        for (int[] window : geometry.windows) {
+            int x = 0;
+            int o = 0;
+            for (int cell : window) {
+                byte v = board.get(cell);
+                if (v == GridBoard.X) x++;
+                else if (v == GridBoard.O) o++;
+            }
+            if (o == 0) score += weights[x];
+            else if (x == 0) score -= weights[o];
+        }
+        // Keep heuristic scores clear of the forced win/loss range
+        score = Math.max(-MATE_THRESHOLD + 1, Math.min(MATE_THRESHOLD - 1, score));
+        return player == GridBoard.X ? score : -score;
+    }
+
+    /**
+     * Fills {@code moves} with candidate cells, best first by {@link #orderingScore}.
+     * @return The number of candidates.
+     */
+    private int generateMoves(byte player, int[] moves, int[] scores) {
+        int count = 0;
+        int cells = board.cellCount();
+        if (board.moveCount() == 0) {
+            int size = board.size();
+            moves[0] = (size / 2) * size + size / 2; // open in the center
+            return 1;
+        }
+        boolean fullWidth = cells <= FULL_WIDTH_CELLS;
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isEmpty(cell) || (!fullWidth && !hasNeighbor(cell))) {
+                continue;
+            }
+            int score = orderingScore(cell, player);
+            // Insertion sort, highest score first
+            int i = count++;
+            while (i > 0 && scores[i - 1] < score) {
+                moves[i] = moves[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            moves[i] = cell;
+            scores[i] = score;
+        }
+        return count;
+    }
+
+    /**
+     * How promising {@code cell} looks for {@code player}: windows it would
+     * extend for us plus windows it would block for the opponent.
+     */
+    private int orderingScore(int cell, byte player) {
+        int score = 0;
+        for (int w : geometry.windowsByCell[cell]) {
+            int own = 0;
+            int opp = 0;
+            for (int c : geometry.windows[w]) {
+                byte v = board.get(c);
+                if (v == player) own++;
+                else if (v != GridBoard.EMPTY) opp++;
+            }
+            if (opp == 0) score += weights[own + 1] * 2; // attacking counts a bit more than blocking
+            else if (own == 0) score += weights[opp + 1];
+        }
+        return score;
+    }
+
+    private boolean hasNeighbor(int cell) {
+        int size = board.size();
+        int row = cell / size;
+        int col = cell % size;
+        for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(size - 1, col + 1); c++) {
+                if (!board.isEmpty(r * size + c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void moveToFront(int[] moves, int index) {
+        int move = moves[index];
+        System.arraycopy(moves, 0, moves, 1, index);
+        moves[0] = move;
+    }
+}
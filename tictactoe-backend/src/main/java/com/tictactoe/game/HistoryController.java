@@ -0,0 +1,138 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * Finished games: an export of their moves, and any position in them
+ * rebuilt by replaying. Games are kept by the node that played them
+ * (see GameArchive). The export lists everyone's games and player IDs, so
+ * it's under /api/admin and needs the admin token (see AdminAuthFilter).
+ */
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "https://anuradha-mahesh.github.io/Tic-Tac-Toe/"
+})
+@RestController
+@RequestMapping("/api")
+public class HistoryController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private GameArchive archive;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** One line of the export. */
+    public static class HistoryRecord {
+        public long historyId;
+        public Long gameId;
+        public long playerXId;
+        public Long playerOId;
+        public GameMode mode;
+        public AIDifficulty difficulty;
+        public int boardSize;
+        public int winLength;
+        public String winner;
+        public long startedAt;
+        public long finishedAt;
+        public int[] moves;       // cells in the order played, X first
+        public long[] moveMillis; // how long each move took
+
+        HistoryRecord(GameArchive.Entry entry) {
+            historyId = entry.historyId;
+            gameId = entry.gameId;
+            playerXId = entry.playerXId;
+            playerOId = entry.playerOId;
+            mode = entry.mode;
+            difficulty = entry.difficulty;
+            boardSize = entry.boardSize;
+            winLength = entry.winLength;
+            winner = entry.winner;
+            startedAt = entry.startedAt;
+            finishedAt = entry.finishedAt;
+            moves = new int[entry.moveCount];
+            moveMillis = new long[entry.moveCount];
+            int[] i = {0};
+            entry.forEachMove((cell, millis) -> {
+                moves[i[0]] = cell;
+                moveMillis[i[0]++] = millis;
+            });
+        }
+    }
+
+    /**
+     * Streams finished games oldest first as newline-delimited JSON, one
+     * HistoryRecord per line, written as they're read so a large export
+     * doesn't build up in memory. Page with the last historyId as {@code after}.
+     */
+    @GetMapping("/admin/history")
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam(required = false) Long userId, // Only this user's games (default: everyone's)
+        @RequestParam(defaultValue = "0") long after,
+        @RequestParam(defaultValue = "1000") int limit
+    ) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                archive.forEach(userId, after, limit, entry -> writeLine(out, new HistoryRecord(entry)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // the client went away
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, HistoryRecord record) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(record)); // writeValue(out) would close the stream
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A finished game as it stood after {@code ply} moves (default: the end),
+     * rebuilt by replaying its moves.
+     */
+    @GetMapping("/history/replay")
+    public ResponseEntity<Game> replay(
+        @RequestParam long historyId,
+        @RequestParam(required = false) Integer ply
+    ) {
+        GameArchive.Entry entry = archive.get(historyId);
+        if (entry == null) {
+            throw new IllegalArgumentException("No finished game " + historyId);
+        }
+        if (ply != null && (ply < 0 || ply > entry.moveCount)) {
+            throw new IllegalArgumentException("ply must be between 0 and " + entry.moveCount);
+        }
+        return ResponseEntity.ok(entry.replay(ply != null ? ply : entry.moveCount));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
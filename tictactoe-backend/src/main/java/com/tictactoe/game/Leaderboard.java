@@ -0,0 +1,129 @@
+package com.tictactoe.game;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Player rankings, kept up to date as results come in instead of sorted per
+ * request. One RankedIndex per ordering; UserService reports every stats
+ * change with the values before and after it.
+ */
+@Service
+public class Leaderboard {
+
+    public enum Ordering {
+        WINS, WIN_RATE, BEST_STREAK
+    }
+
+    // Win rates are stored as parts per million so they fit the long score
+    private static final long RATE_SCALE = 1_000_000L;
+
+    private final RankedIndex byWins = new RankedIndex();
+    private final RankedIndex byWinRate = new RankedIndex();
+    private final RankedIndex byBestStreak = new RankedIndex();
+
+    // Players need this many finished games before they show up by win rate
+    private final int minGamesForRate;
+
+    public Leaderboard(@Value("${tictactoe.leaderboard.min-games-for-rate:10}") int minGamesForRate) {
+        this.minGamesForRate = minGamesForRate;
+    }
+
+    /** Adds a newly registered or reloaded user. */
+    public void add(long userId, User.UserStats stats) {
+        byWins.add(stats.totalWins, userId);
+        byBestStreak.add(stats.bestStreak, userId);
+        if (games(stats) >= minGamesForRate) {
+            byWinRate.add(winRate(stats), userId);
+        }
+    }
+
+    /** Drops a user that moved to another node. */
+    public void remove(long userId, User.UserStats stats) {
+        byWins.remove(stats.totalWins, userId);
+        byBestStreak.remove(stats.bestStreak, userId);
+        if (games(stats) >= minGamesForRate) {
+            byWinRate.remove(winRate(stats), userId);
+        }
+    }
+
+    /** Moves the user in every index whose score changed. */
+    public void update(long userId, User.UserStats before, User.UserStats after) {
+        byWins.update(before.totalWins, after.totalWins, userId);
+        byBestStreak.update(before.bestStreak, after.bestStreak, userId);
+
+        boolean wasRated = games(before) >= minGamesForRate;
+        boolean isRated = games(after) >= minGamesForRate;
+        if (wasRated && isRated) {
+            byWinRate.update(winRate(before), winRate(after), userId);
+        } else if (isRated) {
+            byWinRate.add(winRate(after), userId);
+        } else if (wasRated) {
+            byWinRate.remove(winRate(before), userId);
+        }
+    }
+
+    /** The best {@code limit} players for the ordering, best first. */
+    public List<RankedIndex.Entry> top(Ordering ordering, int limit) {
+        return index(ordering).top(limit);
+    }
+
+    /**
+     * @return The user's 1-based rank, or -1 if they aren't ranked in this ordering.
+     */
+    public int rankOf(long userId, User.UserStats stats, Ordering ordering) {
+        if (ordering == Ordering.WIN_RATE && games(stats) < minGamesForRate) {
+            return -1;
+        }
+        return index(ordering).rankOf(score(stats, ordering), userId) + 1;
+    }
+
+    public int size(Ordering ordering) {
+        return index(ordering).size();
+    }
+
+    public long score(User.UserStats stats, Ordering ordering) {
+        switch (ordering) {
+            case WIN_RATE: return winRate(stats);
+            case BEST_STREAK: return stats.bestStreak;
+            case WINS:
+            default: return stats.totalWins;
+        }
+    }
+
+    /**
+     * Splits players into {@code bands} equal win-rate ranges, for matchmaking.
+     * @return 0 to bands - 1, or -1 for players with too few games to be rated.
+     */
+    public int ratingBand(User.UserStats stats, int bands) {
+        if (games(stats) < minGamesForRate) {
+            return -1;
+        }
+        return (int) Math.min(bands - 1, winRate(stats) * bands / RATE_SCALE);
+    }
+
+    /** Turns a stored score back into the value shown to players. */
+    public static double displayValue(long score, Ordering ordering) {
+        return ordering == Ordering.WIN_RATE ? (double) score / RATE_SCALE : score;
+    }
+
+    private RankedIndex index(Ordering ordering) {
+        switch (ordering) {
+            case WIN_RATE: return byWinRate;
+            case BEST_STREAK: return byBestStreak;
+            case WINS:
+            default: return byWins;
+        }
+    }
+
+    private static int games(User.UserStats stats) {
+        return stats.totalWins + stats.totalLosses + stats.totalDraws;
+    }
+
+    private static long winRate(User.UserStats stats) {
+        int games = games(stats);
+        return games == 0 ? 0 : stats.totalWins * RATE_SCALE / games;
+    }
+}
@@ -0,0 +1,92 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tictactoe.game.Leaderboard.Ordering;
+
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "https://anuradha-mahesh.github.io/Tic-Tac-Toe/"
+})
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private Leaderboard leaderboard;
+
+    @Autowired
+    private UserService userService;
+
+    // Top players: /api/leaderboard?by=WINS|WIN_RATE|BEST_STREAK&limit=10
+    @GetMapping
+    public List<Row> top(
+        @RequestParam(defaultValue = "WINS") Ordering by,
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<RankedIndex.Entry> entries = leaderboard.top(by, Math.max(0, Math.min(limit, MAX_LIMIT)));
+        List<Row> rows = new ArrayList<>(entries.size());
+        int rank = 1;
+        for (RankedIndex.Entry entry : entries) {
+            // getUsername reads cold users in place instead of loading them
+            rows.add(new Row(rank++, entry.id, userService.getUsername(entry.id),
+                    Leaderboard.displayValue(entry.score, by)));
+        }
+        return rows;
+    }
+
+    // "My rank": /api/leaderboard/rank?userId=1&by=WINS
+    @GetMapping("/rank")
+    public ResponseEntity<Rank> rank(
+        @RequestParam Long userId,
+        @RequestParam(defaultValue = "WINS") Ordering by
+    ) {
+        User user = userService.getUserById(userId);
+        if (user.getId() == 0L) {
+            return ResponseEntity.notFound().build(); // guests aren't ranked
+        }
+        User.UserStats stats = user.snapshotStats();
+        return ResponseEntity.ok(new Rank(by, leaderboard.rankOf(user.getId(), stats, by),
+                leaderboard.size(by), Leaderboard.displayValue(leaderboard.score(stats, by), by)));
+    }
+
+    // DTOs for the frontend
+    public static class Row {
+        public int rank;
+        public long userId;
+        public String username;
+        public double value;
+
+        public Row(int rank, long userId, String username, double value) {
+            this.rank = rank;
+            this.userId = userId;
+            this.username = username;
+            this.value = value;
+        }
+    }
+
+    public static class Rank {
+        public Ordering by;
+        public int rank; // 1-based, -1 if not ranked (too few games for WIN_RATE)
+        public int total;
+        public double value;
+
+        public Rank(Ordering by, int rank, int total, double value) {
+            this.by = by;
+            this.rank = rank;
+            this.total = total;
+            this.value = value;
+        }
+    }
+}
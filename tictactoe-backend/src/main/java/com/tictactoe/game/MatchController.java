@@ -0,0 +1,156 @@
+package com.tictactoe.game;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * Registry games and matchmaking. The games themselves are played through
+ * the usual /api/game, /api/move, /api/restart and /api/game/stream
+ * endpoints by passing their gameId.
+ */
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "https://anuradha-mahesh.github.io/Tic-Tac-Toe/"
+})
+@RestController
+@RequestMapping("/api")
+public class MatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchController.class);
+
+    @Autowired
+    private GameRegistry gameRegistry;
+
+    @Autowired
+    private Matchmaker matchmaker;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private Leaderboard leaderboard;
+
+    @Autowired
+    private Cluster cluster;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // New game: against the AI, with a known opponent, or open for anyone to join (/api/game/join?gameId=)
+    @PostMapping("/games")
+    public Game createGame(
+        @RequestParam Long userId,                                      // Plays X
+        @RequestParam(defaultValue = "SINGLE_PLAYER") GameMode mode,
+        @RequestParam(defaultValue = "MEDIUM") AIDifficulty difficulty,
+        @RequestParam(defaultValue = "3") int size,
+        @RequestParam(required = false) Integer winLength,              // Default: the board size, capped at 5
+        @RequestParam(required = false) Long opponentId                 // Plays O (two player only)
+    ) {
+        checkRegistered(userId);
+        if (opponentId != null) {
+            if (mode != GameMode.TWO_PLAYER) {
+                throw new IllegalArgumentException("Only two-player games have an opponent");
+            }
+            checkRegistered(opponentId);
+        }
+        checkRoom(userId);
+        return gameRegistry.create(userId, opponentId, mode, difficulty, size,
+                winLength != null ? winLength : Math.min(size, 5)).snapshot();
+    }
+
+    // All of a user's registry games, newest first (in a cluster: this node's first, then the others')
+    @GetMapping("/games")
+    public JsonNode listGames(
+        @RequestParam Long userId,
+        @RequestParam(defaultValue = "false") boolean local // Only this node's (how nodes ask each other)
+    ) {
+        ArrayNode games = objectMapper.valueToTree(gameRegistry.gamesOf(userId));
+        if (local || !cluster.isEnabled()) {
+            return games;
+        }
+        // Matched games live on the node their match was made on, so ask every node
+        List<CompletableFuture<HttpResponse<byte[]>>> answers = new ArrayList<>();
+        for (int node : cluster.liveNodes()) {
+            if (node != cluster.selfIndex()) {
+                // MAX_HOPS: the node answers itself rather than routing it back here
+                answers.add(cluster.send(cluster.request(node, "/api/games?local=true&userId=" + userId,
+                        Cluster.MAX_HOPS).GET().build()));
+            }
+        }
+        for (CompletableFuture<HttpResponse<byte[]>> answer : answers) {
+            try {
+                HttpResponse<byte[]> response = answer.join();
+                if (response.statusCode() == 200) {
+                    games.addAll((ArrayNode) objectMapper.readTree(response.body()));
+                }
+            } catch (CompletionException | IOException e) {
+                log.debug("Skipping a node's games for user {}: {}", userId, e.toString()); // it's down; so are its games
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Waits for an opponent: 200 with the new two-player game once paired (the
+     * player who was waiting plays X), or 204 if nobody came in time; the
+     * client then simply asks again. Only players asking for the same board,
+     * and the same difficulty tier or rating band if given, are paired.
+     */
+    @PostMapping("/match")
+    public CompletableFuture<ResponseEntity<Game>> match(
+        @RequestParam Long userId,
+        @RequestParam(defaultValue = "3") int size,
+        @RequestParam(required = false) Integer winLength,
+        @RequestParam(required = false) AIDifficulty difficulty, // Only meet players who picked the same tier
+        @RequestParam(defaultValue = "false") boolean rated      // Only meet players with a similar win rate
+    ) {
+        checkRegistered(userId);
+        checkRoom(userId);
+        // Stats come from the user's own node in a cluster (matches meet on the node owning their bucket)
+        Integer band = rated ? leaderboard.ratingBand(userService.getUserStats(userId), Matchmaker.RATING_BANDS) : null;
+        Matchmaker.Request request = new Matchmaker.Request(size,
+                winLength != null ? winLength : Math.min(size, 5), difficulty, band);
+        return matchmaker.join(userId, request)
+                .thenApply(game -> game != null ? ResponseEntity.ok(game) : ResponseEntity.noContent().build());
+    }
+
+    private void checkRegistered(Long userId) {
+        if (!userService.isRegistered(userId)) {
+            throw new IllegalArgumentException("Unknown user " + userId + " (guests can't join registry games)");
+        }
+    }
+
+    private void checkRoom(long userId) {
+        if (!gameRegistry.hasRoomFor(userId)) {
+            throw new IllegalArgumentException("User " + userId + " has too many games");
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,168 @@
+package com.tictactoe.game;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * Pairs players waiting for a two-player game.
+ *
+ * Players are bucketed by what they asked for (board, and optionally a
+ * difficulty tier or rating band); only players in the same bucket meet.
+ * Each bucket is a single CAS slot holding at most one waiting ticket: an
+ * arriving player either takes the waiting ticket out of the slot and is
+ * paired with it, or parks its own ticket there. There are no locks, a
+ * pairing costs two CASes, and different buckets never touch the same memory.
+ *
+ * A ticket's state (waiting, matched, cancelled) is decided by one CAS, so a
+ * ticket that times out at the moment it is taken is never both paired and
+ * turned away. Requests wait on a future, not a thread.
+ */
+@Component
+public class Matchmaker {
+
+    /** Win-rate bands for rated matchmaking (plus one for unrated players). */
+    public static final int RATING_BANDS = 10;
+
+    private static final int WAITING = 0;
+    private static final int MATCHED = 1;
+    private static final int CANCELLED = 2;
+
+    private final GameRegistry registry;
+    private final long timeoutMillis;
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final Map<Long, AtomicReference<Ticket>> buckets = new ConcurrentHashMap<>();
+    private final LongAdder waiting = new LongAdder();
+
+    /** What a player is queueing for. Null difficulty or rating band = any. */
+    public static final class Request {
+        final int boardSize;
+        final int winLength;
+        final AIDifficulty difficulty; // a self-chosen skill tier for two-player games
+        final Integer ratingBand;      // -1 for unrated players
+
+        public Request(int boardSize, int winLength, AIDifficulty difficulty, Integer ratingBand) {
+            new GridBoard(boardSize, winLength); // validates, like Game.resize
+            this.boardSize = boardSize;
+            this.winLength = winLength;
+            this.difficulty = difficulty;
+            this.ratingBand = ratingBand;
+        }
+
+        // 8 bits each: size, win length, difficulty + 1 (0 = any), band + 2 (0 = any)
+        long bucketKey() {
+            return (long) boardSize << 24 | winLength << 16
+                    | (difficulty == null ? 0 : difficulty.ordinal() + 1) << 8
+                    | (ratingBand == null ? 0 : ratingBand + 2);
+        }
+    }
+
+    private static final class Ticket {
+        final long userId;
+        final CompletableFuture<Game> match = new CompletableFuture<>();
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        volatile ScheduledFuture<?> timeout;
+
+        Ticket(long userId) {
+            this.userId = userId;
+        }
+    }
+
+    public Matchmaker(
+        GameRegistry registry,
+        GameMetrics metrics,
+        @Value("${tictactoe.matchmaking.timeout-ms:25000}") long timeoutMillis
+    ) {
+        this.registry = registry;
+        this.timeoutMillis = timeoutMillis;
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "matchmaking-timeout");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true); // matched tickets don't leave their timeout queued
+        metrics.registerGauge("tictactoe_matchmaking_waiting", "Players waiting for an opponent", waiting::sum);
+    }
+
+    /**
+     * Queues the user for a two-player game. The player who waited plays X.
+     * @return Completes with a snapshot of the new game, or with null if
+     * nobody turned up within the timeout. Joining again while already
+     * waiting in the same bucket returns the same pending result.
+     */
+    public CompletableFuture<Game> join(long userId, Request request) {
+        AtomicReference<Ticket> slot = buckets.computeIfAbsent(request.bucketKey(), key -> new AtomicReference<>());
+        Ticket ticket = null;
+        while (true) {
+            Ticket other = slot.get();
+            if (other == null) {
+                if (ticket == null) {
+                    ticket = new Ticket(userId);
+                }
+                if (slot.compareAndSet(null, ticket)) {
+                    waiting.increment();
+                    Ticket parked = ticket;
+                    parked.timeout = timer.schedule(() -> cancel(slot, parked), timeoutMillis, TimeUnit.MILLISECONDS);
+                    return parked.match;
+                }
+                continue;
+            }
+            if (other.state.get() != WAITING) {
+                slot.compareAndSet(other, null); // help clear a cancelled ticket
+                continue;
+            }
+            if (other.userId == userId) {
+                return other.match;
+            }
+            // Take the waiting ticket out of the slot; whoever wins the CAS owns it
+            if (!slot.compareAndSet(other, null)) {
+                continue;
+            }
+            if (!other.state.compareAndSet(WAITING, MATCHED)) {
+                continue; // it timed out just now
+            }
+            waiting.decrement();
+            ScheduledFuture<?> timeout = other.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            Game game = registry.create(other.userId, userId, GameMode.TWO_PLAYER,
+                    request.difficulty != null ? request.difficulty : AIDifficulty.MEDIUM,
+                    request.boardSize, request.winLength).snapshot();
+            other.match.complete(game);
+            return CompletableFuture.completedFuture(game);
+        }
+    }
+
+    private void cancel(AtomicReference<Ticket> slot, Ticket ticket) {
+        if (ticket.state.compareAndSet(WAITING, CANCELLED)) {
+            waiting.decrement();
+            slot.compareAndSet(ticket, null);
+            ticket.match.complete(null);
+        }
+    }
+
+    public long waitingCount() {
+        return waiting.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
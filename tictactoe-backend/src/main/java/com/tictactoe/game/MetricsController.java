@@ -0,0 +1,22 @@
+package com.tictactoe.game;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Prometheus scrape endpoint. Not used by the frontend, so no CORS origins here.
+ */
+@RestController
+public class MetricsController {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    private GameMetrics metrics;
+
+    @GetMapping(value = "/api/metrics", produces = PROMETHEUS_TEXT)
+    public String scrape() {
+        return metrics.scrape();
+    }
+}
@@ -0,0 +1,407 @@
+package com.tictactoe.game;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte-Carlo tree search (UCT) for GridBoard games, the MCTS difficulty.
+ * Every iteration walks down the tree picking children by UCB1, adds one
+ * node, finishes the game with uniformly random moves and credits the
+ * result to the nodes it passed. The move played is the most visited one.
+ *
+ * Strength and cost both follow the {@link Budget}: a number of playouts,
+ * optionally cut short by the clock. The tree is a handful of primitive
+ * arrays sized for the budget up front and playouts run on the board
+ * itself, so the search loop does not allocate.
+ *
+ * After a search, the subtree below the chosen move can be kept (see
+ * {@link Tree}) and handed to the next search of the same game, which then
+ * starts from the statistics gathered under the opponent's actual reply.
+ *
+ * One instance searches one position and is not thread-safe.
+ */
+public final class MonteCarloSearch {
+
+    // UCB1 exploration constant (sqrt 2 is the textbook value for results in [0, 1])
+    private static final double EXPLORATION = 1.41;
+
+    // Playouts between clock checks
+    private static final int CLOCK_INTERVAL = 64;
+
+    // Most nodes kept for the next move; bounds the heap a game holds between moves (~28 bytes a node)
+    static final int KEPT_NODES = 4096;
+
+    // Boards up to this many cells consider every empty cell, bigger ones only cells next to a stone (as GridSearch)
+    private static final int FULL_WIDTH_CELLS = 25;
+
+    private static final byte OPEN = 0;
+    private static final byte WON = 1;   // the move into the node won
+    private static final byte DRAWN = 2; // the move into the node filled the board
+
+    /** How much one move may cost: at most {@code playouts} playouts and, if set, {@code timeMillis}. */
+    public static final class Budget {
+        public static final Budget DEFAULT = new Budget(10_000, 0);
+
+        public final int playouts;
+        public final long timeMillis; // 0 = no time limit
+
+        public Budget(int playouts, long timeMillis) {
+            if (playouts < 1 || timeMillis < 0) {
+                throw new IllegalArgumentException("MCTS needs at least one playout and a non-negative time budget");
+            }
+            this.playouts = playouts;
+            this.timeMillis = timeMillis;
+        }
+    }
+
+    /** Result of a search: the move, what it's worth to the mover and the work done. */
+    public static final class Result {
+        public final int move;
+        public final double expectedScore; // in [0, 1]: win 1, draw 1/2, from the playouts through the move
+        public final int playouts;         // run by this search
+        public final int reusedVisits;     // playouts inherited from the previous move's tree
+        final Tree kept;
+
+        Result(int move, double expectedScore, int playouts, int reusedVisits, Tree kept) {
+            this.move = move;
+            this.expectedScore = expectedScore;
+            this.playouts = playouts;
+            this.reusedVisits = reusedVisits;
+            this.kept = kept;
+        }
+    }
+
+    /**
+     * The tree below the move a search chose, rooted at the position after
+     * that move, for the game's next search. Never modified once built, so a
+     * game can share it between snapshots.
+     */
+    static final class Tree {
+        private final GridBoard position;
+        private final Nodes nodes;
+
+        private Tree(GridBoard position, Nodes nodes) {
+            this.position = position;
+            this.nodes = nodes;
+        }
+
+        /** Rough heap held, for session accounting. */
+        long bytes() {
+            return (long) nodes.move.length * Nodes.BYTES_PER_NODE + position.cellCount() + 64;
+        }
+    }
+
+    // Struct of arrays: a node is an index. Children form a linked list (firstChild,
+    // nextSibling) and are always the node's first 'children' candidate moves.
+    private static final class Nodes {
+        static final int BYTES_PER_NODE = 7 * Integer.BYTES + 1;
+
+        final int[] move;
+        final int[] firstChild;
+        final int[] nextSibling;
+        final int[] children;
+        final int[] branching; // candidate moves in the node's position, -1 until known
+        final int[] visits;
+        final int[] score;     // half points for the player who moved into the node: win 2, draw 1
+        final byte[] state;
+        int size;
+
+        Nodes(int capacity) {
+            move = new int[capacity];
+            firstChild = new int[capacity];
+            nextSibling = new int[capacity];
+            children = new int[capacity];
+            branching = new int[capacity];
+            visits = new int[capacity];
+            score = new int[capacity];
+            state = new byte[capacity];
+        }
+
+        int add(int m, byte s) {
+            int n = size++;
+            move[n] = m;
+            firstChild[n] = -1;
+            nextSibling[n] = -1;
+            children[n] = 0;
+            branching[n] = -1;
+            visits[n] = 0;
+            score[n] = 0;
+            state[n] = s;
+            return n;
+        }
+
+        int copyOf(Nodes from, int n) {
+            int copy = add(from.move[n], from.state[n]);
+            branching[copy] = from.branching[n];
+            visits[copy] = from.visits[n];
+            score[copy] = from.score[n];
+            return copy;
+        }
+
+        int child(int n, int m) {
+            for (int c = firstChild[n]; c >= 0; c = nextSibling[c]) {
+                if (move[c] == m) return c;
+            }
+            return -1;
+        }
+    }
+
+    private final GridBoard board;
+    private final Budget budget;
+    private final boolean fullWidth;
+
+    // Scratch, sized once per search
+    private Nodes nodes;
+    private final int[] path;
+    private final int[] played;
+    private final int[] candidates;
+    private final int[] empties;
+    private int playedCount;
+
+    /**
+     * @param board Searched in place (moves are undone afterwards); pass a copy of a live game's board.
+     */
+    public MonteCarloSearch(GridBoard board, Budget budget) {
+        this.board = board;
+        this.budget = budget;
+        this.fullWidth = board.cellCount() <= FULL_WIDTH_CELLS;
+        int cells = board.cellCount();
+        this.path = new int[cells + 2];
+        this.played = new int[cells];
+        this.candidates = new int[cells];
+        this.empties = new int[cells];
+    }
+
+    /**
+     * Searches for the best move of {@code player}. At least one playout is
+     * always run, so a legal move is always returned (the board must not be full).
+     * @param previous The tree kept by this game's last search, or null; used if the
+     *                 board is that position plus one opponent move.
+     */
+    public Result search(byte player, Tree previous, RandomGenerator rng) {
+        reuse(previous, player);
+        long deadline = budget.timeMillis > 0 ? System.nanoTime() + budget.timeMillis * 1_000_000L : 0;
+        int reusedVisits = nodes.visits[0];
+
+        int playouts = 0;
+        while (playouts < budget.playouts) {
+            iterate(player, rng);
+            playouts++;
+            if (deadline != 0 && playouts % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                break;
+            }
+        }
+
+        int best = -1;
+        for (int c = nodes.firstChild[0]; c >= 0; c = nodes.nextSibling[c]) {
+            if (best < 0 || nodes.visits[c] > nodes.visits[best]
+                    || nodes.visits[c] == nodes.visits[best] && nodes.score[c] > nodes.score[best]) {
+                best = c;
+            }
+        }
+        int move = nodes.move[best];
+        double expected = nodes.score[best] / (2.0 * nodes.visits[best]);
+        return new Result(move, expected, playouts, reusedVisits, keep(best, player));
+    }
+
+    // Sets up the tree: the matching part of the previous one, or a lone root
+    private void reuse(Tree previous, byte player) {
+        int root = previous != null ? matchingRoot(previous, player) : -1;
+        int inherited = root >= 0 ? previous.nodes.size : 0; // upper bound on what the subtree can need
+        nodes = new Nodes(budget.playouts + inherited + 1); // every playout adds at most one node
+        if (root < 0) {
+            nodes.add(-1, OPEN);
+        } else {
+            copySubtree(previous.nodes, root, nodes);
+        }
+    }
+
+    // The node of 'previous' for the current board (its position plus one opponent move), or -1
+    private int matchingRoot(Tree previous, byte player) {
+        GridBoard before = previous.position;
+        if (before.size() != board.size() || before.winLength() != board.winLength()
+                || before.moveCount() + 1 != board.moveCount()) {
+            return -1;
+        }
+        byte opponent = GridBoard.other(player);
+        int reply = -1;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            byte was = before.get(cell);
+            byte now = board.get(cell);
+            if (was != now) {
+                if (was != GridBoard.EMPTY || now != opponent || reply >= 0) {
+                    return -1;
+                }
+                reply = cell;
+            }
+        }
+        return reply < 0 ? -1 : previous.nodes.child(0, reply);
+    }
+
+    private void iterate(byte player, RandomGenerator rng) {
+        Nodes t = nodes;
+        int n = 0;
+        int depth = 0;
+        path[depth++] = 0;
+        playedCount = 0;
+        byte toMove = player;
+        byte winner;
+
+        while (true) {
+            if (t.state[n] != OPEN) {
+                winner = t.state[n] == WON ? GridBoard.other(toMove) : GridBoard.EMPTY;
+                break;
+            }
+            if (t.branching[n] < 0 || t.children[n] < t.branching[n]) {
+                // Expand the next untried candidate, then play the game out from there
+                int count = generateCandidates();
+                t.branching[n] = count;
+                int m = candidates[t.children[n]];
+                play(m, toMove);
+                byte state = board.isWinAt(m) ? WON : board.isFull() ? DRAWN : OPEN;
+                int child = t.add(m, state);
+                t.nextSibling[child] = t.firstChild[n];
+                t.firstChild[n] = child;
+                t.children[n]++;
+                path[depth++] = child;
+                winner = state == WON ? toMove : state == DRAWN ? GridBoard.EMPTY : playout(GridBoard.other(toMove), rng);
+                break;
+            }
+            n = select(n);
+            play(t.move[n], toMove);
+            path[depth++] = n;
+            toMove = GridBoard.other(toMove);
+        }
+
+        // Credit the result; path[i] for i >= 1 was moved into by player on odd i, the opponent on even i
+        t.visits[0]++;
+        byte opponent = GridBoard.other(player);
+        for (int i = 1; i < depth; i++) {
+            int node = path[i];
+            byte mover = (i & 1) == 1 ? player : opponent;
+            t.visits[node]++;
+            t.score[node] += winner == mover ? 2 : winner == GridBoard.EMPTY ? 1 : 0;
+        }
+        while (playedCount > 0) {
+            board.undo(played[--playedCount]);
+        }
+    }
+
+    // UCB1 over a fully expanded node's children
+    private int select(int n) {
+        Nodes t = nodes;
+        double logVisits = Math.log(t.visits[n]);
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int c = t.firstChild[n]; c >= 0; c = t.nextSibling[c]) {
+            double v = t.visits[c];
+            double value = t.score[c] / (2 * v) + EXPLORATION * Math.sqrt(logVisits / v);
+            if (value > bestValue) {
+                bestValue = value;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    // Random moves until someone wins or the board fills. @return The winner, or EMPTY for a draw.
+    private byte playout(byte toMove, RandomGenerator rng) {
+        int count = 0;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.isEmpty(cell)) empties[count++] = cell;
+        }
+        while (count > 0) {
+            int i = rng.nextInt(count);
+            int cell = empties[i];
+            empties[i] = empties[--count];
+            play(cell, toMove);
+            if (board.isWinAt(cell)) {
+                return toMove;
+            }
+            toMove = GridBoard.other(toMove);
+        }
+        return GridBoard.EMPTY;
+    }
+
+    private void play(int cell, byte player) {
+        board.play(cell, player);
+        played[playedCount++] = cell;
+    }
+
+    // Candidate moves in cell order; the same position always gives the same list
+    private int generateCandidates() {
+        int count = 0;
+        int cells = board.cellCount();
+        if (board.moveCount() == 0 && !fullWidth) {
+            int size = board.size();
+            candidates[0] = (size / 2) * size + size / 2; // open in the center
+            return 1;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (board.isEmpty(cell) && (fullWidth || hasNeighbor(cell))) {
+                candidates[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    private boolean hasNeighbor(int cell) {
+        int size = board.size();
+        int row = cell / size;
+        int col = cell % size;
+        for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(size - 1, col + 1); c++) {
+                if (!board.isEmpty(r * size + c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // The subtree below the chosen move, breadth first and cut at KEPT_NODES
+    private Tree keep(int chosen, byte player) {
+        if (nodes.state[chosen] != OPEN) {
+            return null; // the game is over
+        }
+        GridBoard position = board.copy();
+        position.play(nodes.move[chosen], player);
+        Nodes kept = new Nodes(Math.min(KEPT_NODES, subtreeSize(chosen)));
+        copySubtree(nodes, chosen, kept);
+        return new Tree(position, kept);
+    }
+
+    private int subtreeSize(int root) {
+        int size = 1;
+        for (int c = nodes.firstChild[root]; c >= 0; c = nodes.nextSibling[c]) {
+            size += subtreeSize(c);
+        }
+        return size;
+    }
+
+    /**
+     * Copies the subtree at {@code root} into the empty {@code to}, breadth
+     * first, as far as it fits. A node's children are copied all together or
+     * not at all, so they stay its first candidates; a node whose children
+     * don't fit keeps its statistics and is expanded again later.
+     */
+    private static void copySubtree(Nodes from, int root, Nodes to) {
+        int[] source = new int[to.move.length]; // to-node -> from-node
+        source[0] = root;
+        to.copyOf(from, root);
+        to.move[0] = -1; // the new root
+        for (int k = 0; k < to.size; k++) {
+            int f = source[k];
+            int count = from.children[f];
+            if (count == 0 || to.size + count > to.move.length) {
+                continue;
+            }
+            for (int c = from.firstChild[f]; c >= 0; c = from.nextSibling[c]) {
+                int copy = to.copyOf(from, c);
+                source[copy] = c;
+                to.nextSibling[copy] = to.firstChild[k];
+                to.firstChild[k] = copy;
+            }
+            to.children[k] = count;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.tictactoe.game;
+
+import java.util.Arrays;
+
+/**
+ * A game's moves in the order played, with the time each took. Instead of a
+ * board per move, a move is its cell and the milliseconds since the move
+ * before (since the game started, for the first), both as varints: one byte
+ * for a cell on boards up to 11x11, two above, and one or two bytes for
+ * anything up to 16 seconds. Any position is rebuilt by replaying.
+ *
+ * Undone moves stay at the end until redone or overwritten by a new move.
+ * Not thread-safe; the owning Game's lock guards it.
+ */
+final class MoveLog {
+
+    private byte[] bytes;
+    private int length;      // bytes of the moves currently played
+    private int end;         // bytes including undone moves
+    private int moves;       // moves currently played
+    private int undone;      // undone moves that can be redone
+    private long startedAt;  // epoch millis
+    private long lastMoveAt; // epoch millis of the last move played
+    private boolean fromStart = true; // false if the game didn't start from an empty board (setBoard, cold storage)
+
+    MoveLog() {
+        this(new byte[8]);
+    }
+
+    private MoveLog(byte[] bytes) {
+        this.bytes = bytes;
+        this.startedAt = System.currentTimeMillis();
+        this.lastMoveAt = startedAt;
+    }
+
+    /** Records a move played now; forgets any undone moves. */
+    void add(int cell) {
+        long now = System.currentTimeMillis();
+        end = length;
+        undone = 0;
+        ensureRoom(12); // a cell takes at most 2 bytes, a time at most 10
+        end = writeVarint(writeVarint(end, cell), Math.max(0, now - lastMoveAt));
+        length = end;
+        moves++;
+        lastMoveAt = now;
+    }
+
+    /** @return The cell of the last move played, now undone, or -1 if there is none. */
+    int undo() {
+        if (moves == 0) {
+            return -1;
+        }
+        // Varints can't be read backwards: walk to the last move
+        int offset = 0;
+        int last = 0;
+        long at = startedAt;
+        long beforeLast = startedAt;
+        for (int i = 0; i < moves; i++) {
+            last = offset;
+            offset = skipVarint(bytes, offset);
+            beforeLast = at;
+            at += readVarint(bytes, offset);
+            offset = skipVarint(bytes, offset);
+        }
+        length = last;
+        moves--;
+        undone++;
+        lastMoveAt = beforeLast;
+        return (int) readVarint(bytes, last);
+    }
+
+    /** @return The cell of the first undone move, now played again with its original timing, or -1. */
+    int redo() {
+        if (undone == 0) {
+            return -1;
+        }
+        int cell = (int) readVarint(bytes, length);
+        int offset = skipVarint(bytes, length);
+        lastMoveAt += readVarint(bytes, offset);
+        length = skipVarint(bytes, offset);
+        moves++;
+        undone--;
+        return cell;
+    }
+
+    int moves() { return moves; }
+    int undone() { return undone; }
+    long startedAt() { return startedAt; }
+    boolean fromStart() { return fromStart; }
+
+    /** Starts over, for a new game. */
+    void clear() {
+        length = 0;
+        end = 0;
+        moves = 0;
+        undone = 0;
+        startedAt = System.currentTimeMillis();
+        lastMoveAt = startedAt;
+        fromStart = true;
+    }
+
+    /** Starts over from a position the log doesn't know how was reached. */
+    void clearFromPosition() {
+        clear();
+        fromStart = false;
+    }
+
+    /** Receives moves in order: the cell and the milliseconds it took. */
+    interface Visitor {
+        void move(int cell, long millis);
+    }
+
+    void forEach(Visitor visitor) {
+        forEach(bytes, length, visitor);
+    }
+
+    /** The moves played, in the encoded form (see {@link #forEach(byte[], int, Visitor)}). */
+    byte[] encoded() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    static void forEach(byte[] encoded, int length, Visitor visitor) {
+        int offset = 0;
+        while (offset < length) {
+            int cell = (int) readVarint(encoded, offset);
+            offset = skipVarint(encoded, offset);
+            long millis = readVarint(encoded, offset);
+            offset = skipVarint(encoded, offset);
+            visitor.move(cell, millis);
+        }
+    }
+
+    MoveLog copy() {
+        MoveLog copy = new MoveLog(Arrays.copyOf(bytes, end));
+        copy.length = length;
+        copy.end = end;
+        copy.moves = moves;
+        copy.undone = undone;
+        copy.startedAt = startedAt;
+        copy.lastMoveAt = lastMoveAt;
+        copy.fromStart = fromStart;
+        return copy;
+    }
+
+    private void ensureRoom(int extra) {
+        if (end + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + extra));
+        }
+    }
+
+    private int writeVarint(int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static long readVarint(byte[] bytes, int offset) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[offset++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static int skipVarint(byte[] bytes, int offset) {
+        while (bytes[offset++] < 0) {
+            // continuation byte
+        }
+        return offset;
+    }
+}
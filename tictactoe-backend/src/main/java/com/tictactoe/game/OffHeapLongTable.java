@@ -0,0 +1,145 @@
+package com.tictactoe.game;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongPredicate;
+
+/**
+ * A hash multimap from long to long kept outside the Java heap, so the
+ * garbage collector never scans or copies it. It is still bounded: direct
+ * buffers are capped by -XX:MaxDirectMemorySize, which defaults to the
+ * maximum heap size (-Xmx), so size that flag for the cold store too.
+ * Open addressing with linear probing over a direct buffer of (key, value)
+ * pairs; removal shifts entries back instead of leaving tombstones. Key 0
+ * marks an empty slot and can't be stored.
+ * Not thread-safe: ColdUserStore guards it with its own lock.
+ */
+final class OffHeapLongTable {
+
+    private static final int SLOT_BYTES = 16;
+    private static final double MAX_LOAD = 0.6;
+
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    OffHeapLongTable(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Adds the pair; a key may hold several values. */
+    void add(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        if (size + 1 > (mask + 1) * MAX_LOAD) {
+            grow();
+        }
+        int slot = home(key);
+        while (keyAt(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        set(slot, key, value);
+        size++;
+    }
+
+    /**
+     * @return The first value stored under {@code key} that {@code accept} takes, or -1.
+     */
+    long find(long key, LongPredicate accept) {
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            long k = keyAt(slot);
+            if (k == 0) {
+                return -1;
+            }
+            if (k == key) {
+                long value = valueAt(slot);
+                if (accept.test(value)) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    long get(long key) {
+        return find(key, value -> true);
+    }
+
+    /** Removes the pair if present. */
+    boolean remove(long key, long value) {
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            long k = keyAt(slot);
+            if (k == 0) {
+                return false;
+            }
+            if (k == key && valueAt(slot) == value) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    // Backward-shift deletion: pull later entries of the probe run into the hole
+    private void shiftBack(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keyAt(slot);
+            if (key == 0) {
+                break;
+            }
+            int home = home(key);
+            // Move the entry unless its home lies cyclically in (hole, slot]
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                set(hole, key, valueAt(slot));
+                hole = slot;
+            }
+        }
+        set(hole, 0, 0);
+    }
+
+    private void grow() {
+        ByteBuffer old = slots;
+        int oldCapacity = mask + 1;
+        allocate(oldCapacity * 2);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long key = old.getLong(slot * SLOT_BYTES);
+            if (key != 0) {
+                int s = home(key);
+                while (keyAt(s) != 0) {
+                    s = (s + 1) & mask;
+                }
+                set(s, key, old.getLong(slot * SLOT_BYTES + 8));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES); // zero-filled: all empty
+        mask = capacity - 1;
+    }
+
+    private int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private long keyAt(int slot) {
+        return slots.getLong(slot * SLOT_BYTES);
+    }
+
+    private long valueAt(int slot) {
+        return slots.getLong(slot * SLOT_BYTES + 8);
+    }
+
+    private void set(int slot, long key, long value) {
+        slots.putLong(slot * SLOT_BYTES, key);
+        slots.putLong(slot * SLOT_BYTES + 8, value);
+    }
+}
@@ -0,0 +1,65 @@
+package com.tictactoe.game;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * Which openings win most, from the games finished on this node (see OpeningStats).
+ */
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "https://anuradha-mahesh.github.io/Tic-Tac-Toe/"
+})
+@RestController
+@RequestMapping("/api/openings")
+public class OpeningController {
+
+    @Autowired
+    private OpeningStats openingStats;
+
+    // e.g. GET /api/openings?position=X...O....  (9 cells row by row: X, O, or . / - for empty)
+    @GetMapping
+    public OpeningStats.PositionOutcomes position(
+        @RequestParam(defaultValue = ".........") String position,
+        @RequestParam(required = false) GameMode mode // default: all games
+    ) {
+        if (position.length() != BitBoard.CELLS) {
+            throw new IllegalArgumentException("position has 9 cells");
+        }
+        String[] board = new String[BitBoard.CELLS];
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            char c = Character.toUpperCase(position.charAt(i));
+            if (c == 'X' || c == 'O') {
+                board[i] = String.valueOf(c);
+            } else if (c != '.' && c != '-') {
+                throw new IllegalArgumentException("Cells are X, O, . or -");
+            }
+        }
+        return openingStats.position(board, mode);
+    }
+
+    // e.g. GET /api/openings/first-moves?size=5&winLength=4
+    @GetMapping("/first-moves")
+    public List<OpeningStats.MoveOutcomes> firstMoves(
+        @RequestParam(defaultValue = "3") int size,
+        @RequestParam(required = false) Integer winLength, // default: as for a new game
+        @RequestParam(required = false) GameMode mode
+    ) {
+        return openingStats.firstMoves(size, winLength != null ? winLength : Math.min(size, 5), mode);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,244 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.tictactoe.game.Game.GameMode;
+
+/**
+ * How finished games turned out, by the positions they went through: which
+ * openings win most, from real games rather than the AI's assumptions.
+ *
+ * Classic 3x3 games count every position they reached, folded under the 8
+ * board symmetries (Symmetry.canonicalCode), so a corner opening is one
+ * entry whichever corner. Bigger boards have too many positions for that
+ * and count first moves only, per board size and win length.
+ *
+ * Every game that ends adds to the empty board, so counters are LongAdders:
+ * threads ending games at the same time add to different cells instead of
+ * fighting over one. Recording is a replay of at most 9 moves plus a few
+ * adds, under the game's lock the game ends with; nothing waits on a shared lock.
+ * Counts are this node's games since it started.
+ */
+@Component
+public class OpeningStats {
+
+    // Outcomes as Game.getWinner() reports them, in counter order
+    private static final String[] OUTCOMES = {"X", "O", "Draw"};
+    private static final GameMode[] MODES = GameMode.values();
+
+    /** Outcome counts of games that went through a position (or opened with a move). */
+    public static class Outcomes {
+        public long games;
+        public long xWins;
+        public long oWins;
+        public long draws;
+    }
+
+    /** A move from the position asked about, and how games that went there turned out. */
+    public static class MoveOutcomes extends Outcomes {
+        public int cell;
+    }
+
+    public static class PositionOutcomes {
+        public String player;              // to move
+        public Outcomes reached;           // games that went through the position, by any move order
+        public List<MoveOutcomes> moves;   // every empty cell
+    }
+
+    // One position's (or first move's) counters, by mode and outcome
+    private static final class Counts {
+        final LongAdder[] adders = new LongAdder[MODES.length * OUTCOMES.length];
+
+        Counts() {
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+        }
+
+        void add(int mode, int outcome) {
+            adders[mode * OUTCOMES.length + outcome].increment();
+        }
+
+        // @param mode null for all modes
+        void addTo(Outcomes out, GameMode mode) {
+            for (int m = 0; m < MODES.length; m++) {
+                if (mode != null && mode.ordinal() != m) {
+                    continue;
+                }
+                long x = adders[m * OUTCOMES.length].sum();
+                long o = adders[m * OUTCOMES.length + 1].sum();
+                long draw = adders[m * OUTCOMES.length + 2].sum();
+                out.xWins += x;
+                out.oWins += o;
+                out.draws += draw;
+                out.games += x + o + draw;
+            }
+        }
+    }
+
+    // By canonical code; created on first use (under a thousand positions are reachable)
+    private final AtomicReferenceArray<Counts> positions = new AtomicReferenceArray<>(Symmetry.CODES);
+    private final AtomicInteger positionCount = new AtomicInteger();
+
+    // First moves on bigger boards: by size * 100 + winLength, then by cell
+    private final Map<Integer, Counts[]> firstMoves = new ConcurrentHashMap<>();
+
+    public OpeningStats(GameMetrics metrics) {
+        metrics.registerGauge("tictactoe_opening_positions", "3x3 positions with opening stats", positionCount::get);
+    }
+
+    /**
+     * Counts a game that just finished. Call with the game's lock held.
+     * Games that didn't start from an empty board are skipped.
+     */
+    void record(Game game) {
+        int outcome = outcomeIndex(game.getWinner());
+        if (outcome < 0 || !game.moveLog().fromStart()) {
+            return;
+        }
+        int mode = game.getMode().ordinal();
+        if (game.grid() == null) {
+            position(0).add(mode, outcome); // the empty board: every game
+            int[] bits = new int[2]; // X, O
+            int[] ply = {0};
+            game.moveLog().forEach((cell, millis) -> {
+                bits[ply[0]++ & 1] |= 1 << cell;
+                position(Symmetry.canonicalCode(bits[0], bits[1])).add(mode, outcome);
+            });
+        } else {
+            Counts[] cells = firstMoves.computeIfAbsent(key(game.getBoardSize(), game.getWinLength()),
+                    k -> newCounts(game.getBoardSize() * game.getBoardSize()));
+            boolean[] first = {true};
+            game.moveLog().forEach((cell, millis) -> {
+                if (first[0]) {
+                    cells[cell].add(mode, outcome);
+                    first[0] = false;
+                }
+            });
+        }
+    }
+
+    /**
+     * A 3x3 position: how games through it ended, and through each move from it.
+     * @param board 9 cells, "X", "O" or null, as Game.getBoard() has them.
+     * @param mode Only games of this mode, or null for all.
+     */
+    public PositionOutcomes position(String[] board, GameMode mode) {
+        int xBits = 0;
+        int oBits = 0;
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            if ("X".equals(board[i])) {
+                xBits |= 1 << i;
+            } else if ("O".equals(board[i])) {
+                oBits |= 1 << i;
+            }
+        }
+        int xCount = Integer.bitCount(xBits);
+        int oCount = Integer.bitCount(oBits);
+        if (xCount != oCount && xCount != oCount + 1) {
+            throw new IllegalArgumentException("Not a position of a game: X moves first and players take turns");
+        }
+        boolean xToMove = xCount == oCount;
+        PositionOutcomes result = new PositionOutcomes();
+        result.player = xToMove ? "X" : "O";
+        result.reached = outcomes(Symmetry.canonicalCode(xBits, oBits), mode);
+        result.moves = new ArrayList<>();
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            if (board[cell] != null) {
+                continue;
+            }
+            int code = xToMove ? Symmetry.canonicalCode(xBits | 1 << cell, oBits)
+                    : Symmetry.canonicalCode(xBits, oBits | 1 << cell);
+            MoveOutcomes move = new MoveOutcomes();
+            move.cell = cell;
+            Counts counts = positions.get(code);
+            if (counts != null) {
+                counts.addTo(move, mode);
+            }
+            result.moves.add(move);
+        }
+        return result;
+    }
+
+    /**
+     * How games opening in each cell ended. Symmetric cells (the four
+     * corners, say) share their counts, as on 3x3.
+     */
+    public List<MoveOutcomes> firstMoves(int size, int winLength, GameMode mode) {
+        if (size == 3) { // the classic board: from the position table
+            return position(new String[BitBoard.CELLS], mode).moves;
+        }
+        new GridBoard(size, winLength); // validates
+        Counts[] cells = firstMoves.get(key(size, winLength));
+        int[][] symmetries = Symmetry.cellMaps(size);
+        List<MoveOutcomes> moves = new ArrayList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            MoveOutcomes move = new MoveOutcomes();
+            move.cell = cell;
+            if (cells != null) {
+                // Each distinct cell of its orbit once (the centre maps to itself 8 times)
+                boolean[] seen = new boolean[size * size];
+                for (int[] symmetry : symmetries) {
+                    int image = symmetry[cell];
+                    if (!seen[image]) {
+                        seen[image] = true;
+                        cells[image].addTo(move, mode);
+                    }
+                }
+            }
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private Outcomes outcomes(int code, GameMode mode) {
+        Outcomes outcomes = new Outcomes();
+        Counts counts = positions.get(code);
+        if (counts != null) {
+            counts.addTo(outcomes, mode);
+        }
+        return outcomes;
+    }
+
+    private Counts position(int code) {
+        Counts counts = positions.get(code);
+        if (counts == null) {
+            Counts created = new Counts();
+            counts = positions.compareAndExchange(code, null, created);
+            if (counts == null) {
+                counts = created; // ours went in
+                positionCount.incrementAndGet();
+            }
+        }
+        return counts;
+    }
+
+    private static Counts[] newCounts(int n) {
+        Counts[] counts = new Counts[n];
+        for (int i = 0; i < n; i++) {
+            counts[i] = new Counts();
+        }
+        return counts;
+    }
+
+    private static int key(int size, int winLength) {
+        return size * 100 + winLength;
+    }
+
+    private static int outcomeIndex(String winner) {
+        for (int i = 0; i < OUTCOMES.length; i++) {
+            if (OUTCOMES[i].equals(winner)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
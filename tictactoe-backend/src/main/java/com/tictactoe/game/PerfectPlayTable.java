@@ -0,0 +1,173 @@
+package com.tictactoe.game;
+
+/**
+ * Every reachable 3x3 position solved once (lazily, on first use) and folded
+ * under the 8 board symmetries. Positions are always seen from the side to
+ * move: {@code own} is the player about to play, {@code opp} the other one.
+ *
+ * Each entry is one byte: the game-theoretic value in the low 2 bits and the
+ * number of plies until the game ends under perfect play in the rest.
+ */
+public final class PerfectPlayTable {
+
+    public enum Value { WIN, DRAW, LOSS }
+
+    private static final int UNSOLVED = 0;
+    private static final int WIN = 1;
+    private static final int DRAW = 2;
+    private static final int LOSS = 3;
+
+    private final byte[] entries = new byte[Symmetry.CODES];
+    private int solvedStates = 0;
+
+    private PerfectPlayTable() {
+        solve(0, 0);
+    }
+
+    // Initialization-on-demand holder: solved the first time someone asks
+    private static class Holder {
+        static final PerfectPlayTable INSTANCE = new PerfectPlayTable();
+    }
+
+    public static PerfectPlayTable get() {
+        return Holder.INSTANCE;
+    }
+
+    /** Number of canonical positions stored. */
+    public int size() {
+        return solvedStates;
+    }
+
+    // Negamax over the whole game tree, memoized on the canonical code
+    private int solve(int own, int opp) {
+        int key = Symmetry.canonicalCode(own, opp);
+        if (entries[key] != UNSOLVED) {
+            return entries[key];
+        }
+
+        int result;
+        if (BitBoard.hasWin(opp)) {
+            result = pack(LOSS, 0); // the player who just moved won
+        } else if (BitBoard.isFull(own, opp)) {
+            result = pack(DRAW, 0);
+        } else {
+            int bestValue = LOSS;
+            int bestDistance = -1;
+            for (int m = BitBoard.empty(own, opp); m != 0; m &= m - 1) {
+                int child = solve(opp, own | (m & -m));
+                int value = invert(child & 3);
+                int distance = (child >> 2) + 1;
+                if (isBetter(value, distance, bestValue, bestDistance)) {
+                    bestValue = value;
+                    bestDistance = distance;
+                }
+            }
+            result = pack(bestValue, bestDistance);
+        }
+        entries[key] = (byte) result;
+        solvedStates++;
+        return result;
+    }
+
+    /**
+     * Looks up the position with {@code own} to move.
+     * @return The packed entry, or 0 if the position is not reachable in play.
+     */
+    private int lookup(int own, int opp) {
+        return entries[Symmetry.canonicalCode(own, opp)];
+    }
+
+    /**
+     * Evaluates playing {@code move} for the side to move.
+     * @return The entry for the result seen by the mover, or 0 if unknown.
+     */
+    private int evaluateMove(int own, int opp, int move) {
+        int child = lookup(opp, own | (1 << move));
+        if (child == UNSOLVED) {
+            return UNSOLVED;
+        }
+        return pack(invert(child & 3), (child >> 2) + 1);
+    }
+
+    /**
+     * Picks the best move for the side to move: the fastest win, else a draw,
+     * else the slowest loss.
+     * @return The move with its value and distance, or null if the position is not in the table.
+     */
+    public Entry bestMove(int own, int opp) {
+        AIDecision best = AIDecision.unpack(bestMoveDecision(own, opp));
+        return best == null ? null : new Entry(best.getMove(), best.getValue(), best.getDistance());
+    }
+
+    /**
+     * Same as bestMove, without allocating: the move, value and distance as a
+     * packed TABLE decision (see AIDecision.pack), or AIDecision.NONE.
+     */
+    long bestMoveDecision(int own, int opp) {
+        int bestMove = -1;
+        int bestValue = LOSS;
+        int bestDistance = -1;
+        for (int m = BitBoard.empty(own, opp); m != 0; m &= m - 1) {
+            int move = Integer.numberOfTrailingZeros(m);
+            int entry = evaluateMove(own, opp, move);
+            if (entry == UNSOLVED) {
+                return AIDecision.NONE;
+            }
+            if (bestMove == -1 || isBetter(entry & 3, entry >> 2, bestValue, bestDistance)) {
+                bestMove = move;
+                bestValue = entry & 3;
+                bestDistance = entry >> 2;
+            }
+        }
+        return bestMove == -1 ? AIDecision.NONE
+                : AIDecision.pack(bestMove, AIDecision.Source.TABLE, toValue(bestValue), bestDistance, 0);
+    }
+
+    /**
+     * Value and distance of every cell for the side to move (null for occupied cells).
+     */
+    public Entry[] evaluateAll(int own, int opp) {
+        Entry[] result = new Entry[BitBoard.CELLS];
+        for (int m = BitBoard.empty(own, opp); m != 0; m &= m - 1) {
+            int move = Integer.numberOfTrailingZeros(m);
+            int entry = evaluateMove(own, opp, move);
+            if (entry != UNSOLVED) {
+                result[move] = new Entry(move, toValue(entry & 3), entry >> 2);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isBetter(int value, int distance, int bestValue, int bestDistance) {
+        if (value != bestValue) {
+            return value < bestValue; // WIN(1) < DRAW(2) < LOSS(3)
+        }
+        // Win quickly, lose slowly
+        return value == LOSS ? distance > bestDistance : distance < bestDistance;
+    }
+
+    private static int invert(int value) {
+        return value == WIN ? LOSS : value == LOSS ? WIN : DRAW;
+    }
+
+    private static int pack(int value, int distance) {
+        return value | (distance << 2);
+    }
+
+    private static Value toValue(int value) {
+        return value == WIN ? Value.WIN : value == LOSS ? Value.LOSS : Value.DRAW;
+    }
+
+    /** A move with its perfect-play value for the mover and plies until the game ends. */
+    public static class Entry {
+        public final int move;
+        public final Value value;
+        public final int distance;
+
+        Entry(int move, Value value, int distance) {
+            this.move = move;
+            this.value = value;
+            this.distance = distance;
+        }
+    }
+}
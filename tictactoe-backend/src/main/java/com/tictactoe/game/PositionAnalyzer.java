@@ -0,0 +1,291 @@
+package com.tictactoe.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hints and analysis: the value of every empty cell for one side.
+ *
+ * Solved boards are answered from their tables (PerfectPlayTable for 3x3,
+ * an installed Tablebase), which are complete caches already. Other boards
+ * are searched, one GridSearch per cell on a share of the time budget, so
+ * an analysis costs about one HARD move; the results are kept in a bounded
+ * cache shared by all users. Positions are folded under the 8 board
+ * symmetries before caching, and a position being searched is searched
+ * once however many users ask for it at the same time.
+ */
+@Component
+public class PositionAnalyzer {
+
+    /** One empty cell: its value for the side to move if it plays there. */
+    public static class Cell {
+        public int cell;
+        public PerfectPlayTable.Value value; // null when the search couldn't tell
+        public int distance;  // plies until the game ends, this move included; -1 when unknown
+        public Integer score; // the search's score for the mover (searched boards only)
+
+        Cell(int cell, PerfectPlayTable.Value value, int distance, Integer score) {
+            this.cell = cell;
+            this.value = value;
+            this.distance = distance;
+            this.score = score;
+        }
+    }
+
+    public static class Analysis {
+        public String player;            // the side the values are for
+        public AIDecision.Source source; // TABLE or SEARCH
+        public boolean cached;           // searched earlier, for this or a symmetric position
+        public int bestMove;
+        public List<Cell> cells;
+    }
+
+    // A searched cell, as cached (cells are in the canonical orientation)
+    private static final class Evaluation {
+        final PerfectPlayTable.Value value;
+        final int distance;
+        final int score;
+
+        Evaluation(PerfectPlayTable.Value value, int distance, int score) {
+            this.value = value;
+            this.distance = distance;
+            this.score = score;
+        }
+    }
+
+    // Cache key: a board in its canonical orientation, 2 bits per cell, and the side to move
+    private static final class Key {
+        final int size;
+        final int winLength;
+        final byte player;
+        final long[] cells;
+        final int hash;
+
+        Key(int size, int winLength, byte player, long[] cells) {
+            this.size = size;
+            this.winLength = winLength;
+            this.player = player;
+            this.cells = cells;
+            this.hash = 31 * (31 * (31 * size + winLength) + player) + Arrays.hashCode(cells);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.size == size && k.winLength == winLength && k.player == player
+                    && Arrays.equals(k.cells, cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Cell maps of the 8 symmetries by board size
+    private static final Map<Integer, int[][]> SYMMETRIES = new ConcurrentHashMap<>();
+
+    private final ClockCache<Key, Evaluation[]> cache;
+    private final Map<Key, CompletableFuture<Evaluation[]>> searching = new ConcurrentHashMap<>();
+    private final long timeBudgetMillis;
+
+    public PositionAnalyzer(
+        @Value("${tictactoe.analysis.cache-size:20000}") int cacheSize,
+        @Value("${tictactoe.analysis.time-budget-ms:500}") long timeBudgetMillis,
+        GameMetrics metrics
+    ) {
+        this.cache = new ClockCache<>(cacheSize);
+        this.timeBudgetMillis = timeBudgetMillis;
+        metrics.registerGauge("tictactoe_analysis_cache_entries", "Searched positions cached for analysis", cache::size);
+        metrics.registerCounter("tictactoe_analysis_cache_hits_total", "Analyses answered from the cache", cache::hits);
+        metrics.registerCounter("tictactoe_analysis_cache_misses_total", "Analyses that had to search", cache::misses);
+    }
+
+    /**
+     * @param position A snapshot; searching takes a while, so not the live game.
+     * @param player "X" or "O": the side to evaluate moves for.
+     */
+    public Analysis analyze(Game position, String player) {
+        if (!"X".equals(player) && !"O".equals(player)) {
+            throw new IllegalArgumentException("player must be X or O");
+        }
+        if (position.getWinner() != null) {
+            throw new IllegalArgumentException("Game is over");
+        }
+        byte side = player.equals("X") ? GridBoard.X : GridBoard.O;
+        GridBoard board = new GridBoard(position.getBoardSize(), position.getWinLength());
+        board.load(position.getBoard());
+
+        Analysis analysis = new Analysis();
+        analysis.player = player;
+        analysis.cells = fromTable(position, board, side);
+        analysis.source = AIDecision.Source.TABLE;
+        if (analysis.cells == null) {
+            analysis.source = AIDecision.Source.SEARCH;
+            analysis.cells = fromSearch(board, side, analysis);
+        }
+        analysis.bestMove = best(analysis.cells, AIPlayer.getSmartGridMove(board, side));
+        return analysis;
+    }
+
+    // The tables only know positions reached by taking turns, so a side that
+    // isn't the one to move (or an edited board) may not be there: null then
+    private List<Cell> fromTable(Game position, GridBoard board, byte side) {
+        List<Cell> cells = new ArrayList<>();
+        if (position.grid() == null) {
+            int own = side == GridBoard.X ? position.xBits() : position.oBits();
+            int opp = side == GridBoard.X ? position.oBits() : position.xBits();
+            PerfectPlayTable.Entry[] entries = PerfectPlayTable.get().evaluateAll(own, opp);
+            for (int i = 0; i < BitBoard.CELLS; i++) {
+                if (board.isEmpty(i)) {
+                    if (entries[i] == null) {
+                        return null;
+                    }
+                    cells.add(new Cell(i, entries[i].value, entries[i].distance, null));
+                }
+            }
+            return cells;
+        }
+        Tablebase tablebase = Tablebase.forBoard(board.size(), board.winLength());
+        PerfectPlayTable.Entry[] entries = tablebase != null ? tablebase.evaluateAll(board, side) : null;
+        if (entries == null) {
+            return null;
+        }
+        for (PerfectPlayTable.Entry entry : entries) {
+            if (entry != null) {
+                cells.add(new Cell(entry.move, entry.value, entry.distance, null));
+            }
+        }
+        return cells;
+    }
+
+    private List<Cell> fromSearch(GridBoard board, byte side, Analysis analysis) {
+        int[] map = new int[board.cellCount()];
+        Key key = canonicalKey(board, side, map);
+        Evaluation[] evaluations = cache.get(key);
+        analysis.cached = evaluations != null;
+        if (evaluations == null) {
+            CompletableFuture<Evaluation[]> mine = new CompletableFuture<>();
+            CompletableFuture<Evaluation[]> running = searching.putIfAbsent(key, mine);
+            if (running != null) {
+                evaluations = running.join(); // someone is searching it right now
+                analysis.cached = true;
+            } else {
+                try {
+                    evaluations = search(board, side, map);
+                    cache.put(key, evaluations);
+                    mine.complete(evaluations);
+                } catch (RuntimeException e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    searching.remove(key, mine);
+                }
+            }
+        }
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < board.cellCount(); i++) {
+            Evaluation e = evaluations[map[i]];
+            if (e != null) {
+                cells.add(new Cell(i, e.value, e.distance, e.score));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Searches the opponent's reply to every empty cell. Results are stored
+     * at the cells' canonical positions ({@code map}).
+     */
+    private Evaluation[] search(GridBoard board, byte side, int[] map) {
+        int empty = board.cellCount() - board.moveCount();
+        long budgetPerCell = Math.max(1, timeBudgetMillis / empty);
+        byte opponent = GridBoard.other(side);
+        Evaluation[] evaluations = new Evaluation[board.cellCount()];
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (!board.isEmpty(cell)) {
+                continue;
+            }
+            board.play(cell, side);
+            Evaluation e;
+            if (board.isWinAt(cell)) {
+                e = new Evaluation(PerfectPlayTable.Value.WIN, 1, GridSearch.WIN_SCORE);
+            } else if (board.isFull()) {
+                e = new Evaluation(PerfectPlayTable.Value.DRAW, 1, 0);
+            } else {
+                GridSearch.Result reply = new GridSearch(board, budgetPerCell).search(opponent);
+                int plies = 1 + GridSearch.WIN_SCORE - Math.abs(reply.score); // mate scores count plies
+                if (reply.isForcedLoss()) {
+                    e = new Evaluation(PerfectPlayTable.Value.WIN, plies, -reply.score);
+                } else if (reply.isForcedWin()) {
+                    e = new Evaluation(PerfectPlayTable.Value.LOSS, plies, -reply.score);
+                } else if (reply.depth >= empty - 1 && board.cellCount() <= 25) {
+                    // Searched to the end with every cell considered: nobody can force a win
+                    e = new Evaluation(PerfectPlayTable.Value.DRAW, empty, 0);
+                } else {
+                    e = new Evaluation(null, -1, -reply.score);
+                }
+            }
+            board.undo(cell);
+            evaluations[map[cell]] = e;
+        }
+        return evaluations;
+    }
+
+    /**
+     * The board in the orientation with the smallest packing, as a cache key.
+     * @param map Filled in: where each cell lands in that orientation.
+     */
+    private static Key canonicalKey(GridBoard board, byte side, int[] map) {
+        int[][] symmetries = SYMMETRIES.computeIfAbsent(board.size(), Symmetry::cellMaps);
+        long[] best = null;
+        int bestSymmetry = 0;
+        for (int s = 0; s < symmetries.length; s++) {
+            long[] packed = new long[(board.cellCount() + 31) / 32];
+            for (int i = 0; i < board.cellCount(); i++) {
+                int to = symmetries[s][i];
+                packed[to >>> 5] |= (long) board.get(i) << ((to & 31) * 2);
+            }
+            if (best == null || Arrays.compare(packed, best) < 0) {
+                best = packed;
+                bestSymmetry = s;
+            }
+        }
+        System.arraycopy(symmetries[bestSymmetry], 0, map, 0, map.length);
+        return new Key(board.size(), board.winLength(), side, best);
+    }
+
+    /**
+     * The best cell: the fastest win, else the best-scoring non-loss (proven
+     * draws score 0), else the slowest loss. {@code preferred} (the heuristic
+     * move) breaks ties, as the tables don't always know distances.
+     */
+    private static int best(List<Cell> cells, int preferred) {
+        int bestMove = -1;
+        long bestRank = Long.MIN_VALUE;
+        for (Cell cell : cells) {
+            long rank = rank(cell);
+            if (rank > bestRank || rank == bestRank && cell.cell == preferred) {
+                bestRank = rank;
+                bestMove = cell.cell;
+            }
+        }
+        return bestMove;
+    }
+
+    private static long rank(Cell cell) {
+        if (cell.value == PerfectPlayTable.Value.WIN) {
+            return 4L * GridSearch.WIN_SCORE - cell.distance;
+        }
+        if (cell.value == PerfectPlayTable.Value.LOSS) {
+            return -4L * GridSearch.WIN_SCORE + cell.distance;
+        }
+        return cell.score != null ? cell.score : 0;
+    }
+}
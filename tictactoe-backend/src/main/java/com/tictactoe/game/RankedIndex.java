@@ -0,0 +1,187 @@
+package com.tictactoe.game;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An ordered set of (score, userId) entries, highest score first and lowest
+ * id first among equal scores. It is a treap whose nodes know their subtree
+ * size, so insert, remove and rank are O(log n) and the top K is O(log n + K).
+ * All methods lock the index; each leaderboard ordering has its own index.
+ */
+final class RankedIndex {
+
+    private static final class Node {
+        final long score;
+        final long id;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(long score, long id, int priority) {
+            this.score = score;
+            this.id = id;
+            this.priority = priority;
+        }
+    }
+
+    /** One leaderboard row: user and score. */
+    static final class Entry {
+        final long id;
+        final long score;
+
+        Entry(long id, long score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private Node root;
+    private int seed = 0x2545F491;
+
+    synchronized void add(long score, long id) {
+        root = insert(root, new Node(score, id, nextPriority()));
+    }
+
+    synchronized void remove(long score, long id) {
+        root = erase(root, score, id);
+    }
+
+    /** Moves an entry from one score to another. */
+    synchronized void update(long oldScore, long newScore, long id) {
+        if (oldScore != newScore) {
+            root = erase(root, oldScore, id);
+            root = insert(root, new Node(newScore, id, nextPriority()));
+        }
+    }
+
+    synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * @return How many entries rank ahead of (score, id); 0 for the leader.
+     */
+    synchronized int rankOf(long score, long id) {
+        int ahead = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(score, id, node);
+            if (c <= 0) {
+                node = node.left;
+            } else {
+                ahead += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return ahead;
+    }
+
+    /** The first {@code k} entries, in order. */
+    synchronized List<Entry> top(int k) {
+        List<Entry> result = new ArrayList<>(Math.min(k, size(root)));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while ((node != null || !stack.isEmpty()) && result.size() < k) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(new Entry(node.id, node.score));
+            node = node.right;
+        }
+        return result;
+    }
+
+    // --- Treap internals ---
+
+    private static int compare(long score, long id, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1; // higher scores first
+        }
+        return Long.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.score, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        resize(node);
+        return node;
+    }
+
+    private static Node erase(Node node, long score, long id) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(score, id, node);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = erase(node.left, score, id);
+        } else {
+            node.right = erase(node.right, score, id);
+        }
+        resize(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            resize(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        resize(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    // xorshift: cheap priorities, already under the index lock
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
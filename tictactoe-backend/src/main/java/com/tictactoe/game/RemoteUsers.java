@@ -0,0 +1,157 @@
+package com.tictactoe.game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tictactoe.cluster.Cluster;
+
+/**
+ * UserService's calls to the other nodes (served by ClusterController).
+ * Users travel as {@link UserRecord}s.
+ */
+final class RemoteUsers {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteUsers.class);
+
+    private static final int STATS_ATTEMPTS = 6;
+    private static final long STATS_RETRY_MILLIS = 100;
+
+    private final Cluster cluster;
+
+    RemoteUsers(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /** Takes a user off {@code node}. @return The user, or null if the node doesn't have it. */
+    UserRecord release(int node, long id) {
+        return readOne(post(node, "/api/cluster/users/release?userId=" + id, null));
+    }
+
+    /** Hands users to their new owner. @return Whether it took them. */
+    boolean adopt(int node, List<UserRecord> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(records.size());
+            for (UserRecord record : records) {
+                record.write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in memory
+        }
+        try {
+            return post(node, "/api/cluster/users/adopt", bytes.toByteArray()).statusCode() == 200;
+        } catch (CompletionException e) {
+            log.warn("Handing {} users to node {} failed: {}", records.size(), node, e.getCause().toString());
+            return false;
+        }
+    }
+
+    /** Logs in (or registers) on the user's owner. */
+    UserRecord login(int node, String username) {
+        UserRecord record = readOne(post(node,
+                "/api/cluster/users/login?username=" + URLEncoder.encode(username, StandardCharsets.UTF_8), null));
+        if (record == null) {
+            throw new IllegalArgumentException("Username unavailable: " + username);
+        }
+        return record;
+    }
+
+    /** @return The user as its owner has it, or null if unknown there. */
+    UserRecord get(int node, long id) {
+        return readOne(cluster.send(cluster.request(node, "/api/cluster/users?userId=" + id, 1).GET().build()).join());
+    }
+
+    /**
+     * Applies a game result on the user's owner, in the background. Retried a
+     * few times, re-resolving the owner each time, since the user may be in
+     * the middle of a handoff; applied with {@code local} if it turns out to
+     * be ours after all.
+     */
+    void updateStats(long id, String outcome, BiConsumer<Long, String> local) {
+        attemptStats(id, outcome, local, 1);
+    }
+
+    private void attemptStats(long id, String outcome, BiConsumer<Long, String> local, int attempt) {
+        int owner = cluster.ownerOf(id);
+        if (owner == cluster.selfIndex()) {
+            local.accept(id, outcome);
+            return;
+        }
+        HttpRequest request = cluster.request(owner,
+                "/api/cluster/users/stats?userId=" + id + "&outcome=" + outcome, 1)
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+        cluster.send(request).whenComplete((response, e) -> {
+            if (e == null && response.statusCode() == 200) {
+                return;
+            }
+            if (attempt >= STATS_ATTEMPTS) {
+                log.warn("Dropping {} result for user {}: node {} answered {}", outcome, id, owner,
+                        e != null ? e.toString() : response.statusCode());
+                return;
+            }
+            CompletableFuture.delayedExecutor(STATS_RETRY_MILLIS << attempt, TimeUnit.MILLISECONDS)
+                    .execute(() -> attemptStats(id, outcome, local, attempt + 1));
+        });
+    }
+
+    private HttpResponse<byte[]> post(int node, String pathAndQuery, byte[] body) {
+        HttpRequest.Builder request = cluster.request(node, pathAndQuery, 1);
+        if (body != null) {
+            request.header("Content-Type", "application/octet-stream")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        } else {
+            request.POST(HttpRequest.BodyPublishers.noBody());
+        }
+        return cluster.send(request.build()).join();
+    }
+
+    private static UserRecord readOne(HttpResponse<byte[]> response) {
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Cluster node answered " + response.statusCode());
+        }
+        try {
+            return UserRecord.read(new DataInputStream(new ByteArrayInputStream(response.body())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<UserRecord> readAll(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<UserRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(UserRecord.read(in));
+        }
+        return records;
+    }
+
+    static byte[] toBytes(UserRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            record.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,44 @@
+package com.tictactoe.game;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits on users kept on the heap. Users idle past the TTL, or the least
+ * recently used ones once the heap budget is exceeded, are packed into
+ * cold storage by UserService and loaded back on their next request.
+ */
+@Component
+public class SessionConfig {
+
+    private final long idleTtlMillis;
+    private final long heapBudgetBytes;
+    private final long minIdleMillis;
+    private final long sweepIntervalMillis;
+
+    public SessionConfig(
+        @Value("${tictactoe.sessions.idle-ttl-seconds:1800}") long idleTtlSeconds,
+        @Value("${tictactoe.sessions.heap-budget-mb:256}") long heapBudgetMb,
+        @Value("${tictactoe.sessions.min-idle-seconds:60}") long minIdleSeconds,
+        @Value("${tictactoe.sessions.sweep-interval-seconds:10}") long sweepIntervalSeconds
+    ) {
+        this.idleTtlMillis = idleTtlSeconds * 1000;
+        this.heapBudgetBytes = heapBudgetMb << 20;
+        this.minIdleMillis = minIdleSeconds * 1000;
+        this.sweepIntervalMillis = Math.max(1, sweepIntervalSeconds) * 1000;
+    }
+
+    /** No eviction: everyone stays on the heap once loaded. */
+    public static SessionConfig unbounded() {
+        return new SessionConfig(0, 0, 60, 10);
+    }
+
+    public boolean isEvictionEnabled() {
+        return idleTtlMillis > 0 || heapBudgetBytes > 0;
+    }
+
+    public long getIdleTtlMillis() { return idleTtlMillis; }         // 0 = no TTL
+    public long getHeapBudgetBytes() { return heapBudgetBytes; }     // 0 = no budget
+    public long getMinIdleMillis() { return minIdleMillis; }         // never evict users active more recently
+    public long getSweepIntervalMillis() { return sweepIntervalMillis; }
+}
@@ -0,0 +1,97 @@
+package com.tictactoe.game;
+
+/**
+ * The 8 symmetries of the 3x3 board (4 rotations x optional mirror) applied
+ * to BitBoard masks, plus a base-3 position code used as a table key.
+ * {@link #cellMaps} gives the same symmetries for other board sizes.
+ */
+public final class Symmetry {
+
+    public static final int COUNT = 8;
+
+    // 3^9, the number of distinct base-3 codes
+    public static final int CODES = 19683;
+
+    // CELL_MAP[s][i] = where cell i lands under symmetry s
+    private static final int[][] CELL_MAP = new int[COUNT][BitBoard.CELLS];
+
+    // MASK_MAP[s][mask] = mask transformed by symmetry s
+    private static final int[][] MASK_MAP = new int[COUNT][BitBoard.FULL + 1];
+
+    // Base-3 weight of every mask (sum of 3^i for each set bit i)
+    private static final int[] BASE3 = new int[BitBoard.FULL + 1];
+
+    static {
+        int[][] cellMaps = cellMaps(3);
+        for (int s = 0; s < COUNT; s++) {
+            CELL_MAP[s] = cellMaps[s];
+            for (int mask = 0; mask <= BitBoard.FULL; mask++) {
+                int out = 0;
+                for (int m = mask; m != 0; m &= m - 1) {
+                    out |= 1 << CELL_MAP[s][Integer.numberOfTrailingZeros(m)];
+                }
+                MASK_MAP[s][mask] = out;
+            }
+        }
+        for (int mask = 0; mask <= BitBoard.FULL; mask++) {
+            int code = 0;
+            for (int i = BitBoard.CELLS - 1; i >= 0; i--) {
+                code = code * 3 + (BitBoard.isSet(mask, i) ? 1 : 0);
+            }
+            BASE3[mask] = code;
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    /**
+     * The 8 symmetries of a size x size board: result[s][i] is where cell i
+     * lands under symmetry s.
+     */
+    public static int[][] cellMaps(int size) {
+        int[][] maps = new int[COUNT][size * size];
+        for (int s = 0; s < COUNT; s++) {
+            for (int i = 0; i < size * size; i++) {
+                int row = i / size;
+                int col = i % size;
+                if (s >= 4) {
+                    col = size - 1 - col; // mirror first
+                }
+                for (int r = 0; r < s % 4; r++) {
+                    int t = row; // rotate 90 degrees clockwise
+                    row = col;
+                    col = size - 1 - t;
+                }
+                maps[s][i] = row * size + col;
+            }
+        }
+        return maps;
+    }
+
+    public static int transform(int bits, int symmetry) {
+        return MASK_MAP[symmetry][bits];
+    }
+
+    public static int transformCell(int cell, int symmetry) {
+        return CELL_MAP[symmetry][cell];
+    }
+
+    /**
+     * Base-3 code of a position: digit i is 0 (empty), 1 (first mask) or 2 (second mask).
+     */
+    public static int code(int firstBits, int secondBits) {
+        return BASE3[firstBits] + 2 * BASE3[secondBits];
+    }
+
+    /**
+     * @return The smallest code of the position over all 8 symmetries.
+     */
+    public static int canonicalCode(int firstBits, int secondBits) {
+        int best = Integer.MAX_VALUE;
+        for (int s = 0; s < COUNT; s++) {
+            best = Math.min(best, code(MASK_MAP[s][firstBits], MASK_MAP[s][secondBits]));
+        }
+        return best;
+    }
+}
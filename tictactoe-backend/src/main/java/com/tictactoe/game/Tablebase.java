@@ -0,0 +1,340 @@
+package com.tictactoe.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every position of a small board (up to 4x4) solved offline, for perfect
+ * play without searching. Where PerfectPlayTable solves the 3x3 game on
+ * startup, a 4x4 board has 3^16 (43M) codes, so its table is built once by
+ * {@link #main} and memory-mapped at runtime: the OS pages it in as it is
+ * read, outside the heap, and opening it is instant.
+ *
+ * The table is indexed by a position's base-3 code (digit i: 0 empty, 1 X,
+ * 2 O) and holds 2 bits per code, the value for the side to move: 10.8 MB
+ * for 4x4. Only the smallest code of each position under the 8 board
+ * symmetries is solved and stored; lookups fold positions the same way.
+ * No distances, unlike PerfectPlayTable, so callers break ties between
+ * equally good moves themselves (see {@link #bestMove}).
+ *
+ * Generate from the command line (the jar's main class is the web app):
+ * <pre>
+ * java -cp tictactoe-backend.jar -Dloader.main=com.tictactoe.game.Tablebase \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher 4 4 tablebase-4x4-4.bin
+ * </pre>
+ * Arguments: size winLength file. Load it with tictactoe.ai.tablebases.
+ */
+public final class Tablebase {
+
+    private static final int MAGIC = 0x54544254; // "TTBT"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_CELLS = 16; // masks fit a char, codes an int
+
+    private static final int UNSOLVED = 0;
+    private static final int WIN = 1;
+    private static final int DRAW = 2;
+    private static final int LOSS = 3;
+
+    // Loaded tables by board (see install)
+    private static final Map<Integer, Tablebase> INSTALLED = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int winLength;
+    private final int cells;
+    private final ByteBuffer values; // 4 codes per byte, code c in bits 2*(c%4)
+    private final int offset;        // where the values start in the buffer
+    private final char[][] maskMap;  // maskMap[s][mask] = mask under symmetry s
+    private final int[] base3;       // base3[mask] = sum of 3^i for each cell i in the mask
+
+    private Tablebase(int size, int winLength, ByteBuffer values, int offset) {
+        this.size = size;
+        this.winLength = winLength;
+        this.cells = size * size;
+        this.values = values;
+        this.offset = offset;
+        this.maskMap = symmetryMasks(size);
+        this.base3 = new int[1 << cells];
+        for (int mask = 0; mask < base3.length; mask++) {
+            int code = 0;
+            for (int i = cells - 1; i >= 0; i--) {
+                code = code * 3 + ((mask >> i) & 1);
+            }
+            base3[mask] = code;
+        }
+    }
+
+    public int size() { return size; }
+    public int winLength() { return winLength; }
+
+    /** Makes the table the one AIPlayer uses for its board. */
+    public static void install(Tablebase tablebase) {
+        INSTALLED.put(key(tablebase.size, tablebase.winLength), tablebase);
+    }
+
+    /** @return The installed table for the board, or null if there is none. */
+    public static Tablebase forBoard(int size, int winLength) {
+        return INSTALLED.get(key(size, winLength));
+    }
+
+    private static int key(int size, int winLength) {
+        return size * 32 + winLength;
+    }
+
+    // --- Lookups ---
+
+    /**
+     * Values every move for the side to move, and picks the best: a win,
+     * else a draw, else a loss. The table doesn't know which win is fastest
+     * (or which loss slowest), so among equally good moves {@code preferred}
+     * is played if it is one of them, else the first.
+     * @param preferred The caller's pick among equals, e.g. a heuristic move, or -1.
+     * @return The move and its value (distance -1), or null if the board is full,
+     *         has a different size, or {@code player} isn't the one to move.
+     */
+    public PerfectPlayTable.Entry bestMove(GridBoard board, byte player, int preferred) {
+        PerfectPlayTable.Entry[] entries = evaluateAll(board, player);
+        if (entries == null) {
+            return null;
+        }
+        PerfectPlayTable.Entry best = null;
+        for (PerfectPlayTable.Entry entry : entries) {
+            if (entry != null && (best == null || entry.value.compareTo(best.value) < 0
+                    || entry.value == best.value && entry.move == preferred)) {
+                best = entry; // WIN < DRAW < LOSS
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Value of every cell for the side to move (null for occupied cells; distances are -1).
+     * @return The values, or null if the board is full, has a different size,
+     *         or {@code player} isn't the one to move.
+     */
+    public PerfectPlayTable.Entry[] evaluateAll(GridBoard board, byte player) {
+        if (board.size() != size || board.winLength() != winLength || board.isFull()
+                || player != (board.moveCount() % 2 == 0 ? GridBoard.X : GridBoard.O)) {
+            return null;
+        }
+        int x = 0;
+        int o = 0;
+        for (int i = 0; i < cells; i++) {
+            if (board.get(i) == GridBoard.X) x |= 1 << i;
+            else if (board.get(i) == GridBoard.O) o |= 1 << i;
+        }
+        PerfectPlayTable.Entry[] entries = new PerfectPlayTable.Entry[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isEmpty(cell)) {
+                continue;
+            }
+            int bit = 1 << cell;
+            int child = player == GridBoard.X ? valueOf(x | bit, o) : valueOf(x, o | bit);
+            if (child == UNSOLVED) {
+                return null; // not a table for this game
+            }
+            entries[cell] = new PerfectPlayTable.Entry(cell, toValue(invert(child)), -1);
+        }
+        return entries;
+    }
+
+    // Value for the side to move
+    private int valueOf(int x, int o) {
+        int code = canonicalCode(x, o);
+        return (values.get(offset + (code >>> 2)) >> ((code & 3) * 2)) & 3;
+    }
+
+    private int canonicalCode(int x, int o) {
+        int best = Integer.MAX_VALUE;
+        for (char[] map : maskMap) {
+            best = Math.min(best, base3[map[x]] + 2 * base3[map[o]]);
+        }
+        return best;
+    }
+
+    private static int invert(int value) {
+        return value == WIN ? LOSS : value == LOSS ? WIN : DRAW;
+    }
+
+    private static PerfectPlayTable.Value toValue(int value) {
+        return value == WIN ? PerfectPlayTable.Value.WIN
+                : value == LOSS ? PerfectPlayTable.Value.LOSS : PerfectPlayTable.Value.DRAW;
+    }
+
+    // --- Files ---
+
+    /** Maps a table written by {@link #write}. */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid after close
+            if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT) {
+                throw new IOException(file + " is not a tablebase");
+            }
+            int size = mapped.getInt(8);
+            int winLength = mapped.getInt(12);
+            if (size * size > MAX_CELLS || winLength < 1 || winLength > size) {
+                throw new IOException(file + " is for an unsupported board: " + size + "x" + size);
+            }
+            if (mapped.capacity() != HEADER_BYTES + valueBytes(size * size)) {
+                throw new IOException(file + " is truncated");
+            }
+            return new Tablebase(size, winLength, mapped, HEADER_BYTES);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeInt(FORMAT);
+            header.writeInt(size);
+            header.writeInt(winLength);
+            byte[] chunk = new byte[1 << 16];
+            long length = valueBytes(cells);
+            for (long done = 0; done < length; done += chunk.length) {
+                int n = (int) Math.min(chunk.length, length - done);
+                values.get(offset + (int) done, chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    private static long valueBytes(int cells) {
+        long codes = 1;
+        for (int i = 0; i < cells; i++) {
+            codes *= 3;
+        }
+        return (codes + 3) / 4;
+    }
+
+    // --- Generation ---
+
+    /**
+     * Solves every position of the board by retrograde analysis: positions
+     * with k stones only lead to positions with k + 1, so layers are solved
+     * from the full board back to the empty one, each looking up the last.
+     */
+    public static Tablebase generate(int size, int winLength) {
+        GridBoard.Geometry geometry = GridBoard.geometry(size, winLength); // validates
+        int cells = size * size;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Tablebases go up to 4x4, not " + size + "x" + size);
+        }
+        byte[] values = new byte[(int) valueBytes(cells)];
+        Tablebase table = new Tablebase(size, winLength, ByteBuffer.wrap(values), 0);
+
+        boolean[] hasWin = new boolean[1 << cells];
+        for (int[] window : geometry.windows) {
+            int line = 0;
+            for (int cell : window) {
+                line |= 1 << cell;
+            }
+            for (int mask = line; mask < hasWin.length; mask = (mask + 1) | line) {
+                hasWin[mask] = true; // every superset of the line
+            }
+        }
+
+        // Canonical positions reachable by alternating moves (X moves first), as x | o << 16, by stone count
+        int[][] layers = new int[cells + 1][];
+        int[] layerSizes = new int[cells + 1];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int x = 0; x < hasWin.length; x++) {
+                int xs = Integer.bitCount(x);
+                int free = (hasWin.length - 1) & ~x;
+                for (int o = free; ; o = (o - 1) & free) {
+                    int os = Integer.bitCount(o);
+                    if ((xs == os || xs == os + 1)
+                            && table.base3[x] + 2 * table.base3[o] == table.canonicalCode(x, o)) {
+                        int k = xs + os;
+                        if (pass == 0) {
+                            layerSizes[k]++;
+                        } else {
+                            layers[k][layerSizes[k]++] = x | o << 16;
+                        }
+                    }
+                    if (o == 0) {
+                        break;
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int k = 0; k <= cells; k++) {
+                    layers[k] = new int[layerSizes[k]];
+                }
+                Arrays.fill(layerSizes, 0);
+            }
+        }
+
+        for (int k = cells; k >= 0; k--) {
+            for (int position : layers[k]) {
+                int x = position & 0xFFFF;
+                int o = position >>> 16;
+                boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+                int value;
+                if (hasWin[xToMove ? o : x]) {
+                    value = LOSS; // the player who just moved won
+                } else if (k == cells) {
+                    value = DRAW;
+                } else {
+                    value = LOSS;
+                    int free = (hasWin.length - 1) & ~(x | o);
+                    for (int m = free; m != 0 && value != WIN; m &= m - 1) {
+                        int bit = m & -m;
+                        int child = xToMove ? table.valueOf(x | bit, o) : table.valueOf(x, o | bit);
+                        if (child == UNSOLVED) {
+                            throw new IllegalStateException("Layer " + (k + 1) + " is incomplete");
+                        }
+                        value = Math.min(value, invert(child)); // WIN(1) < DRAW(2) < LOSS(3)
+                    }
+                }
+                int code = table.base3[x] + 2 * table.base3[o];
+                values[code >>> 2] |= (byte) (value << ((code & 3) * 2));
+            }
+        }
+        return table;
+    }
+
+    /** Generates a table and writes it. Arguments: size winLength file. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: Tablebase <size> <winLength> <file>");
+            System.exit(2);
+        }
+        int size = Integer.parseInt(args[0]);
+        int winLength = Integer.parseInt(args[1]);
+        Path file = Path.of(args[2]);
+
+        long start = System.nanoTime();
+        Tablebase table = generate(size, winLength);
+        table.write(file);
+        GridBoard empty = new GridBoard(size, winLength);
+        PerfectPlayTable.Entry first = table.bestMove(empty, GridBoard.X, -1);
+        System.out.printf("%dx%d, %d in a row: X %s with perfect play. %d bytes written to %s in %d ms%n",
+                size, size, winLength, first.value == PerfectPlayTable.Value.WIN ? "wins"
+                        : first.value == PerfectPlayTable.Value.LOSS ? "loses" : "draws",
+                Files.size(file), file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // The 8 symmetries as mask maps
+    private static char[][] symmetryMasks(int size) {
+        int[][] cellMaps = Symmetry.cellMaps(size);
+        char[][] maps = new char[Symmetry.COUNT][1 << (size * size)];
+        for (int s = 0; s < Symmetry.COUNT; s++) {
+            for (int mask = 1; mask < maps[s].length; mask++) {
+                int low = Integer.numberOfTrailingZeros(mask);
+                maps[s][mask] = (char) (maps[s][mask & (mask - 1)] | 1 << cellMaps[s][low]);
+            }
+        }
+        return maps;
+    }
+}
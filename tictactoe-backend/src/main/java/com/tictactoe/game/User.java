@@ -1,5 +1,7 @@
 package com.tictactoe.game;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 // Use Lombok annotations for real projects, but for this, standard POJO
 public class User {
     
@@ -14,13 +16,25 @@ public class User {
     // Current Game state linked to the user
     private Game game; 
 
+    // Session bookkeeping for UserService (not part of the JSON):
+    // last request for this user, and whether it has been moved to cold storage
+    private volatile long lastAccess;
+    private volatile boolean evicted;
+
     public User(Long id, String username) {
         this.id = id;
         this.username = username;
         this.game = new Game(); // Initialize a new game for the user
+        this.lastAccess = System.currentTimeMillis();
     }
 
-    public void updateStats(String outcome) {
+    void touch() { lastAccess = System.currentTimeMillis(); }
+    long lastAccess() { return lastAccess; }
+    boolean evicted() { return evicted; }
+    void markEvicted(boolean evicted) { this.evicted = evicted; }
+
+    // Synchronized per user: concurrent game endings can't lose or double-apply an update
+    public synchronized void updateStats(String outcome) {
         // outcome will be "X", "O", or "Draw"
         if (outcome.equals("X")) {
             this.totalWins++;
@@ -46,14 +60,26 @@ public class User {
     public int getTotalLosses() { return totalLosses; }
     public int getTotalDraws() { return totalDraws; }
     public int getBestStreak() { return bestStreak; }
+    public int getCurrentStreak() { return currentStreak; }
+    public synchronized UserStats snapshotStats() { return new UserStats(this); }
+    @JsonIgnore // fetched from /api/game, which supports conditional requests
     public Game getGame() { return game; }
     
     // Note: No setter for 'id' or 'username' typically
-    public void setTotalWins(int totalWins) { this.totalWins = totalWins; }
-    public void setTotalLosses(int totalLosses) { this.totalLosses = totalLosses; }
-    public void setTotalDraws(int totalDraws) { this.totalDraws = totalDraws; }
-    public void setBestStreak(int bestStreak) { this.bestStreak = bestStreak; }
-    public void setCurrentStreak(int currentStreak) { this.currentStreak = currentStreak; }
+    public synchronized void setTotalWins(int totalWins) { this.totalWins = totalWins; }
+    public synchronized void setTotalLosses(int totalLosses) { this.totalLosses = totalLosses; }
+    public synchronized void setTotalDraws(int totalDraws) { this.totalDraws = totalDraws; }
+    public synchronized void setBestStreak(int bestStreak) { this.bestStreak = bestStreak; }
+    public synchronized void setCurrentStreak(int currentStreak) { this.currentStreak = currentStreak; }
+
+    // Used when reloading saved users
+    public synchronized void restoreStats(int totalWins, int totalLosses, int totalDraws, int currentStreak, int bestStreak) {
+        this.totalWins = totalWins;
+        this.totalLosses = totalLosses;
+        this.totalDraws = totalDraws;
+        this.currentStreak = currentStreak;
+        this.bestStreak = bestStreak;
+    }
     public void setGame(Game game) { this.game = game; }
     
     // DTO for frontend stats
@@ -69,5 +95,12 @@ public class User {
             this.totalDraws = user.totalDraws;
             this.bestStreak = user.bestStreak;
         }
+
+        public UserStats(int totalWins, int totalLosses, int totalDraws, int bestStreak) {
+            this.totalWins = totalWins;
+            this.totalLosses = totalLosses;
+            this.totalDraws = totalDraws;
+            this.bestStreak = bestStreak;
+        }
     }
 }
\ No newline at end of file
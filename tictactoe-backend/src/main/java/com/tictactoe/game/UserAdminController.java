@@ -0,0 +1,187 @@
+package com.tictactoe.game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk export and import of users and their stats, for backups and
+ * migrations. Both stream: users are written as they're read and read in
+ * batches as they arrive, so memory doesn't depend on how many there are.
+ *
+ * Two formats: newline-delimited JSON (one UserLine per line), or binary
+ * (the records cluster nodes hand each other, back to back, which also
+ * carry each user's current game). In a cluster, an export has the users of
+ * the node it reaches; an import sends users to whichever node owns them.
+ * Not used by the frontend, so no CORS origins here; AdminAuthFilter
+ * requires the admin token.
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+public class UserAdminController {
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+    private static final int IMPORT_BATCH = 1024;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** One line of the NDJSON format. */
+    public static class UserLine {
+        public Long id; // optional on import: known names keep theirs, new ones get one
+        public String username;
+        public int wins;
+        public int losses;
+        public int draws;
+        public int currentStreak;
+        public int bestStreak;
+
+        public UserLine() {
+        }
+
+        UserLine(UserRecord record) {
+            id = record.id;
+            username = record.username;
+            wins = record.wins;
+            losses = record.losses;
+            draws = record.draws;
+            currentStreak = record.currentStreak;
+            bestStreak = record.bestStreak;
+        }
+
+        // null if it can't be a user
+        UserRecord toRecord() {
+            UserRecord record = new UserRecord(id != null ? id : -1, username, wins, losses, draws, currentStreak,
+                    bestStreak, new Game().pack(), 0, null);
+            return record.valid() ? record : null;
+        }
+    }
+
+    public static class ImportResult {
+        public long imported;
+        public long skipped; // invalid, or the name or ID is someone else's
+    }
+
+    // e.g. GET /api/admin/users > users.ndjson, GET /api/admin/users?format=binary > users.bin
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        if (format.equals("binary")) {
+            StreamingResponseBody body = out -> {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+                userService.forEachUser(record -> record.write(data));
+                data.flush(); // not close(): the container owns the stream
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+        }
+        if (!format.equals("ndjson")) {
+            throw new IllegalArgumentException("format must be ndjson or binary");
+        }
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+            userService.forEachUser(record -> {
+                buffered.write(objectMapper.writeValueAsBytes(new UserLine(record))); // writeValue(out) would close it
+                buffered.write('\n');
+            });
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // e.g. curl -XPOST -H 'Content-Type: application/x-ndjson' --data-binary @users.ndjson .../api/admin/users
+    @PostMapping(consumes = NDJSON_VALUE)
+    public ImportResult importNdjson(InputStream body) throws IOException {
+        ImportResult result = new ImportResult();
+        List<UserRecord> batch = new ArrayList<>(IMPORT_BATCH);
+        try (MappingIterator<UserLine> lines = objectMapper.readerFor(UserLine.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                UserRecord record = lines.nextValue().toRecord();
+                if (record == null) {
+                    result.skipped++;
+                    continue;
+                }
+                batch.add(record);
+                if (batch.size() == IMPORT_BATCH) {
+                    flush(batch, result);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            flush(batch, result);
+            throw new IllegalArgumentException("Bad line after " + (result.imported + result.skipped)
+                    + " users (those were imported): " + e.getOriginalMessage());
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ImportResult importBinary(InputStream body) throws IOException {
+        ImportResult result = new ImportResult();
+        List<UserRecord> batch = new ArrayList<>(IMPORT_BATCH);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(body, 1 << 16));
+        try {
+            while (true) {
+                in.mark(1);
+                if (in.read() == -1) {
+                    break; // ends between records
+                }
+                in.reset();
+                UserRecord record = UserRecord.read(in);
+                if (!record.valid()) {
+                    result.skipped++;
+                    continue;
+                }
+                batch.add(record);
+                if (batch.size() == IMPORT_BATCH) {
+                    flush(batch, result);
+                }
+            }
+        } catch (EOFException e) {
+            flush(batch, result);
+            throw new IllegalArgumentException("Truncated after " + (result.imported + result.skipped)
+                    + " users (those were imported)");
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    private void flush(List<UserRecord> batch, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int skipped = userService.importUsers(batch);
+        result.imported += batch.size() - skipped;
+        result.skipped += skipped;
+        batch.clear();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,101 @@
+package com.tictactoe.game;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A user as handed from one cluster node to another: stats plus the packed
+ * game, the same fields as a ColdUserStore record. Sent in a small binary
+ * form (see {@link #write}).
+ */
+final class UserRecord {
+
+    final long id;
+    final String username;
+    final int wins, losses, draws, currentStreak, bestStreak;
+    final long game;        // Game.pack()
+    final long gameVersion;
+    final Long playerOId;
+
+    UserRecord(long id, String username, int wins, int losses, int draws, int currentStreak, int bestStreak,
+               long game, long gameVersion, Long playerOId) {
+        this.id = id;
+        this.username = username;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+        this.currentStreak = currentStreak;
+        this.bestStreak = bestStreak;
+        this.game = game;
+        this.gameVersion = gameVersion;
+        this.playerOId = playerOId;
+    }
+
+    static UserRecord of(ColdUserStore.Record record) {
+        return new UserRecord(record.id, record.username, record.wins, record.losses, record.draws,
+                record.currentStreak, record.bestStreak, record.game, record.gameVersion, record.playerOId);
+    }
+
+    static UserRecord of(User user) {
+        Game game = user.getGame();
+        synchronized (game) {
+            synchronized (user) {
+                return new UserRecord(user.getId(), user.getUsername(), user.getTotalWins(), user.getTotalLosses(),
+                        user.getTotalDraws(), user.getCurrentStreak(), user.getBestStreak(),
+                        game.pack(), game.getVersion(), game.getPlayerOId());
+            }
+        }
+    }
+
+    UserRecord withId(long id) {
+        return new UserRecord(id, username, wins, losses, draws, currentStreak, bestStreak, game, gameVersion, playerOId);
+    }
+
+    User.UserStats stats() {
+        return new User.UserStats(wins, losses, draws, bestStreak);
+    }
+
+    /**
+     * Whether this could be a user: imports come from outside, and a bad
+     * packed game would only fail later, when the user is loaded.
+     */
+    boolean valid() {
+        return id >= -1 && username != null && wins >= 0 && losses >= 0 && draws >= 0
+                && currentStreak >= 0 && bestStreak >= 0 && (long) wins + losses + draws <= Integer.MAX_VALUE
+                && gameVersion >= 0 && Game.canUnpack(game);
+    }
+
+    int games() {
+        return wins + losses + draws;
+    }
+
+    // id, name (UTF), five stats, game, game version, player O (-1 = none)
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(id);
+        out.writeUTF(username);
+        out.writeInt(wins);
+        out.writeInt(losses);
+        out.writeInt(draws);
+        out.writeInt(currentStreak);
+        out.writeInt(bestStreak);
+        out.writeLong(game);
+        out.writeLong(gameVersion);
+        out.writeLong(playerOId == null ? -1 : playerOId);
+    }
+
+    static UserRecord read(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String username = in.readUTF();
+        int wins = in.readInt();
+        int losses = in.readInt();
+        int draws = in.readInt();
+        int currentStreak = in.readInt();
+        int bestStreak = in.readInt();
+        long game = in.readLong();
+        long gameVersion = in.readLong();
+        long playerO = in.readLong();
+        return new UserRecord(id, username, wins, losses, draws, currentStreak, bestStreak,
+                game, gameVersion, playerO == -1 ? null : playerO);
+    }
+}
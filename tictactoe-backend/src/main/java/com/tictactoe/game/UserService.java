@@ -1,25 +1,196 @@
 package com.tictactoe.game;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.store.UserStore;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class UserService {
 
-    // Simulates a database table for users
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
+    // Rough heap cost of a hot user: User, Game, username and map entries.
+    // Bigger boards add their cells on top.
+    private static final long HOT_USER_BYTES = 600;
+
+    // Simulates a database table for users. Only hot (recently active) users
+    // are here; idle ones are packed into coldUsers and come back on access.
     private final Map<String, User> userMap = new ConcurrentHashMap<>(); // Key: username
     private final Map<Long, User> userByIdMap = new ConcurrentHashMap<>(); // Key: userId
     private final AtomicLong nextId = new AtomicLong(1);
 
+    // Idle users, off the heap
+    private final ColdUserStore coldUsers = new ColdUserStore();
+
     // Guest user for non-logged-in play
     private final User guestUser;
 
+    // Durable log + snapshots of registrations and stats
+    private final UserStore userStore;
+
+    // Rankings, updated with every stats change
+    private final Leaderboard leaderboard;
+
+    private final GameMetrics metrics;
+
+    private final SessionConfig sessions;
+    private final ScheduledExecutorService sweeper; // null when eviction is off
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+    private volatile long lastSweepMillis;
+
+    // Held by eviction sweeps and by snapshots: while a snapshot walks the
+    // users, they can only move from cold to hot, so none is missed
+    private final Object evictionLock = new Object();
+
+    private static final int EXPORT_CHUNK = 1024; // records copied out at a time
+    // Exports in progress, each with the IDs of users that went cold since it started
+    private final List<Queue<Long>> exports = new CopyOnWriteArrayList<>();
+
+    // Cluster mode: every user belongs to one node (see Cluster). IDs are
+    // hashes of the username, users owned elsewhere are reached through
+    // remoteUsers, and users whose owner changed are handed over.
+    private final Cluster cluster;
+    private final RemoteUsers remoteUsers;
+    private final ExecutorService handoff; // null outside cluster mode
+
+    private static final int HANDOFF_BATCH = 512;
+    private static final long HANDOFF_RETRY_SECONDS = 5;
+
     public UserService() {
+        this(UserStore.inMemory(), new Leaderboard(10), new GameMetrics(), SessionConfig.unbounded(), Cluster.disabled());
+    }
+
+    @Autowired
+    public UserService(UserStore userStore, Leaderboard leaderboard, GameMetrics metrics, SessionConfig sessions,
+                       Cluster cluster) {
         // Initialize Guest User (ID 0)
         guestUser = new User(0L, "Guest");
         userByIdMap.put(0L, guestUser);
+
+        // Reload everyone saved by previous runs, then start logging.
+        // They start cold and are loaded on their first request.
+        this.userStore = userStore;
+        this.leaderboard = leaderboard;
+        this.metrics = metrics;
+        this.sessions = sessions;
+        this.cluster = cluster;
+        this.remoteUsers = new RemoteUsers(cluster);
+        userStore.open(new UserStore.RecoveryHandler() {
+            @Override
+            public void register(long id, String username) {
+                restoreUser(id, username);
+            }
+
+            @Override
+            public void stats(long id, int wins, int losses, int draws, int currentStreak, int bestStreak) {
+                if (coldUsers.updateStats(id, wins, losses, draws, currentStreak, bestStreak)) {
+                    return;
+                }
+                User user = userByIdMap.get(id);
+                if (user != null && user != guestUser) {
+                    user.restoreStats(wins, losses, draws, currentStreak, bestStreak);
+                }
+            }
+
+            @Override
+            public void remove(long id) {
+                coldUsers.remove(id);
+                User user = userByIdMap.remove(id);
+                if (user != null) {
+                    userMap.remove(user.getUsername(), user);
+                }
+            }
+        }, this::writeSnapshot);
+
+        for (User user : userByIdMap.values()) {
+            if (user != guestUser) {
+                leaderboard.add(user.getId(), user.snapshotStats());
+            }
+        }
+        try {
+            coldUsers.forEach(record -> leaderboard.add(record.id,
+                    new User.UserStats(record.wins, record.losses, record.draws, record.bestStreak)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // the visitor doesn't do I/O
+        }
+
+        metrics.registerGauge("tictactoe_registered_users", "Registered users", this::userCount);
+        metrics.registerGauge("tictactoe_active_games", "Games started and not yet finished", this::activeGameCount);
+        metrics.registerGauge("tictactoe_hot_users", "Users loaded on the heap", () -> userByIdMap.size() - 1);
+        metrics.registerGauge("tictactoe_cold_users", "Idle users packed off-heap", coldUsers::size);
+        metrics.registerGauge("tictactoe_cold_store_bytes", "Off-heap memory held by cold users", coldUsers::offHeapBytes);
+
+        if (sessions.isEvictionEnabled()) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweep, sessions.getSweepIntervalMillis(),
+                    sessions.getSweepIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+
+        if (cluster.isEnabled()) {
+            handoff = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "user-handoff");
+                t.setDaemon(true);
+                return t;
+            });
+            cluster.onMembershipChange(() -> handoff.execute(this::rebalance));
+            handoff.execute(this::rebalance); // users reloaded from disk may belong elsewhere by now
+        } else {
+            handoff = null;
+        }
+    }
+
+    private void restoreUser(long id, String username) {
+        if (userByIdMap.containsKey(id) || coldUsers.contains(id)) {
+            return; // already in the snapshot
+        }
+        if (ColdUserStore.fits(username)) {
+            coldUsers.put(id, username, 0, 0, 0, 0, 0, new Game().pack(), 0, null);
+        } else {
+            User user = new User(id, username);
+            userMap.put(username, user);
+            userByIdMap.put(id, user);
+        }
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Walks users like an export, so the file is written with no lock held. A user seen
+    // twice is written twice, the newer copy last, which is the one loading keeps.
+    private void writeSnapshot(UserStore.SnapshotWriter out) throws IOException {
+        forEachUser(record -> out.write(record.id, record.username, record.wins, record.losses,
+                record.draws, record.currentStreak, record.bestStreak));
     }
 
     /**
@@ -29,42 +200,623 @@ public class UserService {
         if (username == null || username.trim().isEmpty()) {
             return guestUser;
         }
-        
-        // Find existing user
+        long start = System.nanoTime();
+        try {
+            if (cluster.isEnabled()) {
+                long id = Cluster.userIdFor(username);
+                int owner = cluster.ownerOf(id);
+                if (owner != cluster.selfIndex()) {
+                    return detached(remoteUsers.login(owner, username)); // e.g. player O joining a game here
+                }
+            }
+            return loginLocally(username);
+        } finally {
+            metrics.userOperation(GameMetrics.UserOperation.LOGIN_OR_REGISTER, start);
+        }
+    }
+
+    // loginOrRegister on this node, whoever owns the name
+    User loginLocally(String username) {
+        if (username == null || username.trim().isEmpty()) {
+            return guestUser;
+        }
+        // Find existing user, hot or cold
         User user = userMap.get(username);
         if (user != null) {
-            return user;
+            return getUserById(user.getId());
+        }
+        long coldId = coldUsers.idOf(username);
+        if (coldId != -1) {
+            return getUserById(coldId);
+        }
+        if (cluster.isEnabled() && pullFromPreviousOwner(Cluster.userIdFor(username))) {
+            return loginLocally(username); // was still on its old node
         }
 
-        // Create new user (simulated registration)
-        Long id = nextId.getAndIncrement();
-        User newUser = new User(id, username);
-        userMap.put(username, newUser);
-        userByIdMap.put(id, newUser);
-        return newUser;
+        // Create new user (simulated registration). computeIfAbsent so two
+        // concurrent logins with a new name can't register it twice.
+        User created = userMap.computeIfAbsent(username, name -> {
+            Long id = cluster.isEnabled() ? Cluster.userIdFor(name) : nextId.getAndIncrement();
+            if (cluster.isEnabled() && (userByIdMap.containsKey(id) || coldUsers.contains(id))) {
+                throw new IllegalArgumentException("Username unavailable: " + name); // 53-bit hash collision
+            }
+            User newUser = new User(id, name);
+            // In the map before the log: a snapshot that misses the user
+            // started walking after this, so after the log rotated, and
+            // the registration lands in a segment it doesn't delete
+            userByIdMap.put(id, newUser);
+            try {
+                userStore.logRegistration(id, name);
+            } catch (RuntimeException e) {
+                userByIdMap.remove(id, newUser); // not registered after all
+                throw e;
+            }
+            leaderboard.add(id, newUser.snapshotStats());
+            return newUser;
+        });
+        requestSweepIfOverBudget();
+        return getUserById(created.getId());
     }
 
+    /**
+     * The user, loaded back from cold storage if it was evicted. Always
+     * returns a live user: one being evicted right now is waited for and
+     * reloaded, so callers never update a copy that was already packed away.
+     */
     public User getUserById(Long userId) {
         if (userId == null) return guestUser;
-        return userByIdMap.getOrDefault(userId, guestUser);
+        User user = userByIdMap.get(userId);
+        if (user != null) {
+            // Pairs with evict(): either the sweeper sees this access, or we see its flag
+            user.touch();
+            if (!user.evicted()) {
+                return user;
+            }
+        }
+        return rehydrate(userId);
+    }
+
+    private User rehydrate(long userId) {
+        User user = userByIdMap.compute(userId, (id, existing) -> {
+            if (existing != null) {
+                return existing; // never flagged here: evict() flags and unflags inside its own compute
+            }
+            ColdUserStore.Record record = coldUsers.get(id);
+            if (record == null) {
+                return null;
+            }
+            User restored = new User(record.id, record.username);
+            restored.restoreStats(record.wins, record.losses, record.draws, record.currentStreak, record.bestStreak);
+            restored.setGame(Game.unpack(record.game, record.gameVersion, record.playerOId));
+            userMap.put(record.username, restored); // before leaving cold storage, so a login always finds it
+            coldUsers.remove(id);
+            return restored;
+        });
+        if (user == null) {
+            if (cluster.isEnabled() && pullFromPreviousOwner(userId)) {
+                return getUserById(userId);
+            }
+            return guestUser;
+        }
+        user.touch();
+        requestSweepIfOverBudget();
+        return user;
     }
-    
+
+    /** The username without loading the user (e.g. for leaderboard rows). */
+    public String getUsername(long userId) {
+        User user = userByIdMap.get(userId);
+        if (user != null) {
+            return user.getUsername();
+        }
+        String username = coldUsers.usernameOf(userId);
+        return username != null ? username : getUserById(userId).getUsername();
+    }
+
     /**
      * Updates user stats after a game ends.
      * @param userId The ID of the user.
      * @param outcome The winner ("X" or "O") or "Draw".
      */
     public void updateStats(Long userId, String outcome) {
-        User user = getUserById(userId);
-        if (user != guestUser) { // Don't track stats for guests
-            user.updateStats(outcome);
-            // In a real app, you would save the 'user' object to the database here.
-            // Since we're using in-memory, the changes are already applied to the user object.
+        if (userId != null && cluster.isEnabled() && !cluster.isLocal(userId)) {
+            remoteUsers.updateStats(userId, outcome, this::updateStats); // X and O may live on different nodes
+            return;
+        }
+        applyStats(userId, outcome);
+    }
+
+    // updateStats on this node. @return false if the user isn't known here.
+    boolean applyStats(Long userId, String outcome) {
+        long start = System.nanoTime();
+        while (true) {
+            User user = getUserById(userId);
+            if (user == guestUser) { // Don't track stats for guests
+                return false;
+            }
+            // Log under the user's lock so this user's records reach the log in order.
+            // logStats only queues the record; the store's writer thread does the I/O.
+            synchronized (user) {
+                if (user.evicted()) {
+                    continue; // packed away before we got the lock; load it again
+                }
+                User.UserStats before = user.snapshotStats();
+                user.updateStats(outcome);
+                leaderboard.update(user.getId(), before, user.snapshotStats());
+                userStore.logStats(user.getId(), user.getTotalWins(), user.getTotalLosses(),
+                        user.getTotalDraws(), user.getCurrentStreak(), user.getBestStreak());
+            }
+            metrics.userOperation(GameMetrics.UserOperation.UPDATE_STATS, start);
+            return true;
         }
     }
-    
+
     public User.UserStats getUserStats(Long userId) {
+        if (userId != null && cluster.isEnabled() && !cluster.isLocal(userId)) {
+            UserRecord record = remoteUsers.get(cluster.ownerOf(userId), userId);
+            return record != null ? record.stats() : guestUser.snapshotStats();
+        }
         User user = getUserById(userId);
-        return new User.UserStats(user);
+        return user.snapshotStats();
+    }
+
+    /** Whether this is a registered user (taken on trust for users on other nodes). */
+    public boolean isRegistered(Long userId) {
+        if (userId == null || userId == 0L) {
+            return false;
+        }
+        return cluster.isEnabled() && !cluster.isLocal(userId) || getUserById(userId) != guestUser;
+    }
+
+    public long userCount() {
+        return userByIdMap.size() - 1 + coldUsers.size(); // not the guest
+    }
+
+    // Walks every hot user's game; fine at scrape intervals. Cold games are idle by definition.
+    public long activeGameCount() {
+        long active = 0;
+        for (User user : userByIdMap.values()) {
+            if (user.getGame().inProgress()) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    // --- Eviction ---
+
+    private void requestSweepIfOverBudget() {
+        long budget = sessions.getHeapBudgetBytes();
+        // At most one extra sweep a second: if everyone is recently active, sweeping won't help
+        if (sweeper != null && budget > 0 && userByIdMap.size() * HOT_USER_BYTES > budget
+                && System.currentTimeMillis() - lastSweepMillis >= 1000
+                && sweepRequested.compareAndSet(false, true)) {
+            sweeper.execute(this::sweep);
+        }
+    }
+
+    /**
+     * Packs users idle past the TTL, then the least recently used ones until
+     * the estimated heap use fits the budget. Users active within the last
+     * min-idle period are never evicted.
+     */
+    void sweep() {
+        sweepRequested.set(false);
+        try {
+            synchronized (evictionLock) {
+                long now = System.currentTimeMillis();
+                long ttlCutoff = sessions.getIdleTtlMillis() > 0 ? now - sessions.getIdleTtlMillis() : Long.MIN_VALUE;
+                long minIdleCutoff = now - sessions.getMinIdleMillis();
+
+                // LRU candidates, with lastAccess copied so the sort sees stable keys
+                List<long[]> candidates = new ArrayList<>();
+                long hotBytes = 0;
+                for (User user : userByIdMap.values()) {
+                    if (user == guestUser) continue;
+                    long lastAccess = user.lastAccess();
+                    if (lastAccess < ttlCutoff && evict(user, ttlCutoff)) {
+                        continue;
+                    }
+                    hotBytes += estimatedBytes(user);
+                    if (lastAccess < minIdleCutoff) {
+                        candidates.add(new long[] {lastAccess, user.getId()});
+                    }
+                }
+
+                long budget = sessions.getHeapBudgetBytes();
+                if (budget > 0 && hotBytes > budget) {
+                    candidates.sort(Comparator.comparingLong(c -> c[0])); // least recently used first
+                    for (long[] candidate : candidates) {
+                        if (hotBytes <= budget) break;
+                        User user = userByIdMap.get(candidate[1]);
+                        if (user != null) {
+                            long bytes = estimatedBytes(user);
+                            if (evict(user, minIdleCutoff)) {
+                                hotBytes -= bytes;
+                            }
+                        }
+                    }
+                }
+            }
+            lastSweepMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            // Keep the scheduled sweep alive; the next run tries again
+            log.warn("Session sweep failed", e);
+        }
+    }
+
+    /**
+     * Moves one user to cold storage unless it was used since {@code idleCutoff}.
+     * Locks the game, then the user, then the map entry - the order request
+     * threads use too (a move holds its game while updating stats).
+     */
+    private boolean evict(User user, long idleCutoff) {
+        if (user == guestUser || !ColdUserStore.fits(user.getUsername())) {
+            return false;
+        }
+        Game game = user.getGame();
+        boolean[] evicted = {false};
+        synchronized (game) {
+            synchronized (user) {
+                userByIdMap.computeIfPresent(user.getId(), (id, current) -> {
+                    if (current != user) {
+                        return current;
+                    }
+                    // Flag first, then re-check the access time (see getUserById)
+                    user.markEvicted(true);
+                    if (user.lastAccess() >= idleCutoff) {
+                        user.markEvicted(false);
+                        return user;
+                    }
+                    coldUsers.put(id, user.getUsername(), user.getTotalWins(), user.getTotalLosses(),
+                            user.getTotalDraws(), user.getCurrentStreak(), user.getBestStreak(),
+                            game.pack(), game.getVersion(), game.getPlayerOId());
+                    userMap.remove(user.getUsername(), user);
+                    noteWentCold(id);
+                    evicted[0] = true;
+                    return null;
+                });
+            }
+        }
+        return evicted[0];
+    }
+
+    private static long estimatedBytes(User user) {
+        GridBoard grid = user.getGame().grid();
+        MonteCarloSearch.Tree tree = user.getGame().searchTree(); // MCTS games keep some of their search
+        return HOT_USER_BYTES + 2L * user.getUsername().length() + (grid != null ? grid.cellCount() + 64 : 0)
+                + (tree != null ? tree.bytes() : 0);
+    }
+
+    // --- Cluster handoff ---
+
+    /** A copy of a user owned by another node; updates to it go nowhere. */
+    private static User detached(UserRecord record) {
+        User user = new User(record.id, record.username);
+        user.restoreStats(record.wins, record.losses, record.draws, record.currentStreak, record.bestStreak);
+        return user;
+    }
+
+    /**
+     * Looks for a user we own but don't have on the node that owned it before
+     * the last membership change (it may not have pushed it to us yet).
+     * @return Whether the user arrived.
+     */
+    private boolean pullFromPreviousOwner(long userId) {
+        if (!cluster.isLocal(userId) || !cluster.inHandoffWindow()) {
+            return false;
+        }
+        int previous = cluster.previousOwnerOf(userId);
+        if (previous < 0 || previous == cluster.selfIndex()) {
+            return false;
+        }
+        try {
+            UserRecord record = remoteUsers.release(previous, userId);
+            if (record == null) {
+                return false;
+            }
+            adopt(record);
+            return true;
+        } catch (CompletionException | IllegalStateException | UncheckedIOException e) {
+            log.warn("Pulling user {} from node {} failed: {}", userId, previous, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Takes a user out of this node, for its new owner. Goes through cold
+     * storage, so a user in the middle of a request is waited for like an eviction.
+     * @return The user, or null if it isn't here (or can't move: very long names stay).
+     */
+    UserRecord release(long userId) {
+        synchronized (evictionLock) {
+            User user = userByIdMap.get(userId);
+            if (user == guestUser || user != null && !evict(user, Long.MAX_VALUE)) {
+                return null;
+            }
+            ColdUserStore.Record[] released = {null};
+            userByIdMap.compute(userId, (id, existing) -> {
+                if (existing == null) { // not reloaded meanwhile
+                    released[0] = coldUsers.get(id);
+                    coldUsers.remove(id);
+                }
+                return existing;
+            });
+            if (released[0] == null) {
+                return null;
+            }
+            UserRecord record = UserRecord.of(released[0]);
+            userStore.logRemoval(userId);
+            leaderboard.remove(userId, record.stats());
+            return record;
+        }
+    }
+
+    /**
+     * Takes in a user handed over by another node, cold until its first
+     * request. If we somehow have it already (both nodes registered the name
+     * while their views of the ring disagreed), the copy with more games wins.
+     * @return Done once the store has logged the change (see awaitWritten).
+     */
+    CompletableFuture<Void> adopt(UserRecord record) {
+        synchronized (evictionLock) {
+            User hot = userByIdMap.get(record.id);
+            if (hot != null) {
+                synchronized (hot) {
+                    User.UserStats before = hot.snapshotStats();
+                    if (record.games() > before.totalWins + before.totalLosses + before.totalDraws) {
+                        hot.restoreStats(record.wins, record.losses, record.draws, record.currentStreak, record.bestStreak);
+                        leaderboard.update(record.id, before, hot.snapshotStats());
+                        return userStore.logStats(record.id, record.wins, record.losses, record.draws,
+                                record.currentStreak, record.bestStreak);
+                    }
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            ColdUserStore.Record cold = coldUsers.get(record.id);
+            CompletableFuture<Void> registered = CompletableFuture.completedFuture(null);
+            if (cold != null) {
+                if (UserRecord.of(cold).games() >= record.games()) {
+                    return registered;
+                }
+                leaderboard.remove(record.id, UserRecord.of(cold).stats());
+            } else {
+                registered = userStore.logRegistration(record.id, record.username);
+            }
+            coldUsers.put(record.id, record.username, record.wins, record.losses, record.draws, record.currentStreak,
+                    record.bestStreak, record.game, record.gameVersion, record.playerOId);
+            noteWentCold(record.id);
+            leaderboard.add(record.id, record.stats());
+            // Both: a stats record for a user whose registration was lost is ignored on replay
+            return CompletableFuture.allOf(registered, userStore.logStats(record.id, record.wins, record.losses,
+                    record.draws, record.currentStreak, record.bestStreak));
+        }
+    }
+
+    /**
+     * Waits for the store to have logged changes, with no lock held. For
+     * callers that answer someone (an import, a handover) and mustn't report
+     * users as taken in when they'd be gone after a restart.
+     * @throws IOException The store failed to write them.
+     */
+    static void awaitWritten(List<CompletableFuture<Void>> written) throws IOException {
+        try {
+            CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("User store write failed", e.getCause());
+        }
+    }
+
+    // --- Bulk export/import (admin) ---
+
+    interface UserRecordVisitor {
+        void visit(UserRecord record) throws IOException;
+    }
+
+    /**
+     * Visits every user on this node, cold then hot, a chunk at a time so
+     * memory doesn't grow with the user count. Records are copied out under
+     * the stores' locks and visited after, so a slow reader holds up nothing:
+     * eviction goes on meanwhile. Users that go cold during the walk are
+     * noted and visited at the end, so none is missed; one that is loaded
+     * meanwhile may be seen twice, the newer copy last.
+     */
+    void forEachUser(UserRecordVisitor visitor) throws IOException {
+        Queue<Long> wentCold = new ConcurrentLinkedQueue<>();
+        exports.add(wentCold);
+        try {
+            coldUsers.forEach(record -> visitor.visit(UserRecord.of(record)));
+            List<UserRecord> chunk = new ArrayList<>(EXPORT_CHUNK);
+            for (User user : userByIdMap.values()) {
+                if (user != guestUser) {
+                    chunk.add(UserRecord.of(user));
+                    visitFull(chunk, visitor);
+                }
+            }
+            Long id;
+            while ((id = wentCold.poll()) != null) {
+                User user = userByIdMap.get(id);
+                ColdUserStore.Record cold = user == null ? coldUsers.get(id) : null;
+                if (user != null && user != guestUser) {
+                    chunk.add(UserRecord.of(user));
+                } else if (cold != null) {
+                    chunk.add(UserRecord.of(cold));
+                } // else handed over meanwhile
+                visitFull(chunk, visitor);
+            }
+            for (UserRecord record : chunk) {
+                visitor.visit(record);
+            }
+        } finally {
+            exports.remove(wentCold);
+        }
+    }
+
+    // Writes out a chunk once it is full
+    private static void visitFull(List<UserRecord> chunk, UserRecordVisitor visitor) throws IOException {
+        if (chunk.size() == EXPORT_CHUNK) {
+            for (UserRecord record : chunk) {
+                visitor.visit(record);
+            }
+            chunk.clear();
+        }
+    }
+
+    // Tells running exports about a user that went into cold storage after they may have passed it
+    private void noteWentCold(long id) {
+        for (Queue<Long> wentCold : exports) {
+            wentCold.add(id);
+        }
+    }
+
+    /**
+     * Bulk load for an admin import: users come in cold, like handed-over
+     * ones (see adopt), without a loginOrRegister each. A user we have
+     * already keeps whichever copy has more games. In a cluster, users owned
+     * by other nodes are passed on to them, one request per node and batch.
+     * @param records Without an ID (-1), a user gets the ID a registration would.
+     * @return How many were skipped: a name or ID taken by someone else, or a name too long to store.
+     * @throws UncheckedIOException The store failed to log the users taken in.
+     */
+    int importUsers(List<UserRecord> records) {
+        int skipped = 0;
+        Map<Integer, List<UserRecord>> elsewhere = new HashMap<>();
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        synchronized (evictionLock) {
+            for (UserRecord record : records) {
+                if (record.id == -1) {
+                    record = record.withId(idFor(record.username));
+                }
+                if (cluster.isEnabled()) {
+                    int owner = cluster.ownerOf(record.id);
+                    if (record.id == Cluster.userIdFor(record.username)
+                            && owner >= 0 && owner != cluster.selfIndex()) {
+                        elsewhere.computeIfAbsent(owner, o -> new ArrayList<>()).add(record);
+                        continue;
+                    }
+                }
+                if (!importable(record)) {
+                    skipped++;
+                    continue;
+                }
+                nextId.accumulateAndGet(record.id + 1, Math::max);
+                written.add(adopt(record));
+            }
+        }
+        try {
+            awaitWritten(written);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Map.Entry<Integer, List<UserRecord>> batch : elsewhere.entrySet()) {
+            push(batch.getKey(), batch.getValue()); // those it can't reach stay here until the next rebalance
+        }
+        return skipped;
+    }
+
+    // An imported user's ID: the existing one for a known name, else what registering would give it
+    private long idFor(String username) {
+        User hot = userMap.get(username);
+        if (hot != null) {
+            return hot.getId();
+        }
+        long cold = coldUsers.idOf(username);
+        if (cold != -1) {
+            return cold;
+        }
+        return cluster.isEnabled() ? Cluster.userIdFor(username) : nextId.getAndIncrement();
+    }
+
+    // Neither the ID nor the name is someone else's
+    private boolean importable(UserRecord record) {
+        if (record.id <= 0 || record.username.isBlank() || !ColdUserStore.fits(record.username)
+                || cluster.isEnabled() && record.id != Cluster.userIdFor(record.username)) {
+            return false;
+        }
+        User hot = userByIdMap.get(record.id);
+        String name = hot != null ? hot.getUsername() : coldUsers.usernameOf(record.id);
+        if (name != null) {
+            return name.equals(record.username);
+        }
+        User sameName = userMap.get(record.username);
+        return sameName == null && coldUsers.idOf(record.username) == -1;
+    }
+
+    /** After a membership change: hands every user we no longer own to its owner, in batches. */
+    void rebalance() {
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (Long id : userByIdMap.keySet()) {
+                if (id != 0L && !cluster.isLocal(id)) ids.add(id);
+            }
+            coldUsers.forEach(record -> {
+                if (!cluster.isLocal(record.id)) ids.add(record.id);
+            });
+
+            Map<Integer, List<UserRecord>> batches = new HashMap<>();
+            int moved = 0;
+            boolean failed = false;
+            for (Long id : ids) {
+                int owner = cluster.ownerOf(id);
+                if (owner == cluster.selfIndex() || owner < 0) {
+                    continue; // the ring changed again meanwhile
+                }
+                UserRecord record = release(id);
+                if (record == null) {
+                    continue;
+                }
+                List<UserRecord> batch = batches.computeIfAbsent(owner, o -> new ArrayList<>());
+                batch.add(record);
+                if (batch.size() == HANDOFF_BATCH) {
+                    int pushed = push(owner, batch);
+                    moved += pushed;
+                    failed |= pushed < batch.size();
+                    batch.clear();
+                }
+            }
+            for (Map.Entry<Integer, List<UserRecord>> batch : batches.entrySet()) {
+                int pushed = push(batch.getKey(), batch.getValue());
+                moved += pushed;
+                failed |= pushed < batch.getValue().size();
+            }
+            if (moved > 0) {
+                log.info("Handed {} users to their new nodes (ring {})", moved, cluster.ringVersion());
+            }
+            if (failed) {
+                // Kept here meanwhile; try again in a bit (a node may show up before it's serving)
+                CompletableFuture.delayedExecutor(HANDOFF_RETRY_SECONDS, TimeUnit.SECONDS, handoff)
+                        .execute(this::rebalance);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cluster rebalance failed; the next membership change retries", e);
+        }
+    }
+
+    // @return How many users the node took; the rest come back here
+    private int push(int node, List<UserRecord> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        if (remoteUsers.adopt(node, batch)) {
+            return batch.size();
+        }
+        for (UserRecord record : batch) {
+            adopt(record);
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        if (handoff != null) {
+            handoff.shutdownNow();
+            // Clean shutdown: hand everyone over now rather than leave them unreachable
+            if (cluster.leave()) {
+                rebalance();
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.tictactoe.metrics;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket histogram for hot paths. Buckets are striped LongAdders, so
+ * concurrent recorders rarely touch the same cache line, and recording a
+ * sample is a binary search plus two adds - no locks, no allocation.
+ * Written out in the Prometheus text format (cumulative "le" buckets).
+ */
+public final class Histogram {
+
+    // Latency buckets in microseconds: 50us .. 10s
+    public static final long[] LATENCY_MICROS = {
+        50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    // Powers of ten, for counts such as search nodes
+    public static final long[] DECADES = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000
+    };
+
+    private final long[] bounds;
+    private final String[] les;    // bounds as exported, e.g. "0.00025"
+    private final long unitsPerExported; // e.g. 1_000_000 microseconds per second
+    private final LongAdder[] buckets; // one per bound, plus +Inf
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param bounds Inclusive upper bounds, ascending, in the recorded unit.
+     * @param unitsPerExported Recorded units per exported unit
+     *                         (1_000_000 to record microseconds and export seconds).
+     */
+    public Histogram(long[] bounds, long unitsPerExported) {
+        this.bounds = bounds.clone();
+        this.unitsPerExported = unitsPerExported;
+        this.les = new String[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            les[i] = BigDecimal.valueOf(bounds[i])
+                    .divide(BigDecimal.valueOf(unitsPerExported), MathContext.DECIMAL64)
+                    .stripTrailingZeros().toPlainString();
+        }
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /** A latency histogram recorded in microseconds, exported in seconds. */
+    public static Histogram latency() {
+        return new Histogram(LATENCY_MICROS, 1_000_000);
+    }
+
+    public void record(long value) {
+        buckets[bucketOf(value)].increment();
+        sum.add(value);
+    }
+
+    /** Records the microseconds elapsed since {@code startNanos} (a System.nanoTime value). */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Appends the _bucket, _sum and _count lines.
+     * @param labels Extra labels without braces, e.g. {@code difficulty="HARD"}, or "".
+     */
+    public void writeTo(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(les[i]).append("\"} ")
+               .append(cumulative).append('\n');
+        }
+        cumulative += buckets[bounds.length].sum();
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(exported(sum.sum())).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+
+    private int bucketOf(long value) {
+        int lo = 0;
+        int hi = bounds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (value <= bounds[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private String exported(long value) {
+        return unitsPerExported == 1 ? Long.toString(value) : Double.toString((double) value / unitsPerExported);
+    }
+}
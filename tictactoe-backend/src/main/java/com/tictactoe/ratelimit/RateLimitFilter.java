@@ -0,0 +1,103 @@
+package com.tictactoe.ratelimit;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.tictactoe.cluster.Cluster;
+
+/**
+ * Answers 429 with Retry-After to clients over their rate limit, before
+ * anything else runs: no controller, no user lookup, no forwarding to
+ * another node. Requests another node forwarded (with the cluster secret)
+ * were counted there. Paths are matched decoded and without ;params, as
+ * Spring MVC routes them, so no other spelling gets past the limit.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10) // before cluster routing
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Map<String, RateLimiter.Limit> LIMITS = Map.of(
+            "/api/users/login", RateLimiter.Limit.LOGIN,
+            "/api/game/join", RateLimiter.Limit.LOGIN, // logs player O in
+            "/api/move", RateLimiter.Limit.MOVE,
+            "/api/moves", RateLimiter.Limit.MOVE,      // one token here, the rest per move in the controller
+            "/api/undo", RateLimiter.Limit.MOVE,
+            "/api/redo", RateLimiter.Limit.MOVE,
+            "/api/restart", RateLimiter.Limit.MOVE,
+            "/api/analysis", RateLimiter.Limit.ANALYSIS,
+            "/api/hint", RateLimiter.Limit.ANALYSIS);
+
+    /** Set on requests this node counted, for controllers charging more than one token. */
+    public static final String COUNTED_ATTRIBUTE = RateLimitFilter.class.getName() + ".counted";
+
+    private final RateLimiter limiter;
+    private final Cluster cluster;
+
+    public RateLimitFilter(RateLimiter limiter, Cluster cluster) {
+        this.limiter = limiter;
+        this.cluster = cluster;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limiter.isEnabled()
+                || "OPTIONS".equals(request.getMethod())
+                || limit(request) == null
+                || cluster.isPeerRequest(request); // forwarded by another node, which counted it
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimiter.Limit limit = limit(request);
+        long waitMillis = limiter.tryAcquire(limit, userId(request), request.getRemoteAddr(), 1);
+        if (waitMillis > 0) {
+            reject(response, waitMillis);
+            return;
+        }
+        request.setAttribute(COUNTED_ATTRIBUTE, Boolean.TRUE);
+        chain.doFilter(request, response);
+    }
+
+    private static RateLimiter.Limit limit(HttpServletRequest request) {
+        RateLimiter.Limit limit = LIMITS.get(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        return limit != null ? limit : LIMITS.get(request.getServletPath());
+    }
+
+    private static void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(waitMillis));
+        response.setContentType("text/plain");
+        response.getWriter().write("Too many requests");
+    }
+
+    /** Retry-After is in whole seconds; rounded up, so a client that waits that long gets through. */
+    public static String retryAfterSeconds(long waitMillis) {
+        return Long.toString(Math.max(1, (waitMillis + 999) / 1000));
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        String userId = request.getParameter("userId");
+        if (userId == null) {
+            userId = request.getParameter("userIdX");
+        }
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null; // the controller rejects it
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.tictactoe.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import com.tictactoe.game.GameMetrics;
+
+/**
+ * Token buckets per user ID and per client address, for each limited kind
+ * of request. A bucket refills at its rate up to a burst's worth of tokens.
+ * Nothing authenticates a request's user ID, so a user's bucket is theirs
+ * as seen from one address: naming someone else's ID from elsewhere drains
+ * a bucket of your own, not theirs.
+ *
+ * A bucket is a single long, the time at which it will be full again, so
+ * taking tokens is one compare-and-set and nothing is ever locked: a bucket
+ * has (burst - (fullAt - now) / interval) tokens, and taking n moves fullAt
+ * n intervals later. A request bigger than the burst needs a full bucket
+ * and leaves it in debt, paid back before anything else gets through.
+ * Buckets that have been full for the idle time are dropped by a sweep;
+ * one that isn't there is full, so dropping loses nothing.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    public enum Limit {
+        LOGIN, MOVE, ANALYSIS
+    }
+
+    private record UserKey(long userId, String address) {
+    }
+
+    // The buckets of one limit, for one kind of key (users at an address, or addresses)
+    private static final class Rule {
+        final long intervalNanos; // time to earn one token; 0 = no limit
+        final long burstNanos;    // time to fill an empty bucket
+        final Map<Object, AtomicLong> buckets = new ConcurrentHashMap<>(); // key -> fullAt
+
+        Rule(double perSecond, double burstSeconds) {
+            this.intervalNanos = perSecond > 0 ? Math.max(1, (long) (1e9 / perSecond)) : 0;
+            // At least one token, or nothing would ever get through
+            this.burstNanos = perSecond > 0 ? Math.max(intervalNanos, (long) (burstSeconds * 1e9)) : 0;
+        }
+
+        long burstTokens() {
+            return burstNanos / intervalNanos;
+        }
+
+        /**
+         * Takes all the tokens. More than a full bucket holds are taken from a
+         * full bucket, which goes into debt: fullAt moves past now + burst, and
+         * nothing more gets through until it's paid back at the usual rate.
+         * @return 0 if the tokens were taken, else nanoseconds until they'd be there.
+         */
+        long take(Object key, int tokens, long now) {
+            AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            long cost = tokens * intervalNanos;
+            long needed = Math.min(tokens, burstTokens()) * intervalNanos; // what must be in the bucket
+            while (true) {
+                long fullAt = bucket.get();
+                long start = Math.max(fullAt, now);
+                long over = start + needed - now - burstNanos;
+                if (over > 0) {
+                    return over;
+                }
+                if (bucket.compareAndSet(fullAt, start + cost)) {
+                    return 0;
+                }
+            }
+        }
+
+        // Gives back tokens taken for a request another bucket turned away
+        void refund(Object key, int tokens) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.addAndGet(-tokens * intervalNanos); // fullAt in the past is just a full bucket
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final Rule[] perUser = new Rule[Limit.values().length];
+    private final Rule[] perAddress = new Rule[Limit.values().length];
+    private final long idleNanos;
+    private final LongAdder rejected = new LongAdder();
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimiter(
+        @Value("${tictactoe.ratelimit.enabled:true}") boolean enabled,
+        @Value("${tictactoe.ratelimit.burst-seconds:5}") double burstSeconds,
+        @Value("${tictactoe.ratelimit.idle-seconds:60}") long idleSeconds,
+        @Value("${tictactoe.ratelimit.login.per-ip:2}") double loginPerAddress,
+        @Value("${tictactoe.ratelimit.move.per-user:20}") double movePerUser,
+        @Value("${tictactoe.ratelimit.move.per-ip:200}") double movePerAddress,
+        @Value("${tictactoe.ratelimit.analysis.per-user:2}") double analysisPerUser,
+        @Value("${tictactoe.ratelimit.analysis.per-ip:10}") double analysisPerAddress,
+        GameMetrics metrics
+    ) {
+        this.enabled = enabled;
+        this.idleNanos = Math.max(1, idleSeconds) * 1_000_000_000L;
+        perUser[Limit.LOGIN.ordinal()] = new Rule(0, burstSeconds); // there's no user yet
+        perAddress[Limit.LOGIN.ordinal()] = new Rule(loginPerAddress, burstSeconds);
+        perUser[Limit.MOVE.ordinal()] = new Rule(movePerUser, burstSeconds);
+        perAddress[Limit.MOVE.ordinal()] = new Rule(movePerAddress, burstSeconds);
+        perUser[Limit.ANALYSIS.ordinal()] = new Rule(analysisPerUser, burstSeconds);
+        perAddress[Limit.ANALYSIS.ordinal()] = new Rule(analysisPerAddress, burstSeconds);
+
+        metrics.registerCounter("tictactoe_ratelimit_rejected_total", "Requests answered 429", rejected::sum);
+        metrics.registerGauge("tictactoe_ratelimit_buckets", "Rate limit buckets in use", this::bucketCount);
+        if (enabled) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "rate-limit-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = Math.max(1000, idleSeconds * 1000 / 2);
+            sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes tokens from the client address's bucket and, if known, the
+     * user's. The address goes first, so made-up user IDs can't get around it.
+     * @param userId Null when the request doesn't name a user.
+     * @param tokens All are charged; more than a bucket holds need a full
+     *               bucket and leave it in debt (see Rule.take).
+     * @return 0 if allowed, else milliseconds to wait before trying again.
+     */
+    public long tryAcquire(Limit limit, Long userId, String address, int tokens) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long wait = 0;
+        Rule byAddress = perAddress[limit.ordinal()];
+        if (byAddress.intervalNanos > 0) {
+            wait = byAddress.take(address, tokens, now);
+        }
+        Rule byUser = perUser[limit.ordinal()];
+        if (wait == 0 && userId != null && byUser.intervalNanos > 0) {
+            wait = byUser.take(new UserKey(userId, address), tokens, now);
+            if (wait > 0 && byAddress.intervalNanos > 0) {
+                byAddress.refund(address, tokens); // a big batch mustn't hold up others behind the same address
+            }
+        }
+        if (wait == 0) {
+            return 0;
+        }
+        rejected.increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+    }
+
+    private long bucketCount() {
+        long count = 0;
+        for (int i = 0; i < perUser.length; i++) {
+            count += perUser[i].buckets.size() + perAddress[i].buckets.size();
+        }
+        return count;
+    }
+
+    private void sweep() {
+        try {
+            long fullBefore = System.nanoTime() - idleNanos;
+            for (int i = 0; i < perUser.length; i++) {
+                // removeIf on a ConcurrentHashMap view only removes an entry still mapped to the value tested
+                perUser[i].buckets.values().removeIf(b -> b.get() - fullBefore < 0);
+                perAddress[i].buckets.values().removeIf(b -> b.get() - fullBefore < 0);
+            }
+        } catch (RuntimeException e) {
+            // Keep the scheduled sweep alive; the next run tries again
+            log.warn("Rate limit sweep failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.tictactoe.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local persistence for users and their stats.
+ *
+ * Every registration and stats change is appended to a log segment
+ * (data/log-NNNNNN.bin) by a single writer thread, which writes whatever has
+ * queued up since its last batch and fsyncs once per batch (group commit).
+ * Callers only enqueue a record, so the game path never waits on the disk;
+ * each gets a future for its record, done once the record is in the log
+ * (and fsynced) or failed if writing it failed, to wait on where it matters.
+ *
+ * Periodically the log is rotated and a compact binary snapshot of all users
+ * is written (data/snapshot.bin, replaced atomically, and the directory
+ * fsynced so the replacement survives a crash); segments older than the
+ * snapshot are then deleted. On startup the snapshot is memory-mapped and
+ * read, and the newer segments are replayed. Each log record carries a
+ * length and CRC, so a record torn by a crash is detected and cut off.
+ *
+ * Stats records hold the user's absolute stats, not a delta, so replaying a
+ * record that the snapshot already includes is harmless.
+ */
+@Component
+public class UserStore {
+
+    private static final Logger log = LoggerFactory.getLogger(UserStore.class);
+
+    private static final byte REGISTER = 1;
+    private static final byte STATS = 2;
+    private static final byte REMOVE = 3;
+
+    private static final int SNAPSHOT_MAGIC = 0x54545453; // "TTTS"
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final int MAX_RECORD = 1 << 16;
+    private static final int MAX_BATCH = 4096;
+
+    /** Receives the recovered state, oldest first. */
+    public interface RecoveryHandler {
+        void register(long id, String username);
+        void stats(long id, int wins, int losses, int draws, int currentStreak, int bestStreak);
+        void remove(long id);
+    }
+
+    /** Writes every user into a snapshot, through {@link SnapshotWriter}. */
+    public interface SnapshotSource {
+        void writeTo(SnapshotWriter out) throws IOException;
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final boolean fsync;
+    private final long snapshotIntervalSeconds;
+
+    private static final CompletableFuture<Void> NOTHING_TO_WRITE = CompletableFuture.completedFuture(null);
+
+    // A record on its way to the log
+    private record Pending(byte[] record, CompletableFuture<Void> written) {
+    }
+
+    private final BlockingQueue<Pending> queue;
+    private final Object logLock = new Object();
+    private FileChannel segment;
+    private int segmentNumber;
+
+    private Thread writer;
+    private volatile boolean running;
+    private ScheduledExecutorService snapshotScheduler;
+    private SnapshotSource snapshotSource;
+
+    public UserStore(
+        @Value("${tictactoe.store.enabled:true}") boolean enabled,
+        @Value("${tictactoe.store.dir:data}") String dir,
+        @Value("${tictactoe.store.fsync:true}") boolean fsync,
+        @Value("${tictactoe.store.snapshot-interval-seconds:300}") long snapshotIntervalSeconds,
+        @Value("${tictactoe.store.queue-capacity:65536}") int queueCapacity
+    ) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.fsync = fsync;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    /** A store that keeps nothing (for tests, benchmarks and tools). */
+    public static UserStore inMemory() {
+        return new UserStore(false, "data", false, 0, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // --- Startup ---
+
+    /**
+     * Loads the snapshot and replays the log into {@code handler}, then starts
+     * the writer and the periodic snapshots. Call once, before any logging.
+     */
+    public void open(RecoveryHandler handler, SnapshotSource source) {
+        if (!enabled) {
+            return;
+        }
+        this.snapshotSource = source;
+        try {
+            Files.createDirectories(dir);
+            int firstSegment = loadSnapshot(handler);
+            int lastSegment = firstSegment - 1;
+            for (int number : segmentNumbers()) {
+                if (number >= firstSegment) {
+                    replaySegment(number, handler);
+                }
+                lastSegment = Math.max(lastSegment, number);
+            }
+            // Always start a fresh segment; never append after a possibly torn tail
+            openSegment(Math.max(lastSegment + 1, 1));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open user store in " + dir.toAbsolutePath(), e);
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "user-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        if (snapshotIntervalSeconds > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "user-store-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // --- Hot path: enqueue only ---
+    // Each returns a future for the record: done once it's in the log, failed if the write failed.
+    // An interrupt while the queue is full throws IllegalStateException (the record isn't queued).
+
+    public CompletableFuture<Void> logRegistration(long id, String username) {
+        if (!enabled) return NOTHING_TO_WRITE;
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 2 + name.length);
+        payload.put(REGISTER).putLong(id).putShort((short) name.length).put(name);
+        return enqueue(payload.array());
+    }
+
+    /** Call while holding the user's lock, so records for one user stay in order. */
+    public CompletableFuture<Void> logStats(long id, int wins, int losses, int draws, int currentStreak,
+                                            int bestStreak) {
+        if (!enabled) return NOTHING_TO_WRITE;
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 5 * 4);
+        payload.put(STATS).putLong(id).putInt(wins).putInt(losses).putInt(draws)
+                .putInt(currentStreak).putInt(bestStreak);
+        return enqueue(payload.array());
+    }
+
+    /** The user now lives on another node (see UserService's cluster handoff). */
+    public CompletableFuture<Void> logRemoval(long id) {
+        if (!enabled) return NOTHING_TO_WRITE;
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8);
+        payload.put(REMOVE).putLong(id);
+        return enqueue(payload.array());
+    }
+
+    private CompletableFuture<Void> enqueue(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        byte[] record = ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload).array();
+        Pending pending = new Pending(record, new CompletableFuture<>());
+        try {
+            queue.put(pending); // only blocks if the writer is a whole queue behind
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before a user store record was queued", e);
+        }
+        return pending.written;
+    }
+
+    // --- Writer thread: group commit ---
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+                for (Pending pending : batch) {
+                    pending.written.complete(null);
+                }
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write {} user store records", batch.size(), e);
+                for (Pending pending : batch) {
+                    pending.written.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i).record);
+        }
+        synchronized (logLock) {
+            try {
+                long remaining = 0;
+                for (ByteBuffer b : buffers) remaining += b.remaining();
+                while (remaining > 0) {
+                    remaining -= segment.write(buffers);
+                }
+                if (fsync) {
+                    segment.force(false); // one fsync for the whole batch
+                }
+            } catch (IOException e) {
+                // Part of the batch may be in the segment; replay stops at a torn record,
+                // so later records go to a fresh segment where it can't hide them
+                rollAfterFailure();
+                throw e;
+            }
+        }
+    }
+
+    // Call with logLock held
+    private void rollAfterFailure() {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.debug("Closing the failed segment: {}", e.toString());
+        }
+        try {
+            openSegment(segmentNumber + 1);
+        } catch (IOException e) {
+            log.error("Could not start a new user store segment", e); // the next batch fails and tries again
+        }
+    }
+
+    // --- Snapshots ---
+
+    /**
+     * Rotates the log, writes a snapshot of every user and deletes the log
+     * segments the snapshot covers. Safe to call while games are running.
+     */
+    public void snapshot() throws IOException {
+        if (!enabled || snapshotSource == null) {
+            return;
+        }
+        int firstSegment;
+        synchronized (logLock) {
+            // Everything in older segments was applied in memory before being
+            // queued, so the snapshot taken below includes it
+            segment.force(true);
+            segment.close();
+            openSegment(segmentNumber + 1);
+            firstSegment = segmentNumber;
+        }
+
+        Path tmp = dir.resolve("snapshot.tmp");
+        CRC32 crc = new CRC32();
+        int count;
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeInt(firstSegment);
+            SnapshotWriter writer = new SnapshotWriter(out);
+            snapshotSource.writeTo(writer);
+            writer.finish();
+            count = writer.count;
+            out.flush();
+            // Trailer: record count and checksum of everything before it
+            ByteBuffer trailer = ByteBuffer.allocate(8).putInt(count).putInt((int) crc.getValue());
+            file.write(trailer.array());
+            file.getFD().sync();
+        }
+        Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The rename is only durable once the directory is: until then a crash can bring back
+        // the old snapshot, which still needs the segments deleted below
+        syncDirectory();
+
+        for (int number : segmentNumbers()) {
+            if (number < firstSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+        log.info("User store snapshot written: {} users, replay from segment {}", count, firstSegment);
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("User store snapshot failed", e);
+        }
+    }
+
+    /** Streams user records into a snapshot file. */
+    public static final class SnapshotWriter {
+        private final DataOutputStream out;
+        private int count;
+
+        SnapshotWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        public void write(long id, String username, int wins, int losses, int draws,
+                          int currentStreak, int bestStreak) throws IOException {
+            byte[] name = username.getBytes(StandardCharsets.UTF_8);
+            out.writeLong(id);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeInt(wins);
+            out.writeInt(losses);
+            out.writeInt(draws);
+            out.writeInt(currentStreak);
+            out.writeInt(bestStreak);
+            count++;
+        }
+
+        void finish() throws IOException {
+            out.writeLong(-1); // end marker
+        }
+    }
+
+    /**
+     * Reads snapshot.bin through a memory mapping.
+     * @return The first log segment to replay after it.
+     */
+    private int loadSnapshot(RecoveryHandler handler) throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.limit() < 20 || map.getInt(0) != SNAPSHOT_MAGIC || map.getInt(4) != SNAPSHOT_FORMAT) {
+                throw new IOException("Not a user store snapshot: " + path);
+            }
+            int bodyLength = map.limit() - 8;
+            CRC32 crc = new CRC32();
+            crc.update(map.duplicate().limit(bodyLength));
+            if ((int) crc.getValue() != map.getInt(bodyLength + 4)) {
+                throw new IOException("Corrupt user store snapshot: " + path);
+            }
+
+            map.position(8);
+            int firstSegment = map.getInt();
+            int count = 0;
+            while (true) {
+                long id = map.getLong();
+                if (id == -1) break;
+                byte[] name = new byte[map.getShort() & 0xFFFF];
+                map.get(name);
+                handler.register(id, new String(name, StandardCharsets.UTF_8));
+                handler.stats(id, map.getInt(), map.getInt(), map.getInt(), map.getInt(), map.getInt());
+                count++;
+            }
+            log.info("Loaded {} users from snapshot", count);
+            return firstSegment;
+        }
+    }
+
+    // --- Log segments ---
+
+    private void replaySegment(int number, RecoveryHandler handler) throws IOException {
+        Path path = segmentPath(number);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int records = 0;
+            long good = 0;
+            while (data.remaining() >= 8) {
+                int length = data.getInt();
+                int expectedCrc = data.getInt();
+                if (length <= 0 || length > MAX_RECORD || length > data.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = data.slice(data.position(), length);
+                CRC32 crc = new CRC32();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                apply(payload, handler);
+                data.position(data.position() + length);
+                good = data.position();
+                records++;
+            }
+            if (good < channel.size()) {
+                // A crash tore the last write: drop the partial record
+                log.warn("Truncating torn tail of {} at byte {} (was {})", path, good, channel.size());
+                channel.truncate(good);
+            }
+            log.info("Replayed {} records from {}", records, path.getFileName());
+        }
+    }
+
+    private static void apply(ByteBuffer payload, RecoveryHandler handler) {
+        byte type = payload.get();
+        long id = payload.getLong();
+        if (type == REGISTER) {
+            byte[] name = new byte[payload.getShort() & 0xFFFF];
+            payload.get(name);
+            handler.register(id, new String(name, StandardCharsets.UTF_8));
+        } else if (type == STATS) {
+            handler.stats(id, payload.getInt(), payload.getInt(), payload.getInt(), payload.getInt(), payload.getInt());
+        } else if (type == REMOVE) {
+            handler.remove(id);
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        segment = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fsync) {
+            syncDirectory(); // else an fsynced record could still be lost with its new file
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format("log-%06d.bin", number));
+    }
+
+    private List<Integer> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.matches("log-\\d+\\.bin"))
+                    .map(name -> Integer.parseInt(name.substring(4, name.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // --- Shutdown ---
+
+    /** Drains the queue, then writes a final snapshot so the next start replays nothing. */
+    @PreDestroy
+    public void close() {
+        if (!enabled || writer == null) {
+            return;
+        }
+        boolean snapshotRunning = false;
+        if (snapshotScheduler != null) {
+            // Not shutdownNow: an interrupt in segment.force() would close the log channel under us
+            snapshotScheduler.shutdown();
+            try {
+                snapshotRunning = !snapshotScheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                snapshotRunning = true;
+            }
+        }
+        running = false;
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (snapshotRunning) {
+            // Two snapshots would share snapshot.tmp; the log has everything anyway
+            log.warn("Periodic snapshot still running at shutdown; skipping the final one");
+        } else {
+            snapshotQuietly();
+        }
+        synchronized (logLock) {
+            try {
+                segment.force(true);
+                segment.close();
+            } catch (IOException e) {
+                log.error("Failed to close user store log", e);
+            }
+        }
+    }
+}
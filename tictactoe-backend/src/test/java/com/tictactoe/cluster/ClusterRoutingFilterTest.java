@@ -0,0 +1,73 @@
+package com.tictactoe.cluster;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.cluster.enabled=true",
+    "tictactoe.cluster.nodes=http://localhost:1",
+    "tictactoe.cluster.self=http://localhost:1",
+    "tictactoe.cluster.secret=" + ClusterRoutingFilterTest.SECRET
+})
+@AutoConfigureMockMvc
+class ClusterRoutingFilterTest {
+
+    static final String SECRET = "test-cluster-secret-0123";
+
+    // Spring MVC routes all of these to ClusterController (Tomcat also folds "//" and "/../"
+    // before anything sees them; MockMvc doesn't, so those aren't here)
+    private static final String[] PING_PATHS = {
+        "/api/cluster/ping",
+        "/api/%63luster/ping",
+        "/api/cluster;a=b/ping",
+        "/api/%63luster;a=b/ping"
+    };
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Test
+    void nodeEndpointsNeedTheSecretHoweverThePathIsSpelled() throws Exception {
+        for (String path : PING_PATHS) {
+            mvc.perform(get(URI.create(path))).andExpect(status().isForbidden());
+            mvc.perform(get(URI.create(path)).header(Cluster.SECRET_HEADER, "wrong-secret-00000000"))
+                    .andExpect(status().isForbidden());
+        }
+        mvc.perform(post(URI.create("/api/%63luster/users/stats?userId=42&outcome=win")))
+                .andExpect(status().isForbidden());
+        mvc.perform(post(URI.create("/api/cluster;a=b/users/release?userId=42")))
+                .andExpect(status().isForbidden());
+        mvc.perform(get(URI.create("/api/%63luster/ping")).header(Cluster.SECRET_HEADER, SECRET))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void theControllerChecksTheSecretWithoutTheFilter() throws Exception {
+        MockMvc unfiltered = MockMvcBuilders.webAppContextSetup(context).build();
+        for (String path : PING_PATHS) {
+            unfiltered.perform(get(URI.create(path))).andExpect(status().isForbidden());
+        }
+        unfiltered.perform(get("/api/cluster/ping").header(Cluster.SECRET_HEADER, SECRET))
+                .andExpect(status().isOk());
+        // Everything else is untouched
+        unfiltered.perform(get("/api/leaderboard")).andExpect(status().isOk());
+    }
+}
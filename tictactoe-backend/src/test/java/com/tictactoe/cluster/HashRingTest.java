@@ -0,0 +1,72 @@
+package com.tictactoe.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> NODES = List.of(
+            "http://node-a:8080", "http://node-b:8080", "http://node-c:8080", "http://node-d:8080");
+    private static final int KEYS = 100_000;
+
+    @Test
+    void spreadsKeysEvenly() {
+        HashRing ring = new HashRing(NODES, new boolean[] {true, true, true, true}, 128, 1);
+        int[] counts = new int[NODES.size()];
+        for (long key = 1; key <= KEYS; key++) {
+            counts[ring.owner(key)]++;
+        }
+        for (int count : counts) {
+            // A quarter each, give or take what 128 points a node allow
+            assertTrue(Math.abs(count - KEYS / 4) < KEYS / 4 * 0.25, "count " + count);
+        }
+    }
+
+    @Test
+    void aLeavingNodeOnlyMovesItsOwnKeys() {
+        HashRing before = new HashRing(NODES, new boolean[] {true, true, true, true}, 128, 1);
+        HashRing after = new HashRing(NODES, new boolean[] {true, false, true, true}, 128, 2);
+        for (long key = 1; key <= KEYS; key++) {
+            int owner = before.owner(key);
+            if (owner != 1) {
+                assertEquals(owner, after.owner(key), "key " + key);
+            } else {
+                assertTrue(after.owner(key) != 1);
+            }
+        }
+    }
+
+    @Test
+    void aJoiningNodeTakesAboutItsShareFromTheOthers() {
+        HashRing before = new HashRing(NODES, new boolean[] {true, true, true, false}, 128, 1);
+        HashRing after = new HashRing(NODES, new boolean[] {true, true, true, true}, 128, 2);
+        int moved = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            int owner = after.owner(key);
+            if (owner != before.owner(key)) {
+                assertEquals(3, owner, "keys only move to the new node");
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.25, "moved " + moved);
+    }
+
+    @Test
+    void sameMembersSameOwners() {
+        HashRing a = new HashRing(NODES, new boolean[] {true, true, false, true}, 64, 1);
+        HashRing b = new HashRing(NODES, new boolean[] {true, true, false, true}, 64, 7);
+        for (long key = 1; key <= 1000; key++) {
+            assertEquals(a.owner(key), b.owner(key));
+        }
+    }
+
+    @Test
+    void noLiveNodeOwnsNothing() {
+        HashRing ring = new HashRing(NODES, new boolean[4], 128, 1);
+        assertEquals(-1, ring.owner(42));
+    }
+}
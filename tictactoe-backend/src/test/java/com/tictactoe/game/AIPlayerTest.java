@@ -0,0 +1,94 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class AIPlayerTest {
+
+    // X in the corners 0 and 8, O in the centre; O to move must not lose
+    private static final int X = 1 << 0 | 1 << 8;
+    private static final int O = 1 << 4;
+
+    @Test
+    void packedDecisionsRoundTrip() {
+        long packed = AIDecision.pack(7, AIDecision.Source.TABLE, PerfectPlayTable.Value.LOSS, 5, 123_456L);
+        AIDecision decision = AIDecision.unpack(packed);
+        assertEquals(7, AIDecision.move(packed));
+        assertEquals(7, decision.getMove());
+        assertEquals(AIDecision.Source.TABLE, decision.getSource());
+        assertEquals(PerfectPlayTable.Value.LOSS, decision.getValue());
+        assertEquals(5, decision.getDistance());
+        assertEquals(123_456L, decision.getNodes());
+
+        AIDecision unknown = AIDecision.unpack(AIDecision.pack(0, AIDecision.Source.RANDOM));
+        assertNull(unknown.getValue());
+        assertEquals(-1, unknown.getDistance());
+        assertEquals(AIDecision.Source.RANDOM, unknown.getSource());
+        assertNull(AIDecision.unpack(AIDecision.NONE));
+        assertEquals(-1, AIDecision.move(AIDecision.NONE));
+    }
+
+    @Test
+    void hardPlaysFromTheTableWithItsValue() {
+        AIDecision decision = AIPlayer.decide(O, X, Game.AIDifficulty.HARD);
+        assertEquals(AIDecision.Source.TABLE, decision.getSource());
+        assertEquals(PerfectPlayTable.Value.DRAW, decision.getValue());
+        PerfectPlayTable.Entry entry = PerfectPlayTable.get().bestMove(O, X);
+        assertEquals(entry.move, decision.getMove());
+        assertEquals(entry.distance, decision.getDistance());
+        // Only an edge holds the draw; a corner loses to a fork
+        assertEquals(1, Integer.bitCount(1 << decision.getMove() & (1 << 1 | 1 << 3 | 1 << 5 | 1 << 7)));
+
+        assertEquals(AIDecision.NONE, AIPlayer.choose(0b111_000_101, 0b000_111_010, Game.AIDifficulty.HARD,
+                new SplittableRandom(1), MonteCarloSearch.Budget.DEFAULT));
+        assertNull(AIPlayer.decide(0b101_010_101, 0b010_101_010, Game.AIDifficulty.EASY));
+    }
+
+    @Test
+    void chooseAndDecideAgreeForTheSameRandomness() {
+        for (Game.AIDifficulty difficulty : new Game.AIDifficulty[] {
+                Game.AIDifficulty.EASY, Game.AIDifficulty.MEDIUM, Game.AIDifficulty.HARD }) {
+            for (long seed = 0; seed < 50; seed++) {
+                long packed = AIPlayer.choose(O, X, difficulty, new SplittableRandom(seed),
+                        MonteCarloSearch.Budget.DEFAULT);
+                AIDecision decision = AIPlayer.decide(O, X, difficulty, new SplittableRandom(seed));
+                assertEquals(decision.getMove(), AIDecision.move(packed), difficulty + " seed " + seed);
+                assertEquals(decision.getSource(), AIDecision.unpack(packed).getSource());
+                assertEquals(decision.getMove(), AIPlayer.getNextMove(O, X, difficulty, new SplittableRandom(seed)));
+            }
+        }
+    }
+
+    @Test
+    void chooseDoesNotAllocate() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        SplittableRandom rng = new SplittableRandom(42);
+        long sink = 0;
+        for (int i = 0; i < 20_000; i++) { // warm up, and load the table
+            sink += play(rng);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 20_000; i++) {
+            sink += play(rng);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue(allocated < 20_000, allocated + " bytes for 60000 decisions");
+        assertTrue(sink != 0);
+    }
+
+    private static long play(SplittableRandom rng) {
+        return AIPlayer.choose(O, X, Game.AIDifficulty.HARD, rng, MonteCarloSearch.Budget.DEFAULT)
+                + AIPlayer.choose(O, X, Game.AIDifficulty.MEDIUM, rng, MonteCarloSearch.Budget.DEFAULT)
+                + AIPlayer.chooseWithOdds(O, X, 0.5, rng);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.ai.delay-ms=" + AITurnSchedulerTest.DELAY_MS
+})
+@AutoConfigureMockMvc
+class AITurnSchedulerTest {
+
+    static final long DELAY_MS = 500;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void runsTheTurnAfterTheDelayOnItsOwnThread() throws Exception {
+        AITurnScheduler scheduler = new AITurnScheduler(DELAY_MS, 1, new GameMetrics());
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<Thread> ran = scheduler.schedule(Thread::currentThread);
+            assertFalse(ran.isDone()); // the caller doesn't wait for it
+            Thread thread = ran.get(5, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(DELAY_MS));
+            assertNotEquals(Thread.currentThread(), thread);
+            assertTrue(thread.getName().startsWith("ai-turn-"), thread.getName());
+            assertTrue(thread.isDaemon());
+
+            // Batched moves skip the delay
+            assertSame(thread, scheduler.schedule(Thread::currentThread, 0).get(DELAY_MS / 2, TimeUnit.MILLISECONDS));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void aFailingTurnFailsItsFuture() throws Exception {
+        AITurnScheduler scheduler = new AITurnScheduler(0, 1, new GameMetrics());
+        try {
+            CompletableFuture<Object> turn = scheduler.schedule(() -> {
+                throw new IllegalStateException("no move");
+            });
+            ExecutionException e = assertThrows(ExecutionException.class, () -> turn.get(5, TimeUnit.SECONDS));
+            assertEquals("no move", e.getCause().getMessage());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void aMoveAgainstTheAIIsAnsweredAsynchronously() throws Exception {
+        long userId = json.readTree(mvc.perform(post("/api/users/login").param("username", "async-ai-turn"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        long start = System.nanoTime();
+        MvcResult started = mvc.perform(post("/api/move").param("index", "4").param("userId", Long.toString(userId))
+                        .param("mode", "SINGLE_PLAYER").param("difficulty", "HARD"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The request thread is free before the AI has "thought"
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(DELAY_MS));
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.board[4]").value("X"))
+                .andExpect(jsonPath("$.currentPlayer").value("X"))
+                .andExpect(jsonPath("$.lastAiMove.source").value("TABLE"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(DELAY_MS));
+    }
+}
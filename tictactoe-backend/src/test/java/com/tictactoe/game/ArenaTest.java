@@ -0,0 +1,92 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.admin.token=" + UserAdminControllerTest.TOKEN,
+    "tictactoe.arena.max-games=20000"
+})
+@AutoConfigureMockMvc
+class ArenaTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void aSeedGivesTheSameResultOnAnyNumberOfThreads() {
+        Arena.Contestant easy = Arena.Contestant.parse("easy");
+        Arena.Contestant smart = Arena.Contestant.parse("SMART:0.5");
+        Arena.Result one = Arena.run(easy, smart, 3 * Arena.BLOCK_SIZE + 100, 42, 1);
+        Arena.Result four = Arena.run(easy, smart, 3 * Arena.BLOCK_SIZE + 100, 42, 4);
+        assertEquals(4, four.threads);
+        assertEquals(one.winsA, four.winsA);
+        assertEquals(one.winsB, four.winsB);
+        assertEquals(one.draws, four.draws);
+        assertEquals(one.averageLength, four.averageLength);
+
+        // Every game counted once, A playing X in half of them
+        assertEquals(one.games, one.winsA + one.winsB + one.draws);
+        assertEquals(one.games / 2, one.aAsX.winsA + one.aAsX.winsB + one.aAsX.draws);
+        assertEquals(one.winsA, one.aAsX.winsA + one.aAsO.winsA);
+        assertTrue(one.averageLength >= 5 && one.averageLength <= 9);
+        assertTrue(one.eloDiff < one.eloHigh && one.eloDiff > one.eloLow);
+        assertTrue(one.eloDiff < 0, "EASY should lose to better odds: " + one.eloDiff);
+    }
+
+    @Test
+    void perfectPlayNeverLoses() {
+        Arena.Result hard = Arena.run(Arena.Contestant.parse("HARD"), Arena.Contestant.parse("HARD"), 2000, 1, 2);
+        assertEquals(2000, hard.draws);
+        assertEquals(0, hard.eloDiff, 1e-9); // draws only: level, and no spread either
+        assertEquals(hard.eloLow, hard.eloHigh, 1e-9);
+
+        Arena.Result rout = Arena.run(Arena.Contestant.parse("HARD"), Arena.Contestant.parse("EASY"), 2000, 1, 2);
+        assertEquals(0, rout.winsB);
+        assertTrue(rout.winsA > 0);
+    }
+
+    @Test
+    void rejectsUnknownContestants() {
+        for (String spec : new String[] {"GENIUS", "SMART:1.5", "SMART:x", "MCTS:0", "MCTS:many"}) {
+            assertThrows(IllegalArgumentException.class, () -> Arena.Contestant.parse(spec), spec);
+        }
+        assertEquals("MCTS:50", Arena.Contestant.parse("mcts:50").getName());
+        assertThrows(IllegalArgumentException.class,
+                () -> Arena.run(Arena.Contestant.parse("EASY"), Arena.Contestant.parse("EASY"), 0, 1, 1));
+    }
+
+    @Test
+    void theEndpointIsForAdminsAndCapped() throws Exception {
+        mvc.perform(post("/api/admin/arena").param("a", "EASY").param("b", "MEDIUM").param("games", "10"))
+                .andExpect(status().isUnauthorized());
+        String bearer = "Bearer " + UserAdminControllerTest.TOKEN;
+        mvc.perform(post("/api/admin/arena").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .param("a", "EASY").param("b", "MEDIUM").param("games", "20001"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/admin/arena").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .param("a", "EASY").param("b", "NOBODY"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/admin/arena").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .param("a", "HARD").param("b", "MCTS:20").param("games", "100").param("seed", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.games").value(100))
+                .andExpect(jsonPath("$.seed").value(7))
+                .andExpect(jsonPath("$.winsB").value(0));
+    }
+}
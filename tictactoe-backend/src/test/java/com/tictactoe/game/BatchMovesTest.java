@@ -0,0 +1,145 @@
+package com.tictactoe.game;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.ai.delay-ms=10000" // batches skip it
+})
+@AutoConfigureMockMvc
+class BatchMovesTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void rejectedMovesGetTheirOwnErrorAndTheRestArePlayed() throws Exception {
+        String userId = login("batch-two-player");
+        // X 0, O 4, X 4 (taken), X 1, O 3, X 2 wins, O 5 (over)
+        batch(userId, "TWO_PLAYER", null, moves(null, 0, 4, 4, 1, 3, 2, 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(7)))
+                .andExpect(jsonPath("$.results[0].ok").value(true))
+                .andExpect(jsonPath("$.results[1].ok").value(true))
+                .andExpect(jsonPath("$.results[2].ok").value(false))
+                .andExpect(jsonPath("$.results[2].index").value(4))
+                .andExpect(jsonPath("$.results[2].error").value(containsString("taken")))
+                .andExpect(jsonPath("$.results[3].ok").value(true))
+                .andExpect(jsonPath("$.results[5].winner").value("X"))
+                .andExpect(jsonPath("$.results[6].ok").value(false))
+                .andExpect(jsonPath("$.results[6].error").value(notNullValue()))
+                .andExpect(jsonPath("$.games", hasSize(1)))
+                .andExpect(jsonPath("$.games[0].winner").value("X"))
+                .andExpect(jsonPath("$.games[0].moveCount").value(5));
+
+        // The win counted once, like a single /api/move
+        mvc.perform(post("/api/users/login").param("username", "batch-two-player"))
+                .andExpect(jsonPath("$.totalWins").value(1));
+    }
+
+    @Test
+    void theAIRepliesToEachMoveWithoutItsDelay() throws Exception {
+        String userId = login("batch-single-player");
+        long start = System.nanoTime();
+        batch(userId, "SINGLE_PLAYER", "HARD", moves(null, 4))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].ok").value(true))
+                .andExpect(jsonPath("$.results[0].aiMove").value(notNullValue()))
+                .andExpect(jsonPath("$.games[0].moveCount").value(2))
+                .andExpect(jsonPath("$.games[0].currentPlayer").value("X"))
+                .andExpect(jsonPath("$.games[0].lastAiMove.source").value("TABLE"));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 5000, "the AI's delay was applied");
+    }
+
+    @Test
+    void movesInSeveralGamesAnswerEveryGame() throws Exception {
+        String x = login("batch-registry-x");
+        String o = login("batch-registry-o");
+        String gameId = json.readTree(mvc.perform(post("/api/games").param("userId", x)
+                        .param("mode", "TWO_PLAYER").param("opponentId", o))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("gameId").asText();
+        List<Map<String, Object>> moves = moves(null, 0);
+        moves.addAll(moves(Long.valueOf(gameId), 8));
+        moves.addAll(moves(999_999_999L, 1)); // no such game
+
+        batch(x, "TWO_PLAYER", null, moves)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].ok").value(true))
+                .andExpect(jsonPath("$.results[1].ok").value(true))
+                .andExpect(jsonPath("$.results[1].gameId").value(Long.valueOf(gameId)))
+                .andExpect(jsonPath("$.results[2].ok").value(false))
+                .andExpect(jsonPath("$.results[2].error").value(containsString("No game")))
+                .andExpect(jsonPath("$.games", hasSize(2)))
+                .andExpect(jsonPath("$.games[0].board[0]").value("X"))
+                .andExpect(jsonPath("$.games[1].gameId").value(Long.valueOf(gameId)))
+                .andExpect(jsonPath("$.games[1].board[8]").value("X"));
+    }
+
+    @Test
+    void aBatchHasOneToAThousandMoves() throws Exception {
+        String userId = login("batch-size");
+        batch(userId, null, null, List.of()).andExpect(status().isBadRequest());
+        List<Map<String, Object>> tooMany = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            tooMany.addAll(moves(null, i % 9));
+        }
+        batch(userId, null, null, tooMany).andExpect(status().isBadRequest());
+    }
+
+    private static List<Map<String, Object>> moves(Long gameId, int... cells) {
+        List<Map<String, Object>> moves = new ArrayList<>();
+        for (int cell : cells) {
+            moves.add(gameId == null ? Map.of("index", cell) : Map.of("index", cell, "gameId", gameId));
+        }
+        return moves;
+    }
+
+    // Answered with a future, unless the batch is refused up front
+    private ResultActions batch(String userId, String mode, String difficulty, List<Map<String, Object>> moves)
+            throws Exception {
+        MockHttpServletRequestBuilder request = post("/api/moves").param("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON).content(json.writeValueAsString(moves));
+        if (mode != null) {
+            request.param("mode", mode);
+        }
+        if (difficulty != null) {
+            request.param("difficulty", difficulty);
+        }
+        ResultActions actions = mvc.perform(request);
+        MvcResult started = actions.andReturn();
+        return started.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(started)) : actions;
+    }
+
+    private String login(String username) throws Exception {
+        return json.readTree(mvc.perform(post("/api/users/login").param("username", username))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+    }
+}
@@ -0,0 +1,65 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BitBoardTest {
+
+    @Test
+    void lineMasksMatchWinningLines() {
+        assertEquals(Game.WINNING_LINES.length, BitBoard.LINE_MASKS.length);
+        for (int i = 0; i < Game.WINNING_LINES.length; i++) {
+            int[] line = Game.WINNING_LINES[i];
+            assertEquals((1 << line[0]) | (1 << line[1]) | (1 << line[2]), BitBoard.LINE_MASKS[i]);
+        }
+    }
+
+    @Test
+    void hasWinAgreesWithTheLinesForEveryMask() {
+        for (int mask = 0; mask <= BitBoard.FULL; mask++) {
+            boolean expected = false;
+            int firstLine = -1;
+            for (int i = 0; i < Game.WINNING_LINES.length; i++) {
+                int[] line = Game.WINNING_LINES[i];
+                if (BitBoard.isSet(mask, line[0]) && BitBoard.isSet(mask, line[1]) && BitBoard.isSet(mask, line[2])) {
+                    expected = true;
+                    firstLine = firstLine == -1 ? i : firstLine;
+                }
+            }
+            assertEquals(expected, BitBoard.hasWin(mask), "mask " + mask);
+            assertEquals(firstLine, BitBoard.winningLineIndex(mask), "mask " + mask);
+        }
+    }
+
+    @Test
+    void emptyAndFull() {
+        int x = 0b000_010_001;
+        int o = 0b100_000_010;
+        assertEquals(BitBoard.FULL & ~(x | o), BitBoard.empty(x, o));
+        assertFalse(BitBoard.isFull(x, o));
+        assertTrue(BitBoard.isFull(0b101_010_101, 0b010_101_010));
+    }
+
+    @Test
+    void nthSetBitWalksTheSetBitsInOrder() {
+        int mask = 0b100_101_010;
+        assertEquals(1, BitBoard.nthSetBit(mask, 0));
+        assertEquals(3, BitBoard.nthSetBit(mask, 1));
+        assertEquals(5, BitBoard.nthSetBit(mask, 2));
+        assertEquals(8, BitBoard.nthSetBit(mask, 3));
+    }
+
+    @Test
+    void arrayConversionRoundTrips() {
+        String[] board = {"X", null, "O", null, "X", null, "O", null, null};
+        int x = BitBoard.maskOf(board, "X");
+        int o = BitBoard.maskOf(board, "O");
+        assertEquals((1 << 0) | (1 << 4), x);
+        assertEquals((1 << 2) | (1 << 6), o);
+        assertArrayEquals(board, BitBoard.toArray(x, o));
+    }
+}
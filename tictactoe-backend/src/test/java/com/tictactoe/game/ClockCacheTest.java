@@ -0,0 +1,62 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class ClockCacheTest {
+
+    @Test
+    void staysWithinCapacity() {
+        ClockCache<Integer, String> cache = new ClockCache<>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals("v999", cache.get(999));
+        assertNull(cache.get(0)); // the oldest went first
+    }
+
+    @Test
+    void aReadEntryGetsASecondChance() {
+        ClockCache<Integer, String> cache = new ClockCache<>(3);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        cache.get(1);
+        cache.put(4, "d"); // 1 is spared once, 2 goes
+        assertEquals("a", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("c", cache.get(3));
+        assertEquals("d", cache.get(4));
+    }
+
+    @Test
+    void replacingKeepsOneEntry() {
+        ClockCache<Integer, String> cache = new ClockCache<>(2);
+        cache.put(1, "a");
+        cache.put(1, "b");
+        assertEquals(1, cache.size());
+        assertEquals("b", cache.get(1));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        ClockCache<Integer, String> cache = new ClockCache<>(2);
+        cache.put(1, "a");
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void zeroCapacityCachesNothing() {
+        ClockCache<Integer, String> cache = new ClockCache<>(0);
+        cache.put(1, "a");
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1));
+    }
+}
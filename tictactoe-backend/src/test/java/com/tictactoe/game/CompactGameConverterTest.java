@@ -0,0 +1,171 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false"
+})
+@AutoConfigureMockMvc
+class CompactGameConverterTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void encodesEveryFieldOfAClassicGame() throws IOException {
+        Game game = new Game();
+        game.setMode(Game.GameMode.SINGLE_PLAYER);
+        game.setDifficulty(Game.AIDifficulty.HARD);
+        game.setPlayerOId(0x0102030405060708L);
+        for (int cell : new int[] {0, 4, 1, 8, 2}) {
+            game.makeMove(cell);
+        }
+        byte[] bytes = CompactGameConverter.encode(game.snapshot());
+        assertEquals(1 + 8 + 2 + 1 + 2 + 1 + 3 * 2 + 8, bytes.length);
+
+        Decoded d = decode(bytes);
+        assertEquals(game.getVersion(), d.version);
+        assertEquals(3, d.size);
+        assertEquals(3, d.winLength);
+        assertEquals(1 << 1 | 1 << 3 | 2 << 4 | 1 << 6, d.flags); // X won, single player, HARD, O joined
+        assertArrayEquals(game.getBoard(), d.board);
+        assertEquals(List.of(0, 1, 2), d.winningLine);
+        assertEquals(0x0102030405060708L, d.playerOId);
+    }
+
+    @Test
+    void encodesABigBoardFiveCellsToAByte() throws IOException {
+        Game game = new Game();
+        game.resize(19, 5);
+        game.makeMove(0);
+        game.makeMove(360);
+        game.makeMove(181);
+        byte[] bytes = CompactGameConverter.encode(game.snapshot());
+        assertEquals(1 + 8 + 2 + 1 + 73 + 1, bytes.length); // 361 cells in 73 bytes
+
+        Decoded d = decode(bytes);
+        assertEquals(19, d.size);
+        assertEquals(5, d.winLength);
+        assertEquals(1 | 1 << 4, d.flags); // O to move, MEDIUM
+        assertArrayEquals(game.getBoard(), d.board);
+    }
+
+    @Test
+    void servesTheCompactFormOnlyWhenAskedFor() throws Exception {
+        String userId = login("compact-form");
+        mvc.perform(get("/api/game").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY)
+                        .contains(HttpHeaders.ACCEPT))); // caches keep the two forms apart
+
+        byte[] bytes = mvc.perform(get("/api/game").param("userId", userId)
+                        .accept(CompactGameConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CompactGameConverter.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(9, decode(bytes).board.length);
+    }
+
+    @Test
+    void anUnchangedGameIsAnsweredNotModified() throws Exception {
+        String userId = login("etag-poller");
+        String etag = mvc.perform(get("/api/game").param("userId", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        MvcResult notModified = mvc.perform(get("/api/game").param("userId", userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals(0, notModified.getResponse().getContentAsByteArray().length);
+
+        // A move moves the version, so the same tag no longer matches
+        MvcResult started = mvc.perform(post("/api/move").param("index", "4").param("userId", userId)).andReturn();
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        String newEtag = mvc.perform(get("/api/game").param("userId", userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+        mvc.perform(get("/api/game").param("userId", userId).header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String login(String username) throws Exception {
+        return json.readTree(mvc.perform(post("/api/users/login").param("username", username))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+    }
+
+    private static final class Decoded {
+        long version;
+        int size;
+        int winLength;
+        int flags;
+        String[] board;
+        List<Integer> winningLine = new ArrayList<>();
+        long playerOId;
+    }
+
+    // The layout documented on CompactGameConverter
+    private static Decoded decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        assertEquals(CompactGameConverter.FORMAT, in.readByte());
+        Decoded d = new Decoded();
+        d.version = in.readLong();
+        d.size = in.readUnsignedByte();
+        d.winLength = in.readUnsignedByte();
+        d.flags = in.readUnsignedByte();
+        d.board = new String[d.size * d.size];
+        for (int first = 0; first < d.board.length; first += 5) {
+            int packed = in.readUnsignedByte();
+            for (int cell = first; cell < Math.min(first + 5, d.board.length); cell++) {
+                int value = packed % 3;
+                packed /= 3;
+                d.board[cell] = value == 1 ? "X" : value == 2 ? "O" : null;
+            }
+        }
+        int lineLength = in.readUnsignedByte();
+        for (int i = 0; i < lineLength; i++) {
+            d.winningLine.add(in.readUnsignedShort());
+        }
+        if ((d.flags & 1 << 6) != 0) {
+            d.playerOId = in.readLong();
+        }
+        assertEquals((d.flags & 1 << 7) != 0 ? 16 : 0, in.available());
+        return d;
+    }
+}
@@ -0,0 +1,127 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false"
+})
+@AutoConfigureMockMvc
+class ConcurrentMovesTest {
+
+    private static final int THREADS = 9;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void racingMovesOnOneGameApplyOneAtATime() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 200; round++) {
+                Game game = new Game();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> moves = new ArrayList<>();
+                for (int cell = 0; cell < 9; cell++) {
+                    int index = cell;
+                    moves.add(pool.submit(() -> {
+                        start.await();
+                        return game.makeMove(index);
+                    }));
+                }
+                start.countDown();
+                int played = 0;
+                for (Future<Boolean> move : moves) {
+                    played += move.get() ? 1 : 0;
+                }
+                // Every accepted move is on the board, with X and O alternating
+                assertEquals(played, game.getMoveCount());
+                assertEquals(played, Integer.bitCount(game.xBits() | game.oBits()));
+                assertEquals((played + 1) / 2, Integer.bitCount(game.xBits()));
+                assertEquals(played, game.getVersion());
+                assertNotNull(game.getWinner());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void aFinishedGameIsCountedOnceWhateverTheRace() throws Exception {
+        String userId = json.readTree(mvc.perform(post("/api/users/login").param("username", "racing-moves"))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        int games = 30;
+        try {
+            for (int round = 0; round < games; round++) {
+                mvc.perform(post("/api/restart").param("userId", userId).param("mode", "TWO_PLAYER"));
+                int played = 0;
+                Set<Long> versions = new HashSet<>();
+                boolean over = false;
+                while (!over) {
+                    CountDownLatch start = new CountDownLatch(1);
+                    List<Future<MockHttpServletResponse>> moves = new ArrayList<>();
+                    for (int cell = 0; cell < 9; cell++) {
+                        String index = Integer.toString(cell);
+                        Callable<MockHttpServletResponse> move = () -> {
+                            start.await();
+                            MvcResult started = mvc.perform(post("/api/move").param("index", index)
+                                    .param("userId", userId)).andReturn();
+                            return mvc.perform(asyncDispatch(started)).andReturn().getResponse();
+                        };
+                        moves.add(pool.submit(move));
+                    }
+                    start.countDown();
+                    for (Future<MockHttpServletResponse> move : moves) {
+                        MockHttpServletResponse response = move.get();
+                        JsonNode game = json.readTree(response.getContentAsString());
+                        if (response.getStatus() == 200) {
+                            played++;
+                            assertTrue(versions.add(game.get("version").asLong()), "two moves saw one version");
+                        } else {
+                            assertEquals(400, response.getStatus());
+                            assertNotNull(response.getHeader("X-Move-Rejected"));
+                        }
+                        over |= !game.get("winner").isNull();
+                    }
+                }
+                assertTrue(played >= 5 && played <= 9, played + " moves");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        JsonNode stats = json.readTree(mvc.perform(post("/api/users/login").param("username", "racing-moves"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(games, stats.get("totalWins").asInt() + stats.get("totalLosses").asInt()
+                + stats.get("totalDraws").asInt());
+    }
+}
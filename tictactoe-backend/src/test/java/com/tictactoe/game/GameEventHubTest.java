@@ -0,0 +1,173 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.tictactoe.game.GameEventHub.GameEvent;
+
+class GameEventHubTest {
+
+    private static final long GAME_KEY = 1L;
+
+    private final Game game = new Game();
+    private final List<TestEmitter> emitters = new CopyOnWriteArrayList<>();
+    private GameEventHub hub;
+
+    // Records what it's sent; with a latch, every send waits on it like a client that stopped reading
+    private final class TestEmitter extends SseEmitter {
+        final List<GameEvent> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch unblock;
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CompletableFuture<Boolean> failedHoldingGameLock = new CompletableFuture<>();
+
+        TestEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (unblock != null) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            for (var data : builder.build()) {
+                if (data.getData() instanceof GameEvent event) {
+                    sent.add(event);
+                }
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failedHoldingGameLock.complete(Thread.holdsLock(game));
+            super.completeWithError(ex);
+        }
+    }
+
+    private GameEventHub hub(int bufferSize, int threads, long sendTimeoutMillis, TestEmitter... next) {
+        emitters.addAll(List.of(next));
+        hub = new GameEventHub(bufferSize, 60_000, threads, sendTimeoutMillis) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                return emitters.remove(0);
+            }
+        };
+        return hub;
+    }
+
+    @AfterEach
+    void shutdown() {
+        hub.shutdown();
+    }
+
+    private void subscribe() {
+        synchronized (game) {
+            hub.subscribe(GAME_KEY, game.snapshot());
+        }
+    }
+
+    private void move(int cell) {
+        synchronized (game) {
+            assertTrue(game.makeMove(cell));
+            hub.publish(GAME_KEY, game.snapshot());
+        }
+    }
+
+    @Test
+    void sendsTheStateThenADeltaPerMoveInOrder() {
+        TestEmitter emitter = new TestEmitter(null);
+        hub(32, 2, 5000, emitter);
+        subscribe();
+        int[] cells = {4, 0, 8, 2};
+        for (int cell : cells) {
+            move(cell);
+        }
+        await(() -> emitter.sent.size() == 1 + cells.length);
+
+        assertEquals("state", emitter.sent.get(0).type);
+        for (int i = 1; i <= cells.length; i++) {
+            GameEvent delta = emitter.sent.get(i);
+            assertEquals("delta", delta.type);
+            assertEquals(emitter.sent.get(i - 1).version + 1, delta.version);
+            assertEquals(1, delta.cells.size());
+            assertEquals(cells[i - 1], delta.cells.get(0)[0]);
+            assertEquals(i % 2 == 1 ? "X" : "O", delta.cells.get(0)[1]);
+        }
+    }
+
+    @Test
+    void aSlowSubscriberGetsOneFullStateInsteadOfItsBacklog() throws InterruptedException {
+        CountDownLatch unblock = new CountDownLatch(1);
+        TestEmitter emitter = new TestEmitter(unblock);
+        hub(4, 1, 60_000, emitter);
+        subscribe();
+        assertTrue(emitter.sending.await(5, TimeUnit.SECONDS)); // the first state, blocked
+        for (int cell : new int[] {0, 1, 2, 3, 4, 5, 6}) { // X wins on the last
+            move(cell);
+        }
+        unblock.countDown();
+        long last = game.getVersion();
+        await(() -> !emitter.sent.isEmpty() && emitter.sent.get(emitter.sent.size() - 1).version == last);
+
+        // The first state, then a buffer's worth of deltas replaced by one state, then the rest
+        assertEquals(List.of("state", "state", "delta", "delta"), emitter.sent.stream().map(e -> e.type).toList());
+        for (int i = 1; i < emitter.sent.size(); i++) {
+            assertTrue(emitter.sent.get(i).version > emitter.sent.get(i - 1).version);
+        }
+        assertEquals("X", emitter.sent.get(3).winner);
+        assertFalse(emitter.failedHoldingGameLock.isDone());
+    }
+
+    @Test
+    void aSubscriberStuckInASendIsDroppedWithoutHoldingUpOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        TestEmitter stuck = new TestEmitter(unblock);
+        TestEmitter reading = new TestEmitter(null);
+        hub(32, 1, 100, stuck, reading);
+        subscribe(); // takes the only sender thread, and keeps it
+        await(() -> hub.subscriberCount(GAME_KEY) == 0); // the watchdog dropped it
+        assertFalse(stuck.failedHoldingGameLock.isDone(), "completed by its sender once the send returns");
+
+        subscribe();
+        move(4);
+        await(() -> reading.sent.size() == 2); // a stand-in sender took over
+
+        unblock.countDown();
+        assertFalse(stuck.failedHoldingGameLock.get(5, TimeUnit.SECONDS));
+        assertTrue(stuck.sent.size() <= 1, "nothing after the drop");
+        assertNull(reading.failedHoldingGameLock.getNow(null));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("timed out");
+            }
+            Thread.onSpinWait();
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
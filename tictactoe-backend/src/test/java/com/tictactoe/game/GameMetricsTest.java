@@ -0,0 +1,36 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+class GameMetricsTest {
+
+    @Test
+    void scrapesEverySeriesWithItsLabels() {
+        GameMetrics metrics = new GameMetrics();
+        metrics.gameFinished(GameMode.SINGLE_PLAYER, "O");
+        metrics.gameFinished(GameMode.SINGLE_PLAYER, "O");
+        metrics.gameFinished(GameMode.TWO_PLAYER, "Draw");
+        metrics.gameFinished(GameMode.TWO_PLAYER, "nobody"); // not an outcome: ignored
+        metrics.move(GameMode.SINGLE_PLAYER, AIDifficulty.HARD, System.nanoTime());
+        metrics.move(GameMode.TWO_PLAYER, AIDifficulty.HARD, System.nanoTime()); // no difficulty series
+        metrics.aiDecision(AIDifficulty.MEDIUM, AIPlayer.decide(0, 0, AIDifficulty.HARD));
+        metrics.registerGauge("tictactoe_users", "Registered users", () -> 42);
+        metrics.registerCounter("tictactoe_cache_hits_total", "Cache hits", () -> 7);
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("tictactoe_games_finished_total{mode=\"SINGLE_PLAYER\",outcome=\"O\"} 2\n"), text);
+        assertTrue(text.contains("tictactoe_games_finished_total{mode=\"TWO_PLAYER\",outcome=\"Draw\"} 1\n"), text);
+        assertTrue(text.contains("tictactoe_games_finished_total{mode=\"TWO_PLAYER\",outcome=\"X\"} 0\n"), text);
+        assertTrue(text.contains("tictactoe_request_duration_seconds_count{endpoint=\"move\"} 2\n"), text);
+        assertTrue(text.contains("tictactoe_move_duration_seconds_count{difficulty=\"HARD\"} 1\n"), text);
+        assertTrue(text.contains("tictactoe_ai_decision_seconds_count{difficulty=\"MEDIUM\"} 1\n"), text);
+        assertTrue(text.contains("# TYPE tictactoe_users gauge\ntictactoe_users 42\n"), text);
+        assertTrue(text.contains("# TYPE tictactoe_cache_hits_total counter\ntictactoe_cache_hits_total 7\n"), text);
+        assertTrue(text.contains("# TYPE tictactoe_ai_nodes histogram\n"), text);
+    }
+}
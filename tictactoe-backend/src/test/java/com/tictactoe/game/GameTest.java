@@ -0,0 +1,84 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+class GameTest {
+
+    @Test
+    void aPackedGameUnpacksToTheSamePosition() {
+        Game game = new Game();
+        game.setMode(GameMode.SINGLE_PLAYER);
+        game.setDifficulty(AIDifficulty.MCTS);
+        for (int cell : new int[] {4, 0, 8}) {
+            assertTrue(game.makeMove(cell));
+        }
+        long packed = game.pack();
+        assertTrue(Game.canUnpack(packed));
+        Game back = Game.unpack(packed, game.getVersion(), 77L);
+        assertArrayEquals(game.getBoard(), back.getBoard());
+        assertEquals("O", back.getCurrentPlayer());
+        assertNull(back.getWinner());
+        assertEquals(GameMode.SINGLE_PLAYER, back.getMode());
+        assertEquals(AIDifficulty.MCTS, back.getDifficulty());
+        assertEquals(game.getVersion(), back.getVersion());
+        assertEquals(77L, back.getPlayerOId());
+        assertEquals(0, back.getRedoCount());
+        assertFalse(back.undo()); // the moves aren't packed, only the position
+        assertTrue(back.makeMove(2));
+
+        // A finished game keeps its result and winning line
+        for (int cell : new int[] {1, 2}) {
+            assertTrue(game.makeMove(cell));
+        }
+        assertTrue(game.makeMove(5) && game.makeMove(6));
+        assertEquals("X", game.getWinner());
+        Game won = Game.unpack(game.pack(), game.getVersion(), null);
+        assertEquals("X", won.getWinner());
+        assertEquals(game.getWinningLine(), won.getWinningLine());
+
+        Game draw = new Game();
+        for (int cell : new int[] {0, 1, 2, 4, 3, 5, 7, 6, 8}) {
+            assertTrue(draw.makeMove(cell));
+        }
+        assertEquals("Draw", Game.unpack(draw.pack(), draw.getVersion(), null).getWinner());
+    }
+
+    @Test
+    void aBiggerBoardComesBackRestarted() {
+        Game game = new Game();
+        game.resize(5, 4);
+        assertTrue(game.makeMove(12));
+        long packed = game.pack();
+        assertTrue(Game.canUnpack(packed));
+        Game back = Game.unpack(packed, game.getVersion(), null);
+        assertEquals(5, back.getBoardSize());
+        assertEquals(4, back.getWinLength());
+        assertEquals(0, back.getMoveCount());
+        assertEquals("X", back.getCurrentPlayer());
+        assertEquals(game.getVersion() + 1, back.getVersion()); // so clients see the change
+        assertArrayEquals(new String[25], back.getBoard());
+    }
+
+    @Test
+    void refusesWhatPackCouldNotHaveMade() {
+        long classic = new Game().pack();
+        assertTrue(Game.canUnpack(classic));
+        assertFalse(Game.canUnpack(classic | 1L << 35));                 // bits past the layout
+        assertFalse(Game.canUnpack(classic | 1 | 1 << 9));               // a cell both X and O
+        assertFalse(Game.canUnpack(classic | 3L << 21));                 // no such mode
+        long big = 5L << 25 | 4L << 30;
+        assertTrue(Game.canUnpack(big));
+        assertFalse(Game.canUnpack(big | 1));                            // cells on a big board
+        assertFalse(Game.canUnpack(2L << 25 | 2L << 30));                // too small
+        assertFalse(Game.canUnpack(5L << 25 | 6L << 30));                // longer than the board
+    }
+}
@@ -0,0 +1,147 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class GridSearchTest {
+
+    @Test
+    void findsLinesOfKInEveryDirection() {
+        GridBoard board = board(5, 4, new int[] {4, 8, 12, 16}, new int[] {0, 1, 2});
+        assertArrayEquals(new int[] {4, 8, 12, 16}, board.winningLineAt(12)); // anti-diagonal
+        assertTrue(board.isWinAt(16));
+        assertFalse(board.isWinAt(1)); // three of O
+        assertNull(board.winningLineAt(24));
+
+        board = board(5, 4, new int[] {1, 6, 11, 16}, new int[] {});
+        assertArrayEquals(new int[] {1, 6, 11, 16}, board.winningLineAt(6)); // column
+        // Rows don't wrap around the edge
+        assertFalse(board(5, 4, new int[] {3, 4, 5, 6}, new int[] {}).isWinAt(4));
+
+        assertThrows(IllegalArgumentException.class, () -> new GridBoard(GridBoard.MAX_SIZE + 1, 5));
+        assertThrows(IllegalArgumentException.class, () -> new GridBoard(4, 5));
+    }
+
+    @Test
+    void aGameOnABiggerBoardIsWonWithKInARow() {
+        Game game = new Game();
+        game.resize(4, 4);
+        for (int cell : new int[] {0, 4, 1, 5, 2, 6}) {
+            assertTrue(game.makeMove(cell));
+        }
+        assertNull(game.getWinner());
+        assertFalse(game.makeMove(16)); // off the board
+        assertTrue(game.makeMove(3));
+        assertEquals("X", game.getWinner());
+        assertEquals(List.of(0, 1, 2, 3), game.getWinningLine());
+        assertEquals(16, game.getBoard().length);
+        assertThrows(IllegalArgumentException.class, () -> game.resize(GridBoard.MAX_SIZE + 1, 5));
+    }
+
+    @Test
+    void takesAWinAndBlocksALoss() {
+        // X has three of row 2 on 5x5 with 4 in a row; 13 completes it (9 is on the row above)
+        int[] x = {10, 11, 12};
+        int[] o = {0, 1, 5};
+        GridSearch.Result win = new GridSearch(board(5, 4, x, o), 1000).search(GridBoard.X);
+        assertEquals(13, win.move);
+        assertTrue(win.isForcedWin());
+
+        int[] xToBlock = {10, 11, 12, 24};
+        GridSearch.Result block = new GridSearch(board(5, 4, xToBlock, o), 1000).search(GridBoard.O);
+        assertEquals(13, block.move);
+        assertFalse(block.isForcedWin());
+    }
+
+    @Test
+    void seesAForcedWinSeveralPliesAhead() {
+        // Two of X in the middle of an empty row of 6x6: an open three next wins whatever O does
+        GridSearch.Result result = new GridSearch(board(6, 4, new int[] {14, 15}, new int[] {0, 35}), 5000)
+                .search(GridBoard.X);
+        assertTrue(result.isForcedWin(), "score " + result.score);
+        assertTrue(result.move == 13 || result.move == 16, "move " + result.move);
+        assertTrue(result.depth >= 3);
+        assertTrue(result.nodes > 0);
+    }
+
+    @Test
+    void theClassicBoardIsADraw() {
+        GridSearch.Result result = new GridSearch(new GridBoard(3, 3), 10_000).search(GridBoard.X);
+        assertEquals(9, result.depth); // searched to the end
+        assertEquals(0, result.score);
+    }
+
+    @Test
+    void aSpentBudgetStillGivesALegalMove() {
+        GridBoard board = board(15, 5, new int[] {112}, new int[] {});
+        GridSearch.Result result = new GridSearch(board, 0).search(GridBoard.O);
+        assertEquals(1, result.depth);
+        assertTrue(board.isEmpty(result.move));
+        assertEquals(7 * 15 + 7, new GridSearch(new GridBoard(15, 5), 0).heuristicMove(GridBoard.X));
+    }
+
+    @Test
+    void theParallelRootSearchAgreesWithTheSequentialOne() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Small enough to search to the end, where both must find the same value
+            int[][][] positions = {
+                {{0, 1, 6, 11}, {2, 5, 9, 15}},
+                {{5, 10, 3}, {6, 9, 0}},
+                {{0, 1, 2}, {4, 5, 6}},
+            };
+            for (int[][] position : positions) {
+                byte player = position[0].length == position[1].length ? GridBoard.X : GridBoard.O;
+                GridSearch.Result sequential = new GridSearch(board(4, 4, position[0], position[1]), 60_000)
+                        .search(player);
+                GridBoard board = board(4, 4, position[0], position[1]);
+                GridSearch.Result parallel = new GridSearch(board, 60_000).search(player, pool);
+                assertEquals(sequential.score, parallel.score, List.of(position[0], position[1]).toString());
+                assertEquals(sequential.depth, parallel.depth);
+                assertTrue(board.isEmpty(parallel.move));
+                assertEquals(board(4, 4, position[0], position[1]).moveCount(), board.moveCount()); // left as it was
+            }
+
+            // The workers' nodes are counted too
+            GridSearch.Result win = new GridSearch(board(5, 4, new int[] {10, 11, 12}, new int[] {0, 1, 5}), 1000)
+                    .search(GridBoard.X, pool);
+            assertEquals(13, win.move);
+            assertTrue(win.isForcedWin());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void onlyTheConfiguredDifficultiesSearchInParallel() {
+        AISearchConfig config = new AISearchConfig(500, 2, List.of(Game.AIDifficulty.HARD), 100, 0, List.of());
+        try {
+            assertEquals(2, config.poolFor(Game.AIDifficulty.HARD).getParallelism());
+            assertNull(config.poolFor(Game.AIDifficulty.MEDIUM));
+        } finally {
+            config.shutdown();
+        }
+        AISearchConfig sequential = new AISearchConfig(500, 1, List.of(Game.AIDifficulty.HARD), 100, 0, List.of());
+        assertNull(sequential.poolFor(Game.AIDifficulty.HARD)); // one thread: no pool at all
+    }
+
+    static GridBoard board(int size, int winLength, int[] x, int[] o) {
+        GridBoard board = new GridBoard(size, winLength);
+        for (int cell : x) {
+            board.play(cell, GridBoard.X);
+        }
+        for (int cell : o) {
+            board.play(cell, GridBoard.O);
+        }
+        return board;
+    }
+}
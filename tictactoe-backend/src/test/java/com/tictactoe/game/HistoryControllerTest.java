@@ -0,0 +1,76 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.admin.token=" + UserAdminControllerTest.TOKEN
+})
+@AutoConfigureMockMvc
+class HistoryControllerTest {
+
+    private static final long PLAYER = 4242L;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private GameArchive archive;
+
+    @Test
+    void theExportNeedsTheAdminToken() throws Exception {
+        archiveAWin();
+        mvc.perform(get("/api/admin/history")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/history")).andExpect(status().isNotFound());
+
+        MvcResult started = mvc.perform(get("/api/admin/history").param("userId", Long.toString(PLAYER))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + UserAdminControllerTest.TOKEN))
+                .andReturn();
+        String lines = mvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(lines.contains("\"playerXId\":" + PLAYER), lines);
+        assertTrue(lines.contains("\"moves\":[0,3,1,4,2]"), lines);
+        assertTrue(lines.contains("\"winner\":\"X\""), lines);
+    }
+
+    @Test
+    void replayRebuildsAPositionWithoutTheToken() throws Exception {
+        long historyId = archiveAWin();
+        mvc.perform(get("/api/history/replay").param("historyId", Long.toString(historyId)).param("ply", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.board[0]").value("X"))
+                .andExpect(jsonPath("$.board[3]").value("O"))
+                .andExpect(jsonPath("$.board[1]").doesNotExist());
+        mvc.perform(get("/api/history/replay").param("historyId", Long.toString(historyId)).param("ply", "6"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // X takes the top row
+    private long archiveAWin() {
+        Game game = new Game();
+        for (int cell : new int[] {0, 3, 1, 4, 2}) {
+            assertTrue(game.makeMove(cell));
+        }
+        synchronized (game) {
+            archive.add(game, PLAYER);
+        }
+        long[] last = {0};
+        archive.forEach(PLAYER, 0, Integer.MAX_VALUE, entry -> last[0] = entry.historyId);
+        return last[0];
+    }
+}
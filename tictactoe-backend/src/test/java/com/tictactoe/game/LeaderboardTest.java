@@ -0,0 +1,60 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.game.Leaderboard.Ordering;
+import com.tictactoe.store.UserStore;
+
+class LeaderboardTest {
+
+    @Test
+    void everyResultMovesThePlayerInEachOrdering() {
+        Leaderboard leaderboard = new Leaderboard(3);
+        UserService users = new UserService(UserStore.inMemory(), leaderboard, new GameMetrics(),
+                SessionConfig.unbounded(), Cluster.disabled());
+        try {
+            long ann = users.loginOrRegister("leaderboard-ann").getId();
+            long bob = users.loginOrRegister("leaderboard-bob").getId();
+            assertEquals(1, rank(leaderboard, users, ann, Ordering.WINS)); // ties go to the lower id
+            assertEquals(2, rank(leaderboard, users, bob, Ordering.WINS));
+            assertEquals(-1, rank(leaderboard, users, bob, Ordering.WIN_RATE)); // no games yet
+
+            users.updateStats(bob, "X");
+            users.updateStats(bob, "X");
+            assertEquals(1, rank(leaderboard, users, bob, Ordering.WINS));
+            assertEquals(1, rank(leaderboard, users, bob, Ordering.BEST_STREAK));
+            assertEquals(bob, leaderboard.top(Ordering.WINS, 1).get(0).id);
+
+            // Rated from the third game; a loss costs the streak lead but not the wins lead
+            users.updateStats(ann, "X");
+            users.updateStats(ann, "X");
+            users.updateStats(ann, "X");
+            users.updateStats(bob, "O");
+            assertEquals(1, rank(leaderboard, users, ann, Ordering.WINS));
+            assertEquals(1, rank(leaderboard, users, ann, Ordering.BEST_STREAK));
+            assertEquals(1, rank(leaderboard, users, ann, Ordering.WIN_RATE));
+            assertEquals(2, rank(leaderboard, users, bob, Ordering.WIN_RATE));
+            assertEquals(2, leaderboard.size(Ordering.WIN_RATE));
+            assertEquals(2.0 / 3, Leaderboard.displayValue(
+                    leaderboard.top(Ordering.WIN_RATE, 2).get(1).score, Ordering.WIN_RATE), 1e-6);
+        } finally {
+            users.shutdown();
+        }
+    }
+
+    @Test
+    void ratingBandsSplitTheWinRate() {
+        Leaderboard leaderboard = new Leaderboard(10);
+        assertEquals(-1, leaderboard.ratingBand(new User.UserStats(5, 4, 0, 5), 4)); // 9 games: unrated
+        assertEquals(0, leaderboard.ratingBand(new User.UserStats(0, 10, 0, 0), 4));
+        assertEquals(2, leaderboard.ratingBand(new User.UserStats(5, 5, 0, 1), 4));
+        assertEquals(3, leaderboard.ratingBand(new User.UserStats(10, 0, 0, 10), 4)); // capped
+    }
+
+    private static int rank(Leaderboard leaderboard, UserService users, long userId, Ordering ordering) {
+        return leaderboard.rankOf(userId, users.getUserStats(userId), ordering);
+    }
+}
@@ -0,0 +1,150 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.game.Game.AIDifficulty;
+import com.tictactoe.game.Game.GameMode;
+
+class MatchmakerTest {
+
+    private static final Matchmaker.Request CLASSIC = new Matchmaker.Request(3, 3, null, null);
+
+    private final GameRegistry registry = new GameRegistry(100, 0, new GameMetrics(), Cluster.disabled());
+    private Matchmaker matchmaker = new Matchmaker(registry, new GameMetrics(), 60_000);
+
+    @AfterEach
+    void shutdown() {
+        matchmaker.shutdown();
+        registry.shutdown();
+    }
+
+    @Test
+    void pairsTwoPlayersAskingForTheSameGame() throws Exception {
+        CompletableFuture<Game> first = matchmaker.join(1, CLASSIC);
+        assertFalse(first.isDone());
+        assertSame(first, matchmaker.join(1, CLASSIC)); // asking again while waiting
+        assertEquals(1, matchmaker.waitingCount());
+
+        // Another board, tier or band is another queue
+        CompletableFuture<Game> bigger = matchmaker.join(2, new Matchmaker.Request(4, 4, null, null));
+        CompletableFuture<Game> hard = matchmaker.join(3, new Matchmaker.Request(3, 3, AIDifficulty.HARD, null));
+        CompletableFuture<Game> rated = matchmaker.join(4, new Matchmaker.Request(3, 3, null, 5));
+        assertFalse(bigger.isDone() || hard.isDone() || rated.isDone());
+        assertEquals(4, matchmaker.waitingCount());
+
+        Game second = matchmaker.join(5, CLASSIC).get(1, TimeUnit.SECONDS);
+        Game game = first.get(1, TimeUnit.SECONDS);
+        assertEquals(game.getGameId(), second.getGameId());
+        assertEquals(1L, game.getPlayerXId()); // the one who waited plays X
+        assertEquals(5L, game.getPlayerOId());
+        assertEquals(GameMode.TWO_PLAYER, game.getMode());
+        assertEquals(5L, registry.get(game.getGameId()).getPlayerOId()); // the live game
+        assertEquals(3, matchmaker.waitingCount());
+
+        Game big = matchmaker.join(6, new Matchmaker.Request(4, 4, null, null)).get(1, TimeUnit.SECONDS);
+        assertEquals(4, big.getBoardSize());
+        assertEquals(big.getGameId(), bigger.get(1, TimeUnit.SECONDS).getGameId());
+        assertThrows(IllegalArgumentException.class, () -> new Matchmaker.Request(3, 4, null, null));
+    }
+
+    @Test
+    void nobodyComingInTimeAnswersNull() throws Exception {
+        matchmaker.shutdown();
+        matchmaker = new Matchmaker(registry, new GameMetrics(), 50);
+        CompletableFuture<Game> alone = matchmaker.join(1, CLASSIC);
+        assertNull(alone.get(5, TimeUnit.SECONDS));
+        assertEquals(0, matchmaker.waitingCount());
+
+        // The slot is free again: the next player waits rather than meeting a cancelled ticket
+        CompletableFuture<Game> next = matchmaker.join(2, CLASSIC);
+        Game game = matchmaker.join(3, CLASSIC).get(1, TimeUnit.SECONDS);
+        assertEquals(2L, game.getPlayerXId());
+        assertEquals(game.getGameId(), next.get(1, TimeUnit.SECONDS).getGameId());
+    }
+
+    @Test
+    void concurrentPlayersAreEachPairedOnce() throws Exception {
+        int players = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Game>> matches = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<CompletableFuture<CompletableFuture<Game>>> joins = new ArrayList<>();
+            for (long userId = 1; userId <= players; userId++) {
+                long id = userId;
+                joins.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return matchmaker.join(id, CLASSIC);
+                }, pool));
+            }
+            start.countDown();
+            for (CompletableFuture<CompletableFuture<Game>> join : joins) {
+                matches.add(join.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<Long, List<Long>> gamePlayers = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            Game game = matches.get(i).get(10, TimeUnit.SECONDS);
+            gamePlayers.computeIfAbsent(game.getGameId(), id -> new ArrayList<>()).add(i + 1L);
+        }
+        assertEquals(players / 2, gamePlayers.size());
+        assertEquals(players / 2, registry.size());
+        for (Map.Entry<Long, List<Long>> e : gamePlayers.entrySet()) {
+            Game game = registry.get(e.getKey());
+            assertEquals(2, e.getValue().size());
+            assertTrue(e.getValue().contains(game.getPlayerXId()) && e.getValue().contains(game.getPlayerOId()));
+        }
+        assertEquals(0, matchmaker.waitingCount());
+    }
+
+    @Test
+    void theRegistryCapsAndSweepsGames() throws InterruptedException {
+        GameRegistry small = new GameRegistry(2, 1, new GameMetrics(), Cluster.disabled()); // 1 s idle TTL
+        try {
+            Game first = small.create(1, null, GameMode.SINGLE_PLAYER, AIDifficulty.EASY, 3, 3);
+            Thread.sleep(1100);
+            Game second = small.create(1, 2L, GameMode.TWO_PLAYER, AIDifficulty.MEDIUM, 3, 3);
+            assertFalse(small.hasRoomFor(1));
+            assertTrue(small.hasRoomFor(2));
+            assertEquals(List.of(second.getGameId(), first.getGameId()),
+                    small.gamesOf(1).stream().map(Game::getGameId).toList()); // newest first
+
+            small.sweep(); // the first game has been idle past the TTL
+            assertNull(small.get(first.getGameId()));
+            assertSame(second, small.get(second.getGameId()));
+            assertTrue(small.hasRoomFor(1));
+            assertEquals(1, small.gamesOf(2).size());
+            small.remove(second.getGameId());
+            assertEquals(0, small.size());
+            assertEquals(List.of(), small.gamesOf(2));
+        } finally {
+            small.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class MonteCarloSearchTest {
+
+    private static final MonteCarloSearch.Budget BUDGET = new MonteCarloSearch.Budget(5000, 0);
+
+    @Test
+    void takesAWinAndBlocksALoss() {
+        // X: 0 1, O: 3 4 on 3x3; X to move wins at 2
+        GridBoard board = GridSearchTest.board(3, 3, new int[] {0, 1}, new int[] {3, 4});
+        MonteCarloSearch.Result win = new MonteCarloSearch(board, BUDGET).search(GridBoard.X, null,
+                new SplittableRandom(1));
+        assertEquals(2, win.move);
+        assertTrue(win.expectedScore > 0.9, "score " + win.expectedScore);
+
+        // X: 0 1 8, O: 4; O must block at 2
+        GridBoard threatened = GridSearchTest.board(3, 3, new int[] {0, 1, 8}, new int[] {4});
+        assertEquals(2, new MonteCarloSearch(threatened, BUDGET).search(GridBoard.O, null,
+                new SplittableRandom(1)).move);
+    }
+
+    @Test
+    void aSeedAndAPlayoutBudgetFixTheResult() {
+        GridBoard board = GridSearchTest.board(5, 4, new int[] {12}, new int[] {6});
+        String[] before = board.toArray();
+        MonteCarloSearch.Budget budget = new MonteCarloSearch.Budget(700, 0);
+        MonteCarloSearch.Result first = new MonteCarloSearch(board, budget).search(GridBoard.X, null,
+                new SplittableRandom(9));
+        MonteCarloSearch.Result again = new MonteCarloSearch(board, budget).search(GridBoard.X, null,
+                new SplittableRandom(9));
+        assertEquals(700, first.playouts);
+        assertEquals(first.move, again.move);
+        assertEquals(first.expectedScore, again.expectedScore);
+        assertArrayEquals(before, board.toArray()); // playouts are undone
+        assertTrue(board.isEmpty(first.move));
+    }
+
+    @Test
+    void theClockCutsAMoveShort() {
+        MonteCarloSearch.Budget budget = new MonteCarloSearch.Budget(1_000_000, 20); // nodes are sized for the playouts
+        long start = System.nanoTime();
+        MonteCarloSearch.Result result = new MonteCarloSearch(new GridBoard(15, 5), budget)
+                .search(GridBoard.X, null, new SplittableRandom(3));
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertTrue(result.playouts >= 1 && result.playouts < budget.playouts);
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloSearch.Budget(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloSearch.Budget(1, -1));
+    }
+
+    @Test
+    void theNextSearchStartsFromTheKeptTree() {
+        GridBoard board = new GridBoard(4, 4);
+        MonteCarloSearch.Result first = new MonteCarloSearch(board, BUDGET).search(GridBoard.X, null,
+                new SplittableRandom(5));
+        assertEquals(0, first.reusedVisits);
+        assertTrue(first.kept.bytes() > 0);
+
+        // After X's move and O's reply, the statistics under that reply carry over
+        board.play(first.move, GridBoard.X);
+        int reply = first.move == 0 ? 1 : 0;
+        board.play(reply, GridBoard.O);
+        MonteCarloSearch.Result second = new MonteCarloSearch(board, BUDGET).search(GridBoard.X, first.kept,
+                new SplittableRandom(5));
+        assertTrue(second.reusedVisits > 0, "reused " + second.reusedVisits);
+        assertEquals(BUDGET.playouts, second.playouts);
+
+        // Not one opponent move on from the kept position: a fresh tree
+        board.play(reply == 0 ? 2 : 3, GridBoard.X);
+        MonteCarloSearch.Result unrelated = new MonteCarloSearch(board, BUDGET).search(GridBoard.O, first.kept,
+                new SplittableRandom(5));
+        assertEquals(0, unrelated.reusedVisits);
+    }
+}
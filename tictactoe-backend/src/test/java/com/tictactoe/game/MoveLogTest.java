@@ -0,0 +1,102 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MoveLogTest {
+
+    // One-byte and two-byte cells (a 19x19 board has 361)
+    private static final int[] CELLS = {4, 0, 127, 128, 360, 200, 8};
+
+    @Test
+    void replaysMovesInOrder() {
+        MoveLog log = logOf(CELLS);
+        assertEquals(CELLS.length, log.moves());
+        assertEquals(List.of(4, 0, 127, 128, 360, 200, 8), cells(log));
+        log.forEach((cell, millis) -> assertTrue(millis >= 0));
+    }
+
+    @Test
+    void undoesBackwardsAndRedoesForwards() {
+        MoveLog log = logOf(CELLS);
+        for (int i = CELLS.length - 1; i >= 0; i--) {
+            assertEquals(CELLS[i], log.undo());
+        }
+        assertEquals(-1, log.undo());
+        assertEquals(0, log.moves());
+        assertEquals(CELLS.length, log.undone());
+        assertEquals(List.of(), cells(log));
+
+        for (int cell : CELLS) {
+            assertEquals(cell, log.redo());
+        }
+        assertEquals(-1, log.redo());
+        assertEquals(CELLS.length, log.moves());
+        assertEquals(List.of(4, 0, 127, 128, 360, 200, 8), cells(log));
+    }
+
+    @Test
+    void aNewMoveForgetsUndoneOnes() {
+        MoveLog log = logOf(CELLS);
+        log.undo();
+        log.undo();
+        log.undo();
+        log.add(300);
+        assertEquals(0, log.undone());
+        assertEquals(-1, log.redo());
+        assertEquals(List.of(4, 0, 127, 128, 300), cells(log));
+    }
+
+    @Test
+    void encodedFormReplaysTheMovesPlayed() {
+        MoveLog log = logOf(CELLS);
+        log.undo();
+        byte[] encoded = log.encoded();
+        List<Integer> replayed = new ArrayList<>();
+        MoveLog.forEach(encoded, encoded.length, (cell, millis) -> replayed.add(cell));
+        assertEquals(List.of(4, 0, 127, 128, 360, 200), replayed);
+        // 4 one-byte cells, 2 two-byte cells, and a time of at least a byte each
+        assertTrue(encoded.length >= 4 + 2 * 2 + 6);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        MoveLog log = logOf(CELLS);
+        log.undo();
+        MoveLog copy = log.copy();
+        log.add(1);
+        assertEquals(8, copy.redo());
+        assertEquals(List.of(4, 0, 127, 128, 360, 200, 8), cells(copy));
+        assertEquals(List.of(4, 0, 127, 128, 360, 200, 1), cells(log));
+    }
+
+    @Test
+    void clearFromPositionIsNotFromStart() {
+        MoveLog log = logOf(CELLS);
+        log.clearFromPosition();
+        assertEquals(0, log.moves());
+        assertFalse(log.fromStart());
+        log.clear();
+        assertTrue(log.fromStart());
+    }
+
+    private static MoveLog logOf(int... cells) {
+        MoveLog log = new MoveLog();
+        for (int cell : cells) {
+            log.add(cell);
+        }
+        return log;
+    }
+
+    private static List<Integer> cells(MoveLog log) {
+        List<Integer> cells = new ArrayList<>();
+        log.forEach((cell, millis) -> cells.add(cell));
+        return cells;
+    }
+}
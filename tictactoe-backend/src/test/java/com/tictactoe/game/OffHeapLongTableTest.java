@@ -0,0 +1,96 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapLongTableTest {
+
+    @Test
+    void keepsSeveralValuesPerKey() {
+        OffHeapLongTable table = new OffHeapLongTable(16);
+        table.add(7, 100);
+        table.add(7, 200);
+        table.add(8, 300);
+        assertEquals(3, table.size());
+        assertEquals(200, table.find(7, v -> v != 100));
+        assertEquals(-1, table.find(7, v -> v > 1000));
+        assertTrue(table.remove(7, 100));
+        assertFalse(table.remove(7, 100));
+        assertEquals(200, table.get(7));
+        assertEquals(-1, table.get(9));
+        assertThrows(IllegalArgumentException.class, () -> table.add(0, 1));
+    }
+
+    /**
+     * Random adds and removes: after backward-shift deletes, every pair still
+     * present must be found and none removed may be. The small table stays
+     * 16 slots at just under its load limit, so probe runs are long, collide
+     * and wrap around the end; the large one grows as it goes.
+     */
+    @Test
+    void removalsKeepEveryOtherPairReachableInASmallTable() {
+        churn(new Random(42), 20, 9, 200_000);
+    }
+
+    @Test
+    void removalsKeepEveryOtherPairReachableInAGrowingTable() {
+        churn(new Random(43), 300, Integer.MAX_VALUE, 50_000);
+    }
+
+    private static void churn(Random random, int keys, int maxSize, int steps) {
+        OffHeapLongTable table = new OffHeapLongTable(16);
+        Map<Long, List<Long>> expected = new HashMap<>();
+        long nextValue = 1;
+        for (int step = 0; step < steps; step++) {
+            long key = 1 + random.nextInt(keys);
+            List<Long> values = expected.computeIfAbsent(key, k -> new ArrayList<>());
+            if (values.isEmpty() && table.size() >= maxSize) {
+                continue;
+            }
+            if (values.isEmpty() || table.size() < maxSize && random.nextInt(100) < 55) {
+                table.add(key, nextValue);
+                values.add(nextValue++);
+            } else {
+                Long value = values.remove(random.nextInt(values.size()));
+                assertTrue(table.remove(key, value));
+            }
+            if (step % 997 == 0) {
+                check(table, expected);
+            }
+        }
+        check(table, expected);
+        // Empty it completely
+        for (Map.Entry<Long, List<Long>> entry : expected.entrySet()) {
+            for (long value : entry.getValue()) {
+                assertTrue(table.remove(entry.getKey(), value));
+            }
+        }
+        assertEquals(0, table.size());
+        for (long key = 1; key <= keys; key++) {
+            assertEquals(-1, table.get(key));
+        }
+    }
+
+    private static void check(OffHeapLongTable table, Map<Long, List<Long>> expected) {
+        int size = 0;
+        for (Map.Entry<Long, List<Long>> entry : expected.entrySet()) {
+            List<Long> values = entry.getValue();
+            size += values.size();
+            for (long value : values) {
+                assertEquals(value, table.find(entry.getKey(), v -> v == value), "key " + entry.getKey());
+            }
+            assertEquals(-1, table.find(entry.getKey(), v -> !values.contains(v)));
+        }
+        assertEquals(size, table.size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false"
+})
+@AutoConfigureMockMvc
+class OpeningControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void aFinishedGameShowsUpInItsOpenings() throws Exception {
+        // Other tests in this context finish games too, so compare before and after
+        JsonNode before = openings("X..O.....");
+        String userId = json.readTree(mvc.perform(post("/api/users/login").param("username", "openings-player"))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mvc.perform(post("/api/restart").param("userId", userId).param("mode", "TWO_PLAYER"));
+        for (int cell : new int[] {0, 3, 1, 4, 2}) {
+            MvcResult started = mvc.perform(post("/api/move").param("index", Integer.toString(cell))
+                    .param("userId", userId)).andReturn();
+            mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        }
+
+        // Lower case and "-" are accepted too; the bottom right corner is the same position
+        JsonNode after = openings("....-o..x");
+        assertEquals("X", after.get("player").asText());
+        assertEquals(before.get("reached").get("games").asLong() + 1, after.get("reached").get("games").asLong());
+        assertEquals(before.get("reached").get("xWins").asLong() + 1, after.get("reached").get("xWins").asLong());
+
+        mvc.perform(get("/api/openings/first-moves"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(9))
+                .andExpect(jsonPath("$[0].cell").value(0));
+        mvc.perform(get("/api/openings/first-moves").param("size", "7").param("winLength", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(49));
+    }
+
+    @Test
+    void refusesPositionsThatAreNotBoards() throws Exception {
+        mvc.perform(get("/api/openings").param("position", "X........X")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/openings").param("position", "X...Z....")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/openings").param("position", "XX.......")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/openings/first-moves").param("size", "20")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode openings(String position) throws Exception {
+        return json.readTree(mvc.perform(get("/api/openings").param("position", position))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+}
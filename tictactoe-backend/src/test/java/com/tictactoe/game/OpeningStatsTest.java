@@ -0,0 +1,169 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.game.Game.GameMode;
+
+class OpeningStatsTest {
+
+    @Test
+    void countsEveryPositionAGameWentThrough() {
+        OpeningStats stats = new OpeningStats(new GameMetrics());
+        record(stats, played(0, 3, 1, 4, 2));          // X wins along the top
+        record(stats, played(0, 4, 8, 2, 6, 3, 5, 7, 1)); // draw
+
+        OpeningStats.PositionOutcomes empty = stats.position(new String[9], null);
+        assertEquals("X", empty.player);
+        assertEquals(2, empty.reached.games);
+        assertEquals(1, empty.reached.xWins);
+        assertEquals(1, empty.reached.draws);
+        assertEquals(9, empty.moves.size());
+        assertEquals(2, empty.moves.get(0).games);
+        assertEquals(0, empty.moves.get(4).games);
+
+        // X 0, O 3: only the win went there
+        OpeningStats.PositionOutcomes afterO = stats.position(board(new int[] {0}, new int[] {3}), null);
+        assertEquals("X", afterO.player);
+        assertEquals(1, afterO.reached.games);
+        assertEquals(1, afterO.reached.xWins);
+        assertEquals(7, afterO.moves.size());
+        assertEquals(1, afterO.moves.stream().filter(m -> m.cell == 1).findFirst().get().xWins);
+    }
+
+    @Test
+    void symmetricPositionsShareTheirCounts() {
+        OpeningStats stats = new OpeningStats(new GameMetrics());
+        record(stats, played(0, 3, 1, 4, 2)); // opens in the top left corner
+        record(stats, played(8, 5, 7, 4, 6)); // and in the bottom right
+
+        List<OpeningStats.MoveOutcomes> openings = stats.position(new String[9], null).moves;
+        for (int corner : new int[] {0, 2, 6, 8}) {
+            assertEquals(2, openings.get(corner).games);
+            assertEquals(2, openings.get(corner).xWins);
+        }
+        assertEquals(0, openings.get(1).games);
+        // The same position seen from the other corner
+        assertEquals(2, stats.position(board(new int[] {8}, new int[0]), null).reached.games);
+    }
+
+    @Test
+    void filtersByModeAndSkipsGamesNotPlayedFromTheStart() {
+        OpeningStats stats = new OpeningStats(new GameMetrics());
+        Game single = new Game();
+        single.setMode(GameMode.SINGLE_PLAYER);
+        play(single, 4, 0, 3, 1, 5);
+        record(stats, single);
+        record(stats, played(0, 3, 1, 4, 2));
+
+        Game loaded = new Game();
+        loaded.setBoard(new String[] {"X", "X", null, "O", "O", null, null, null, null});
+        play(loaded, 2);
+        record(stats, loaded); // won, but nobody knows how it started
+        record(stats, played(0, 4)); // not over
+
+        assertEquals(2, stats.position(new String[9], null).reached.games);
+        assertEquals(1, stats.position(new String[9], GameMode.SINGLE_PLAYER).reached.games);
+        assertEquals(1, stats.position(new String[9], GameMode.SINGLE_PLAYER).moves.get(4).games);
+        assertEquals(0, stats.position(new String[9], GameMode.TWO_PLAYER).moves.get(4).games);
+        assertThrows(IllegalArgumentException.class,
+                () -> stats.position(board(new int[] {0, 1}, new int[0]), null)); // O skipped a turn
+    }
+
+    @Test
+    void biggerBoardsCountFirstMovesPerBoard() {
+        OpeningStats stats = new OpeningStats(new GameMetrics());
+        Game game = new Game();
+        game.resize(5, 4);
+        play(game, 0, 5, 1, 6, 2, 7, 3);
+        assertEquals("X", game.getWinner());
+        record(stats, game);
+
+        List<OpeningStats.MoveOutcomes> fourInARow = stats.firstMoves(5, 4, null);
+        assertEquals(25, fourInARow.size());
+        for (int corner : new int[] {0, 4, 20, 24}) {
+            assertEquals(1, fourInARow.get(corner).games);
+            assertEquals(1, fourInARow.get(corner).xWins);
+        }
+        assertEquals(0, fourInARow.get(1).games);
+        assertEquals(0, fourInARow.get(12).games);
+        assertTrue(stats.firstMoves(5, 3, null).stream().allMatch(m -> m.games == 0));
+        assertEquals(0, stats.firstMoves(5, 4, GameMode.SINGLE_PLAYER).get(0).games);
+        assertEquals(0, stats.position(new String[9], null).reached.games); // not a 3x3 game
+        assertThrows(IllegalArgumentException.class, () -> stats.firstMoves(5, 6, null));
+    }
+
+    @Test
+    void gamesEndingTogetherAreAllCounted() throws Exception {
+        GameMetrics metrics = new GameMetrics();
+        OpeningStats stats = new OpeningStats(metrics);
+        int threads = 8;
+        int gamesEach = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Game game = t % 2 == 0 ? played(0, 3, 1, 4, 2) : played(8, 4, 0, 2, 6, 7, 1, 3, 5); // a win, a draw
+                done.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < gamesEach; i++) {
+                        record(stats, game);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        OpeningStats.Outcomes all = stats.position(new String[9], null).reached;
+        assertEquals((long) threads * gamesEach, all.games);
+        assertEquals(all.games, all.xWins + all.oWins + all.draws);
+        assertEquals(all.games, stats.position(new String[9], null).moves.get(0).games); // every corner opening
+        assertTrue(metrics.scrape().contains("tictactoe_opening_positions "), metrics.scrape());
+    }
+
+    // As the controller does when a game ends
+    private static void record(OpeningStats stats, Game game) {
+        synchronized (game) {
+            stats.record(game);
+        }
+    }
+
+    private static Game played(int... cells) {
+        Game game = new Game();
+        play(game, cells);
+        return game;
+    }
+
+    private static void play(Game game, int... cells) {
+        for (int cell : cells) {
+            assertTrue(game.makeMove(cell), "cell " + cell);
+        }
+    }
+
+    private static String[] board(int[] x, int[] o) {
+        String[] board = new String[9];
+        for (int cell : x) {
+            board[cell] = "X";
+        }
+        for (int cell : o) {
+            board[cell] = "O";
+        }
+        return board;
+    }
+}
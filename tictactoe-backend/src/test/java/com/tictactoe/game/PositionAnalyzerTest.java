@@ -0,0 +1,65 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class PositionAnalyzerTest {
+
+    @Test
+    void concurrentAnalysesOfOnePositionSearchOnce() throws Exception {
+        PositionAnalyzer analyzer = new PositionAnalyzer(100, 300, new GameMetrics());
+        Game position = position(5, 4, 0, 12);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<PositionAnalyzer.Analysis>> analyses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                analyses.add(pool.submit(() -> {
+                    start.await();
+                    return analyzer.analyze(position, "X");
+                }));
+            }
+            start.countDown();
+            int searched = 0;
+            for (Future<PositionAnalyzer.Analysis> analysis : analyses) {
+                PositionAnalyzer.Analysis result = analysis.get();
+                assertEquals(AIDecision.Source.SEARCH, result.source);
+                searched += result.cached ? 0 : 1;
+            }
+            assertEquals(1, searched);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void aMirroredPositionComesFromTheCache() {
+        PositionAnalyzer analyzer = new PositionAnalyzer(100, 100, new GameMetrics());
+        PositionAnalyzer.Analysis first = analyzer.analyze(position(5, 4, 0, 12), "X");
+        // Cell 0 mirrored left to right is cell 4; the centre stays
+        PositionAnalyzer.Analysis mirrored = analyzer.analyze(position(5, 4, 4, 12), "X");
+        assertFalse(first.cached);
+        assertTrue(mirrored.cached);
+        assertEquals(first.cells.size(), mirrored.cells.size());
+    }
+
+    // A position on a size x size board with X on xCell and O on oCell, X to move
+    private static Game position(int size, int winLength, int xCell, int oCell) {
+        Game game = new Game();
+        game.resize(size, winLength);
+        game.makeMove(xCell);
+        game.makeMove(oCell);
+        return game.snapshot();
+    }
+}
@@ -0,0 +1,83 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class RankedIndexTest {
+
+    // Same order as the index: higher score first, then lower id
+    private static final Comparator<long[]> ORDER =
+            Comparator.<long[]>comparingLong(e -> -e[0]).thenComparingLong(e -> e[1]);
+
+    @Test
+    void ordersByScoreThenId() {
+        RankedIndex index = new RankedIndex();
+        index.add(5, 30);
+        index.add(7, 10);
+        index.add(5, 20);
+        assertEquals(List.of("10:7", "20:5", "30:5"), rows(index.top(10)));
+        assertEquals(0, index.rankOf(7, 10));
+        assertEquals(2, index.rankOf(5, 30));
+
+        index.update(5, 8, 30); // overtakes everyone
+        assertEquals(List.of("30:8", "10:7"), rows(index.top(2)));
+        index.update(7, 7, 10); // unchanged score: stays put
+        index.remove(5, 20);
+        assertEquals(2, index.size());
+        assertEquals(List.of("30:8", "10:7"), rows(index.top(10)));
+    }
+
+    @Test
+    void agreesWithASortedSetThroughRandomUpdates() {
+        Random random = new Random(7);
+        RankedIndex index = new RankedIndex();
+        TreeSet<long[]> expected = new TreeSet<>(ORDER);
+        Map<Long, Long> scores = new HashMap<>();
+        for (long id = 0; id < 2000; id++) {
+            long score = random.nextInt(50);
+            index.add(score, id);
+            expected.add(new long[] {score, id});
+            scores.put(id, score);
+        }
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(2000);
+            long before = scores.get(id);
+            long after = before + random.nextInt(3) - 1;
+            index.update(before, after, id);
+            expected.remove(new long[] {before, id});
+            expected.add(new long[] {after, id});
+            scores.put(id, after);
+
+            if (step % 1000 == 0) {
+                assertEquals(expected.headSet(new long[] {after, id}).size(), index.rankOf(after, id));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        List<String> all = new ArrayList<>();
+        for (long[] e : expected) {
+            all.add(e[1] + ":" + e[0]);
+        }
+        assertEquals(all, rows(index.top(Integer.MAX_VALUE)));
+        for (long id = 0; id < 2000; id += 97) {
+            long score = scores.get(id);
+            assertEquals(expected.headSet(new long[] {score, id}).size(), index.rankOf(score, id));
+        }
+    }
+
+    private static List<String> rows(List<RankedIndex.Entry> entries) {
+        List<String> rows = new ArrayList<>();
+        for (RankedIndex.Entry entry : entries) {
+            rows.add(entry.id + ":" + entry.score);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SymmetryTest {
+
+    @Test
+    void cellMapsAreEightDistinctPermutations() {
+        for (int size = 3; size <= 6; size++) {
+            int[][] maps = Symmetry.cellMaps(size);
+            Set<String> distinct = new HashSet<>();
+            for (int[] map : maps) {
+                boolean[] hit = new boolean[size * size];
+                for (int image : map) {
+                    hit[image] = true;
+                }
+                for (boolean h : hit) {
+                    assertTrue(h, "not a permutation on " + size + "x" + size);
+                }
+                distinct.add(Arrays.toString(map));
+            }
+            assertEquals(Symmetry.COUNT, distinct.size());
+        }
+    }
+
+    @Test
+    void transformMovesEachCellAsTransformCell() {
+        for (int s = 0; s < Symmetry.COUNT; s++) {
+            for (int mask = 0; mask <= BitBoard.FULL; mask++) {
+                int expected = 0;
+                for (int i = 0; i < BitBoard.CELLS; i++) {
+                    if (BitBoard.isSet(mask, i)) {
+                        expected |= 1 << Symmetry.transformCell(i, s);
+                    }
+                }
+                assertEquals(expected, Symmetry.transform(mask, s));
+            }
+        }
+    }
+
+    @Test
+    void codeIsBase3() {
+        assertEquals(0, Symmetry.code(0, 0));
+        assertEquals(1, Symmetry.code(1, 0));
+        assertEquals(2, Symmetry.code(0, 1));
+        assertEquals(2 * 3 + 1, Symmetry.code(1, 1 << 1));
+        assertEquals(Symmetry.CODES - 1, Symmetry.code(0, BitBoard.FULL));
+    }
+
+    @Test
+    void canonicalCodeIsTheSameUnderEverySymmetry() {
+        int x = (1 << 0) | (1 << 5);
+        int o = 1 << 4;
+        int canonical = Symmetry.canonicalCode(x, o);
+        for (int s = 0; s < Symmetry.COUNT; s++) {
+            assertEquals(canonical, Symmetry.canonicalCode(Symmetry.transform(x, s), Symmetry.transform(o, s)));
+        }
+        assertNotEquals(canonical, Symmetry.canonicalCode(o, x));
+    }
+
+    @Test
+    void reachablePositionsFoldTo765() {
+        Set<Integer> all = new HashSet<>();
+        Set<Integer> canonical = new HashSet<>();
+        walk(0, 0, all, canonical);
+        assertEquals(5478, all.size());
+        assertEquals(765, canonical.size());
+    }
+
+    @Test
+    void perfectPlayNeverLoses() {
+        PerfectPlayTable table = PerfectPlayTable.get();
+        assertEquals(PerfectPlayTable.Value.DRAW, table.bestMove(0, 0).value);
+        // The table as X against every O reply, and as O against every X move
+        playAll(0, 0, true, true);
+        playAll(0, 0, true, false);
+    }
+
+    // Every position reachable from (x, o); X moves when both have as many stones
+    private static void walk(int x, int o, Set<Integer> all, Set<Integer> canonical) {
+        if (!all.add(Symmetry.code(x, o))) {
+            return;
+        }
+        canonical.add(Symmetry.canonicalCode(x, o));
+        if (BitBoard.hasWin(x) || BitBoard.hasWin(o) || BitBoard.isFull(x, o)) {
+            return;
+        }
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        for (int m = BitBoard.empty(x, o); m != 0; m &= m - 1) {
+            int cell = m & -m;
+            if (xToMove) {
+                walk(x | cell, o, all, canonical);
+            } else {
+                walk(x, o | cell, all, canonical);
+            }
+        }
+    }
+
+    private static void playAll(int x, int o, boolean xToMove, boolean tableIsX) {
+        int table = tableIsX ? x : o;
+        int other = tableIsX ? o : x;
+        if (BitBoard.hasWin(other)) {
+            throw new AssertionError("Perfect play lost: X " + x + ", O " + o);
+        }
+        if (BitBoard.hasWin(table) || BitBoard.isFull(x, o)) {
+            return;
+        }
+        if (xToMove == tableIsX) {
+            PerfectPlayTable.Entry entry = PerfectPlayTable.get().bestMove(table, other);
+            assertNotNull(entry);
+            int cell = 1 << entry.move;
+            assertEquals(0, (x | o) & cell, "moved into a taken cell");
+            playAll(tableIsX ? x | cell : x, tableIsX ? o : o | cell, !xToMove, tableIsX);
+        } else {
+            for (int m = BitBoard.empty(x, o); m != 0; m &= m - 1) {
+                int cell = m & -m;
+                playAll(xToMove ? x | cell : x, xToMove ? o : o | cell, !xToMove, tableIsX);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.tictactoe.game;
+
+import static com.tictactoe.game.GridSearchTest.board;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TablebaseTest {
+
+    @Test
+    void agreesWithThePerfectPlayTableOnEveryThreeByThreePosition() {
+        Tablebase table = Tablebase.generate(3, 3);
+        Set<Integer> positions = new HashSet<>();
+        compare(table, new GridBoard(3, 3), 0, 0, positions);
+        assertEquals(4520, positions.size()); // non-terminal positions reachable by play
+    }
+
+    // Walks every position reachable by play, comparing values cell by cell
+    private static void compare(Tablebase table, GridBoard board, int xBits, int oBits, Set<Integer> positions) {
+        if (!positions.add(xBits | oBits << 9)) {
+            return;
+        }
+        boolean xToMove = board.moveCount() % 2 == 0;
+        PerfectPlayTable.Entry[] expected = xToMove ? PerfectPlayTable.get().evaluateAll(xBits, oBits)
+                : PerfectPlayTable.get().evaluateAll(oBits, xBits);
+        PerfectPlayTable.Entry[] actual = table.evaluateAll(board, xToMove ? GridBoard.X : GridBoard.O);
+        for (int cell = 0; cell < 9; cell++) {
+            if (expected[cell] == null) {
+                assertNull(actual[cell]);
+                continue;
+            }
+            assertEquals(expected[cell].value, actual[cell].value, "cell " + cell + " of " + Arrays.toString(board.toArray()));
+            assertEquals(-1, actual[cell].distance);
+            board.play(cell, xToMove ? GridBoard.X : GridBoard.O);
+            if (!board.isWinAt(cell) && !board.isFull()) {
+                compare(table, board, xToMove ? xBits | 1 << cell : xBits, xToMove ? oBits : oBits | 1 << cell, positions);
+            }
+            board.undo(cell);
+        }
+    }
+
+    @Test
+    void bestMoveTakesTheWinAndBlocks() {
+        Tablebase table = Tablebase.generate(3, 3);
+        // X X .
+        // O O .
+        // . . .   X to move wins at 2
+        PerfectPlayTable.Entry win = table.bestMove(board(3, 3, new int[] {0, 1}, new int[] {3, 4}), GridBoard.X, -1);
+        assertEquals(2, win.move);
+        assertEquals(PerfectPlayTable.Value.WIN, win.value);
+        // X X .
+        // . O .
+        // . . .   O to move must block at 2
+        PerfectPlayTable.Entry block = table.bestMove(board(3, 3, new int[] {0, 1}, new int[] {4}), GridBoard.O, -1);
+        assertEquals(2, block.move);
+        assertEquals(PerfectPlayTable.Value.DRAW, block.value);
+    }
+
+    @Test
+    void preferredMoveBreaksTiesAmongEquals() {
+        Tablebase table = Tablebase.generate(3, 3);
+        GridBoard empty = new GridBoard(3, 3);
+        PerfectPlayTable.Entry[] values = table.evaluateAll(empty, GridBoard.X);
+        for (PerfectPlayTable.Entry value : values) {
+            assertEquals(PerfectPlayTable.Value.DRAW, value.value); // every opening draws
+        }
+        assertEquals(0, table.bestMove(empty, GridBoard.X, -1).move);
+        assertEquals(4, table.bestMove(empty, GridBoard.X, 4).move);
+        assertEquals(7, table.bestMove(empty, GridBoard.X, 7).move);
+
+        // X . .
+        // . . .
+        // . . .   O loses unless it takes the center: a preferred losing edge is ignored
+        GridBoard corner = board(3, 3, new int[] {0}, new int[0]);
+        PerfectPlayTable.Entry reply = table.bestMove(corner, GridBoard.O, 1);
+        assertEquals(4, reply.move);
+        assertEquals(PerfectPlayTable.Value.DRAW, reply.value);
+    }
+
+    @Test
+    void refusesPositionsItCannotAnswer() {
+        Tablebase table = Tablebase.generate(3, 3);
+        assertNull(table.bestMove(new GridBoard(3, 3), GridBoard.O, -1)); // X is to move
+        assertNull(table.bestMove(new GridBoard(4, 3), GridBoard.X, -1));
+        assertNull(table.bestMove(new GridBoard(4, 4), GridBoard.X, -1));
+        GridBoard full = board(3, 3, new int[] {0, 2, 3, 7, 8}, new int[] {1, 4, 5, 6});
+        assertNull(table.bestMove(full, GridBoard.O, -1));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.generate(5, 3));
+    }
+
+    @Test
+    void writesAndMapsTheSameTable(@TempDir Path dir) throws IOException {
+        Tablebase generated = Tablebase.generate(3, 3);
+        Path file = dir.resolve("tablebase-3x3-3.bin");
+        generated.write(file);
+        assertEquals(16 + (19683 + 3) / 4, Files.size(file)); // header + 2 bits per code
+
+        Tablebase opened = Tablebase.open(file);
+        assertEquals(3, opened.size());
+        assertEquals(3, opened.winLength());
+        GridBoard board = board(3, 3, new int[] {4}, new int[] {1});
+        PerfectPlayTable.Entry[] expected = generated.evaluateAll(board, GridBoard.X);
+        PerfectPlayTable.Entry[] actual = opened.evaluateAll(board, GridBoard.X);
+        for (int cell = 0; cell < 9; cell++) {
+            assertEquals(expected[cell] == null ? null : expected[cell].value,
+                    actual[cell] == null ? null : actual[cell].value);
+        }
+        assertEquals(PerfectPlayTable.Value.WIN, opened.bestMove(board, GridBoard.X, -1).value);
+    }
+
+    @Test
+    void refusesFilesThatAreNotTablebases(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tablebase.bin");
+        Tablebase.generate(3, 3).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = dir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertTrue(assertThrows(IOException.class, () -> Tablebase.open(truncated)).getMessage().contains("truncated"));
+
+        Path badMagic = dir.resolve("magic.bin");
+        byte[] copy = bytes.clone();
+        copy[0] ^= 1;
+        Files.write(badMagic, copy);
+        assertTrue(assertThrows(IOException.class, () -> Tablebase.open(badMagic)).getMessage().contains("not a tablebase"));
+
+        Path bigBoard = dir.resolve("big.bin");
+        copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(8, 5);
+        Files.write(bigBoard, copy);
+        assertTrue(assertThrows(IOException.class, () -> Tablebase.open(bigBoard)).getMessage().contains("unsupported"));
+
+        Path empty = dir.resolve("empty.bin");
+        Files.write(empty, new byte[0]);
+        assertThrows(IOException.class, () -> Tablebase.open(empty));
+    }
+
+    @Test
+    void hardPlaysFromTheInstalledTable() {
+        // 4x4 with 3 in a row: no other test plays it, so installing it here changes nothing else
+        assertNull(Tablebase.forBoard(4, 3));
+        Tablebase table = Tablebase.generate(4, 3);
+        assertEquals(PerfectPlayTable.Value.WIN, table.bestMove(new GridBoard(4, 3), GridBoard.X, -1).value);
+        Tablebase.install(table);
+        assertSame(table, Tablebase.forBoard(4, 3));
+        assertNull(Tablebase.forBoard(4, 4));
+
+        Game game = new Game();
+        game.resize(4, 3);
+        game.makeMove(5);
+        AIDecision decision = AIPlayer.decide(game, Game.AIDifficulty.HARD, 500, null);
+        assertNotNull(decision);
+        assertEquals(AIDecision.Source.TABLE, decision.getSource());
+        GridBoard before = board(4, 3, new int[] {5}, new int[0]);
+        assertEquals(table.bestMove(before, GridBoard.O, -1).value,
+                table.evaluateAll(before, GridBoard.O)[decision.getMove()].value); // one of the best replies
+    }
+}
@@ -0,0 +1,127 @@
+package com.tictactoe.game;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.ai.delay-ms=0"
+})
+@AutoConfigureMockMvc
+class UndoRedoTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void undoAndRedoWalkTheMovesOfATwoPlayerGame() throws Exception {
+        String userId = login("undo-two-player");
+        mvc.perform(post("/api/restart").param("userId", userId).param("mode", "TWO_PLAYER"));
+        mvc.perform(post("/api/undo").param("userId", userId)).andExpect(status().isBadRequest()); // nothing yet
+        move(userId, 0);
+        move(userId, 4);
+
+        mvc.perform(post("/api/undo").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.board[4]").doesNotExist())
+                .andExpect(jsonPath("$.currentPlayer").value("O"))
+                .andExpect(jsonPath("$.redoCount").value(1));
+        perform(post("/api/redo").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.board[4]").value("O"))
+                .andExpect(jsonPath("$.redoCount").value(0));
+        perform(post("/api/redo").param("userId", userId)).andExpect(status().isBadRequest());
+
+        // A new move drops what was left to redo
+        mvc.perform(post("/api/undo").param("userId", userId)).andExpect(status().isOk());
+        move(userId, 8).andExpect(jsonPath("$.redoCount").value(0)).andExpect(jsonPath("$.board[8]").value("O"));
+        perform(post("/api/redo").param("userId", userId)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void againstTheAIUndoTakesBackItsReplyToo() throws Exception {
+        String userId = login("undo-single-player");
+        mvc.perform(post("/api/restart").param("userId", userId).param("mode", "SINGLE_PLAYER"));
+        perform(post("/api/move").param("index", "0").param("userId", userId).param("difficulty", "HARD"))
+                .andExpect(jsonPath("$.moveCount").value(2));
+
+        mvc.perform(post("/api/undo").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.moveCount").value(0))
+                .andExpect(jsonPath("$.currentPlayer").value("X"))
+                .andExpect(jsonPath("$.redoCount").value(2));
+        // Both come back, and it's X's turn again
+        perform(post("/api/redo").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.board[0]").value("X"))
+                .andExpect(jsonPath("$.moveCount").value(2))
+                .andExpect(jsonPath("$.currentPlayer").value("X"));
+    }
+
+    @Test
+    void aFinishedGameCantBeUndone() throws Exception {
+        String userId = login("undo-finished");
+        mvc.perform(post("/api/restart").param("userId", userId).param("mode", "TWO_PLAYER"));
+        for (int cell : new int[] {0, 3, 1, 4}) {
+            move(userId, cell);
+        }
+        move(userId, 2).andExpect(jsonPath("$.winner").value("X"));
+        mvc.perform(post("/api/undo").param("userId", userId)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void inARegistryGameOnlyTheMoverMayUndo() throws Exception {
+        String x = login("undo-registry-x");
+        String o = login("undo-registry-o");
+        String gameId = json.readTree(mvc.perform(post("/api/games").param("userId", x)
+                        .param("mode", "TWO_PLAYER").param("opponentId", o))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("gameId").asText();
+        perform(post("/api/move").param("index", "4").param("userId", x).param("gameId", gameId))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/api/undo").param("userId", o).param("gameId", gameId))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/undo").param("userId", x).param("gameId", gameId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.moveCount").value(0));
+        perform(post("/api/redo").param("userId", o).param("gameId", gameId)).andExpect(status().isBadRequest());
+        perform(post("/api/redo").param("userId", x).param("gameId", gameId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.board[4]").value("X"));
+    }
+
+    private ResultActions move(String userId, int index) throws Exception {
+        return perform(post("/api/move").param("index", Integer.toString(index)).param("userId", userId))
+                .andExpect(status().isOk());
+    }
+
+    // /api/move and /api/redo answer with a future, unless they fail up front
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        ResultActions actions = mvc.perform(request);
+        MvcResult started = actions.andReturn();
+        return started.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(started)) : actions;
+    }
+
+    private String login(String username) throws Exception {
+        return json.readTree(mvc.perform(post("/api/users/login").param("username", username))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+    }
+}
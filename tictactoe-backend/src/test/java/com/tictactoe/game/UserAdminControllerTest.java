@@ -0,0 +1,128 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=false",
+    "tictactoe.admin.token=" + UserAdminControllerTest.TOKEN
+})
+@AutoConfigureMockMvc
+class UserAdminControllerTest {
+
+    static final String TOKEN = "test-admin-token-0123";
+    private static final String BEARER = "Bearer " + TOKEN;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void importsAndExportsTheSameUsersInBothFormats() throws Exception {
+        String lines = """
+                {"username":"round-trip-alice","wins":3,"losses":1,"draws":0,"currentStreak":2,"bestStreak":3}
+                {"username":"round-trip-bob","wins":0,"losses":4,"draws":5,"currentStreak":0,"bestStreak":1}
+                {"username":"round-trip-eve","wins":-1}
+                """;
+        mvc.perform(post("/api/admin/users").header(HttpHeaders.AUTHORIZATION, BEARER)
+                        .contentType("application/x-ndjson").content(lines))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"imported\":2,\"skipped\":1}"));
+
+        String ndjson = export("ndjson").getResponse().getContentAsString();
+        assertTrue(ndjson.contains("\"username\":\"round-trip-alice\",\"wins\":3,\"losses\":1,\"draws\":0,"
+                + "\"currentStreak\":2,\"bestStreak\":3}"), ndjson);
+        assertTrue(ndjson.contains("\"username\":\"round-trip-bob\",\"wins\":0,\"losses\":4,\"draws\":5,"
+                + "\"currentStreak\":0,\"bestStreak\":1}"), ndjson);
+        assertFalse(ndjson.contains("round-trip-eve"));
+
+        List<UserRecord> records = read(export("binary").getResponse().getContentAsByteArray());
+        UserRecord alice = find(records, "round-trip-alice");
+        assertEquals(3, alice.wins);
+        assertEquals(1, alice.losses);
+        assertEquals(3, alice.bestStreak);
+        assertTrue(alice.valid());
+        assertEquals(4 + 5, find(records, "round-trip-bob").games());
+
+        // The binary export imports back as is (the users are already there, so nothing changes);
+        // a record whose packed game has mode bits 3 is skipped
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        alice.write(out);
+        new UserRecord(-1, "round-trip-mallory", 1, 0, 0, 1, 1, 3L << 21 | 3L << 25 | 3L << 30, 0, null).write(out);
+        mvc.perform(post("/api/admin/users").header(HttpHeaders.AUTHORIZATION, BEARER)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"imported\":1,\"skipped\":1}"));
+        assertEquals(alice.wins, find(read(export("binary").getResponse().getContentAsByteArray()),
+                "round-trip-alice").wins);
+    }
+
+    @Test
+    void aTruncatedBinaryImportIsABadRequest() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        new UserRecord(-1, "round-trip-carol", 1, 0, 0, 1, 1, new Game().pack(), 0, null)
+                .write(new DataOutputStream(body));
+        byte[] bytes = body.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        mvc.perform(post("/api/admin/users").header(HttpHeaders.AUTHORIZATION, BEARER)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM).content(truncated))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void needsTheAdminToken() throws Exception {
+        mvc.perform(get("/api/admin/users")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/admin/users").header(HttpHeaders.AUTHORIZATION, "Bearer wrong-token-0000000"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/admin/users").contentType("application/x-ndjson").content("{\"username\":\"x\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private MvcResult export(String format) throws Exception {
+        MvcResult started = mvc.perform(get("/api/admin/users").param("format", format)
+                        .header(HttpHeaders.AUTHORIZATION, BEARER))
+                .andReturn();
+        return mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+    }
+
+    private static List<UserRecord> read(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        List<UserRecord> records = new ArrayList<>();
+        while (in.available() > 0) {
+            records.add(UserRecord.read(in));
+        }
+        return records;
+    }
+
+    private static UserRecord find(List<UserRecord> records, String username) {
+        return records.stream().filter(r -> r.username.equals(username)).findFirst()
+                .orElseThrow(() -> new AssertionError("no " + username));
+    }
+}
@@ -0,0 +1,105 @@
+package com.tictactoe.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.store.UserStore;
+
+class UserEvictionTest {
+
+    @Test
+    void idleUsersGoColdAndComeBackAsTheyWere() throws InterruptedException {
+        GameMetrics metrics = new GameMetrics();
+        // 1 s TTL; sweeps only when the test asks for one
+        UserService users = new UserService(UserStore.inMemory(), new Leaderboard(10), metrics,
+                new SessionConfig(1, 0, 0, 3600), Cluster.disabled());
+        try {
+            User idle = users.loginOrRegister("eviction-idle");
+            users.updateStats(idle.getId(), "X");
+            users.updateStats(idle.getId(), "Draw");
+            Game game = idle.getGame();
+            game.setMode(Game.GameMode.SINGLE_PLAYER);
+            game.makeMove(4);
+            game.makeMove(0);
+            String[] board = game.getBoard();
+            long version = game.getVersion();
+
+            User active = users.loginOrRegister("eviction-active");
+            Thread.sleep(1100);
+            users.getUserById(active.getId()); // touched: stays
+            users.sweep();
+            assertEquals(1, gauge(metrics, "tictactoe_cold_users"));
+            assertEquals(1, gauge(metrics, "tictactoe_hot_users"));
+            assertEquals(2, users.userCount());
+            assertSame(active, users.getUserById(active.getId()));
+
+            // Read in place, without loading it
+            assertEquals("eviction-idle", users.getUsername(idle.getId()));
+            assertEquals(1, gauge(metrics, "tictactoe_cold_users"));
+
+            User back = users.getUserById(idle.getId());
+            assertNotSame(idle, back);
+            assertEquals(0, gauge(metrics, "tictactoe_cold_users"));
+            assertEquals(1, back.getTotalWins());
+            assertEquals(1, back.getTotalDraws());
+            assertEquals(0, back.getCurrentStreak());
+            assertArrayEquals(board, back.getGame().getBoard());
+            assertEquals(version, back.getGame().getVersion());
+            assertEquals(Game.GameMode.SINGLE_PLAYER, back.getGame().getMode());
+            assertSame(back, users.loginOrRegister("eviction-idle")); // one live copy
+        } finally {
+            users.shutdown();
+        }
+    }
+
+    @Test
+    void theHeapBudgetEvictsTheLeastRecentlyUsed() throws InterruptedException {
+        GameMetrics metrics = new GameMetrics();
+        // 1 MB: about 1,700 users at the estimated cost of each
+        UserService users = new UserService(UserStore.inMemory(), new Leaderboard(10), metrics,
+                new SessionConfig(0, 1, 0, 3600), Cluster.disabled());
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                ids.add(users.loginOrRegister("budget-" + i).getId());
+            }
+            for (long id : ids) {
+                users.updateStats(id, "O");
+            }
+            Thread.sleep(20);
+            User recent = users.getUserById(ids.get(0));
+            Thread.sleep(20);
+            users.sweep();
+
+            long hot = gauge(metrics, "tictactoe_hot_users");
+            assertTrue(hot < 3000 && hot * 600 <= 1 << 20, hot + " hot users");
+            assertEquals(3000 - hot, gauge(metrics, "tictactoe_cold_users"));
+            assertEquals(3000, users.userCount());
+            // The one used last is kept; everyone comes back with their stats
+            assertSame(recent, users.getUserById(recent.getId()));
+            for (long id : ids) {
+                assertEquals(1, users.getUserStats(id).totalLosses);
+            }
+            assertEquals(0, gauge(metrics, "tictactoe_cold_users"));
+        } finally {
+            users.shutdown();
+        }
+    }
+
+    private static long gauge(GameMetrics metrics, String name) {
+        Matcher m = Pattern.compile("(?m)^" + name + " (\\d+)$").matcher(metrics.scrape());
+        assertTrue(m.find(), name);
+        return Long.parseLong(m.group(1));
+    }
+}
@@ -0,0 +1,67 @@
+package com.tictactoe.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+    @Test
+    void bucketsAreInclusiveAndExportedCumulatively() {
+        Histogram histogram = new Histogram(new long[] {10, 100}, 1);
+        histogram.record(0);
+        histogram.record(10);  // on the bound: in its bucket
+        histogram.record(11);
+        histogram.record(1000); // over every bound
+        assertEquals(4, histogram.count());
+
+        StringBuilder out = new StringBuilder();
+        histogram.writeTo(out, "nodes", "difficulty=\"HARD\"");
+        assertEquals("""
+                nodes_bucket{difficulty="HARD",le="10"} 2
+                nodes_bucket{difficulty="HARD",le="100"} 3
+                nodes_bucket{difficulty="HARD",le="+Inf"} 4
+                nodes_sum{difficulty="HARD"} 1021
+                nodes_count{difficulty="HARD"} 4
+                """, out.toString());
+    }
+
+    @Test
+    void latenciesAreRecordedInMicrosAndExportedInSeconds() {
+        Histogram histogram = Histogram.latency();
+        histogram.record(250);
+        histogram.record(1_500_000);
+        StringBuilder out = new StringBuilder();
+        histogram.writeTo(out, "latency", "");
+        String text = out.toString();
+        assertTrue(text.contains("latency_bucket{le=\"0.00005\"} 0\n"), text);
+        assertTrue(text.contains("latency_bucket{le=\"0.00025\"} 1\n"), text);
+        assertTrue(text.contains("latency_bucket{le=\"1\"} 1\n"), text);
+        assertTrue(text.contains("latency_bucket{le=\"2.5\"} 2\n"), text);
+        assertTrue(text.contains("latency_sum 1.50025\n"), text);
+        assertTrue(text.contains("latency_count 2\n"), text);
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        Histogram histogram = Histogram.latency();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i % 20_000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800_000, histogram.count());
+    }
+}
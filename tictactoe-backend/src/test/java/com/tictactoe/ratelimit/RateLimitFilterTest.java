@@ -0,0 +1,48 @@
+package com.tictactoe.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.tictactoe.Backend.TictactoeBackendApplication;
+
+@SpringBootTest(classes = TictactoeBackendApplication.class, properties = {
+    "tictactoe.store.enabled=false",
+    "tictactoe.ratelimit.enabled=true",
+    "tictactoe.ratelimit.login.per-ip=2",
+    "tictactoe.ratelimit.burst-seconds=5"
+})
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void otherSpellingsOfALimitedPathShareItsLimit() throws Exception {
+        // Logins: 2 a second from an address, 10 in a burst, whichever way the path is spelled
+        String[] paths = { "/api/users/login", "/api/users/%6cogin", "/api/users/login;a", "/api/users;a=b/login" };
+        for (int i = 0; i < 10; i++) {
+            int status = mvc.perform(post(URI.create(paths[i % paths.length] + "?username=limited-" + i))
+                            .with(r -> { r.setRemoteAddr("10.1.0.1"); return r; }))
+                    .andReturn().getResponse().getStatus();
+            assertNotEquals(429, status);
+        }
+        for (String path : paths) {
+            mvc.perform(post(URI.create(path + "?username=limited-x"))
+                            .with(r -> { r.setRemoteAddr("10.1.0.1"); return r; }))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        }
+    }
+}
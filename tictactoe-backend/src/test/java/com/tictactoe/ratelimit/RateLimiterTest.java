@@ -0,0 +1,94 @@
+package com.tictactoe.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.tictactoe.game.GameMetrics;
+import com.tictactoe.ratelimit.RateLimiter.Limit;
+
+class RateLimiterTest {
+
+    private RateLimiter limiter;
+
+    // Moves: 1 a second per user, 100 per address; a 5 second burst
+    private RateLimiter limiter(boolean enabled) {
+        limiter = new RateLimiter(enabled, 5, 60, 2, 1, 100, 2, 10, new GameMetrics());
+        return limiter;
+    }
+
+    @AfterEach
+    void shutdown() {
+        limiter.shutdown();
+    }
+
+    @Test
+    void aFullBucketTakesABurstThenMakesYouWait() {
+        RateLimiter limiter = limiter(true);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.1", 1));
+        }
+        long wait = limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.1", 1);
+        assertTrue(wait > 900 && wait <= 1000, "wait " + wait);
+        // Another user behind the same address has a bucket of their own
+        assertEquals(0, limiter.tryAcquire(Limit.MOVE, 2L, "10.0.0.1", 1));
+    }
+
+    @Test
+    void namingSomeoneElsesUserIdDoesNotDrainTheirBucket() {
+        RateLimiter limiter = limiter(true);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(Limit.MOVE, 7L, "10.0.0.66", 1));
+        }
+        assertTrue(limiter.tryAcquire(Limit.MOVE, 7L, "10.0.0.66", 1) > 0);
+        // User 7 playing from their own address still has a full bucket
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(Limit.MOVE, 7L, "10.0.0.7", 1));
+        }
+    }
+
+    @Test
+    void addressesAreLimitedWithoutAUser() {
+        RateLimiter limiter = limiter(true);
+        // Logins: 2 a second per address, so 10 in a burst
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire(Limit.LOGIN, null, "10.0.0.2", 1));
+        }
+        assertTrue(limiter.tryAcquire(Limit.LOGIN, null, "10.0.0.2", 1) > 0);
+        assertEquals(0, limiter.tryAcquire(Limit.LOGIN, null, "10.0.0.3", 1));
+    }
+
+    @Test
+    void aBatchBiggerThanTheBurstIsChargedInFull() {
+        RateLimiter limiter = limiter(true);
+        // 20 moves from a full 5-move bucket: allowed, leaving 15 seconds of debt
+        assertEquals(0, limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.4", 20));
+        long wait = limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.4", 1);
+        assertTrue(wait > 15_000 && wait <= 16_000, "wait " + wait);
+        // It needs a full bucket: one just emptied waits for all of it
+        assertEquals(0, limiter.tryAcquire(Limit.MOVE, 2L, "10.0.0.4", 5));
+        assertTrue(limiter.tryAcquire(Limit.MOVE, 2L, "10.0.0.4", 20) > 4_000);
+    }
+
+    @Test
+    void aUserRejectionRefundsTheAddress() {
+        RateLimiter limiter = limiter(true);
+        // The address allows 500 in a burst; user 1 gets 5 of them
+        assertEquals(0, limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.5", 5));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.5", 1) > 0);
+        }
+        // Had the rejected moves been charged, the address would be empty
+        assertEquals(0, limiter.tryAcquire(Limit.MOVE, 2L, "10.0.0.5", 5));
+    }
+
+    @Test
+    void disabledAllowsEverything() {
+        RateLimiter limiter = limiter(false);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.tryAcquire(Limit.MOVE, 1L, "10.0.0.6", 1));
+        }
+    }
+}
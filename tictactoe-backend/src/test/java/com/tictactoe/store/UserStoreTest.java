@@ -0,0 +1,213 @@
+package com.tictactoe.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tictactoe.cluster.Cluster;
+import com.tictactoe.game.GameMetrics;
+import com.tictactoe.game.Leaderboard;
+import com.tictactoe.game.SessionConfig;
+import com.tictactoe.game.User;
+import com.tictactoe.game.UserService;
+
+class UserStoreTest {
+
+    @TempDir
+    Path dir;
+
+    // Everything recovered, in order
+    private static final class Recorded implements UserStore.RecoveryHandler {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void register(long id, String username) {
+            events.add("register " + id + " " + username);
+        }
+
+        @Override
+        public void stats(long id, int wins, int losses, int draws, int currentStreak, int bestStreak) {
+            events.add("stats " + id + " " + wins + "/" + losses + "/" + draws + "/" + currentStreak + "/" + bestStreak);
+        }
+
+        @Override
+        public void remove(long id) {
+            events.add("remove " + id);
+        }
+    }
+
+    private UserStore store() {
+        return new UserStore(true, dir.toString(), true, 0, 1024);
+    }
+
+    // Opens a store without snapshots, logs three records and closes it, leaving them in the log
+    private Path logThreeRecords() {
+        UserStore store = store();
+        store.open(new Recorded(), null);
+        CompletableFuture.allOf(
+                store.logRegistration(1, "alice"),
+                store.logStats(1, 2, 1, 0, 1, 2),
+                store.logRegistration(2, "bob")).join();
+        store.close();
+        return onlySegment();
+    }
+
+    private Recorded reopen() {
+        Recorded recorded = new Recorded();
+        UserStore store = store();
+        store.open(recorded, null);
+        store.close();
+        return recorded;
+    }
+
+    @Test
+    void replaysTheLogAfterARestart() {
+        logThreeRecords();
+        assertEquals(List.of("register 1 alice", "stats 1 2/1/0/1/2", "register 2 bob"), reopen().events);
+    }
+
+    @Test
+    void cutsOffATornTail() throws IOException {
+        Path segment = logThreeRecords();
+        long full = Files.size(segment);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(full - 3); // the crash tore the last record
+        }
+        assertEquals(List.of("register 1 alice", "stats 1 2/1/0/1/2"), reopen().events);
+        assertTrue(Files.size(segment) < full - 3, "torn record cut off");
+
+        // New records go after what survived, in a segment of their own
+        UserStore store = store();
+        store.open(new Recorded(), null);
+        store.logRegistration(3, "carol").join();
+        store.close();
+        assertEquals(List.of("register 1 alice", "stats 1 2/1/0/1/2", "register 3 carol"), reopen().events);
+    }
+
+    @Test
+    void stopsAtARecordWithABadChecksum() throws IOException {
+        Path segment = logThreeRecords();
+        // The first record: 8 bytes of length and CRC, then type, ID, name length and "alice"
+        int firstRecord = 8 + 1 + 8 + 2 + 5;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long statsId = firstRecord + 8 + 1; // inside the second record's payload
+            file.seek(statsId);
+            int b = file.read();
+            file.seek(statsId);
+            file.write(b ^ 0x40);
+        }
+        assertEquals(List.of("register 1 alice"), reopen().events);
+        assertEquals(firstRecord, Files.size(segment));
+    }
+
+    @Test
+    void aSnapshotReplacesTheSegmentsItCovers() throws IOException {
+        UserStore store = store();
+        store.open(new Recorded(), out -> {
+            out.write(1, "alice", 5, 0, 0, 5, 5);
+            out.write(2, "bob", 0, 5, 0, 0, 0);
+        });
+        store.logRegistration(1, "alice").join();
+        store.snapshot();
+        store.logStats(2, 0, 6, 0, 0, 0).join();
+        store.logRemoval(1).join();
+        assertFalse(Files.exists(dir.resolve("log-000001.bin")), "covered by the snapshot");
+
+        // A crash now: the snapshot, then what was logged after it
+        Recorded recorded = reopen();
+        assertEquals(List.of("register 1 alice", "stats 1 5/0/0/5/5", "register 2 bob", "stats 2 0/5/0/0/0",
+                "stats 2 0/6/0/0/0", "remove 1"), recorded.events);
+        store.close();
+    }
+
+    @Test
+    void aCorruptSnapshotIsRefused() throws IOException {
+        UserStore store = store();
+        store.open(new Recorded(), out -> out.write(1, "alice", 1, 0, 0, 1, 1));
+        store.close();
+        Path snapshot = dir.resolve("snapshot.bin");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[14] ^= 1;
+        Files.write(snapshot, bytes);
+        assertThrows(IllegalStateException.class, () -> store().open(new Recorded(), null));
+    }
+
+    @Test
+    void anInterruptedEnqueueFailsAndKeepsTheInterrupt() {
+        UserStore store = store(); // not opened: nothing drains the queue
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(IllegalStateException.class, () -> store.logStats(1, 1, 0, 0, 1, 1));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void aUserServiceComesBackFromItsSnapshotAndLog() {
+        UserService before = userService();
+        User alice = before.loginOrRegister("alice");
+        User bob = before.loginOrRegister("bob");
+        before.updateStats(alice.getId(), "X");
+        before.updateStats(alice.getId(), "X");
+        before.updateStats(bob.getId(), "O");
+        before.shutdown();
+        storeOf.close(); // final snapshot: everything above
+
+        UserService after = userService();
+        after.updateStats(bob.getId(), "Draw"); // bob was restored cold
+        after.shutdown();
+        storeOf.close();
+
+        UserService restarted = userService();
+        assertEquals(alice.getId(), restarted.loginOrRegister("alice").getId());
+        User.UserStats aliceStats = restarted.getUserStats(alice.getId());
+        assertEquals(2, aliceStats.totalWins);
+        assertEquals(2, aliceStats.bestStreak);
+        User.UserStats bobStats = restarted.getUserStats(bob.getId());
+        assertEquals(1, bobStats.totalLosses);
+        assertEquals(1, bobStats.totalDraws);
+        restarted.shutdown();
+        storeOf.close();
+    }
+
+    private UserStore storeOf;
+
+    private UserService userService() {
+        storeOf = store();
+        return new UserService(storeOf, new Leaderboard(10), new GameMetrics(), SessionConfig.unbounded(),
+                Cluster.disabled());
+    }
+
+    private Path onlySegment() {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(p -> p.getFileName().toString().startsWith("log-"))
+                    .filter(p -> {
+                        try {
+                            return Files.size(p) > 0;
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    })
+                    .toList();
+            assertEquals(1, segments.size(), segments.toString());
+            return segments.get(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}